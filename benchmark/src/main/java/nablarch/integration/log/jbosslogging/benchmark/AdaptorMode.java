@@ -0,0 +1,40 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import nablarch.core.log.LogSettings;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+
+/**
+ * ベンチマークで使用するアダプタの動作モード。
+ * <p>
+ * モード毎に{@code benchmark/<モード名>.properties}の設定で{@link JbossLoggingLoggerFactory}を初期化する。
+ */
+public enum AdaptorMode {
+
+    /** デフォルト設定 */
+    DEFAULT,
+
+    /** メッセージテンプレートのキャッシュ */
+    TEMPLATE_CACHE,
+
+    /** ログレベルのキャッシュ */
+    LEVEL_CACHE,
+
+    /** 非同期出力 */
+    ASYNC,
+
+    /** メトリクスの記録 */
+    METRICS,
+
+    /** 仮想スレッドからの出力の引き継ぎ */
+    VIRTUAL_THREAD_HANDOFF;
+
+    /**
+     * このモードで初期化したファクトリを生成する。
+     * @return ファクトリ
+     */
+    public JbossLoggingLoggerFactory createFactory() {
+        final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+        factory.initialize(new LogSettings("classpath:benchmark/" + name().toLowerCase() + ".properties"));
+        return factory;
+    }
+}
@@ -0,0 +1,83 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.integration.log.jbosslogging.JbossLogger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+import nablarch.integration.log.jbosslogging.LogBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * バッチ処理の1件毎のログを、1件ずつ出力する場合と{@link LogBatch}でまとめて出力する場合を比較するベンチマーク。
+ * <p>
+ * 1回の呼び出しで{@value #ROWS}件のログを出力し、1件あたりの処理時間を測定する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchLoggingBenchmark {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.BatchLoggingBenchmark";
+
+    /** 1回の呼び出しで出力するログ件数 */
+    private static final int ROWS = 1000;
+
+    /** プロバイダ */
+    @Param({"JDK", "LOG4J2"})
+    public LoggingProvider provider;
+
+    /** ファクトリ */
+    private JbossLoggingLoggerFactory factory;
+
+    /** ロガー */
+    private JbossLogger logger;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider.install();
+        factory = AdaptorMode.DEFAULT.createFactory();
+        logger = (JbossLogger) factory.get(LOGGER_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.terminate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void perEvent() {
+        for (int i = 0; i < ROWS; i++) {
+            logger.logInfo("processed. id = [{0}]", i);
+            logger.logDebug("row detail. id = [{0}]", i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batched() {
+        try (LogBatch batch = logger.batch()) {
+            for (int i = 0; i < ROWS; i++) {
+                batch.logInfo("processed. id = [{0}]", i);
+                batch.logDebug("row detail. id = [{0}]", i);
+            }
+        }
+    }
+}
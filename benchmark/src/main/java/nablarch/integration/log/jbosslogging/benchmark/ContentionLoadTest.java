@@ -0,0 +1,441 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nablarch.core.log.Logger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+
+/**
+ * 多数のスレッドから同じロガーにログを出力し、出力1件あたりの応答時間の分布を測定する負荷試験。
+ * <p>
+ * プラットフォームスレッドと仮想スレッドから、指定した割合のログレベルと例外の有無でログを出力し続け、
+ * 呼び出し毎の応答時間を{@link LatencyHistogram}に記録する。
+ * プロバイダとアダプタの動作モードの組み合わせ毎に、スループット、50/99/99.9パーセンタイルと最大の応答時間、
+ * JFRの{@code jdk.GarbageCollection}イベントから求めたGCの停止時間、出力したバイト数を出力する。
+ * <p>
+ * 出力先は各プロバイダの標準的なファイル出力とし、デフォルトではtmpfs({@code /dev/shm})に出力する。
+ * jboss-loggingはプロバイダをJVMで一度だけ決定するため、プロバイダ毎に子プロセスを起動して測定する。
+ * <p>
+ * 各スレッドは前の呼び出しが終わり次第、次のログを出力する(クローズドループ)。
+ * このため、応答時間には呼び出しを待たされた時間(coordinated omission)を含まない。
+ * <pre>
+ * java -cp benchmark/target/benchmarks.jar \
+ *     nablarch.integration.log.jbosslogging.benchmark.ContentionLoadTest \
+ *     providers=JDK,LOG4J2 modes=DEFAULT,ASYNC platformThreads=200 virtualThreads=0 \
+ *     warmupSeconds=5 seconds=10 levels=DEBUG:50,INFO:40,WARN:8,ERROR:2 throwableRate=0.01 dir=/dev/shm
+ * </pre>
+ * 仮想スレッドを使用する場合は、仮想スレッドをサポートするJava(21以降)で実行すること。
+ */
+public final class ContentionLoadTest {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.ContentionLoadTest";
+
+    /** GCを記録するJFRのイベント */
+    private static final String GC_EVENT = "jdk.GarbageCollection";
+
+    /** デフォルトの設定 */
+    private static final String[][] DEFAULTS = {
+            {"providers", "JDK,LOG4J2,JBOSS,SLF4J"},
+            {"modes", "DEFAULT,TEMPLATE_CACHE,ASYNC"},
+            {"platformThreads", "200"},
+            {"virtualThreads", "0"},
+            {"warmupSeconds", "5"},
+            {"seconds", "10"},
+            {"levels", "DEBUG:50,INFO:40,WARN:8,ERROR:2"},
+            {"throwableRate", "0.01"},
+            {"dir", Files.isDirectory(Paths.get("/dev/shm")) ? "/dev/shm" : System.getProperty("java.io.tmpdir")},
+    };
+
+    /** ログに付与する例外 */
+    private static final Throwable ERROR = new IllegalStateException("simulated failure.",
+            new IOException("connection reset."));
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private ContentionLoadTest() {
+    }
+
+    /**
+     * 負荷試験を実行する。
+     * <p>
+     * 引数は{@code 名前=値}の形式で指定する。指定しなかった項目はデフォルト値とする。
+     * {@code provider}を指定した場合は、子プロセスを起動せずにそのプロバイダのみ測定する。
+     *
+     * @param args 設定
+     * @throws Exception 負荷試験に失敗した場合
+     */
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = parseOptions(args);
+        final int virtualThreads = Integer.parseInt(options.get("virtualThreads"));
+        if (virtualThreads > 0 && Runtime.version().feature() < 21) {
+            System.out.println("virtual threads are not supported. java version = [" + Runtime.version() + ']');
+            return;
+        }
+        final String provider = options.get("provider");
+        if (provider != null) {
+            if (!Boolean.parseBoolean(options.get("forked"))) {
+                printHeader(options);
+            }
+            runProvider(LoggingProvider.valueOf(provider), options);
+            return;
+        }
+        printHeader(options);
+        for (String name : options.get("providers").split(",")) {
+            fork(name.trim(), args);
+        }
+    }
+
+    /**
+     * 引数を解析する。
+     * @param args 引数
+     * @return 設定
+     */
+    private static Map<String, String> parseOptions(final String[] args) {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (String[] option : DEFAULTS) {
+            options.put(option[0], option[1]);
+        }
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("argument must be name=value. argument = [" + arg + ']');
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * 設定と結果の見出しを出力する。
+     * @param options 設定
+     */
+    private static void printHeader(final Map<String, String> options) {
+        System.out.printf("platform threads = %s, virtual threads = %s, warmup = %ss, measurement = %ss%n",
+                options.get("platformThreads"), options.get("virtualThreads"), options.get("warmupSeconds"),
+                options.get("seconds"));
+        System.out.printf("levels = %s, throwable rate = %s, dir = %s%n", options.get("levels"),
+                options.get("throwableRate"), options.get("dir"));
+        System.out.printf("%-8s %-24s %12s %10s %10s %10s %10s %8s %12s %12s %10s%n", "provider", "mode",
+                "calls/sec", "p50 us", "p99 us", "p99.9 us", "max us", "gc", "gc pause ms", "max pause ms",
+                "MB written");
+    }
+
+    /**
+     * プロバイダを指定した子プロセスで負荷試験を実行する。
+     * <p>
+     * 子プロセスには、このプロセスと同じJVMの引数とクラスパスを指定する。
+     *
+     * @param provider プロバイダ名
+     * @param args このプロセスの引数
+     * @throws Exception 子プロセスの実行に失敗した場合
+     */
+    private static void fork(final String provider, final String[] args) throws Exception {
+        final List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ContentionLoadTest.class.getName());
+        for (String arg : args) {
+            command.add(arg);
+        }
+        command.add("provider=" + provider);
+        command.add("forked=true");
+        final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("load test failed. provider = [" + provider + "], exit code = ["
+                    + exitCode + ']');
+        }
+    }
+
+    /**
+     * 指定したプロバイダで、全ての動作モードの負荷試験を実行する。
+     * @param provider プロバイダ
+     * @param options 設定
+     * @throws Exception 負荷試験に失敗した場合
+     */
+    private static void runProvider(final LoggingProvider provider, final Map<String, String> options)
+            throws Exception {
+        final Path file = Paths.get(options.get("dir")).resolve("contentionLoadTest-" + provider + ".log");
+        provider.install(file);
+        final Workload workload = new Workload(options);
+        try {
+            for (String name : options.get("modes").split(",")) {
+                final AdaptorMode mode = AdaptorMode.valueOf(name.trim());
+                final Result result = run(mode, workload, file);
+                System.out.printf("%-8s %-24s %12d %10.1f %10.1f %10.1f %10.1f %8d %12d %12d %10.1f%n",
+                        provider, mode, result.throughput(),
+                        micros(result.latency.getValueAtPercentile(50.0)),
+                        micros(result.latency.getValueAtPercentile(99.0)),
+                        micros(result.latency.getValueAtPercentile(99.9)),
+                        micros(result.latency.getMax()),
+                        result.gcCount, TimeUnit.NANOSECONDS.toMillis(result.gcPauseNanos),
+                        TimeUnit.NANOSECONDS.toMillis(result.gcMaxPauseNanos), result.bytesWritten / 1048576.0);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 指定したモードでウォームアップの後に負荷をかけ、結果を測定する。
+     * <p>
+     * 出力したバイト数は、ファクトリの停止(非同期出力の場合は残りのログの出力)後に測定する。
+     *
+     * @param mode アダプタの動作モード
+     * @param workload 負荷の内容
+     * @param file 出力先のファイル
+     * @return 結果
+     * @throws Exception 負荷試験に失敗した場合
+     */
+    private static Result run(final AdaptorMode mode, final Workload workload, final Path file) throws Exception {
+        final JbossLoggingLoggerFactory factory = mode.createFactory();
+        final Logger logger = factory.get(LOGGER_NAME);
+        workload.drive(logger, workload.warmupSeconds);
+
+        final Path jfrFile = Files.createTempFile("contentionLoadTest", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(GC_EVENT).withThreshold(Duration.ZERO);
+            recording.start();
+            final long sizeBefore = Files.size(file);
+            final LatencyHistogram latency = workload.drive(logger, workload.seconds);
+            factory.terminate();
+            final long bytesWritten = Files.size(file) - sizeBefore;
+            recording.stop();
+            recording.dump(jfrFile);
+
+            long gcCount = 0;
+            long gcPauseNanos = 0;
+            long gcMaxPauseNanos = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(jfrFile)) {
+                if (GC_EVENT.equals(event.getEventType().getName())) {
+                    gcCount++;
+                    gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+                    gcMaxPauseNanos = Math.max(gcMaxPauseNanos, event.getDuration("longestPause").toNanos());
+                }
+            }
+            return new Result(latency, TimeUnit.SECONDS.toNanos(workload.seconds), gcCount, gcPauseNanos, gcMaxPauseNanos, bytesWritten);
+        } finally {
+            Files.deleteIfExists(jfrFile);
+        }
+    }
+
+    /**
+     * ナノ秒をマイクロ秒に変換する。
+     * @param nanos ナノ秒
+     * @return マイクロ秒
+     */
+    private static double micros(final long nanos) {
+        return nanos / 1000.0;
+    }
+
+    /**
+     * 負荷の内容。
+     */
+    private static final class Workload {
+
+        /** プラットフォームスレッド数 */
+        private final int platformThreads;
+
+        /** 仮想スレッド数 */
+        private final int virtualThreads;
+
+        /** ウォームアップ時間(秒) */
+        private final int warmupSeconds;
+
+        /** 測定時間(秒) */
+        private final int seconds;
+
+        /** ログレベル */
+        private final org.jboss.logging.Logger.Level[] levels;
+
+        /** ログレベル毎の累積の重み */
+        private final int[] cumulativeWeights;
+
+        /** 例外を付与する割合 */
+        private final double throwableRate;
+
+        /**
+         * 設定から負荷の内容を生成する。
+         * @param options 設定
+         */
+        private Workload(final Map<String, String> options) {
+            this.platformThreads = Integer.parseInt(options.get("platformThreads"));
+            this.virtualThreads = Integer.parseInt(options.get("virtualThreads"));
+            this.warmupSeconds = Integer.parseInt(options.get("warmupSeconds"));
+            this.seconds = Integer.parseInt(options.get("seconds"));
+            this.throwableRate = Double.parseDouble(options.get("throwableRate"));
+            final String[] entries = options.get("levels").split(",");
+            this.levels = new org.jboss.logging.Logger.Level[entries.length];
+            this.cumulativeWeights = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                final String[] entry = entries[i].trim().split(":");
+                levels[i] = org.jboss.logging.Logger.Level.valueOf(entry[0]);
+                total += Integer.parseInt(entry[1]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        /**
+         * 全てのスレッドから指定した時間ログを出力し続け、応答時間を集計する。
+         * @param logger ロガー
+         * @param durationSeconds 時間(秒)
+         * @return 全てのスレッドの応答時間
+         * @throws Exception スレッドの実行に失敗した場合
+         */
+        private LatencyHistogram drive(final Logger logger, final int durationSeconds) throws Exception {
+            final List<LatencyHistogram> histograms = new CopyOnWriteArrayList<>();
+            final CountDownLatch startGate = new CountDownLatch(1);
+            final long[] deadline = new long[1];
+            final List<ExecutorService> executors = new ArrayList<>();
+            if (platformThreads > 0) {
+                executors.add(Executors.newFixedThreadPool(platformThreads));
+            }
+            if (virtualThreads > 0) {
+                executors.add((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null));
+            }
+            int thread = 0;
+            for (ExecutorService executor : executors) {
+                final int threads = executor == executors.get(0) && platformThreads > 0
+                        ? platformThreads : virtualThreads;
+                for (int i = 0; i < threads; i++) {
+                    final int number = thread++;
+                    executor.execute(() -> {
+                        final LatencyHistogram histogram = new LatencyHistogram();
+                        try {
+                            startGate.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        final long end = deadline[0];
+                        long sequence = 0;
+                        while (System.nanoTime() - end < 0) {
+                            histogram.record(call(logger, number, sequence++));
+                        }
+                        histograms.add(histogram);
+                    });
+                }
+            }
+            deadline[0] = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+            startGate.countDown();
+            for (ExecutorService executor : executors) {
+                executor.shutdown();
+            }
+            for (ExecutorService executor : executors) {
+                if (!executor.awaitTermination(durationSeconds + 60L, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("load test did not finish.");
+                }
+            }
+            final LatencyHistogram total = new LatencyHistogram();
+            for (LatencyHistogram histogram : histograms) {
+                total.add(histogram);
+            }
+            return total;
+        }
+
+        /**
+         * ログレベルと例外の有無を決めてログを1件出力し、応答時間を返す。
+         * @param logger ロガー
+         * @param thread スレッドの番号
+         * @param sequence スレッド内の連番
+         * @return 応答時間(ナノ秒)
+         */
+        private long call(final Logger logger, final int thread, final long sequence) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int weight = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int index = 0;
+            while (weight >= cumulativeWeights[index]) {
+                index++;
+            }
+            final Throwable error = random.nextDouble() < throwableRate ? ERROR : null;
+            final String message = "request processed. thread = [{0}], sequence = [{1}]";
+            final long start = System.nanoTime();
+            switch (levels[index]) {
+                case FATAL:
+                    logger.logFatal(message, error, thread, sequence);
+                    break;
+                case ERROR:
+                    logger.logError(message, error, thread, sequence);
+                    break;
+                case WARN:
+                    logger.logWarn(message, error, thread, sequence);
+                    break;
+                case INFO:
+                    logger.logInfo(message, error, thread, sequence);
+                    break;
+                case DEBUG:
+                    logger.logDebug(message, error, thread, sequence);
+                    break;
+                default:
+                    logger.logTrace(message, error, thread, sequence);
+                    break;
+            }
+            return System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * 負荷試験の結果。
+     */
+    private static final class Result {
+
+        /** 応答時間 */
+        private final LatencyHistogram latency;
+
+        /** 測定時間(ナノ秒) */
+        private final long elapsedNanos;
+
+        /** GCの回数 */
+        private final long gcCount;
+
+        /** GCによる停止時間の合計(ナノ秒) */
+        private final long gcPauseNanos;
+
+        /** GCによる停止時間の最大(ナノ秒) */
+        private final long gcMaxPauseNanos;
+
+        /** 出力したバイト数 */
+        private final long bytesWritten;
+
+        private Result(final LatencyHistogram latency, final long elapsedNanos, final long gcCount,
+                final long gcPauseNanos, final long gcMaxPauseNanos, final long bytesWritten) {
+            this.latency = latency;
+            this.elapsedNanos = elapsedNanos;
+            this.gcCount = gcCount;
+            this.gcPauseNanos = gcPauseNanos;
+            this.gcMaxPauseNanos = gcMaxPauseNanos;
+            this.bytesWritten = bytesWritten;
+        }
+
+        /**
+         * 1秒あたりの呼び出し回数を取得する。
+         * @return 1秒あたりの呼び出し回数
+         */
+        private long throughput() {
+            return latency.getTotalCount() * TimeUnit.SECONDS.toNanos(1) / Math.max(1L, elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link nablarch.integration.log.jbosslogging.JbossLogger}のベンチマーク。
+ * <p>
+ * {@code adaptor}で始まるベンチマークはアダプタ経由で、{@code direct}で始まるベンチマークは
+ * {@link org.jboss.logging.Logger}を直接呼び出して測定する。
+ * 両者の差がアダプタのオーバーヘッドとなる。
+ * <p>
+ * プロバイダはJVMで一度だけ決定されるため、パラメータの組み合わせ毎に別のJVMで実行する。
+ * アロケーションレートは{@code -prof gc}を指定して測定する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JbossLoggerBenchmark {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.JbossLoggerBenchmark";
+
+    /** プロバイダ */
+    @Param({"JDK", "SLF4J", "LOG4J2", "JBOSS"})
+    public LoggingProvider provider;
+
+    /** アダプタの動作モード */
+    @Param({"DEFAULT"})
+    public AdaptorMode mode;
+
+    /** ファクトリ */
+    private JbossLoggingLoggerFactory factory;
+
+    /** アダプタ経由のロガー */
+    private Logger adaptor;
+
+    /** jboss-loggingのロガー */
+    private org.jboss.logging.Logger direct;
+
+    /** 埋め込む値 */
+    private String stringValue = "value";
+
+    /** 埋め込む値 */
+    private Integer intValue = 12345;
+
+    /** 埋め込む値 */
+    private Long longValue = 9876543210L;
+
+    /** エラー情報 */
+    private Throwable error;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider.install();
+        factory = mode.createFactory();
+        adaptor = factory.get(LOGGER_NAME);
+        direct = org.jboss.logging.Logger.getLogger(LOGGER_NAME);
+        error = new IllegalStateException("benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.terminate();
+    }
+
+    @Benchmark
+    public boolean adaptorIsDebugEnabled() {
+        return adaptor.isDebugEnabled();
+    }
+
+    @Benchmark
+    public boolean directIsDebugEnabled() {
+        return direct.isEnabled(org.jboss.logging.Logger.Level.DEBUG);
+    }
+
+    @Benchmark
+    public void adaptorLogDebugDisabled() {
+        adaptor.logDebug("debug {0}", stringValue);
+    }
+
+    @Benchmark
+    public void directLogDebugDisabled() {
+        direct.debugv("debug {0}", stringValue);
+    }
+
+    @Benchmark
+    public void adaptorLogInfo0() {
+        adaptor.logInfo("request completed");
+    }
+
+    @Benchmark
+    public void directLogInfo0() {
+        direct.infov("request completed");
+    }
+
+    @Benchmark
+    public void adaptorLogInfo1() {
+        adaptor.logInfo("request completed: {0}", stringValue);
+    }
+
+    @Benchmark
+    public void directLogInfo1() {
+        direct.infov("request completed: {0}", stringValue);
+    }
+
+    @Benchmark
+    public void adaptorLogInfo3() {
+        adaptor.logInfo("request completed: {0}, {1}, {2}", stringValue, intValue, longValue);
+    }
+
+    @Benchmark
+    public void directLogInfo3() {
+        direct.infov("request completed: {0}, {1}, {2}", stringValue, intValue, longValue);
+    }
+
+    @Benchmark
+    public void adaptorLogInfoMany() {
+        adaptor.logInfo("request completed: {0}, {1}, {2}, {3}, {4}, {5}, {6}, {7}",
+                stringValue, intValue, longValue, stringValue, intValue, longValue, stringValue, intValue);
+    }
+
+    @Benchmark
+    public void directLogInfoMany() {
+        direct.infov("request completed: {0}, {1}, {2}, {3}, {4}, {5}, {6}, {7}",
+                stringValue, intValue, longValue, stringValue, intValue, longValue, stringValue, intValue);
+    }
+
+    @Benchmark
+    public void adaptorLogErrorWithThrowable() {
+        adaptor.logError("request failed: {0}", error, stringValue);
+    }
+
+    @Benchmark
+    public void directLogErrorWithThrowable() {
+        direct.errorv(error, "request failed: {0}", stringValue);
+    }
+
+    @Benchmark
+    public Logger adaptorFactoryGet() {
+        return factory.get(LOGGER_NAME);
+    }
+
+    @Benchmark
+    public org.jboss.logging.Logger directGetLogger() {
+        return org.jboss.logging.Logger.getLogger(LOGGER_NAME);
+    }
+}
@@ -0,0 +1,141 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+/**
+ * 応答時間(ナノ秒)の分布を記録するヒストグラム。
+ * <p>
+ * HdrHistogramと同じ対数線形の区間で記録する。
+ * 2の累乗毎の区間を{@value #SUB_BUCKET_HALF_COUNT}個の等幅の区間に分割するため、
+ * パーセンタイルの誤差は値の1%未満となる。記録できる上限({@value #MAX_TRACKABLE_BIT_LENGTH}ビット、約18分)を
+ * 超える値は最大の区間に記録する。最大値は正確な値を保持する。
+ * <p>
+ * 記録時に排他制御を行わないため、スレッド毎に生成し、測定後に{@link #add(LatencyHistogram)}で集計すること。
+ */
+final class LatencyHistogram {
+
+    /** 2の累乗毎の区間を分割する数の指数 */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /** 2の累乗毎の区間を分割する数 */
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** 最初の区間の分割数(0から{@code 2 * SUB_BUCKET_HALF_COUNT}までを1刻みで記録する) */
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+
+    /** 記録できる値のビット長の上限 */
+    private static final int MAX_TRACKABLE_BIT_LENGTH = 40;
+
+    /** 区間毎の件数 */
+    private final long[] counts =
+            new long[(MAX_TRACKABLE_BIT_LENGTH - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF_COUNT];
+
+    /** 記録した件数 */
+    private long totalCount;
+
+    /** 記録した最大値 */
+    private long max;
+
+    /** 記録した値の合計 */
+    private long sum;
+
+    /**
+     * 値を記録する。
+     * @param value 値(ナノ秒)。負の値は0として記録する。
+     */
+    void record(final long value) {
+        final long normalized = Math.max(0L, value);
+        counts[Math.min(indexOf(normalized), counts.length - 1)]++;
+        totalCount++;
+        sum += normalized;
+        if (normalized > max) {
+            max = normalized;
+        }
+    }
+
+    /**
+     * 他のヒストグラムの記録を加算する。
+     * @param other 加算するヒストグラム
+     */
+    void add(final LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 記録した件数を取得する。
+     * @return 件数
+     */
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 記録した最大値を取得する。
+     * @return 最大値(ナノ秒)
+     */
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * 記録した値の平均を取得する。
+     * @return 平均(ナノ秒)。記録がない場合は0
+     */
+    double getMean() {
+        return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+    }
+
+    /**
+     * 指定したパーセンタイルの値を取得する。
+     * <p>
+     * 値を含む区間の上限を返す。ただし、最大値を超える場合は最大値を返す。
+     *
+     * @param percentile パーセンタイル(0から100)
+     * @return 値(ナノ秒)。記録がない場合は0
+     */
+    long getValueAtPercentile(final double percentile) {
+        if (totalCount == 0) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long accumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 値を記録する区間の位置を取得する。
+     * @param value 値
+     * @return 区間の位置
+     */
+    private static int indexOf(final long value) {
+        final int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS + 1));
+        final int subBucket = (int) (value >>> bucket);
+        if (bucket == 0) {
+            return subBucket;
+        }
+        return (bucket + 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * 区間に含まれる値の上限を取得する。
+     * @param index 区間の位置
+     * @return 上限
+     */
+    private static long highestEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int bucket = index / SUB_BUCKET_HALF_COUNT - 1;
+        final long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << bucket) - 1;
+    }
+}
@@ -0,0 +1,249 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.FileAppender;
+import org.apache.logging.log4j.core.appender.OutputStreamAppender;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+/**
+ * ベンチマークで使用するjboss-loggingのプロバイダ。
+ * <p>
+ * 各プロバイダは、ログレベルをINFOとし、書式化したメッセージを破棄する出力先を設定する。
+ * ディスクI/Oではなく、アダプタとプロバイダの処理時間を測定するためである。
+ * 負荷試験では{@link #install(Path)}で、各プロバイダの標準的なファイル出力を設定する。
+ * <p>
+ * jboss-loggingはプロバイダをJVMで一度だけ決定するため、{@link #install()}または{@link #install(Path)}は
+ * {@link org.jboss.logging.Logger}を使用する前に呼び出すこと。
+ */
+public enum LoggingProvider {
+
+    /** java.util.logging */
+    JDK("jdk", "JDKLogger") {
+        @Override
+        void configure() {
+            configureJdk(new DiscardingHandler());
+        }
+
+        @Override
+        void configure(final Path file) throws IOException {
+            final FileHandler handler = new FileHandler(file.toString(), false);
+            handler.setFormatter(new SimpleFormatter());
+            configureJdk(handler);
+        }
+    },
+
+    /** SLF4J(slf4j-simple) */
+    SLF4J("slf4j", "Slf4j") {
+        @Override
+        void configure() {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "info");
+            System.setProperty("org.slf4j.simpleLogger.logFile", "System.out");
+            System.setProperty("org.slf4j.simpleLogger.cacheOutputStream", "false");
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @Override
+        void configure(final Path file) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "info");
+            System.setProperty("org.slf4j.simpleLogger.logFile", file.toString());
+            System.setProperty("org.slf4j.simpleLogger.showDateTime", "true");
+        }
+    },
+
+    /** Log4j 2 */
+    LOG4J2("log4j2", "Log4j2Logger") {
+        @Override
+        void configure() {
+            configureLog4j2(OutputStreamAppender.newBuilder()
+                    .setName("discard")
+                    .setTarget(OutputStream.nullOutputStream())
+                    .setLayout(log4j2Layout())
+                    .build());
+        }
+
+        @Override
+        void configure(final Path file) {
+            configureLog4j2(FileAppender.newBuilder()
+                    .setName("file")
+                    .withFileName(file.toString())
+                    .withAppend(false)
+                    .setLayout(log4j2Layout())
+                    .build());
+        }
+    },
+
+    /** JBoss LogManager */
+    JBOSS("jboss", "JBossLogManagerLogger") {
+        @Override
+        void configure() {
+            System.setProperty("java.util.logging.manager", "org.jboss.logmanager.LogManager");
+            configureJboss(new org.jboss.logmanager.ExtHandler() {
+                @Override
+                protected void doPublish(final org.jboss.logmanager.ExtLogRecord record) {
+                    record.getFormattedMessage();
+                }
+            });
+        }
+
+        @Override
+        void configure(final Path file) throws IOException {
+            // 出力先の生成時にログマネージャを参照するため、先にログマネージャを指定する
+            System.setProperty("java.util.logging.manager", "org.jboss.logmanager.LogManager");
+            configureJboss(new org.jboss.logmanager.handlers.FileHandler(
+                    new org.jboss.logmanager.formatters.PatternFormatter("%d %-5p [%c] %s%e%n"), file.toFile(), false));
+        }
+    };
+
+    /** jboss-loggingのプロバイダ名 */
+    private final String providerName;
+
+    /** jboss-loggingがこのプロバイダで生成するロガーのクラス名の接頭辞 */
+    private final String loggerClassPrefix;
+
+    /**
+     * プロバイダを生成する。
+     * @param providerName jboss-loggingのプロバイダ名
+     * @param loggerClassPrefix jboss-loggingがこのプロバイダで生成するロガーのクラス名の接頭辞
+     */
+    LoggingProvider(final String providerName, final String loggerClassPrefix) {
+        this.providerName = providerName;
+        this.loggerClassPrefix = loggerClassPrefix;
+    }
+
+    /**
+     * ログ出力ライブラリを設定し、jboss-loggingが使用するプロバイダとして指定する。
+     * <p>
+     * jboss-loggingが既に別のプロバイダを使用している場合は例外を送出する。
+     */
+    public void install() {
+        configure();
+        bind();
+    }
+
+    /**
+     * ログ出力ライブラリにファイルへの出力を設定し、jboss-loggingが使用するプロバイダとして指定する。
+     * <p>
+     * jboss-loggingが既に別のプロバイダを使用している場合は例外を送出する。
+     *
+     * @param file 出力先のファイル
+     * @throws IOException ファイルを開けない場合
+     */
+    public void install(final Path file) throws IOException {
+        configure(file);
+        bind();
+    }
+
+    /**
+     * jboss-loggingが使用するプロバイダとして指定する。
+     */
+    private void bind() {
+        System.setProperty("org.jboss.logging.provider", providerName);
+        final String loggerClass = org.jboss.logging.Logger.getLogger("benchmark").getClass().getSimpleName();
+        if (!loggerClass.startsWith(loggerClassPrefix)) {
+            throw new IllegalStateException(
+                    "jboss-logging is not bound to " + this + ". logger class = [" + loggerClass + ']');
+        }
+    }
+
+    /**
+     * ログ出力ライブラリを設定する。
+     */
+    abstract void configure();
+
+    /**
+     * ログ出力ライブラリにファイルへの出力を設定する。
+     * @param file 出力先のファイル
+     * @throws IOException ファイルを開けない場合
+     */
+    abstract void configure(Path file) throws IOException;
+
+    /**
+     * java.util.loggingのルートロガーの出力先を置き換える。
+     * @param handler 出力先
+     */
+    private static void configureJdk(final Handler handler) {
+        final java.util.logging.Logger root = java.util.logging.Logger.getLogger("");
+        for (Handler existing : root.getHandlers()) {
+            root.removeHandler(existing);
+        }
+        root.addHandler(handler);
+        root.setLevel(java.util.logging.Level.INFO);
+    }
+
+    /**
+     * Log4j 2を初期化し、ルートロガーの出力先を設定する。
+     * @param appender 出力先
+     */
+    private static void configureLog4j2(final Appender appender) {
+        final ConfigurationBuilder<BuiltConfiguration> builder =
+                ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.setStatusLevel(org.apache.logging.log4j.Level.ERROR);
+        builder.add(builder.newRootLogger(org.apache.logging.log4j.Level.INFO));
+        final LoggerContext context = Configurator.initialize(builder.build());
+
+        appender.start();
+        context.getConfiguration().addAppender(appender);
+        context.getConfiguration().getRootLogger().addAppender(appender, null, null);
+        context.updateLoggers();
+    }
+
+    /**
+     * Log4j 2の出力形式を生成する。
+     * @return 出力形式
+     */
+    private static PatternLayout log4j2Layout() {
+        return PatternLayout.newBuilder().withPattern("%d %-5p [%c] %m%n").build();
+    }
+
+    /**
+     * JBoss LogManagerのルートロガーの出力先を置き換える。
+     * <p>
+     * 呼び出す前に、JBoss LogManagerをログマネージャとして指定すること。
+     *
+     * @param handler 出力先
+     */
+    private static void configureJboss(final Handler handler) {
+        final org.jboss.logmanager.Logger root = org.jboss.logmanager.Logger.getLogger("");
+        root.clearHandlers();
+        root.addHandler(handler);
+        root.setLevel(java.util.logging.Level.INFO);
+    }
+
+    /**
+     * 書式化したメッセージを破棄するハンドラ。
+     */
+    private static final class DiscardingHandler extends Handler {
+
+        /** メッセージの書式化に使用するフォーマッタ */
+        private final SimpleFormatter formatter = new SimpleFormatter();
+
+        @Override
+        public void publish(final LogRecord record) {
+            if (isLoggable(record)) {
+                formatter.formatMessage(record);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * メトリクスのオーバーヘッドを測定するベンチマーク。
+ * <p>
+ * メトリクスが無効なアダプタ、有効なアダプタ、{@link org.jboss.logging.Logger}の直接呼び出しを同じJVMで比較する。
+ * メトリクスが無効なアダプタと直接呼び出しの差が誤差の範囲であることを確認する。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsOverheadBenchmark {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.MetricsOverheadBenchmark";
+
+    /** プロバイダ */
+    @Param({"JDK", "LOG4J2"})
+    public LoggingProvider provider;
+
+    /** メトリクスが無効なファクトリ */
+    private JbossLoggingLoggerFactory metricsOffFactory;
+
+    /** メトリクスが有効なファクトリ */
+    private JbossLoggingLoggerFactory metricsOnFactory;
+
+    /** メトリクスが無効なロガー */
+    private Logger metricsOff;
+
+    /** メトリクスが有効なロガー */
+    private Logger metricsOn;
+
+    /** jboss-loggingのロガー */
+    private org.jboss.logging.Logger direct;
+
+    /** 埋め込む値 */
+    private String value = "value";
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider.install();
+        metricsOffFactory = AdaptorMode.DEFAULT.createFactory();
+        metricsOnFactory = AdaptorMode.METRICS.createFactory();
+        metricsOff = metricsOffFactory.get(LOGGER_NAME);
+        metricsOn = metricsOnFactory.get(LOGGER_NAME);
+        direct = org.jboss.logging.Logger.getLogger(LOGGER_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        metricsOffFactory.terminate();
+        metricsOnFactory.terminate();
+    }
+
+    @Benchmark
+    public void disabledMetricsOff() {
+        metricsOff.logDebug("debug {0}", value);
+    }
+
+    @Benchmark
+    public void disabledMetricsOn() {
+        metricsOn.logDebug("debug {0}", value);
+    }
+
+    @Benchmark
+    public void disabledDirect() {
+        direct.debugv("debug {0}", value);
+    }
+
+    @Benchmark
+    public void enabledMetricsOff() {
+        metricsOff.logInfo("info {0}", value);
+    }
+
+    @Benchmark
+    public void enabledMetricsOn() {
+        metricsOn.logInfo("info {0}", value);
+    }
+
+    @Benchmark
+    public void enabledDirect() {
+        direct.infov("info {0}", value);
+    }
+}
@@ -0,0 +1,30 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import nablarch.integration.log.jbosslogging.LogMessage;
+import nablarch.integration.log.jbosslogging.TypedLogger;
+import org.jboss.logging.Logger.Level;
+
+/**
+ * {@link TypedLoggerBenchmark}で使用する型付きのロガー。
+ * <p>
+ * 実装クラスはコンパイル時にアノテーションプロセッサが生成する。
+ */
+@TypedLogger
+public interface OrderLog {
+
+    /**
+     * 注文の受付を出力する。
+     * @param user ユーザ
+     * @param count 件数
+     */
+    @LogMessage(level = Level.INFO, value = "order accepted. user = [{0}], count = [{1}]")
+    void orderAccepted(String user, long count);
+
+    /**
+     * 注文の詳細を出力する。
+     * @param user ユーザ
+     * @param count 件数
+     */
+    @LogMessage(level = Level.DEBUG, value = "order detail. user = [{0}], count = [{1}]")
+    void orderDetail(String user, long count);
+}
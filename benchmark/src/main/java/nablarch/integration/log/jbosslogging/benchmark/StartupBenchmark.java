@@ -0,0 +1,58 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.LogSettings;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 起動時間のベンチマーク。
+ * <p>
+ * JVM起動直後に、ファクトリの初期化から最初のログ出力までに要する時間を測定する。
+ * プロバイダはLog4j 2とし、jboss-loggingによるプロバイダの探索({@code DISCOVERY})と、
+ * {@code jbossLogging.provider}による明示的な指定({@code EXPLICIT})を比較する。
+ * <p>
+ * 初回の呼び出しのみを測定するため、フォーク毎に1回だけ実行する。
+ * Log4j 2自体の初期化は測定の対象外とする。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+    /** プロバイダの決定方法 */
+    @Param({"DISCOVERY", "EXPLICIT"})
+    public String binding;
+
+    /** 設定 */
+    private LogSettings settings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LoggingProvider.LOG4J2.configure();
+        settings = new LogSettings("classpath:benchmark/startup_" + binding.toLowerCase() + ".properties");
+    }
+
+    @Benchmark
+    public JbossLoggingLoggerFactory initializeAndLog() {
+        final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+        factory.initialize(settings);
+        factory.get("nablarch.benchmark.StartupBenchmark").logInfo("started {0}", binding);
+        return factory;
+    }
+}
@@ -0,0 +1,93 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.integration.log.jbosslogging.JbossLogger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+import nablarch.integration.log.jbosslogging.StructuredEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 同じ内容のログを、{@link java.text.MessageFormat}形式のメッセージで出力する場合と
+ * {@link StructuredEvent}で出力する場合を比較するベンチマーク。
+ * <p>
+ * 1件あたりの確保バイト数は、{@code -prof gc}を指定して{@code gc.alloc.rate.norm}で確認する。
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar StructuredLoggingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StructuredLoggingBenchmark {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.StructuredLoggingBenchmark";
+
+    /** プロバイダ */
+    @Param({"JDK", "LOG4J2"})
+    public LoggingProvider provider;
+
+    /** ファクトリ */
+    private JbossLoggingLoggerFactory factory;
+
+    /** ロガー */
+    private JbossLogger logger;
+
+    /** 出力する値 */
+    private long count;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider.install();
+        factory = AdaptorMode.DEFAULT.createFactory();
+        logger = (JbossLogger) factory.get(LOGGER_NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.terminate();
+    }
+
+    @Benchmark
+    public void text() {
+        count++;
+        logger.logInfo("order accepted. user = [{0}], count = [{1}], ratio = [{2}], express = [{3}]",
+                "taro", count, 0.5, true);
+    }
+
+    @Benchmark
+    public void structured() {
+        count++;
+        logger.atInfo()
+                .add("user", "taro")
+                .add("count", count)
+                .add("ratio", 0.5)
+                .add("express", true)
+                .log("order accepted.");
+    }
+
+    @Benchmark
+    public void structuredDisabled() {
+        count++;
+        logger.atDebug()
+                .add("user", "taro")
+                .add("count", count)
+                .log("order accepted.");
+    }
+}
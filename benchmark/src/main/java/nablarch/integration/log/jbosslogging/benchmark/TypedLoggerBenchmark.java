@@ -0,0 +1,99 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nablarch.integration.log.jbosslogging.JbossLogger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+import nablarch.integration.log.jbosslogging.TypedLoggers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 同じ内容のログを、{@link java.text.MessageFormat}形式のメッセージで出力する場合と
+ * アノテーションプロセッサが生成した型付きのロガー({@link OrderLog})で出力する場合を比較するベンチマーク。
+ * <p>
+ * 型付きのロガーは埋め込む値の配列とボクシングを行わず、実行時にメッセージを解析しない。
+ * メッセージテンプレートのキャッシュとの比較は{@code -p mode=DEFAULT,TEMPLATE_CACHE}で行う。
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar TypedLoggerBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TypedLoggerBenchmark {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.TypedLoggerBenchmark";
+
+    /** プロバイダ */
+    @Param({"JDK", "LOG4J2"})
+    public LoggingProvider provider;
+
+    /** アダプタの動作モード */
+    @Param({"DEFAULT"})
+    public AdaptorMode mode;
+
+    /** ファクトリ */
+    private JbossLoggingLoggerFactory factory;
+
+    /** ロガー */
+    private JbossLogger logger;
+
+    /** 型付きのロガー */
+    private OrderLog orderLog;
+
+    /** 出力する値 */
+    private long count;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        provider.install();
+        factory = mode.createFactory();
+        logger = (JbossLogger) factory.get(LOGGER_NAME);
+        orderLog = TypedLoggers.create(OrderLog.class, logger);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.terminate();
+    }
+
+    @Benchmark
+    public void untyped() {
+        count++;
+        logger.logInfo("order accepted. user = [{0}], count = [{1}]", "taro", count);
+    }
+
+    @Benchmark
+    public void typed() {
+        count++;
+        orderLog.orderAccepted("taro", count);
+    }
+
+    @Benchmark
+    public void untypedDisabled() {
+        count++;
+        logger.logDebug("order detail. user = [{0}], count = [{1}]", "taro", count);
+    }
+
+    @Benchmark
+    public void typedDisabled() {
+        count++;
+        orderLog.orderDetail("taro", count);
+    }
+}
@@ -0,0 +1,258 @@
+package nablarch.integration.log.jbosslogging.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nablarch.core.log.Logger;
+import nablarch.integration.log.jbosslogging.JbossLoggingLoggerFactory;
+
+/**
+ * 大量の仮想スレッドからログを出力する負荷試験。
+ * <p>
+ * 書き込み中に排他制御(synchronized)の中で待機する出力先(ネットワーク越しの出力先などを想定)を設定し、
+ * {@link AdaptorMode#DEFAULT}と{@link AdaptorMode#VIRTUAL_THREAD_HANDOFF}で、
+ * 全てのログを出力し終えるまでのスループットと、JFRの{@code jdk.VirtualThreadPinned}イベント
+ * (キャリアスレッドが固定された状態での待機)の件数と合計時間を比較する。
+ * また、ログを出力しない仮想スレッド({@value #BYSTANDERS}スレッド)を並行して動作させ、
+ * キャリアスレッドの固定がログ出力と無関係な処理に与える影響を、その処理の1秒あたりの実行回数で比較する。
+ * <pre>
+ * java -cp benchmark/target/benchmarks.jar \
+ *     nablarch.integration.log.jbosslogging.benchmark.VirtualThreadLoadTest [仮想スレッド数] [スレッドあたりの件数] [書き込みの待機時間(マイクロ秒)]
+ * </pre>
+ * 仮想スレッドをサポートするJava(21以降)で実行すること。
+ */
+public final class VirtualThreadLoadTest {
+
+    /** ロガー名 */
+    private static final String LOGGER_NAME = "nablarch.benchmark.VirtualThreadLoadTest";
+
+    /** ログを出力しない仮想スレッド数 */
+    private static final int BYSTANDERS = 100;
+
+    /** キャリアスレッドが固定された状態での待機を記録するJFRのイベント */
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private VirtualThreadLoadTest() {
+    }
+
+    /**
+     * 負荷試験を実行する。
+     * @param args 仮想スレッド数(デフォルトは5000)、スレッドあたりの件数(デフォルトは100)、
+     *             書き込みの待機時間(マイクロ秒、デフォルトは50)
+     * @throws Exception 負荷試験に失敗した場合
+     */
+    public static void main(final String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int eventsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final long writeMicros = args.length > 2 ? Long.parseLong(args[2]) : 50L;
+        if (Runtime.version().feature() < 21) {
+            System.out.println("virtual threads are not supported. java version = [" + Runtime.version() + ']');
+            return;
+        }
+
+        LoggingProvider.JDK.install();
+        final BlockingHandler handler = new BlockingHandler(TimeUnit.MICROSECONDS.toNanos(writeMicros));
+        final java.util.logging.Logger root = java.util.logging.Logger.getLogger("");
+        for (Handler existing : root.getHandlers()) {
+            root.removeHandler(existing);
+        }
+        root.addHandler(handler);
+
+        System.out.printf("threads = %d, events per thread = %d, write micros = %d%n", threads, eventsPerThread,
+                writeMicros);
+        System.out.printf("%-24s %12s %14s %10s %16s %16s%n", "mode", "elapsed ms", "events/sec", "pinned",
+                "pinned total ms", "bystander ops/s");
+        // 1回目はJITコンパイルのためのウォームアップとして結果を出力しない
+        for (int round = 0; round < 2; round++) {
+            for (AdaptorMode mode : new AdaptorMode[] {AdaptorMode.DEFAULT, AdaptorMode.VIRTUAL_THREAD_HANDOFF}) {
+                final Result result = run(mode, handler, threads, eventsPerThread);
+                if (round > 0) {
+                    final long elapsedMillis = Math.max(1L, result.elapsedMillis);
+                    System.out.printf("%-24s %12d %14d %10d %16d %16d%n", mode, result.elapsedMillis,
+                            result.events * 1000L / elapsedMillis, result.pinnedCount, result.pinnedMillis,
+                            result.bystanderOperations * 1000L / elapsedMillis);
+                }
+            }
+        }
+    }
+
+    /**
+     * 指定したモードで負荷をかける。
+     * <p>
+     * 全ての仮想スレッドの終了後にファクトリを停止し、引き継いだログを出力し終えるまでを測定する。
+     *
+     * @param mode アダプタの動作モード
+     * @param handler 出力先
+     * @param threads 仮想スレッド数
+     * @param eventsPerThread スレッドあたりの件数
+     * @return 結果
+     * @throws Exception 負荷試験に失敗した場合
+     */
+    private static Result run(final AdaptorMode mode, final BlockingHandler handler, final int threads,
+            final int eventsPerThread) throws Exception {
+        final JbossLoggingLoggerFactory factory = mode.createFactory();
+        final Logger logger = factory.get(LOGGER_NAME);
+        handler.published.reset();
+
+        final Path jfrFile = Files.createTempFile("virtualThreadLoadTest", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final LongAdder bystanderOperations = new LongAdder();
+            final ExecutorService bystanders = newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < BYSTANDERS; i++) {
+                bystanders.execute(() -> {
+                    while (running.get()) {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                        bystanderOperations.increment();
+                    }
+                });
+            }
+            final long start = System.nanoTime();
+            final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                executor.execute(() -> {
+                    for (int j = 0; j < eventsPerThread; j++) {
+                        logger.logInfo("request processed. thread = [{0}], sequence = [{1}]", thread, j);
+                    }
+                });
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("load test did not finish. mode = [" + mode + ']');
+            }
+            factory.terminate();
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            final long bystanderCount = bystanderOperations.sum();
+            running.set(false);
+            bystanders.shutdown();
+            bystanders.awaitTermination(1, TimeUnit.MINUTES);
+            recording.stop();
+            recording.dump(jfrFile);
+
+            long pinnedCount = 0;
+            long pinnedNanos = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(jfrFile)) {
+                if (PINNED_EVENT.equals(event.getEventType().getName())) {
+                    pinnedCount++;
+                    pinnedNanos += event.getDuration().toNanos();
+                }
+            }
+            return new Result(handler.published.sum(), elapsedMillis, pinnedCount,
+                    TimeUnit.NANOSECONDS.toMillis(pinnedNanos), bystanderCount);
+        } finally {
+            deleteQuietly(jfrFile);
+        }
+    }
+
+    /**
+     * タスク毎に仮想スレッドを生成する{@link ExecutorService}を生成する。
+     * <p>
+     * Java 17でもコンパイルできるよう、リフレクションで生成する。
+     *
+     * @return {@link ExecutorService}
+     * @throws ReflectiveOperationException 仮想スレッドをサポートしない場合
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws ReflectiveOperationException {
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+
+    /**
+     * ファイルを削除する。削除できない場合は無視する。
+     * @param file ファイル
+     */
+    private static void deleteQuietly(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // 一時ファイルのため無視する
+        }
+    }
+
+    /**
+     * 負荷試験の結果。
+     */
+    private static final class Result {
+
+        /** 出力したログ件数 */
+        private final long events;
+
+        /** 経過時間(ミリ秒) */
+        private final long elapsedMillis;
+
+        /** キャリアスレッドが固定された状態で待機した回数 */
+        private final long pinnedCount;
+
+        /** キャリアスレッドが固定された状態で待機した合計時間(ミリ秒) */
+        private final long pinnedMillis;
+
+        /** ログを出力しない仮想スレッドの処理の実行回数 */
+        private final long bystanderOperations;
+
+        private Result(final long events, final long elapsedMillis, final long pinnedCount, final long pinnedMillis,
+                final long bystanderOperations) {
+            this.events = events;
+            this.elapsedMillis = elapsedMillis;
+            this.pinnedCount = pinnedCount;
+            this.pinnedMillis = pinnedMillis;
+            this.bystanderOperations = bystanderOperations;
+        }
+    }
+
+    /**
+     * 排他制御の中で一定時間待機してから、書式化したメッセージを破棄するハンドラ。
+     * <p>
+     * 出力先への書き込みを待機するハンドラを模擬する。
+     */
+    private static final class BlockingHandler extends Handler {
+
+        /** メッセージの書式化に使用するフォーマッタ */
+        private final SimpleFormatter formatter = new SimpleFormatter();
+
+        /** 書き込みの待機時間(ナノ秒) */
+        private final long writeNanos;
+
+        /** 出力したログ件数 */
+        private final LongAdder published = new LongAdder();
+
+        private BlockingHandler(final long writeNanos) {
+            this.writeNanos = writeNanos;
+        }
+
+        @Override
+        public synchronized void publish(final LogRecord record) {
+            if (isLoggable(record)) {
+                formatter.formatMessage(record);
+                LockSupport.parkNanos(writeNanos);
+                published.increment();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package nablarch.integration.log.jbosslogging.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link nablarch.integration.log.jbosslogging.LogMessage}に指定したメッセージを解析した結果。
+ * <p>
+ * {@link java.text.MessageFormat}形式のメッセージのうち、書式指定を持たない{@code {n}}形式の埋め込み文字と
+ * シングルクォートによるエスケープのみで構成されるものを、固定文字列と埋め込み位置に分解して保持する。
+ * 解析の規則はアダプタ本体の実行時のテンプレートと同じとする。
+ */
+final class MessagePattern {
+
+    /** {@link java.text.MessageFormat}が許容する埋め込み位置の上限 */
+    private static final int MAX_ARGUMENT_INDEX = 10000;
+
+    /** 固定文字列。{@code literals[i]}の後に{@code argumentIndexes[i]}の値が続く。 */
+    private final List<String> literals;
+
+    /** 埋め込み位置。最後の固定文字列の後には埋め込みがないため、{@code literals}より要素数が1少ない。 */
+    private final List<Integer> argumentIndexes;
+
+    /**
+     * 解析結果を生成する。
+     * @param literals 固定文字列
+     * @param argumentIndexes 埋め込み位置
+     */
+    private MessagePattern(final List<String> literals, final List<Integer> argumentIndexes) {
+        this.literals = Collections.unmodifiableList(literals);
+        this.argumentIndexes = Collections.unmodifiableList(argumentIndexes);
+    }
+
+    /**
+     * メッセージを解析する。
+     * @param pattern メッセージ
+     * @return 解析結果
+     * @throws IllegalArgumentException 書式指定を含む場合や、括弧が対応していない場合
+     */
+    static MessagePattern parse(final String pattern) {
+        final List<String> literals = new ArrayList<>();
+        final List<Integer> indexes = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder(pattern.length());
+        boolean inQuote = false;
+        final int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+                    literal.append(ch);
+                    i++;
+                } else {
+                    inQuote = !inQuote;
+                }
+            } else if (ch == '{' && !inQuote) {
+                final int close = pattern.indexOf('}', i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("unmatched braces at position " + i + '.');
+                }
+                literals.add(literal.toString());
+                indexes.add(parseArgumentIndex(pattern, i + 1, close));
+                literal.setLength(0);
+                i = close;
+            } else {
+                literal.append(ch);
+            }
+        }
+        literals.add(literal.toString());
+        return new MessagePattern(literals, indexes);
+    }
+
+    /**
+     * 埋め込み位置を解析する。
+     * @param pattern メッセージ
+     * @param start 開始位置(含む)
+     * @param end 終了位置(含まない)
+     * @return 埋め込み位置
+     * @throws IllegalArgumentException 書式指定を含む場合や、数字のみで構成されていない場合
+     */
+    private static int parseArgumentIndex(final String pattern, final int start, final int end) {
+        final String segment = pattern.substring(start, end);
+        if (segment.indexOf(',') >= 0) {
+            throw new IllegalArgumentException(
+                    "format type is not supported. use {n} only. argument = [{" + segment + "}]");
+        }
+        if (segment.isEmpty() || segment.length() > 5) {
+            throw new IllegalArgumentException("invalid argument index. argument = [{" + segment + "}]");
+        }
+        int index = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            final char ch = segment.charAt(i);
+            if (ch < '0' || ch > '9') {
+                throw new IllegalArgumentException("invalid argument index. argument = [{" + segment + "}]");
+            }
+            index = index * 10 + (ch - '0');
+        }
+        if (index >= MAX_ARGUMENT_INDEX) {
+            throw new IllegalArgumentException("invalid argument index. argument = [{" + segment + "}]");
+        }
+        return index;
+    }
+
+    /**
+     * 固定文字列を取得する。
+     * @return 固定文字列(埋め込み位置より要素数が1多い)
+     */
+    List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * 埋め込み位置を取得する。
+     * @return 埋め込み位置
+     */
+    List<Integer> getArgumentIndexes() {
+        return argumentIndexes;
+    }
+}
@@ -0,0 +1,339 @@
+package nablarch.integration.log.jbosslogging.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import nablarch.integration.log.jbosslogging.Cause;
+import nablarch.integration.log.jbosslogging.JbossLogger;
+import nablarch.integration.log.jbosslogging.LogMessage;
+import nablarch.integration.log.jbosslogging.TypedLogger;
+import nablarch.integration.log.jbosslogging.TypedLoggers;
+
+/**
+ * {@link TypedLogger}を付与したインタフェースから、型付きのロガーの実装クラスを生成するアノテーションプロセッサ。
+ * <p>
+ * 実装クラスはインタフェースと同じパッケージに{@code <インタフェース名>}{@value TypedLoggers#IMPLEMENTATION_SUFFIX}という名前で生成する。
+ * ネストしたインタフェースの場合は、外側のクラス名とアンダースコアで連結した名前とする。
+ * <p>
+ * 各メソッドは{@link LogMessage}のメッセージをコンパイル時に解析し、ログレベルを判定した後に
+ * 固定文字列と引数を文字列連結して{@link JbossLogger#logFormatted(org.jboss.logging.Logger.Level, String, String, Throwable)}に渡す。
+ * 出力頻度の制限を埋め込んだ値によらずメッセージ単位で判定するため、{@link LogMessage}のメッセージも定数として合わせて渡す。
+ * メッセージの誤りやメソッドの定義の誤りはコンパイルエラーとして報告する。
+ */
+public class TypedLoggerProcessor extends AbstractProcessor {
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(TypedLogger.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(TypedLogger.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@TypedLogger can only be applied to an interface.");
+                continue;
+            }
+            final TypeElement type = (TypeElement) element;
+            final List<Method> methods = analyze(type);
+            if (methods != null) {
+                generate(type, methods);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * インタフェースを解析する。
+     * @param type インタフェース
+     * @return 実装するメソッド。誤りがある場合は{@code null}
+     */
+    private List<Method> analyze(final TypeElement type) {
+        boolean valid = true;
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            error(type, "@TypedLogger interface must not be private.");
+            valid = false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@TypedLogger interface must not declare type parameters.");
+            valid = false;
+        }
+        final List<Method> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            final Method analyzed = analyze(method);
+            if (analyzed == null) {
+                valid = false;
+            } else {
+                methods.add(analyzed);
+            }
+        }
+        return valid ? methods : null;
+    }
+
+    /**
+     * メソッドを解析する。
+     * @param method メソッド
+     * @return 解析結果。誤りがある場合は{@code null}
+     */
+    private Method analyze(final ExecutableElement method) {
+        final LogMessage logMessage = method.getAnnotation(LogMessage.class);
+        if (logMessage == null) {
+            error(method, "method of @TypedLogger interface must be annotated with @LogMessage.");
+            return null;
+        }
+        if (method.getReturnType().getKind() != TypeKind.VOID) {
+            error(method, "method of @TypedLogger interface must return void.");
+            return null;
+        }
+        if (!method.getTypeParameters().isEmpty()) {
+            error(method, "method of @TypedLogger interface must not declare type parameters.");
+            return null;
+        }
+
+        final TypeMirror throwable = processingEnv.getElementUtils().getTypeElement(Throwable.class.getName()).asType();
+        final List<VariableElement> arguments = new ArrayList<>();
+        VariableElement cause = null;
+        for (VariableElement parameter : method.getParameters()) {
+            if (parameter.getAnnotation(Cause.class) == null) {
+                arguments.add(parameter);
+                continue;
+            }
+            if (cause != null) {
+                error(parameter, "@Cause can only be applied to one parameter.");
+                return null;
+            }
+            if (!processingEnv.getTypeUtils().isAssignable(parameter.asType(), throwable)) {
+                error(parameter, "@Cause parameter must be a Throwable.");
+                return null;
+            }
+            cause = parameter;
+        }
+
+        final MessagePattern pattern;
+        try {
+            pattern = MessagePattern.parse(logMessage.value());
+        } catch (IllegalArgumentException e) {
+            error(method, "invalid @LogMessage. " + e.getMessage() + " message = [" + logMessage.value() + ']');
+            return null;
+        }
+        final boolean[] used = new boolean[arguments.size()];
+        for (int index : pattern.getArgumentIndexes()) {
+            if (index >= arguments.size()) {
+                error(method, "argument index {" + index + "} is out of range. method has "
+                        + arguments.size() + " message argument(s).");
+                return null;
+            }
+            used[index] = true;
+        }
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                error(arguments.get(i), "parameter is not used in @LogMessage. add {" + i + "} to the message"
+                        + " or annotate it with @Cause.");
+                return null;
+            }
+        }
+        return new Method(method, logMessage, pattern, arguments, cause);
+    }
+
+    /**
+     * 実装クラスを生成する。
+     * @param type インタフェース
+     * @param methods 実装するメソッド
+     */
+    private void generate(final TypeElement type, final List<Method> methods) {
+        final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        final String packagePrefix = pkg.isUnnamed() ? "" : pkg.getQualifiedName() + ".";
+        final String simpleName = binaryName.substring(packagePrefix.length()).replace('$', '_')
+                + TypedLoggers.IMPLEMENTATION_SUFFIX;
+
+        final StringBuilder source = new StringBuilder(1024);
+        if (!pkg.isUnnamed()) {
+            source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(simpleName)
+                .append(" implements ").append(type.getQualifiedName()).append(" {\n\n")
+                .append("    private final ").append(JbossLogger.class.getName()).append(" logger;\n\n")
+                .append("    public ").append(simpleName).append("(final ")
+                .append(JbossLogger.class.getName()).append(" logger) {\n")
+                .append("        this.logger = logger;\n")
+                .append("    }\n");
+        for (Method method : methods) {
+            method.appendTo(source);
+        }
+        source.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(packagePrefix + simpleName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "failed to generate typed logger. " + e.getMessage());
+        }
+    }
+
+    /**
+     * コンパイルエラーを報告する。
+     * @param element 対象の要素
+     * @param message メッセージ
+     */
+    private void error(final Element element, final String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 文字列をJavaの文字列リテラルとして追加する。
+     * @param sb 追加先
+     * @param value 文字列
+     */
+    static void appendStringLiteral(final StringBuilder sb, final String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * 解析したメソッド。
+     */
+    private static final class Method {
+
+        /** メソッド */
+        private final ExecutableElement element;
+
+        /** ログの指定 */
+        private final LogMessage logMessage;
+
+        /** 解析したメッセージ */
+        private final MessagePattern pattern;
+
+        /** メッセージに埋め込む引数 */
+        private final List<VariableElement> arguments;
+
+        /** エラー情報の引数(存在しない場合は{@code null}) */
+        private final VariableElement cause;
+
+        /**
+         * 解析したメソッドを生成する。
+         * @param element メソッド
+         * @param logMessage ログの指定
+         * @param pattern 解析したメッセージ
+         * @param arguments メッセージに埋め込む引数
+         * @param cause エラー情報の引数
+         */
+        private Method(final ExecutableElement element, final LogMessage logMessage, final MessagePattern pattern,
+                final List<VariableElement> arguments, final VariableElement cause) {
+            this.element = element;
+            this.logMessage = logMessage;
+            this.pattern = pattern;
+            this.arguments = arguments;
+            this.cause = cause;
+        }
+
+        /**
+         * メソッドの実装を追加する。
+         * @param sb 追加先
+         */
+        private void appendTo(final StringBuilder sb) {
+            final String level = logMessage.level().name();
+            sb.append("\n    @Override\n    public void ").append(element.getSimpleName()).append('(');
+            final List<? extends VariableElement> parameters = element.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                if (i != 0) {
+                    sb.append(", ");
+                }
+                final TypeMirror type = parameters.get(i).asType();
+                sb.append("final ");
+                if (element.isVarArgs() && i == parameters.size() - 1) {
+                    sb.append(((ArrayType) type).getComponentType()).append("...");
+                } else {
+                    sb.append(type);
+                }
+                sb.append(' ').append(parameters.get(i).getSimpleName());
+            }
+            sb.append(") {\n")
+                    .append("        if (this.logger.is").append(level.charAt(0))
+                    .append(level.substring(1).toLowerCase()).append("Enabled()) {\n")
+                    .append("            this.logger.logFormatted(org.jboss.logging.Logger.Level.").append(level)
+                    .append(",\n                    ");
+            appendStringLiteral(sb, logMessage.value());
+            sb.append(", ");
+            appendMessage(sb);
+            sb.append(", ").append(cause == null ? "null" : cause.getSimpleName()).append(");\n")
+                    .append("        }\n")
+                    .append("    }\n");
+        }
+
+        /**
+         * メッセージを組み立てる式を追加する。
+         * <p>
+         * 先頭が引数の場合も文字列連結となるよう、常に文字列リテラルから始める。
+         *
+         * @param sb 追加先
+         */
+        private void appendMessage(final StringBuilder sb) {
+            final List<String> literals = pattern.getLiterals();
+            final List<Integer> indexes = pattern.getArgumentIndexes();
+            appendStringLiteral(sb, literals.get(0));
+            for (int i = 0; i < indexes.size(); i++) {
+                sb.append(" + ").append(arguments.get(indexes.get(i)).getSimpleName());
+                if (!literals.get(i + 1).isEmpty()) {
+                    sb.append(" + ");
+                    appendStringLiteral(sb, literals.get(i + 1));
+                }
+            }
+        }
+    }
+}
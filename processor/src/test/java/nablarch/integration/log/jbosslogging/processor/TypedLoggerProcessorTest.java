@@ -0,0 +1,219 @@
+package nablarch.integration.log.jbosslogging.processor;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import nablarch.integration.log.jbosslogging.JbossLogger;
+import nablarch.integration.log.jbosslogging.TypedLoggers;
+
+/**
+ * {@link TypedLoggerProcessor}のテスト。
+ */
+public class TypedLoggerProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** コンパイル時に出力されたエラー */
+    private final List<String> errors = new ArrayList<String>();
+
+    @Test
+    public void generate() throws Exception {
+        final boolean success = compile("test.OrderLog", "package test;\n"
+                + "import nablarch.integration.log.jbosslogging.*;\n"
+                + "import org.jboss.logging.Logger.Level;\n"
+                + "@TypedLogger\n"
+                + "public interface OrderLog {\n"
+                + "    @LogMessage(level = Level.INFO, value = \"order accepted. id = [{0}], amount = [{1}]\")\n"
+                + "    void orderAccepted(String id, long amount);\n"
+                + "    @LogMessage(level = Level.ERROR, value = \"{1}{0} failed. '{'quoted'}' it''s \\\"x\\\"\")\n"
+                + "    void failed(int logger, @Cause Exception cause, String name);\n"
+                + "    @LogMessage(level = Level.DEBUG, value = \"no arguments\")\n"
+                + "    void noArguments();\n"
+                + "    interface Nested {\n"
+                + "    }\n"
+                + "}\n");
+        assertThat(errors.toString(), success, is(true));
+
+        // 出力頻度の制限の単位とするため、書式化前のメッセージを定数として渡す
+        final String generated = new String(Files.readAllBytes(
+                new File(folder.getRoot(), "test/OrderLog_JbossLogger.java").toPath()), StandardCharsets.UTF_8);
+        assertThat(generated, containsString("logFormatted(org.jboss.logging.Logger.Level.INFO,\n"
+                + "                    \"order accepted. id = [{0}], amount = [{1}]\", \"order accepted. id = [\" + id"));
+
+        final Recording recording = new Recording();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {folder.getRoot().toURI().toURL()},
+                getClass().getClassLoader())) {
+            final Class<?> type = loader.loadClass("test.OrderLog");
+            final Object log = TypedLoggers.create(type, new JbossLogger(recording));
+            type.getMethod("orderAccepted", String.class, long.class).invoke(log, "A-1", 1000L);
+            type.getMethod("failed", int.class, Exception.class, String.class)
+                    .invoke(log, 3, new IllegalStateException("boom"), "job");
+            recording.threshold = org.jboss.logging.Logger.Level.INFO;
+            type.getMethod("noArguments").invoke(log);
+        }
+
+        assertThat(recording.records, is(Arrays.asList(
+                "INFO order accepted. id = [A-1], amount = [1000]",
+                "ERROR job3 failed. {quoted} it's \"x\" java.lang.IllegalStateException: boom")));
+    }
+
+    @Test
+    public void generate_nestedInterface() throws Exception {
+        final boolean success = compile("test.Outer", "package test;\n"
+                + "import nablarch.integration.log.jbosslogging.*;\n"
+                + "import org.jboss.logging.Logger.Level;\n"
+                + "public class Outer {\n"
+                + "    @TypedLogger\n"
+                + "    interface Log {\n"
+                + "        @LogMessage(level = Level.WARN, value = \"values = {0}\")\n"
+                + "        void values(String... values);\n"
+                + "    }\n"
+                + "}\n");
+        assertThat(errors.toString(), success, is(true));
+        assertThat(new File(folder.getRoot(), "test/Outer_Log_JbossLogger.class").exists(), is(true));
+    }
+
+    @Test
+    public void error_invalidMessage() throws Exception {
+        final boolean success = compile("test.InvalidLog", "package test;\n"
+                + "import nablarch.integration.log.jbosslogging.*;\n"
+                + "import org.jboss.logging.Logger.Level;\n"
+                + "@TypedLogger\n"
+                + "public interface InvalidLog {\n"
+                + "    @LogMessage(level = Level.INFO, value = \"amount = {0,number}\")\n"
+                + "    void formatType(long amount);\n"
+                + "    @LogMessage(level = Level.INFO, value = \"id = {1}\")\n"
+                + "    void outOfRange(String id);\n"
+                + "    @LogMessage(level = Level.INFO, value = \"id = {0\")\n"
+                + "    void unmatched(String id);\n"
+                + "    @LogMessage(level = Level.INFO, value = \"id = {0}\")\n"
+                + "    void unused(String id, String name);\n"
+                + "}\n");
+        assertThat(success, is(false));
+        assertThat(errors.size(), is(4));
+        assertThat(errors.get(0), containsString("format type is not supported"));
+        assertThat(errors.get(1), containsString("argument index {1} is out of range"));
+        assertThat(errors.get(2), containsString("unmatched braces"));
+        assertThat(errors.get(3), containsString("parameter is not used in @LogMessage. add {1}"));
+    }
+
+    @Test
+    public void error_invalidDeclaration() throws Exception {
+        final boolean success = compile("test.InvalidDeclaration", "package test;\n"
+                + "import nablarch.integration.log.jbosslogging.*;\n"
+                + "import org.jboss.logging.Logger.Level;\n"
+                + "public class InvalidDeclaration {\n"
+                + "    @TypedLogger\n"
+                + "    static class NotInterface {\n"
+                + "    }\n"
+                + "    @TypedLogger\n"
+                + "    interface Log {\n"
+                + "        void noAnnotation();\n"
+                + "        @LogMessage(level = Level.INFO, value = \"x\")\n"
+                + "        String notVoid();\n"
+                + "        @LogMessage(level = Level.INFO, value = \"x\")\n"
+                + "        void notThrowable(@Cause String cause);\n"
+                + "        @LogMessage(level = Level.INFO, value = \"x\")\n"
+                + "        void twoCauses(@Cause Exception first, @Cause Exception second);\n"
+                + "    }\n"
+                + "}\n");
+        assertThat(success, is(false));
+        assertThat(errors.toString(), errors.size(), is(5));
+        assertThat(errors.get(0), containsString("@TypedLogger can only be applied to an interface."));
+        assertThat(errors.get(1), containsString("must be annotated with @LogMessage."));
+        assertThat(errors.get(2), containsString("must return void."));
+        assertThat(errors.get(3), containsString("@Cause parameter must be a Throwable."));
+        assertThat(errors.get(4), containsString("@Cause can only be applied to one parameter."));
+    }
+
+    /**
+     * プロセッサを適用してコンパイルする。
+     * @param className クラス名
+     * @param source ソース
+     * @return コンパイルに成功した場合は{@code true}
+     */
+    private boolean compile(final String className, final String source) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            final boolean success = compiler.getTask(null, fileManager, diagnostics, Arrays.asList(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-processor", TypedLoggerProcessor.class.getName(),
+                    "-d", folder.getRoot().getPath(),
+                    "-s", folder.getRoot().getPath()), null, Arrays.asList(file)).call();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.add(diagnostic.getMessage(Locale.ROOT));
+                }
+            }
+            return success;
+        }
+    }
+
+    /**
+     * 出力されたログを記録する{@link org.jboss.logging.Logger}。
+     */
+    private static final class Recording extends org.jboss.logging.Logger {
+
+        /** 記録したログ */
+        private final List<String> records = new CopyOnWriteArrayList<String>();
+
+        /** 出力を許可するレベルの下限 */
+        private volatile Level threshold = Level.TRACE;
+
+        private Recording() {
+            super("typed");
+        }
+
+        @Override
+        public boolean isEnabled(final Level level) {
+            return level.ordinal() <= threshold.ordinal();
+        }
+
+        @Override
+        protected void doLog(final Level level, final String loggerClassName, final Object message,
+                final Object[] parameters, final Throwable thrown) {
+            records.add(level + " " + message + (thrown == null ? "" : " " + thrown));
+        }
+
+        @Override
+        protected void doLogf(final Level level, final String loggerClassName, final String format,
+                final Object[] parameters, final Throwable thrown) {
+            records.add(level + " " + String.format(format, parameters) + (thrown == null ? "" : " " + thrown));
+        }
+    }
+}
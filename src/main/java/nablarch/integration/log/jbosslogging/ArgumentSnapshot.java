@@ -0,0 +1,85 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ログの出力を要求したスレッドの外で書式化する埋め込み値を、要求した時点の値で固定するユーティリティ。
+ * <p>
+ * 不変な型の値はそのまま保持し、それ以外の値は文字列に変換して保持する。
+ */
+final class ArgumentSnapshot {
+
+    /** 不変な型 */
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class,
+            Instant.class, LocalDate.class, LocalDateTime.class, LocalTime.class, OffsetDateTime.class,
+            ZonedDateTime.class, Duration.class));
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private ArgumentSnapshot() {
+    }
+
+    /**
+     * 全ての値が不変な型か否か。
+     * <p>
+     * {@code null}と列挙型も不変として扱う。
+     *
+     * @param options メッセージに埋め込む値
+     * @return 全ての値が不変な型の場合は{@code true}
+     */
+    static boolean isImmutable(final Object[] options) {
+        if (options == null) {
+            return true;
+        }
+        for (Object option : options) {
+            if (!isImmutable(option)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 埋め込む値を固定した配列を生成する。
+     * <p>
+     * 呼び出し元が配列を再利用しても影響を受けないよう、常に新たな配列を生成する。
+     * 不変な型でない値は、{@link String#valueOf(Object)}で変換した文字列に置き換える。
+     *
+     * @param options メッセージに埋め込む値
+     * @return 固定した値(埋め込む値がない場合は引数をそのまま返す)
+     */
+    static Object[] freeze(final Object[] options) {
+        if (options == null || options.length == 0) {
+            return options;
+        }
+        final Object[] frozen = new Object[options.length];
+        for (int i = 0; i < options.length; i++) {
+            frozen[i] = isImmutable(options[i]) ? options[i] : String.valueOf(options[i]);
+        }
+        return frozen;
+    }
+
+    /**
+     * 不変な型の値か否か。
+     * @param option 埋め込む値
+     * @return 不変な型の場合は{@code true}
+     */
+    private static boolean isImmutable(final Object option) {
+        return option == null || option instanceof Enum || IMMUTABLE_TYPES.contains(option.getClass());
+    }
+}
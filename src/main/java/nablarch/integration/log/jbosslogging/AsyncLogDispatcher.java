@@ -0,0 +1,409 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ログ出力要求をリングバッファに格納し、バックグラウンドスレッドで委譲先ロガーに出力するクラス。
+ * <p>
+ * リングバッファは事前に生成したスロットを再利用する、ロックを使用しない有界のキューである。
+ * 複数のスレッドから同時に格納でき、複数の消費スレッドから同時に取り出せる。<br>
+ * 消費スレッドが複数の場合、連続して格納したログを別々の消費スレッドが取り出すため、
+ * 同じロガーや同じスレッドのログであっても出力順序は保証しない。出力順序が必要な場合は消費スレッドを1つとすること。
+ * <p>
+ * 格納するログがない間、消費スレッドは一時停止し、格納したスレッドが再開させる。
+ * <p>
+ * バッファが満杯の場合の動作は{@link OverflowPolicy}で指定する。
+ */
+final class AsyncLogDispatcher {
+
+    /**
+     * バッファが満杯の場合の動作。
+     */
+    enum OverflowPolicy {
+        /** 空きができるまで待機する。 */
+        BLOCK,
+        /** 閾値より詳細なレベルのログは破棄し、それ以外は空きができるまで待機する。 */
+        DROP_BELOW_LEVEL,
+        /** 最も古いログを破棄して格納する。 */
+        DISCARD_OLDEST
+    }
+
+    /** 格納するスレッドが空きを待機する最大時間(ナノ秒) */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** 消費スレッドが一時停止するまでにスピンとスレッドの譲渡を行う回数 */
+    private static final int SPIN_LIMIT = 110;
+
+    /** スロット */
+    private final LogEvent[] slots;
+
+    /** スロット毎のシーケンス番号 */
+    private final AtomicLongArray sequences;
+
+    /** スロット位置を求めるためのマスク */
+    private final int mask;
+
+    /** 次に格納する位置 */
+    private final AtomicLong enqueuePosition = new AtomicLong();
+
+    /** 次に取り出す位置 */
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    /** バッファが満杯の場合の動作 */
+    private final OverflowPolicy overflowPolicy;
+
+    /** {@link OverflowPolicy#DROP_BELOW_LEVEL}で破棄しないレベルの下限 */
+    private final Level dropThreshold;
+
+    /** 消費スレッド */
+    private final Thread[] consumers;
+
+    /** 破棄したログの件数 */
+    private final LongAdder dropped = new LongAdder();
+
+    /** 一時停止している(または一時停止しようとしている)消費スレッド数 */
+    private final AtomicInteger sleepers = new AtomicInteger();
+
+    /** ログを受け付けているか否か */
+    private volatile boolean accepting = true;
+
+    /** 消費スレッドが動作を継続するか否か */
+    private volatile boolean running = true;
+
+    /**
+     * ディスパッチャを生成し、消費スレッドを開始する。
+     * @param bufferSize バッファサイズ(2のべき乗に切り上げる)
+     * @param consumerCount 消費スレッド数
+     * @param overflowPolicy バッファが満杯の場合の動作
+     * @param dropThreshold {@link OverflowPolicy#DROP_BELOW_LEVEL}で破棄しないレベルの下限
+     */
+    AsyncLogDispatcher(final int bufferSize, final int consumerCount, final OverflowPolicy overflowPolicy,
+            final Level dropThreshold) {
+        this(bufferSize, consumerCount, overflowPolicy, dropThreshold, "jbossLogging-async");
+    }
+
+    /**
+     * ディスパッチャを生成し、消費スレッドを開始する。
+     * @param bufferSize バッファサイズ(2のべき乗に切り上げる)
+     * @param consumerCount 消費スレッド数
+     * @param overflowPolicy バッファが満杯の場合の動作
+     * @param dropThreshold {@link OverflowPolicy#DROP_BELOW_LEVEL}で破棄しないレベルの下限
+     * @param threadNamePrefix 消費スレッド名の接頭辞
+     */
+    AsyncLogDispatcher(final int bufferSize, final int consumerCount, final OverflowPolicy overflowPolicy,
+            final Level dropThreshold, final String threadNamePrefix) {
+        final int capacity = bufferSize <= 2 ? 2 : Integer.highestOneBit(bufferSize - 1) << 1;
+        slots = new LogEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LogEvent();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.dropThreshold = dropThreshold;
+
+        consumers = new Thread[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            final Thread consumer = new ConsumerThread(this::consume, threadNamePrefix + '-' + (i + 1));
+            consumer.setDaemon(true);
+            consumers[i] = consumer;
+        }
+        for (Thread consumer : consumers) {
+            consumer.start();
+        }
+    }
+
+    /**
+     * ログ出力要求を格納する。
+     * <p>
+     * 停止後に呼び出された場合は、呼び出し元スレッドで出力する。
+     * 停止処理と並行して格納した場合は、停止処理が取り出し終えた後に格納した可能性があるため、
+     * バッファに残っているログを呼び出し元スレッドで出力する。
+     * <p>
+     * 埋め込む値は消費スレッドで参照するため、呼び出し元で不変な値に固定してから渡すこと。
+     *
+     * @param target 出力先ロガー
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値(不変な値に固定したもの)
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     * @param threadContext スレッドコンテキストのスナップショット(反映しない場合は{@code null})
+     */
+    void dispatch(final JbossLogger target, final Level level, final String message, final Throwable error,
+            final Object[] options, final String callerLocation, final ThreadContextPropagator.Snapshot threadContext) {
+        int idle = 0;
+        while (accepting) {
+            if (offer(target, level, message, error, options, callerLocation, threadContext)) {
+                wakeUpConsumers();
+                if (!accepting) {
+                    drain();
+                }
+                return;
+            }
+            switch (overflowPolicy) {
+                case DISCARD_OLDEST:
+                    if (discardOldest()) {
+                        dropped.increment();
+                    }
+                    continue;
+                case DROP_BELOW_LEVEL:
+                    if (level.ordinal() > dropThreshold.ordinal()) {
+                        dropped.increment();
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            idle = backOff(idle);
+        }
+        target.deliver(level, message, error, options, callerLocation, threadContext);
+    }
+
+    /**
+     * バッファにログ出力要求を格納する。
+     * @param target 出力先ロガー
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     * @param threadContext スレッドコンテキストのスナップショット(反映しない場合は{@code null})
+     * @return 格納できた場合は{@code true}。バッファが満杯の場合は{@code false}
+     */
+    private boolean offer(final JbossLogger target, final Level level, final String message, final Throwable error,
+            final Object[] options, final String callerLocation, final ThreadContextPropagator.Snapshot threadContext) {
+        long position = enqueuePosition.get();
+        for (;;) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    slots[index].set(target, level, message, error, options, callerLocation, threadContext);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * バッファからログ出力要求を取り出す。
+     * @param destination 取り出した値を設定するイベント
+     * @return 取り出せた場合は{@code true}。バッファが空の場合は{@code false}
+     */
+    private boolean poll(final LogEvent destination) {
+        long position = dequeuePosition.get();
+        for (;;) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    final LogEvent slot = slots[index];
+                    if (destination != null) {
+                        destination.copyFrom(slot);
+                    }
+                    slot.clear();
+                    sequences.set(index, position + mask + 1);
+                    return true;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * 最も古いログ出力要求を破棄する。
+     * @return 破棄した場合は{@code true}
+     */
+    private boolean discardOldest() {
+        return poll(null);
+    }
+
+    /**
+     * 一時停止している消費スレッドを再開させる。
+     */
+    private void wakeUpConsumers() {
+        if (sleepers.get() > 0) {
+            for (Thread consumer : consumers) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    /**
+     * バッファに残っているログを呼び出し元スレッドで出力する。
+     */
+    private void drain() {
+        final LogEvent event = new LogEvent();
+        while (poll(event)) {
+            deliver(event);
+        }
+    }
+
+    /**
+     * 消費スレッドの処理。
+     * <p>
+     * バッファが空の場合は、スピンとスレッドの譲渡の後、ログが格納されるまで一時停止する。
+     */
+    private void consume() {
+        final LogEvent event = new LogEvent();
+        int idle = 0;
+        while (running) {
+            if (poll(event)) {
+                deliver(event);
+                idle = 0;
+            } else if (idle < SPIN_LIMIT) {
+                idle = backOff(idle);
+            } else {
+                // 一時停止を登録してから空であることを再確認し、格納したスレッドの再開要求を取りこぼさない
+                sleepers.incrementAndGet();
+                if (running && size() == 0) {
+                    LockSupport.park(this);
+                }
+                sleepers.decrementAndGet();
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 取り出したログを出力する。
+     * <p>
+     * 出力時の例外で消費スレッドが停止しないよう、例外は無視する。
+     *
+     * @param event ログ出力要求
+     */
+    private static void deliver(final LogEvent event) {
+        try {
+            event.deliver();
+        } catch (Throwable ignored) {
+            // 委譲先の例外でログ出力全体を停止させない
+        } finally {
+            event.clear();
+        }
+    }
+
+    /**
+     * 待機回数に応じてスピン、スレッドの譲渡、一時停止を行う。
+     * @param idle これまでの待機回数
+     * @return 次の待機回数
+     */
+    private static int backOff(final int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(idle - 110, 10)));
+        }
+        return idle + 1;
+    }
+
+    /**
+     * 格納済みのログを全て出力して停止する。
+     * <p>
+     * 停止後に出力要求された場合は、呼び出し元スレッドで出力する。
+     * 停止処理と並行して格納されたログは格納したスレッドで出力し、タイムアウトまでに出力できなかったログは破棄する。
+     *
+     * @param timeoutMillis タイムアウト(ミリ秒)
+     * @return 破棄したログの件数
+     */
+    long shutdown(final long timeoutMillis) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        accepting = false;
+        while (size() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(MAX_PARK_NANOS);
+        }
+        running = false;
+        for (Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+            try {
+                consumer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        final LogEvent event = new LogEvent();
+        long discarded = 0;
+        while (poll(event)) {
+            if (System.nanoTime() - deadline < 0) {
+                deliver(event);
+            } else {
+                event.clear();
+                discarded++;
+            }
+        }
+        dropped.add(discarded);
+        return discarded;
+    }
+
+    /**
+     * ディスパッチャの消費スレッドか否かを判定する。
+     * @param thread スレッド
+     * @return 消費スレッドの場合は{@code true}
+     */
+    static boolean isConsumerThread(final Thread thread) {
+        return thread instanceof ConsumerThread;
+    }
+
+    /**
+     * バッファに格納されているログの件数を取得する。
+     * @return 件数
+     */
+    int size() {
+        return (int) Math.max(0, enqueuePosition.get() - dequeuePosition.get());
+    }
+
+    /**
+     * バッファの容量を取得する。
+     * @return 容量
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * 破棄したログの件数を取得する。
+     * @return 件数
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 消費スレッド。
+     * <p>
+     * 呼び出し元スレッドで出力する場合と区別するために使用する。
+     */
+    private static final class ConsumerThread extends Thread {
+
+        /**
+         * 消費スレッドを生成する。
+         * @param task 実行する処理
+         * @param name スレッド名
+         */
+        ConsumerThread(final Runnable task, final String name) {
+            super(task, name);
+        }
+    }
+}
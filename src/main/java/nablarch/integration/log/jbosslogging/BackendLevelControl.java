@@ -0,0 +1,277 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ログ出力ライブラリのログレベルを変更するクラス。
+ * <p>
+ * アダプタのログレベルの上書きで、ログ出力ライブラリのログレベルより詳細なレベルを指定した場合に、
+ * ログ出力ライブラリ側でも出力されるよう、ログ出力ライブラリのログレベルを合わせて変更する。<br>
+ * 変更前のログレベルを保持し、上書きを解除した際に元に戻す。
+ * <p>
+ * 対応するログ出力ライブラリは、java.util.logging、JBoss LogManager、Log4j 2とする。
+ * それ以外のライブラリではログレベルを変更しないため、上書きはログ出力ライブラリより簡略なレベルに対してのみ有効となる。
+ */
+abstract class BackendLevelControl {
+
+    /** ログレベルを変更しない実装 */
+    static final BackendLevelControl NONE = new BackendLevelControl() {
+        @Override
+        Object getLevel(final String name) {
+            return null;
+        }
+
+        @Override
+        void setLevel(final String name, final Level level) {
+        }
+
+        @Override
+        void restoreLevel(final String name, final Object previous) {
+        }
+    };
+
+    /** 変更前のログレベル(変更前に設定されていなかった場合は{@code null}) */
+    private final Map<String, Object> previousLevels = new HashMap<String, Object>();
+
+    /**
+     * 委譲先ロガーの種類に対応する実装を取得する。
+     * @param sample 委譲先ロガー
+     * @return 実装
+     */
+    static BackendLevelControl forLogger(final org.jboss.logging.Logger sample) {
+        final String type = sample.getClass().getSimpleName();
+        if (type.startsWith("JDKLogger") || type.startsWith("JBossLogManagerLogger")) {
+            return new JulLevelControl();
+        }
+        if (type.startsWith("Log4j2Logger")) {
+            try {
+                return new Log4j2LevelControl();
+            } catch (ReflectiveOperationException e) {
+                return NONE;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * ロガー名(階層)のログレベルを変更する。
+     * <p>
+     * 初めて変更する場合は、変更前のログレベルを保持する。
+     *
+     * @param name ロガー名(階層)
+     * @param level ログレベル
+     */
+    final synchronized void apply(final String name, final Level level) {
+        if (!previousLevels.containsKey(name)) {
+            previousLevels.put(name, getLevel(name));
+        }
+        setLevel(name, level);
+    }
+
+    /**
+     * ロガー名(階層)のログレベルを変更前に戻す。
+     * @param name ロガー名(階層)
+     */
+    final synchronized void restore(final String name) {
+        if (previousLevels.containsKey(name)) {
+            restoreLevel(name, previousLevels.remove(name));
+        }
+    }
+
+    /**
+     * ログ出力ライブラリに設定されているログレベルを取得する。
+     * @param name ロガー名(階層)
+     * @return ログレベル。設定されていない場合は{@code null}
+     */
+    abstract Object getLevel(String name);
+
+    /**
+     * ログ出力ライブラリのログレベルを設定する。
+     * @param name ロガー名(階層)
+     * @param level ログレベル
+     */
+    abstract void setLevel(String name, Level level);
+
+    /**
+     * ログ出力ライブラリのログレベルを戻す。
+     * @param name ロガー名(階層)
+     * @param previous 変更前のログレベル
+     */
+    abstract void restoreLevel(String name, Object previous);
+
+    /**
+     * java.util.logging(JBoss LogManagerを含む)のログレベルを変更する実装。
+     * <p>
+     * java.util.loggingはロガーを弱参照で保持するため、変更したロガーを参照し続ける。
+     */
+    private static final class JulLevelControl extends BackendLevelControl {
+
+        /** ログレベルを変更したロガー */
+        private final Map<String, java.util.logging.Logger> loggers = new HashMap<String, java.util.logging.Logger>();
+
+        @Override
+        Object getLevel(final String name) {
+            return logger(name).getLevel();
+        }
+
+        @Override
+        void setLevel(final String name, final Level level) {
+            logger(name).setLevel(toJulLevel(level));
+        }
+
+        @Override
+        void restoreLevel(final String name, final Object previous) {
+            logger(name).setLevel((java.util.logging.Level) previous);
+            loggers.remove(name);
+        }
+
+        /**
+         * ロガーを取得する。
+         * @param name ロガー名
+         * @return ロガー
+         */
+        private java.util.logging.Logger logger(final String name) {
+            java.util.logging.Logger logger = loggers.get(name);
+            if (logger == null) {
+                logger = java.util.logging.Logger.getLogger(name);
+                loggers.put(name, logger);
+            }
+            return logger;
+        }
+
+        /**
+         * jboss-loggingのログレベルに対応するjava.util.loggingのログレベルを取得する。
+         * <p>
+         * jboss-loggingがjava.util.loggingに出力する際のレベル値と同じ値とする。
+         *
+         * @param level ログレベル
+         * @return java.util.loggingのログレベル
+         */
+        private static java.util.logging.Level toJulLevel(final Level level) {
+            switch (level) {
+                case FATAL:
+                case ERROR:
+                    return java.util.logging.Level.SEVERE;
+                case WARN:
+                    return java.util.logging.Level.WARNING;
+                case INFO:
+                    return java.util.logging.Level.INFO;
+                case DEBUG:
+                    return java.util.logging.Level.FINE;
+                default:
+                    return java.util.logging.Level.FINER;
+            }
+        }
+    }
+
+    /**
+     * Log4j 2のログレベルを変更する実装。
+     * <p>
+     * Log4j 2のコアライブラリは任意の依存関係のため、リフレクションで呼び出す。<br>
+     * ログレベルを変更すると、ロガー名に対応する{@code LoggerConfig}が設定に追加される。
+     * 変更前に{@code LoggerConfig}が存在しなかった場合は、戻す際に追加された{@code LoggerConfig}を削除し、
+     * 親の{@code LoggerConfig}のログレベルを継承する状態に戻す。
+     */
+    private static final class Log4j2LevelControl extends BackendLevelControl {
+
+        /** {@code Configurator#setLevel(String, Level)} */
+        private final Method setLevel;
+
+        /** {@code Level#toLevel(String)} */
+        private final Method toLevel;
+
+        /** {@code LoggerContext#getContext(boolean)} */
+        private final Method getContext;
+
+        /** {@code LoggerContext#getConfiguration()} */
+        private final Method getConfiguration;
+
+        /** {@code LoggerContext#updateLoggers()} */
+        private final Method updateLoggers;
+
+        /** {@code Configuration#getLoggers()} */
+        private final Method getLoggers;
+
+        /** {@code Configuration#getRootLogger()} */
+        private final Method getRootLogger;
+
+        /** {@code Configuration#removeLogger(String)} */
+        private final Method removeLogger;
+
+        /** {@code LoggerConfig#getLevel()} */
+        private final Method getConfigLevel;
+
+        /**
+         * 使用するメソッドを取得する。
+         * @throws ReflectiveOperationException Log4j 2のコアライブラリが存在しない場合
+         */
+        private Log4j2LevelControl() throws ReflectiveOperationException {
+            final ClassLoader classLoader = Log4j2LevelControl.class.getClassLoader();
+            final Class<?> levelClass = Class.forName("org.apache.logging.log4j.Level", false, classLoader);
+            setLevel = Class.forName("org.apache.logging.log4j.core.config.Configurator", false, classLoader)
+                    .getMethod("setLevel", String.class, levelClass);
+            toLevel = levelClass.getMethod("toLevel", String.class);
+            final Class<?> contextClass = Class.forName("org.apache.logging.log4j.core.LoggerContext", false, classLoader);
+            getContext = contextClass.getMethod("getContext", boolean.class);
+            getConfiguration = contextClass.getMethod("getConfiguration");
+            updateLoggers = contextClass.getMethod("updateLoggers");
+            final Class<?> configurationClass = Class.forName(
+                    "org.apache.logging.log4j.core.config.Configuration", false, classLoader);
+            getLoggers = configurationClass.getMethod("getLoggers");
+            getRootLogger = configurationClass.getMethod("getRootLogger");
+            removeLogger = configurationClass.getMethod("removeLogger", String.class);
+            getConfigLevel = Class.forName("org.apache.logging.log4j.core.config.LoggerConfig", false, classLoader)
+                    .getMethod("getLevel");
+        }
+
+        /**
+         * {@inheritDoc}
+         * <p>
+         * ロガー名に対応する{@code LoggerConfig}が存在しない場合は、親から継承したログレベルではなく{@code null}を返す。
+         * ルートロガーの{@code LoggerConfig}は常に存在する。
+         */
+        @Override
+        Object getLevel(final String name) {
+            final Object configuration = invoke(getConfiguration, invoke(getContext, null, false));
+            final Object loggerConfig = name.isEmpty()
+                    ? invoke(getRootLogger, configuration)
+                    : ((Map<?, ?>) invoke(getLoggers, configuration)).get(name);
+            return loggerConfig == null ? null : invoke(getConfigLevel, loggerConfig);
+        }
+
+        @Override
+        void setLevel(final String name, final Level level) {
+            invoke(setLevel, null, name, invoke(toLevel, null, level.name()));
+        }
+
+        @Override
+        void restoreLevel(final String name, final Object previous) {
+            if (previous != null) {
+                invoke(setLevel, null, name, previous);
+                return;
+            }
+            final Object context = invoke(getContext, null, false);
+            invoke(removeLogger, invoke(getConfiguration, context), name);
+            invoke(updateLoggers, context);
+        }
+
+        /**
+         * メソッドを呼び出す。
+         * @param method メソッド
+         * @param target 対象のオブジェクト
+         * @param args 引数
+         * @return 戻り値
+         */
+        private static Object invoke(final Method method, final Object target, final Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("failed to change Log4j 2 level. method = [" + method + ']', e);
+            }
+        }
+    }
+}
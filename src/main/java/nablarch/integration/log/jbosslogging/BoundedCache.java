@@ -0,0 +1,219 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 上限付きの並行キャッシュ。
+ * <p>
+ * 参照はロックを取らずに行い、上限を超えた場合はクロック方式(セカンドチャンス)で
+ * 最近参照されていないエントリから追い出す。<br>
+ * 追い出しは1スレッドのみが行い、他のスレッドは追い出しを待たずに処理を継続する。
+ *
+ * @param <K> キーの型
+ * @param <V> 値の型
+ */
+final class BoundedCache<K, V> {
+
+    /** キャッシュ本体 */
+    private final ConcurrentHashMap<K, Entry<V>> map;
+
+    /** 保持するエントリ数の上限 */
+    private final int maxSize;
+
+    /** 追い出し処理の排他制御 */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /** 追い出し対象を探索するクロックの針 */
+    private Iterator<Map.Entry<K, Entry<V>>> hand;
+
+    /** ヒット数 */
+    private final LongAdder hits = new LongAdder();
+
+    /** ミス数 */
+    private final LongAdder misses = new LongAdder();
+
+    /** 追い出し数 */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * キャッシュを生成する。
+     * @param maxSize 保持するエントリ数の上限
+     */
+    BoundedCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0. maxSize = [" + maxSize + ']');
+        }
+        this.maxSize = maxSize;
+        map = new ConcurrentHashMap<K, Entry<V>>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * キーに対応する値を取得する。
+     * <p>
+     * キャッシュに存在しない場合は、{@code loader}で値を生成してキャッシュに格納する。
+     *
+     * @param key キー
+     * @param loader 値を生成する関数
+     * @return 値
+     */
+    V get(final K key, final Function<? super K, ? extends V> loader) {
+        final Entry<V> entry = map.get(key);
+        if (entry != null) {
+            entry.touch();
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        final Entry<V> created = new Entry<V>(loader.apply(key));
+        final Entry<V> existing = map.putIfAbsent(key, created);
+        if (existing != null) {
+            existing.touch();
+            return existing.value;
+        }
+        if (map.size() > maxSize) {
+            evict();
+        }
+        return created.value;
+    }
+
+    /**
+     * キーに対応する値をキャッシュから取得する。
+     * @param key キー
+     * @return 値。存在しない場合は{@code null}
+     */
+    V getIfPresent(final K key) {
+        final Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.value;
+    }
+
+    /**
+     * 上限を超えた分のエントリを追い出す。
+     * <p>
+     * 他のスレッドが追い出し中の場合は何もしない。
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (map.size() > maxSize) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = map.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                final Map.Entry<K, Entry<V>> candidate = hand.next();
+                if (candidate.getValue().referenced) {
+                    candidate.getValue().referenced = false;
+                } else if (map.remove(candidate.getKey(), candidate.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 保持している全ての値に処理を適用する。
+     * <p>
+     * 処理中に追加・削除されたエントリが対象となるかは保証しない。
+     *
+     * @param action 適用する処理
+     */
+    void forEachValue(final Consumer<? super V> action) {
+        for (Entry<V> entry : map.values()) {
+            action.accept(entry.value);
+        }
+    }
+
+    /**
+     * 全てのエントリを削除する。
+     */
+    void clear() {
+        map.clear();
+    }
+
+    /**
+     * 現在のエントリ数を取得する。
+     * @return エントリ数
+     */
+    int size() {
+        return map.size();
+    }
+
+    /**
+     * 上限を取得する。
+     * @return 上限
+     */
+    int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * ヒット数を取得する。
+     * @return ヒット数
+     */
+    long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * ミス数を取得する。
+     * @return ミス数
+     */
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * 追い出し数を取得する。
+     * @return 追い出し数
+     */
+    long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * キャッシュのエントリ。
+     * @param <V> 値の型
+     */
+    private static final class Entry<V> {
+
+        /** 値 */
+        private final V value;
+
+        /** 前回の追い出し探索以降に参照されたか否か */
+        private volatile boolean referenced;
+
+        /**
+         * エントリを生成する。
+         * @param value 値
+         */
+        private Entry(final V value) {
+            this.value = value;
+        }
+
+        /**
+         * 参照済みとしてマークする。
+         * <p>
+         * 既にマーク済みの場合は書き込みを行わない。
+         */
+        private void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ログ出力の呼び出し元の位置を解決するクラス。
+ * <p>
+ * 設定したロガーとログレベルについてのみ、{@link StackWalker}で{@link JbossLogger}を呼び出したフレームを探索する。
+ * {@link Throwable#getStackTrace()}と異なり、スタックトレース全体を生成せずに呼び出し元のフレームまでを遅延して辿る。
+ * <p>
+ * 解決した位置は{@code クラス名.メソッド名(ファイル名:行番号)}形式の文字列とし、
+ * ログ出力中のみjboss-loggingの{@link org.jboss.logging.MDC}に格納する。
+ */
+final class CallerLocator {
+
+    /** 呼び出し元の境界となるクラス */
+    private static final String BOUNDARY = JbossLogger.class.getName();
+
+    /** 呼び出し元の境界に含めるバッチのクラス */
+    private static final String BATCH = LogBatch.class.getName();
+
+    /** 呼び出し元の境界に含める構造化ログのクラス */
+    private static final String STRUCTURED = StructuredEvent.class.getName();
+
+    /** スタックの探索に使用するウォーカ */
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /** 呼び出し元の位置を解決するロガー名(階層) */
+    private final LoggerNameMatcher<Boolean> loggers;
+
+    /** 呼び出し元の位置を解決するログレベル(ログレベルの序数をビット位置とする) */
+    private final int levelMask;
+
+    /** 呼び出し元の位置を格納するMDCのキー */
+    private final String mdcKey;
+
+    /**
+     * 呼び出し元の位置を解決するクラスを生成する。
+     * @param loggerNames 呼び出し元の位置を解決するロガー名(階層)
+     * @param levels 呼び出し元の位置を解決するログレベル
+     * @param mdcKey 呼び出し元の位置を格納するMDCのキー
+     */
+    CallerLocator(final List<String> loggerNames, final List<Level> levels, final String mdcKey) {
+        final Map<String, Boolean> targets = new HashMap<String, Boolean>();
+        for (String loggerName : loggerNames) {
+            targets.put(loggerName, Boolean.TRUE);
+        }
+        this.loggers = new LoggerNameMatcher<Boolean>(targets);
+        int mask = 0;
+        for (Level level : levels) {
+            mask |= 1 << level.ordinal();
+        }
+        this.levelMask = mask;
+        this.mdcKey = mdcKey;
+    }
+
+    /**
+     * ロガーで呼び出し元の位置を解決するログレベルを取得する。
+     * @param loggerName ロガー名
+     * @return ログレベルの序数をビット位置とした値。解決しない場合は0
+     */
+    int levelMaskFor(final String loggerName) {
+        return loggers.match(loggerName, Boolean.FALSE) ? levelMask : 0;
+    }
+
+    /**
+     * 呼び出し元の位置を格納するMDCのキーを取得する。
+     * @return MDCのキー
+     */
+    String getMdcKey() {
+        return mdcKey;
+    }
+
+    /**
+     * 呼び出し元の位置を解決する。
+     * <p>
+     * {@link JbossLogger}のフレームより後にある最初のフレームを呼び出し元とする。
+     * {@link LogBatch}、{@link StructuredEvent}、{@link TypedLogger}から生成した実装クラス経由の場合は、それらのフレームも読み飛ばす。
+     *
+     * @return 呼び出し元の位置。見つからない場合は{@code null}
+     */
+    static String locate() {
+        final Optional<StackWalker.StackFrame> caller = WALKER.walk(frames -> frames
+                .dropWhile(frame -> !BOUNDARY.equals(frame.getClassName()))
+                .dropWhile(frame -> BOUNDARY.equals(frame.getClassName()) || BATCH.equals(frame.getClassName())
+                        || STRUCTURED.equals(frame.getClassName())
+                        || frame.getClassName().endsWith(TypedLoggers.IMPLEMENTATION_SUFFIX))
+                .findFirst());
+        if (!caller.isPresent()) {
+            return null;
+        }
+        final StackWalker.StackFrame frame = caller.get();
+        final String fileName = frame.getFileName();
+        final int lineNumber = frame.getLineNumber();
+        return frame.getClassName() + '.' + frame.getMethodName() + '('
+                + (fileName == null ? "Unknown Source" : lineNumber >= 0 ? fileName + ':' + lineNumber : fileName)
+                + ')';
+    }
+}
@@ -0,0 +1,18 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link LogMessage}を付与したメソッドの引数のうち、エラー情報として出力する引数を表す。
+ * <p>
+ * {@link Throwable}の引数に1つだけ付与できる。付与した引数はメッセージに埋め込まない。
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.PARAMETER)
+public @interface Cause {
+}
@@ -1,5 +1,7 @@
 package nablarch.integration.log.jbosslogging;
 
+import java.text.MessageFormat;
+
 import org.jboss.logging.Logger.Level;
 
 import nablarch.core.log.Logger;
@@ -8,20 +10,262 @@ import nablarch.core.log.Logger;
  * jboss-loggingを使用してログ出力を行うクラス。
  * <p>
  * 全てのメソッドで{@link org.jboss.logging.Logger}に処理を委譲する。<br>
+ * 委譲時には本クラスを呼び出し元の境界として指定するため、呼び出し元のクラスやメソッドを出力するログ出力ライブラリでは、
+ * 本クラスを呼び出したクラスとメソッドが出力される。
  *
  * @author siosio
  */
 public class JbossLogger implements Logger {
 
+    /** 委譲先ロガーに指定する呼び出し元の境界となるクラス名 */
+    private static final String FQCN = JbossLogger.class.getName();
+
+    /** ログレベルの一覧 */
+    private static final Level[] LEVELS = Level.values();
+
+    /** 埋め込む値がない場合に使用する配列 */
+    private static final Object[] NO_OPTIONS = new Object[0];
+
+    /** キャッシュした有効なログレベルのうち、負荷に応じた破棄を考慮しない値の開始ビット位置 */
+    private static final int BASE_LEVEL_SHIFT = 8;
+
     /** 委譲先ロガー */
     private final org.jboss.logging.Logger logger;
 
+    /** ロガー名 */
+    private final String name;
+
+    /** 共有する設定と部品 */
+    private final JbossLoggingContext context;
+
+    /**
+     * キャッシュした有効なログレベル。
+     * <p>
+     * 上位32ビットに{@link LevelCacheGeneration}の世代番号を、下位ビットにログレベル毎の有効・無効を保持する。
+     * 負荷に応じた破棄が有効な場合は、{@value #BASE_LEVEL_SHIFT}ビット目以降に破棄を考慮しない有効・無効を保持する。
+     */
+    private volatile long levelSnapshot;
+
+    /** 有効なログレベルをキャッシュから判定するか否か */
+    private final boolean levelSnapshotEnabled;
+
+    /** ログレベルの上書き(無効な場合は{@code null}) */
+    private final LevelOverrides levelOverrides;
+
+    /** 負荷に応じた破棄(無効な場合は{@code null}) */
+    private final LoadShedder loadShedder;
+
+    /** メトリクス(無効な場合は{@code null}) */
+    private final LoggerMetrics metrics;
+
+    /** 出力頻度の制限(無効な場合は{@code null}) */
+    private final RateLimiter rateLimiter;
+
+    /** 同一のログを1秒あたりに出力する上限 */
+    private final int eventsPerSecond;
+
+    /** 呼び出し元の位置を解決するログレベル(ログレベルの序数をビット位置とする) */
+    private final int callerLevelMask;
+
+    /** メモリマップした出力先(対象のロガーでない場合は{@code null}) */
+    private final MappedLogSink mappedSink;
+
+    /** ログの間引き(無効な場合は{@code null}) */
+    private final LogSampler sampler;
+
+    /** 間引くログレベル(ログレベルの序数をビット位置とする) */
+    private final int samplingLevelMask;
+
+    /** 間引く割合(N件に1件) */
+    private final int samplingRate;
+
+    /** スレッドコンテキストのMDCへの反映(無効な場合は{@code null}) */
+    private final ThreadContextPropagator threadContextPropagator;
+
     /**
      * jboss-loggingに処理を委譲するロガーを生成する。
      * @param logger 委譲先のロガー
      */
     public JbossLogger(final org.jboss.logging.Logger logger) {
+        this(logger, JbossLoggingContext.DEFAULT);
+    }
+
+    /**
+     * jboss-loggingに処理を委譲するロガーを生成する。
+     * @param logger 委譲先のロガー
+     * @param context 共有する設定と部品
+     */
+    JbossLogger(final org.jboss.logging.Logger logger, final JbossLoggingContext context) {
         this.logger = logger;
+        this.context = context;
+        final String loggerName = logger.getName();
+        this.name = loggerName == null ? "" : loggerName;
+        this.metrics = context.getMetrics() == null ? null : context.getMetrics().forLogger(name);
+        this.rateLimiter = context.getRateLimiter();
+        this.eventsPerSecond = rateLimiter == null ? 0 : rateLimiter.eventsPerSecondFor(name);
+        this.callerLevelMask = context.getCallerLocator() == null ? 0 : context.getCallerLocator().levelMaskFor(name);
+        this.sampler = context.getSampler();
+        this.mappedSink = context.getMappedSink(name);
+        this.samplingLevelMask = sampler == null ? 0 : sampler.levelMaskFor(name);
+        this.samplingRate = sampler == null ? 1 : sampler.rateFor(name);
+        this.levelOverrides = context.getLevelOverrides();
+        this.loadShedder = context.getLoadShedder();
+        this.threadContextPropagator = context.getThreadContextPropagator();
+        this.levelSnapshotEnabled = context.isLevelCacheEnabled() || levelOverrides != null || loadShedder != null;
+        if (levelSnapshotEnabled) {
+            levelSnapshot = snapshotLevels();
+        }
+    }
+
+    /**
+     * ロガー名を取得する。
+     * @return ロガー名
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * 書式化済みのメッセージを出力する。
+     * <p>
+     * メッセージは書式化せずにそのまま出力する。
+     * 出力頻度の制限は書式化済みのメッセージを単位として判定するため、埋め込んだ値が異なるログは別々に制限する。
+     * 書式化前のメッセージが分かる場合は{@link #logFormatted(Level, String, String, Throwable)}を使用すること。
+     *
+     * @param level ログレベル
+     * @param message 書式化済みのメッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     */
+    public void logFormatted(final Level level, final String message, final Throwable error) {
+        log(level, message, error, NO_OPTIONS);
+    }
+
+    /**
+     * 書式化済みのメッセージを出力する。
+     * <p>
+     * メッセージは書式化せずにそのまま出力する。
+     * {@link TypedLogger}を付与したインタフェースから生成した実装クラスが、ログレベルを判定した後に呼び出す。
+     * 出力頻度の制限は書式化前のメッセージを単位として判定するため、埋め込んだ値が異なるログもまとめて制限する。
+     *
+     * @param level ログレベル
+     * @param pattern 書式化前のメッセージ({@link LogMessage}に指定した値)
+     * @param message 書式化済みのメッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     */
+    public void logFormatted(final Level level, final String pattern, final String message, final Throwable error) {
+        if (context.isLevelCheckRequired()) {
+            if (!isEnabled(level)) {
+                recordSuppressed(level);
+                return;
+            }
+            process(level, message, error, NO_OPTIONS, pattern, null);
+            return;
+        }
+        deliver(level, message, error, NO_OPTIONS, null, null);
+    }
+
+    /**
+     * 複数のログをまとめて出力するバッチを生成する。
+     * <p>
+     * 保持するログ件数の上限と待機時間は、{@code jbossLogging.batch.maxSize}と
+     * {@code jbossLogging.batch.maxDelayMillis}で指定した値とする。
+     *
+     * @return バッチ
+     */
+    public LogBatch batch() {
+        return new LogBatch(this, context.getBatchMaxSize(), context.getBatchMaxDelayMillis(), context.getScheduler());
+    }
+
+    /**
+     * FATALレベルの構造化ログを開始する。
+     * @return 構造化ログ(ログレベルが無効な場合は何も出力しないインスタンス)
+     */
+    public StructuredEvent atFatal() {
+        return structured(Level.FATAL);
+    }
+
+    /**
+     * ERRORレベルの構造化ログを開始する。
+     * @return 構造化ログ(ログレベルが無効な場合は何も出力しないインスタンス)
+     */
+    public StructuredEvent atError() {
+        return structured(Level.ERROR);
+    }
+
+    /**
+     * WARNレベルの構造化ログを開始する。
+     * @return 構造化ログ(ログレベルが無効な場合は何も出力しないインスタンス)
+     */
+    public StructuredEvent atWarn() {
+        return structured(Level.WARN);
+    }
+
+    /**
+     * INFOレベルの構造化ログを開始する。
+     * @return 構造化ログ(ログレベルが無効な場合は何も出力しないインスタンス)
+     */
+    public StructuredEvent atInfo() {
+        return structured(Level.INFO);
+    }
+
+    /**
+     * DEBUGレベルの構造化ログを開始する。
+     * @return 構造化ログ(ログレベルが無効な場合は何も出力しないインスタンス)
+     */
+    public StructuredEvent atDebug() {
+        return structured(Level.DEBUG);
+    }
+
+    /**
+     * TRACEレベルの構造化ログを開始する。
+     * @return 構造化ログ(ログレベルが無効な場合は何も出力しないインスタンス)
+     */
+    public StructuredEvent atTrace() {
+        return structured(Level.TRACE);
+    }
+
+    /**
+     * 構造化ログを開始する。
+     * <p>
+     * ログレベルが無効な場合や間引いた場合は、項目を書き込む前に何も出力しない共有のインスタンスを返す。
+     *
+     * @param level ログレベル
+     * @return 構造化ログ
+     */
+    private StructuredEvent structured(final Level level) {
+        if (!isEnabled(level)) {
+            recordSuppressed(level);
+            return StructuredEvent.DISABLED;
+        }
+        if ((samplingLevelMask & (1 << level.ordinal())) != 0 && !sampler.sample(samplingRate, null)) {
+            if (metrics != null) {
+                metrics.recordSuppressed(level);
+            }
+            return StructuredEvent.DISABLED;
+        }
+        return StructuredEvent.start(this, level);
+    }
+
+    /**
+     * JSONに書き込んだ構造化ログを出力する。
+     * <p>
+     * 負荷に応じた破棄、メトリクス、呼び出し元の位置の解決、非同期出力、メモリマップした出力先を適用する。
+     * (ログの間引きは{@link #structured(Level)}で判定済み)
+     * 出力頻度の制限とスタックトレースの抑止はメッセージとエラー情報を単位とするため、構造化ログには適用しない。
+     *
+     * @param level ログレベル
+     * @param payload JSON
+     */
+    void logStructured(final Level level, final String payload) {
+        if (loadShedder != null) {
+            loadShedder.recordDemand();
+        }
+        if (metrics != null) {
+            metrics.recordEvent(level);
+        }
+        final String callerLocation = (callerLevelMask & (1 << level.ordinal())) != 0
+                ? CallerLocator.locate() : null;
+        emit(level, payload, null, null, callerLocation, captureThreadContext());
     }
 
     /**
@@ -29,23 +273,23 @@ public class JbossLogger implements Logger {
      */
     @Override
     public boolean isFatalEnabled() {
-        return logger.isEnabled(Level.FATAL);
+        return checkEnabled(Level.FATAL);
     }
 
     /**
-     * @see org.jboss.logging.Logger#fatalv(String, Object)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logFatal(final String message, final Object... options) {
-        logger.fatalv(message, options);
+        log(Level.FATAL, message, null, options);
     }
 
     /**
-     * @see org.jboss.logging.Logger#fatalv(Throwable, String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logFatal(final String message, final Throwable error, final Object... options) {
-        logger.fatalv(error, message, options);
+        log(Level.FATAL, message, error, options);
     }
 
     /**
@@ -53,23 +297,23 @@ public class JbossLogger implements Logger {
      */
     @Override
     public boolean isErrorEnabled() {
-        return logger.isEnabled(Level.ERROR);
+        return checkEnabled(Level.ERROR);
     }
 
     /**
-     * @see org.jboss.logging.Logger#errorv(String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logError(final String message, final Object... options) {
-        logger.errorv(message, options);
+        log(Level.ERROR, message, null, options);
     }
 
     /**
-     * @see org.jboss.logging.Logger#errorv(Throwable, String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logError(final String message, final Throwable error, final Object... options) {
-        logger.errorv(error, message, options);
+        log(Level.ERROR, message, error, options);
     }
 
     /**
@@ -77,23 +321,23 @@ public class JbossLogger implements Logger {
      */
     @Override
     public boolean isWarnEnabled() {
-        return logger.isEnabled(Level.WARN);
+        return checkEnabled(Level.WARN);
     }
 
     /**
-     * @see org.jboss.logging.Logger#warnv(String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logWarn(final String message, final Object... options) {
-        logger.warnv(message, options);
+        log(Level.WARN, message, null, options);
     }
 
     /**
-     * @see org.jboss.logging.Logger#warnv(Throwable, String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logWarn(final String message, final Throwable error, final Object... options) {
-        logger.warnv(error, message, options);
+        log(Level.WARN, message, error, options);
     }
 
     /**
@@ -101,23 +345,23 @@ public class JbossLogger implements Logger {
      */
     @Override
     public boolean isInfoEnabled() {
-        return logger.isEnabled(Level.INFO);
+        return checkEnabled(Level.INFO);
     }
 
     /**
-     * @see org.jboss.logging.Logger#infov(String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logInfo(final String message, final Object... options) {
-        logger.infov(message, options);
+        log(Level.INFO, message, null, options);
     }
 
     /**
-     * @see org.jboss.logging.Logger#infov(Throwable, String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logInfo(final String message, final Throwable error, final Object... options) {
-        logger.infov(error, message, options);
+        log(Level.INFO, message, error, options);
     }
 
     /**
@@ -125,23 +369,23 @@ public class JbossLogger implements Logger {
      */
     @Override
     public boolean isDebugEnabled() {
-        return logger.isEnabled(Level.DEBUG);
+        return checkEnabled(Level.DEBUG);
     }
 
     /**
-     * @see org.jboss.logging.Logger#debugv(String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logDebug(final String message, final Object... options) {
-        logger.debugv(message, options);
+        log(Level.DEBUG, message, null, options);
     }
 
     /**
-     * @see org.jboss.logging.Logger#debugv(Throwable, String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logDebug(final String message, final Throwable error, final Object... options) {
-        logger.debugv(error, message, options);
+        log(Level.DEBUG, message, error, options);
     }
 
     /**
@@ -149,23 +393,488 @@ public class JbossLogger implements Logger {
      */
     @Override
     public boolean isTraceEnabled() {
-        return logger.isEnabled(Level.TRACE);
+        return checkEnabled(Level.TRACE);
     }
 
     /**
-     * @see org.jboss.logging.Logger#tracev(String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logTrace(final String message, final Object... options) {
-        logger.tracev(message, options);
-
+        log(Level.TRACE, message, null, options);
     }
 
     /**
-     * @see org.jboss.logging.Logger#tracev(Throwable, String, Object...)
+     * @see org.jboss.logging.Logger#logv(String, Level, Throwable, String, Object...)
      */
     @Override
     public void logTrace(final String message, final Throwable error, final Object... options) {
-        logger.tracev(error, message, options);
+        log(Level.TRACE, message, error, options);
+    }
+
+    /**
+     * ログレベルが有効か否かを判定する。
+     * <p>
+     * ログレベルのキャッシュまたは上書きが有効な場合は、キャッシュした値から判定する。
+     * キャッシュ後にログレベルの設定変更が通知されていた場合は、再取得する。
+     *
+     * @param level ログレベル
+     * @return 有効な場合は{@code true}
+     */
+    boolean isEnabled(final Level level) {
+        if (!levelSnapshotEnabled) {
+            return logger.isEnabled(level);
+        }
+        long snapshot = levelSnapshot;
+        if ((int) (snapshot >>> 32) != LevelCacheGeneration.current()) {
+            snapshot = snapshotLevels();
+            levelSnapshot = snapshot;
+        }
+        return (snapshot & (1L << level.ordinal())) != 0;
+    }
+
+    /**
+     * アプリケーションから呼び出されたログレベルの判定を行う。
+     * <p>
+     * 負荷に応じた破棄のみが理由で無効と判定した場合は、破棄したログとして記録する。
+     * (判定結果が有効な場合のみログを出力する呼び出し元の出力要求も、破棄中の出力要求数に含めるため)
+     *
+     * @param level ログレベル
+     * @return 有効な場合は{@code true}
+     */
+    private boolean checkEnabled(final Level level) {
+        if (isEnabled(level)) {
+            return true;
+        }
+        recordShed(level);
+        return false;
+    }
+
+    /**
+     * 有効なログレベルを取得する。
+     * <p>
+     * ログレベルが上書きされている場合は上書きしたログレベルから、それ以外は委譲先ロガーから取得する。
+     * 負荷に応じた破棄が有効な場合は、破棄中のログレベルを無効とする。
+     *
+     * @return 世代番号と有効なログレベルを格納した値
+     */
+    private long snapshotLevels() {
+        final int generation = LevelCacheGeneration.current();
+        long snapshot = (long) generation << 32;
+        final Level override = levelOverrides == null ? null : levelOverrides.levelFor(name);
+        for (Level level : LEVELS) {
+            if (override != null ? level.ordinal() <= override.ordinal() : logger.isEnabled(level)) {
+                snapshot |= 1L << (level.ordinal() + BASE_LEVEL_SHIFT);
+                if (loadShedder == null || loadShedder.allows(level)) {
+                    snapshot |= 1L << level.ordinal();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * ログを出力する。
+     * <p>
+     * ログレベルの判定が必要な機能が有効な場合や、遅延評価される値({@link LazyValue}、{@link java.util.function.Supplier})が
+     * 埋め込まれている場合は、アダプタでログレベルを判定し、無効な場合は何もしない。<br>
+     * 遅延評価される値は、ログレベルが有効な場合のみ呼び出し元のスレッドで1回だけ評価する。
+     * 負荷に応じた破棄が有効な場合は、破棄中のログレベルを無効として判定する。
+     * ログの間引きが有効な場合は、メッセージの書式化より前に間引くか否かを判定する。
+     * 出力頻度の制限が有効な場合は、上限を超えたログを破棄する。
+     * スタックトレースの抑止が有効な場合は、最近出力したスタックトレースを省略し、参照IDのみを出力する。
+     * 非同期出力が有効な場合は、出力要求をバッファに格納し、バックグラウンドスレッドで出力する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     */
+    private void log(final Level level, final String message, final Throwable error, final Object[] options) {
+        if (LazyArguments.containsLazy(options) || context.isLevelCheckRequired()) {
+            if (!isEnabled(level)) {
+                recordSuppressed(level);
+                return;
+            }
+            process(level, message, error, options, null);
+            return;
+        }
+        deliver(level, message, error, options, null, null);
+    }
+
+    /**
+     * ログレベルが有効と判定したログに各機能を適用し、出力する。
+     * <p>
+     * バッチが指定された場合は、出力せずにバッチに追加する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param batch 追加先のバッチ(直接出力する場合は{@code null})
+     */
+    void process(final Level level, final String message, final Throwable error, final Object[] options,
+            final LogBatch batch) {
+        process(level, message, error, options, message, batch);
+    }
+
+    /**
+     * ログレベルが有効と判定したログに各機能を適用し、出力する。
+     * <p>
+     * バッチが指定された場合は、出力せずにバッチに追加する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param rateLimitKey 出力頻度の制限を判定する単位となるメッセージ
+     * @param batch 追加先のバッチ(直接出力する場合は{@code null})
+     */
+    private void process(final Level level, final String message, final Throwable error, final Object[] options,
+            final String rateLimitKey, final LogBatch batch) {
+        if ((samplingLevelMask & (1 << level.ordinal())) != 0 && !sampler.sample(samplingRate, options)) {
+            if (metrics != null) {
+                metrics.recordSuppressed(level);
+            }
+            return;
+        }
+        if (loadShedder != null) {
+            loadShedder.recordDemand();
+        }
+        if (rateLimiter != null && !rateLimiter.tryAcquire(this, level, rateLimitKey, eventsPerSecond)) {
+            if (metrics != null) {
+                metrics.recordSuppressed(level);
+            }
+            return;
+        }
+        if (metrics != null) {
+            metrics.recordEvent(level);
+        }
+        final Object[] resolved = LazyArguments.containsLazy(options) ? LazyArguments.resolve(options) : options;
+        final String callerLocation = (callerLevelMask & (1 << level.ordinal())) != 0
+                ? CallerLocator.locate() : null;
+        final StackTraceCollapser collapser = context.getStackTraceCollapser();
+        if (collapser != null && error != null) {
+            final long fingerprint = collapser.fingerprintOf(error);
+            if (collapser.shouldPrint(fingerprint)) {
+                submit(level, StackTraceCollapser.withReference(message, fingerprint), error, resolved,
+                        callerLocation, batch);
+            } else {
+                final boolean formatted = resolved != null && resolved.length != 0;
+                submit(level, StackTraceCollapser.withOmittedReference(message, error, fingerprint, formatted),
+                        null, resolved, callerLocation, batch);
+            }
+            return;
+        }
+        submit(level, message, error, resolved, callerLocation, batch);
+    }
+
+    /**
+     * ログレベルが無効なため出力しなかったログを記録する。
+     * <p>
+     * メトリクスが有効な場合は出力しなかった件数に、負荷に応じて破棄した場合は破棄した件数に加算する。
+     *
+     * @param level ログレベル
+     */
+    void recordSuppressed(final Level level) {
+        if (metrics != null) {
+            metrics.recordSuppressed(level);
+        }
+        recordShed(level);
+    }
+
+    /**
+     * 負荷に応じた破棄のみが理由でログレベルが無効な場合は、破棄したログとして記録する。
+     * @param level ログレベル
+     */
+    private void recordShed(final Level level) {
+        if (loadShedder != null && (levelSnapshot & (1L << (level.ordinal() + BASE_LEVEL_SHIFT))) != 0) {
+            loadShedder.recordShed();
+        }
+    }
+
+    /**
+     * 出力が確定したログを、バッチが指定された場合はバッチに追加し、それ以外は出力する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     * @param batch 追加先のバッチ(直接出力する場合は{@code null})
+     */
+    private void submit(final Level level, final String message, final Throwable error, final Object[] options,
+            final String callerLocation, final LogBatch batch) {
+        if (batch != null) {
+            batch.append(level, message, error, options, callerLocation);
+        } else {
+            emit(level, message, error, options, callerLocation, captureThreadContext());
+        }
+    }
+
+    /**
+     * 現在のスレッドのスレッドコンテキストのスナップショットを取得する。
+     * @return スナップショット(スレッドコンテキストの反映が無効な場合は{@code null})
+     */
+    ThreadContextPropagator.Snapshot captureThreadContext() {
+        return threadContextPropagator == null ? null : threadContextPropagator.capture();
+    }
+
+    /**
+     * 呼び出し元のスレッドの外で出力するログのメッセージを、呼び出し時点の埋め込む値で書式化する。
+     * <p>
+     * 不変な型でない値が埋め込まれている場合は、出力までに値が変更されても影響を受けないよう書式化する。
+     * 全ての値が不変な型の場合や、書式化できない場合は書式化しない。
+     *
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     * @return 書式化したメッセージ(書式化しない場合は{@code null})
+     */
+    String render(final String message, final Object[] options) {
+        if (message == null || ArgumentSnapshot.isImmutable(options)) {
+            return null;
+        }
+        try {
+            return format(message, options);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 出力が確定したログを出力する。
+     * <p>
+     * 非同期出力が有効な場合はディスパッチャに渡し、無効な場合は委譲先ロガーに出力する。
+     * 仮想スレッドからの引き継ぎが有効な場合は、仮想スレッドからの出力のみディスパッチャに渡す。
+     * (委譲先ロガーの排他制御でキャリアスレッドが固定されることを避けるため)
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     * @param threadContext 出力を要求した時点のスレッドコンテキストのスナップショット(反映しない場合は{@code null})
+     */
+    void emit(final Level level, final String message, final Throwable error, final Object[] options,
+            final String callerLocation, final ThreadContextPropagator.Snapshot threadContext) {
+        final AsyncLogDispatcher dispatcher = context.getAsyncDispatcher();
+        final AsyncLogDispatcher virtualThreadDispatcher = context.getVirtualThreadDispatcher();
+        if (dispatcher != null) {
+            dispatch(dispatcher, level, message, error, options, callerLocation, threadContext);
+        } else if (virtualThreadDispatcher != null && VirtualThreads.isVirtual(Thread.currentThread())) {
+            dispatch(virtualThreadDispatcher, level, message, error, options, callerLocation, threadContext);
+        } else {
+            deliver(level, message, error, options, callerLocation, threadContext);
+        }
+    }
+
+    /**
+     * 出力が確定したログをディスパッチャに渡す。
+     * <p>
+     * 埋め込む値は呼び出し元のスレッドで固定する。
+     * 不変な型でない値が埋め込まれている場合は、呼び出し元のスレッドで書式化したメッセージを渡す。
+     * (出力するスレッドで値を参照すると、出力までに変更された値や、スレッドセーフでない{@code toString()}の結果を出力するため)
+     *
+     * @param dispatcher ディスパッチャ
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     * @param threadContext 出力を要求した時点のスレッドコンテキストのスナップショット(反映しない場合は{@code null})
+     */
+    private void dispatch(final AsyncLogDispatcher dispatcher, final Level level, final String message,
+            final Throwable error, final Object[] options, final String callerLocation,
+            final ThreadContextPropagator.Snapshot threadContext) {
+        final String rendered = render(message, options);
+        if (rendered == null) {
+            dispatcher.dispatch(this, level, message, error, ArgumentSnapshot.freeze(options), callerLocation,
+                    threadContext);
+        } else {
+            dispatcher.dispatch(this, level, rendered, error, NO_OPTIONS, callerLocation, threadContext);
+        }
+    }
+
+    /**
+     * 委譲先ロガーにログを出力する。
+     * <p>
+     * メトリクスまたは負荷に応じた破棄が有効な場合は、一定の割合で委譲先ロガーの処理時間を記録する。
+     * スレッドコンテキストのスナップショットが指定された場合は、出力するスレッドのMDCに反映する。
+     * 非同期出力のスレッドでは反映した値をMDCに残し、ログの出力を要求したスレッドで出力する場合は出力中のみ反映する。
+     * 呼び出し元の位置が指定された場合は、出力中のみMDCに格納する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     * @param threadContext スレッドコンテキストのスナップショット(反映しない場合は{@code null})
+     */
+    void deliver(final Level level, final String message, final Throwable error, final Object[] options,
+            final String callerLocation, final ThreadContextPropagator.Snapshot threadContext) {
+        if (threadContext == null) {
+            deliver(level, message, error, options, callerLocation);
+        } else if (AsyncLogDispatcher.isConsumerThread(Thread.currentThread())) {
+            threadContextPropagator.install(threadContext);
+            deliver(level, message, error, options, callerLocation);
+        } else {
+            final Object[] previous = threadContextPropagator.installTemporarily(threadContext);
+            try {
+                deliver(level, message, error, options, callerLocation);
+            } finally {
+                threadContextPropagator.restore(previous);
+            }
+        }
+    }
+
+    /**
+     * 委譲先ロガーにログを出力する。
+     * <p>
+     * 呼び出し元の位置が指定された場合は、出力中のみMDCに格納する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     */
+    private void deliver(final Level level, final String message, final Throwable error, final Object[] options,
+            final String callerLocation) {
+        if (callerLocation == null) {
+            deliver(level, message, error, options);
+            return;
+        }
+        final String mdcKey = context.getCallerLocator().getMdcKey();
+        final MdcAccessor mdc = context.getMdc();
+        final Object previous = mdc.put(mdcKey, callerLocation);
+        try {
+            deliver(level, message, error, options);
+        } finally {
+            if (previous == null) {
+                mdc.remove(mdcKey);
+            } else {
+                mdc.put(mdcKey, previous);
+            }
+        }
+    }
+
+    /**
+     * 委譲先ロガーにログを出力する。
+     * <p>
+     * メトリクスまたは負荷に応じた破棄が有効な場合は、一定の割合で委譲先ロガーの処理時間を記録する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     */
+    private void deliver(final Level level, final String message, final Throwable error, final Object[] options) {
+        final boolean metricsSample = metrics != null && metrics.shouldSampleLatency();
+        final boolean shedderSample = loadShedder != null && loadShedder.shouldSampleLatency();
+        if (metricsSample || shedderSample) {
+            final long start = System.nanoTime();
+            write(level, message, error, options);
+            final long elapsed = System.nanoTime() - start;
+            if (metricsSample) {
+                metrics.recordLatency(elapsed);
+            }
+            if (shedderSample) {
+                loadShedder.recordLatency(elapsed);
+            }
+        } else {
+            write(level, message, error, options);
+        }
+    }
+
+    /**
+     * 委譲先ロガーにログを書き込む。
+     * <p>
+     * メモリマップした出力先の対象のロガーの場合は、委譲先ロガーではなく出力先に書き込む。
+     * メッセージテンプレートのキャッシュが有効な場合は、アダプタ内で書式化したメッセージを委譲先ロガーに渡す。
+     * 書式化できないメッセージや埋め込む値がない場合は、委譲先ロガーで書式化する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     */
+    private void write(final Level level, final String message, final Throwable error, final Object[] options) {
+        if (mappedSink != null && writeToMappedSink(level, message, error, options)) {
+            return;
+        }
+        final MessageTemplateCache templateCache = context.getTemplateCache();
+        if (templateCache != null && message != null && options != null && options.length != 0) {
+            final MessageTemplate template = templateCache.get(message);
+            if (template.isCompiled()) {
+                if (isEnabled(level)) {
+                    logger.log(level, FQCN, template.format(options), error);
+                }
+                return;
+            }
+        }
+        delegate(level, message, error, options);
+    }
+
+    /**
+     * メモリマップした出力先に書式化したログを書き込む。
+     * <p>
+     * ログレベルが無効な場合は何もしない。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @return 処理した場合は{@code true}。出力先に書き込めない場合は{@code false}
+     */
+    private boolean writeToMappedSink(final Level level, final String message, final Throwable error,
+            final Object[] options) {
+        if (!isEnabled(level)) {
+            return true;
+        }
+        return mappedSink.append(name, level, format(message, options), error);
+    }
+
+    /**
+     * メッセージを{@link java.text.MessageFormat}形式で書式化する。
+     * <p>
+     * メッセージテンプレートのキャッシュが有効な場合は、キャッシュしたテンプレートで書式化する。
+     *
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     * @return 書式化したメッセージ
+     */
+    private String format(final String message, final Object[] options) {
+        if (message == null || options == null || options.length == 0) {
+            return message;
+        }
+        final MessageTemplateCache templateCache = context.getTemplateCache();
+        if (templateCache != null) {
+            final MessageTemplate template = templateCache.get(message);
+            if (template.isCompiled()) {
+                return template.format(options);
+            }
+        }
+        return MessageFormat.format(message, options);
+    }
+
+    /**
+     * 委譲先ロガーに{@link java.text.MessageFormat}形式のログを出力する。
+     * <p>
+     * 呼び出し元の境界として{@link #FQCN}を指定するため、委譲先ロガーは本クラスの呼び出し元を出力元として扱う。<br>
+     * 埋め込む値がない場合は、書式化を行わないメソッドでメッセージをそのまま出力する。
+     * 埋め込む値がある場合は、受け取った配列をそのまま委譲先ロガーに渡す。
+     * (jboss-loggingの引数の数が固定のメソッドは配列を生成し直すため使用しない)
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     */
+    private void delegate(final Level level, final String message, final Throwable error, final Object[] options) {
+        if (options == null || options.length == 0) {
+            logger.log(level, FQCN, message, error);
+        } else {
+            logger.logv(FQCN, level, error, message, options);
+        }
     }
 }
@@ -0,0 +1,544 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger.Level;
+import org.jboss.logging.LoggerProvider;
+
+/**
+ * {@link JbossLoggingLoggerFactory}が生成した全ての{@link JbossLogger}で共有する設定と部品を保持するクラス。
+ * <p>
+ * 無効な機能に対応する部品は{@code null}となる。
+ */
+final class JbossLoggingContext {
+
+    /** メモリマップした出力先のセグメントのサイズの下限 */
+    private static final int MIN_SEGMENT_SIZE = 1024;
+
+    /** メモリマップした出力先の一杯になったセグメントをファイルに反映する間隔(ミリ秒) */
+    private static final long MAPPED_SINK_FLUSH_INTERVAL_MILLIS = 1000L;
+
+    /** 全ての機能が無効なコンテキスト */
+    static final JbossLoggingContext DEFAULT = new JbossLoggingContext(JbossLoggingSettings.EMPTY);
+
+    /** 明示的に指定したプロバイダ */
+    private final LoggerProvider provider;
+
+    /** 委譲先ロガーと同じプロバイダのMDC */
+    private final MdcAccessor mdc;
+
+    /** メッセージテンプレートのキャッシュ */
+    private final MessageTemplateCache templateCache;
+
+    /** 非同期出力のディスパッチャ */
+    private final AsyncLogDispatcher asyncDispatcher;
+
+    /** 仮想スレッドからの出力を引き継ぐディスパッチャ */
+    private final AsyncLogDispatcher virtualThreadDispatcher;
+
+    /** 非同期出力の停止を待機する時間(ミリ秒) */
+    private final long asyncShutdownTimeoutMillis;
+
+    /** ログレベルをキャッシュするか否か */
+    private final boolean levelCacheEnabled;
+
+    /** メトリクス */
+    private final LoggingMetrics metrics;
+
+    /** 出力頻度の制限 */
+    private final RateLimiter rateLimiter;
+
+    /** スタックトレースの抑止 */
+    private final StackTraceCollapser stackTraceCollapser;
+
+    /** 呼び出し元の位置の解決 */
+    private final CallerLocator callerLocator;
+
+    /** バッチが保持するログ件数の上限 */
+    private final int batchMaxSize;
+
+    /** バッチが最初に追加したログを出力するまでの最大の待機時間(ミリ秒) */
+    private final long batchMaxDelayMillis;
+
+    /** ログレベルの上書き */
+    private final LevelOverrides levelOverrides;
+
+    /** ログレベルの設定ファイルの監視 */
+    private final LevelFileWatcher levelFileWatcher;
+
+    /** 負荷に応じた破棄 */
+    private final LoadShedder loadShedder;
+
+    /** ログの間引き */
+    private final LogSampler sampler;
+
+    /** メモリマップした出力先に書き込むロガー名(階層) */
+    private final LoggerNameMatcher<Boolean> mappedSinkLoggers;
+
+    /** メモリマップした出力先 */
+    private final MappedLogSink mappedSink;
+
+    /** スレッドコンテキストのMDCへの反映 */
+    private final ThreadContextPropagator threadContextPropagator;
+
+    /** ログ出力前にアダプタでログレベルを判定する必要があるか否か */
+    private final boolean levelCheckRequired;
+
+    /** 定期的に実行する処理のスケジューラ(バッチのみが使用する場合は、最初に使用する時点で生成する) */
+    private ScheduledExecutorService scheduler;
+
+    /** 停止したか否か */
+    private boolean terminated;
+
+    /**
+     * 設定からコンテキストを生成する。
+     * <p>
+     * 使用する設定は{@link JbossLoggingLoggerFactory}を参照。
+     *
+     * @param settings 設定
+     */
+    JbossLoggingContext(final JbossLoggingSettings settings) {
+        provider = createProvider(settings);
+        mdc = new MdcAccessor(provider);
+
+        templateCache = settings.getBoolean("templateCache.enabled", false)
+                ? new MessageTemplateCache(settings.getPositiveInt("templateCache.size", 1024))
+                : null;
+
+        asyncShutdownTimeoutMillis = settings.getPositiveLong("async.shutdownTimeoutMillis", 5000L);
+
+        levelCacheEnabled = settings.getBoolean("levelCache.enabled", false);
+        final long levelRefreshIntervalMillis = settings.getPositiveLong("levelCache.refreshIntervalMillis", Long.MAX_VALUE);
+
+        metrics = settings.getBoolean("metrics.enabled", false)
+                ? new LoggingMetrics(settings.getPositiveInt("metrics.maxLoggers", 1000),
+                        settings.getPositiveInt("metrics.latencySampleRate", 64))
+                : null;
+
+        rateLimiter = settings.getBoolean("rateLimit.enabled", false)
+                ? new RateLimiter(settings.getPositiveInt("rateLimit.maxKeys", 10000),
+                        settings.getPositiveInt("rateLimit.eventsPerSecond", 100),
+                        settings.getPositiveIntByLogger("rateLimit.eventsPerSecond"),
+                        settings.getPositiveLong("rateLimit.summaryIntervalMillis", 60000L))
+                : null;
+
+        stackTraceCollapser = settings.getBoolean("stackTraceCollapse.enabled", false)
+                ? new StackTraceCollapser(settings.getPositiveInt("stackTraceCollapse.cacheSize", 1024),
+                        settings.getPositiveLong("stackTraceCollapse.intervalMillis", 300000L))
+                : null;
+
+        final List<String> callerLocationLoggers = settings.getList("callerLocation.loggers");
+        callerLocator = callerLocationLoggers.isEmpty()
+                ? null
+                : new CallerLocator(callerLocationLoggers,
+                        settings.getEnumList("callerLocation.levels", Level.class, Arrays.asList(Level.values())),
+                        settings.getString("callerLocation.mdcKey", "callerLocation"));
+
+        batchMaxSize = settings.getPositiveInt("batch.maxSize", 512);
+        batchMaxDelayMillis = settings.getPositiveLong("batch.maxDelayMillis", 1000L);
+
+        final boolean levelOverrideEnabled = settings.getBoolean("levelOverride.enabled", false);
+        final String levelFile = settings.getString("levelOverride.file", null);
+        final LevelFileWatcher.WatchMode watchMode = settings.getEnum("levelOverride.watchMode",
+                LevelFileWatcher.WatchMode.class, LevelFileWatcher.WatchMode.WATCH);
+        final long levelCheckIntervalMillis = settings.getPositiveLong("levelOverride.checkIntervalMillis", 1000L);
+        levelOverrides = levelOverrideEnabled
+                ? new LevelOverrides(BackendLevelControl.forLogger(getLogger(JbossLoggingContext.class.getName())),
+                        settings.getPositiveLong("levelOverride.durationMillis", LevelOverrides.NO_EXPIRY))
+                : null;
+
+        loadShedder = settings.getBoolean("loadShedding.enabled", false)
+                ? new LoadShedder(getLogger(LoadShedder.class.getName()),
+                        settings.getEnum("loadShedding.minLevel", Level.class, Level.WARN),
+                        settings.getPositiveLong("loadShedding.eventsPerSecond", 10000L),
+                        settings.getPositiveLong("loadShedding.latencyMicros", Long.MAX_VALUE),
+                        settings.getPositiveInt("loadShedding.restorePercent", 50) / 100.0,
+                        settings.getPositiveInt("loadShedding.latencySampleRate", 64),
+                        settings.getPositiveLong("loadShedding.intervalMillis", 1000L),
+                        settings.getPositiveLong("loadShedding.windowMillis", 10000L))
+                : null;
+
+        final int defaultSamplingRate = settings.getPositiveInt("sampling.rate", 1);
+        final Map<String, Integer> samplingRates = settings.getPositiveIntByLogger("sampling.rate");
+        sampler = defaultSamplingRate > 1 || !samplingRates.isEmpty()
+                ? new LogSampler(defaultSamplingRate, samplingRates,
+                        settings.getEnumList("sampling.levels", Level.class, Arrays.asList(Level.DEBUG, Level.TRACE)),
+                        settings.getNonNegativeInt("sampling.keyArgument", LogSampler.NO_KEY))
+                : null;
+
+        final List<String> mappedSinkLoggerNames = settings.getList("mappedSink.loggers");
+        final Map<String, Boolean> mappedSinkTargets = new HashMap<String, Boolean>();
+        for (String loggerName : mappedSinkLoggerNames) {
+            mappedSinkTargets.put(loggerName, Boolean.TRUE);
+        }
+        mappedSinkLoggers = new LoggerNameMatcher<Boolean>(mappedSinkTargets);
+        final String mappedSinkDirectory = settings.getString("mappedSink.directory", null);
+        final String mappedSinkPrefix = settings.getString("mappedSink.filePrefix", MappedLogReader.DEFAULT_PREFIX);
+        final int mappedSinkSegmentSize = settings.getPositiveInt("mappedSink.segmentSize", 64 * 1024 * 1024);
+        if (!mappedSinkLoggerNames.isEmpty() && mappedSinkDirectory == null) {
+            throw settings.invalidValue("mappedSink.directory", null, "is required when mappedSink.loggers is specified");
+        }
+        if (mappedSinkSegmentSize < MIN_SEGMENT_SIZE) {
+            throw settings.invalidValue("mappedSink.segmentSize", String.valueOf(mappedSinkSegmentSize),
+                    "must be greater than or equal to " + MIN_SEGMENT_SIZE);
+        }
+
+        final List<String> threadContextKeys = settings.getList("threadContext.keys");
+        final List<String> threadContextMdcKeys = new ArrayList<String>();
+        for (String key : threadContextKeys) {
+            threadContextMdcKeys.add(settings.getString("threadContext.mdcKey." + key,
+                    ThreadContextPropagator.defaultMdcKey(key)));
+        }
+        threadContextPropagator = threadContextKeys.isEmpty()
+                ? null : new ThreadContextPropagator(threadContextKeys, threadContextMdcKeys, mdc);
+
+        final boolean virtualThreadHandoffEnabled = settings.getBoolean("virtualThreadHandoff.enabled", false);
+        final int virtualThreadHandoffBufferSize = settings.getPositiveInt("virtualThreadHandoff.bufferSize", 8192);
+        final int virtualThreadHandoffConsumers = settings.getPositiveInt("virtualThreadHandoff.consumers", 1);
+
+        // ファイルを作成する部品とスレッドを開始する部品は、全ての設定値の検証後に生成する
+        mappedSink = mappedSinkLoggerNames.isEmpty()
+                ? null
+                : createMappedSink(settings, mappedSinkDirectory, mappedSinkPrefix, mappedSinkSegmentSize);
+        asyncDispatcher = settings.getBoolean("async.enabled", false)
+                ? new AsyncLogDispatcher(
+                        settings.getPositiveInt("async.bufferSize", 8192),
+                        settings.getPositiveInt("async.consumers", 1),
+                        settings.getEnum("async.overflowPolicy", AsyncLogDispatcher.OverflowPolicy.class,
+                                AsyncLogDispatcher.OverflowPolicy.BLOCK),
+                        settings.getEnum("async.dropThreshold", Level.class, Level.WARN))
+                : null;
+        // 全てのスレッドで非同期出力する場合や、仮想スレッドが存在しない場合は引き継ぐ必要がない
+        virtualThreadDispatcher = virtualThreadHandoffEnabled && asyncDispatcher == null && VirtualThreads.isSupported()
+                ? new AsyncLogDispatcher(virtualThreadHandoffBufferSize, virtualThreadHandoffConsumers,
+                        AsyncLogDispatcher.OverflowPolicy.BLOCK, Level.FATAL, "jbossLogging-virtualThreadHandoff")
+                : null;
+        levelCheckRequired = asyncDispatcher != null || virtualThreadDispatcher != null || metrics != null || rateLimiter != null
+                || stackTraceCollapser != null || callerLocator != null || levelOverrides != null
+                || loadShedder != null || sampler != null || threadContextPropagator != null;
+
+        levelFileWatcher = levelOverrides != null && levelFile != null
+                ? new LevelFileWatcher(Paths.get(levelFile), levelOverrides, watchMode)
+                : null;
+        if (levelFileWatcher != null) {
+            levelFileWatcher.start();
+        }
+
+        final boolean levelRefreshRequired = levelCacheEnabled && levelRefreshIntervalMillis != Long.MAX_VALUE;
+        scheduler = levelRefreshRequired || rateLimiter != null || levelOverrides != null || loadShedder != null
+                || mappedSink != null
+                ? createScheduler() : null;
+        if (levelRefreshRequired) {
+            scheduler.scheduleWithFixedDelay(LevelCacheGeneration::increment,
+                    levelRefreshIntervalMillis, levelRefreshIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (rateLimiter != null) {
+            final long summaryIntervalMillis = rateLimiter.getSummaryIntervalMillis();
+            scheduler.scheduleAtFixedRate(rateLimiter::emitSummaries,
+                    summaryIntervalMillis, summaryIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (loadShedder != null) {
+            final long intervalMillis = loadShedder.getIntervalMillis();
+            scheduler.scheduleAtFixedRate(loadShedder::evaluate, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (mappedSink != null) {
+            scheduler.scheduleWithFixedDelay(mappedSink::flushRetired,
+                    MAPPED_SINK_FLUSH_INTERVAL_MILLIS, MAPPED_SINK_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (levelOverrides != null) {
+            scheduler.scheduleWithFixedDelay(this::maintainLevelOverrides,
+                    levelCheckIntervalMillis, levelCheckIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 有効期限を過ぎたログレベルの上書きを解除し、ポーリングで監視している場合は設定ファイルの変更を反映する。
+     */
+    private void maintainLevelOverrides() {
+        levelOverrides.expire();
+        if (levelFileWatcher != null && levelFileWatcher.isPolling()) {
+            levelFileWatcher.poll();
+        }
+    }
+
+    /**
+     * 設定で指定されたプロバイダを生成する。
+     * @param settings 設定
+     * @return プロバイダ。指定されていない場合は{@code null}
+     */
+    private static LoggerProvider createProvider(final JbossLoggingSettings settings) {
+        final JbossLoggingProvider type = settings.getEnum("provider", JbossLoggingProvider.class, null);
+        if (type == null) {
+            return null;
+        }
+        try {
+            return type.createIfAvailable();
+        } catch (IllegalStateException e) {
+            throw settings.invalidValue("provider", settings.getString("provider", null),
+                    "is not available. cause = [" + e.getMessage() + ']');
+        }
+    }
+
+    /**
+     * メモリマップした出力先を生成する。
+     * @param settings 設定
+     * @param directory 出力先のディレクトリ
+     * @param prefix セグメントファイル名の接頭辞
+     * @param segmentSize セグメントのサイズ(バイト)
+     * @return 出力先
+     */
+    private static MappedLogSink createMappedSink(final JbossLoggingSettings settings, final String directory,
+            final String prefix, final int segmentSize) {
+        try {
+            return new MappedLogSink(Paths.get(directory), prefix, segmentSize);
+        } catch (IOException e) {
+            throw settings.invalidValue("mappedSink.directory", directory,
+                    "cannot be used. cause = [" + e + ']');
+        }
+    }
+
+    /**
+     * 定期的に実行する処理のスケジューラを生成する。
+     * <p>
+     * スケジューラのスレッドはデーモンスレッドとする。
+     *
+     * @return スケジューラ
+     */
+    private static ScheduledExecutorService createScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "jbossLogging-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 前のコンテキストが保持していた資源を取得する。
+     * <p>
+     * 再初期化時に、前のコンテキストを停止した後に呼び出す。
+     * メモリマップした出力先が前のコンテキストの停止によって解放されたロックを取得し、書き込みを開始する。
+     */
+    void activate() {
+        if (mappedSink == null) {
+            return;
+        }
+        try {
+            mappedSink.acquire();
+        } catch (IOException ignored) {
+            // 書き込み時に再試行し、それまでは委譲先ロガーに出力する
+        }
+    }
+
+    /**
+     * 保持している部品を停止する。
+     * <p>
+     * 出力頻度の制限が有効な場合は、未出力の破棄件数を出力する。
+     * ログレベルの上書きが有効な場合は、全ての上書きを解除する。
+     * 非同期出力または仮想スレッドからの引き継ぎが有効な場合は、格納済みのログを出力してから停止する。
+     * メモリマップした出力先が有効な場合は、書き込んだ内容をファイルに反映する。
+     */
+    void terminate() {
+        final ScheduledExecutorService stopping;
+        synchronized (this) {
+            terminated = true;
+            stopping = scheduler;
+        }
+        if (stopping != null) {
+            stopping.shutdownNow();
+        }
+        if (levelFileWatcher != null) {
+            levelFileWatcher.stop();
+        }
+        if (levelOverrides != null) {
+            levelOverrides.clear();
+        }
+        if (rateLimiter != null) {
+            rateLimiter.emitSummaries();
+        }
+        if (asyncDispatcher != null) {
+            asyncDispatcher.shutdown(asyncShutdownTimeoutMillis);
+        }
+        if (virtualThreadDispatcher != null) {
+            virtualThreadDispatcher.shutdown(asyncShutdownTimeoutMillis);
+        }
+        if (mappedSink != null) {
+            mappedSink.close();
+        }
+    }
+
+    /**
+     * 委譲先のロガーを取得する。
+     * <p>
+     * プロバイダが指定されている場合はプロバイダから直接取得し、
+     * 指定されていない場合はjboss-loggingが探索したプロバイダから取得する。
+     *
+     * @param name ロガー名
+     * @return ロガー
+     */
+    org.jboss.logging.Logger getLogger(final String name) {
+        return provider == null ? org.jboss.logging.Logger.getLogger(name) : provider.getLogger(name);
+    }
+
+    /**
+     * メッセージテンプレートのキャッシュを取得する。
+     * @return キャッシュ。無効な場合は{@code null}
+     */
+    MessageTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    /**
+     * ログレベルをキャッシュするか否か。
+     * @return キャッシュする場合は{@code true}
+     */
+    boolean isLevelCacheEnabled() {
+        return levelCacheEnabled;
+    }
+
+    /**
+     * 非同期出力のディスパッチャを取得する。
+     * @return ディスパッチャ。無効な場合は{@code null}
+     */
+    AsyncLogDispatcher getAsyncDispatcher() {
+        return asyncDispatcher;
+    }
+
+    /**
+     * 仮想スレッドからの出力を引き継ぐディスパッチャを取得する。
+     * @return ディスパッチャ。無効な場合は{@code null}
+     */
+    AsyncLogDispatcher getVirtualThreadDispatcher() {
+        return virtualThreadDispatcher;
+    }
+
+    /**
+     * メトリクスを取得する。
+     * @return メトリクス。無効な場合は{@code null}
+     */
+    LoggingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 出力頻度の制限を取得する。
+     * @return 出力頻度の制限。無効な場合は{@code null}
+     */
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * スタックトレースの抑止を取得する。
+     * @return スタックトレースの抑止。無効な場合は{@code null}
+     */
+    StackTraceCollapser getStackTraceCollapser() {
+        return stackTraceCollapser;
+    }
+
+    /**
+     * 呼び出し元の位置の解決を取得する。
+     * @return 呼び出し元の位置の解決。無効な場合は{@code null}
+     */
+    CallerLocator getCallerLocator() {
+        return callerLocator;
+    }
+
+    /**
+     * バッチが保持するログ件数の上限を取得する。
+     * @return 上限
+     */
+    int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    /**
+     * バッチが最初に追加したログを出力するまでの最大の待機時間を取得する。
+     * @return 待機時間(ミリ秒)
+     */
+    long getBatchMaxDelayMillis() {
+        return batchMaxDelayMillis;
+    }
+
+    /**
+     * 定期的に実行する処理のスケジューラを取得する。
+     * <p>
+     * 生成していない場合は生成する。
+     *
+     * @return スケジューラ。停止後は{@code null}
+     */
+    synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null && !terminated) {
+            scheduler = createScheduler();
+        }
+        return scheduler;
+    }
+
+    /**
+     * ログレベルの上書きを取得する。
+     * @return ログレベルの上書き。無効な場合は{@code null}
+     */
+    LevelOverrides getLevelOverrides() {
+        return levelOverrides;
+    }
+
+    /**
+     * 負荷に応じた破棄を取得する。
+     * @return 負荷に応じた破棄。無効な場合は{@code null}
+     */
+    LoadShedder getLoadShedder() {
+        return loadShedder;
+    }
+
+    /**
+     * ログの間引きを取得する。
+     * @return ログの間引き。無効な場合は{@code null}
+     */
+    LogSampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * ロガーが書き込むメモリマップした出力先を取得する。
+     * @param loggerName ロガー名
+     * @return 出力先。対象のロガーでない場合は{@code null}
+     */
+    MappedLogSink getMappedSink(final String loggerName) {
+        return mappedSink != null && mappedSinkLoggers.match(loggerName, Boolean.FALSE) ? mappedSink : null;
+    }
+
+    /**
+     * 委譲先ロガーと同じプロバイダのMDCを取得する。
+     * @return MDC
+     */
+    MdcAccessor getMdc() {
+        return mdc;
+    }
+
+    /**
+     * スレッドコンテキストのMDCへの反映を取得する。
+     * @return スレッドコンテキストのMDCへの反映。無効な場合は{@code null}
+     */
+    ThreadContextPropagator getThreadContextPropagator() {
+        return threadContextPropagator;
+    }
+
+    /**
+     * ログ出力前にアダプタでログレベルを判定する必要があるか否か。
+     * <p>
+     * 有効な機能がいずれもログレベルの判定を必要としない場合は、判定を委譲先ロガーに任せる。
+     *
+     * @return 判定する必要がある場合は{@code true}
+     */
+    boolean isLevelCheckRequired() {
+        return levelCheckRequired;
+    }
+}
@@ -0,0 +1,61 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Map;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * {@link JbossLoggingLevelsMXBean}の実装クラス。
+ */
+final class JbossLoggingLevels implements JbossLoggingLevelsMXBean {
+
+    /** ログレベルの上書き */
+    private final LevelOverrides overrides;
+
+    /**
+     * MXBeanを生成する。
+     * @param overrides ログレベルの上書き
+     */
+    JbossLoggingLevels(final LevelOverrides overrides) {
+        this.overrides = overrides;
+    }
+
+    @Override
+    public Map<String, String> getOverrides() {
+        return overrides.describe();
+    }
+
+    @Override
+    public void setLevel(final String loggerName, final String level, final long durationMillis) {
+        if (loggerName == null) {
+            throw new IllegalArgumentException("loggerName must not be null.");
+        }
+        overrides.set(loggerName, toLevel(level), durationMillis);
+    }
+
+    @Override
+    public void removeLevel(final String loggerName) {
+        overrides.remove(loggerName);
+    }
+
+    @Override
+    public void clearLevels() {
+        overrides.clear();
+    }
+
+    /**
+     * ログレベルに変換する。
+     * @param level ログレベルの名前
+     * @return ログレベル
+     */
+    private static Level toLevel(final String level) {
+        if (level != null) {
+            for (Level value : Level.values()) {
+                if (value.name().equalsIgnoreCase(level.trim())) {
+                    return value;
+                }
+            }
+        }
+        throw new IllegalArgumentException("invalid level. level = [" + level + ']');
+    }
+}
@@ -0,0 +1,43 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Map;
+
+/**
+ * ログレベルの上書きを操作するMXBean。
+ * <p>
+ * {@code jbossLogging.levelOverride.enabled}が{@code true}の場合に、
+ * {@link JbossLoggingLoggerFactory}がプラットフォームMBeanサーバに登録する。
+ */
+public interface JbossLoggingLevelsMXBean {
+
+    /** デフォルトのオブジェクト名 */
+    String DEFAULT_OBJECT_NAME = "nablarch.integration.log.jbosslogging:type=JbossLoggingLevels";
+
+    /**
+     * ロガー名(階層)毎のログレベルの上書きを取得する。
+     * @return ロガー名(階層)をキー、ログレベルを値とした一覧
+     */
+    Map<String, String> getOverrides();
+
+    /**
+     * ログレベルを上書きする。
+     * <p>
+     * 指定したロガーとその配下のロガーに適用する。
+     *
+     * @param loggerName ロガー名(階層)。ルートロガーの場合は空文字列
+     * @param level ログレベル({@code FATAL}、{@code ERROR}、{@code WARN}、{@code INFO}、{@code DEBUG}、{@code TRACE}のいずれか)
+     * @param durationMillis 有効期間(ミリ秒)。0以下の場合は設定ファイルで指定した有効期間
+     */
+    void setLevel(String loggerName, String level, long durationMillis);
+
+    /**
+     * ログレベルの上書きを解除する。
+     * @param loggerName ロガー名(階層)
+     */
+    void removeLevel(String loggerName);
+
+    /**
+     * 全てのログレベルの上書きを解除する。
+     */
+    void clearLevels();
+}
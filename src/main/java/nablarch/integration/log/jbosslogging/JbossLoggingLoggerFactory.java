@@ -1,34 +1,355 @@
 package nablarch.integration.log.jbosslogging;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import nablarch.core.log.LogSettings;
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerFactory;
+import org.jboss.logging.Logger.Level;
 
 /**
  * {@link JbossLogger}を生成するクラス。
+ * <p>
+ * ログ出力の設定ファイルに以下の項目を指定することで、アダプタの動作を変更できる。
+ * <dl>
+ *     <dt>jbossLogging.provider</dt>
+ *     <dd>使用するjboss-loggingのプロバイダ({@code jboss}、{@code jdk}、{@code log4j2}、{@code log4j}、{@code slf4j}のいずれか)。
+ *     指定した場合はプロバイダを直接生成し、jboss-loggingによるプロバイダの探索を行わない。
+ *     デフォルトではjboss-loggingが探索したプロバイダを使用する。</dd>
+ *     <dt>jbossLogging.prewarm.loggers</dt>
+ *     <dd>初期化時に事前に生成するロガー名(カンマ区切り)。</dd>
+ *     <dt>jbossLogging.prewarm.levels</dt>
+ *     <dd>事前に生成したロガーで判定しておくログレベル(カンマ区切り)。デフォルトは全てのログレベル。</dd>
+ *     <dt>jbossLogging.templateCache.enabled</dt>
+ *     <dd>解析済みのメッセージテンプレートをキャッシュし、アダプタ内でメッセージを書式化するか否か。デフォルトは{@code false}。
+ *     書式化結果は{@link java.text.MessageFormat}と同一となる。</dd>
+ *     <dt>jbossLogging.templateCache.size</dt>
+ *     <dd>キャッシュするメッセージテンプレート数の上限。デフォルトは1024。</dd>
+ *     <dt>jbossLogging.async.enabled</dt>
+ *     <dd>ログをリングバッファに格納し、バックグラウンドスレッドで出力するか否か。デフォルトは{@code false}。
+ *     ログ出力ライブラリは出力スレッドでログを出力するため、以下の値は呼び出し元スレッドのものとならない。
+ *     <ul>
+ *         <li>アプリケーションがjboss-loggingの{@link org.jboss.logging.MDC}・{@link org.jboss.logging.NDC}に直接設定した値
+ *         (出力スレッドには引き継がない。{@code jbossLogging.threadContext.keys}で指定した値のみ引き継ぐ)</li>
+ *         <li>スレッド名(出力スレッドの名前となる)</li>
+ *         <li>ログ出力ライブラリがスタックトレースから解決する呼び出し元のクラス・メソッド・行番号
+ *         (呼び出し元の位置が必要な場合は{@code jbossLogging.callerLocation.loggers}を指定する)</li>
+ *     </ul>
+ *     これらを出力するフォーマッタを使用している場合は、出力内容が変わることに注意すること。</dd>
+ *     <dt>jbossLogging.async.bufferSize</dt>
+ *     <dd>リングバッファのサイズ。2のべき乗に切り上げる。デフォルトは8192。</dd>
+ *     <dt>jbossLogging.async.consumers</dt>
+ *     <dd>バックグラウンドで出力するスレッド数。デフォルトは1。2以上の場合、出力順序は保証されない。</dd>
+ *     <dt>jbossLogging.async.overflowPolicy</dt>
+ *     <dd>リングバッファが満杯の場合の動作。デフォルトは{@code BLOCK}。
+ *     <ul>
+ *         <li>{@code BLOCK}:空きができるまで待機する</li>
+ *         <li>{@code DROP_BELOW_LEVEL}:{@code jbossLogging.async.dropThreshold}より詳細なレベルのログは破棄し、それ以外は待機する</li>
+ *         <li>{@code DISCARD_OLDEST}:最も古いログを破棄する</li>
+ *     </ul>
+ *     </dd>
+ *     <dt>jbossLogging.async.dropThreshold</dt>
+ *     <dd>{@code DROP_BELOW_LEVEL}で破棄しないレベルの下限。デフォルトは{@code WARN}。</dd>
+ *     <dt>jbossLogging.async.shutdownTimeoutMillis</dt>
+ *     <dd>{@link #terminate()}でリングバッファ内のログの出力を待機する時間(ミリ秒)。仮想スレッドからの引き継ぎにも適用する。デフォルトは5000。</dd>
+ *     <dt>jbossLogging.levelCache.enabled</dt>
+ *     <dd>有効なログレベルを各ロガーにキャッシュするか否か。デフォルトは{@code false}。
+ *     キャッシュを有効にした場合、ログレベルの設定を変更したら{@link #invalidateLevelCache()}を呼び出すこと。</dd>
+ *     <dt>jbossLogging.levelCache.refreshIntervalMillis</dt>
+ *     <dd>キャッシュしたログレベルを定期的に破棄する間隔(ミリ秒)。デフォルトでは定期的な破棄は行わない。</dd>
+ *     <dt>jbossLogging.metrics.enabled</dt>
+ *     <dd>ロガー毎・ログレベル毎の出力件数と委譲先ロガーの処理時間を記録し、
+ *     {@link JbossLoggingMetricsMXBean}としてプラットフォームMBeanサーバに公開するか否か。デフォルトは{@code false}。
+ *     負荷に応じた破棄が有効な場合は、無効であってもMXBeanを登録し、破棄の状態とレジストリの統計情報を公開する。</dd>
+ *     <dt>jbossLogging.metrics.objectName</dt>
+ *     <dd>MXBeanのオブジェクト名。デフォルトは{@value JbossLoggingMetricsMXBean#DEFAULT_OBJECT_NAME}。</dd>
+ *     <dt>jbossLogging.metrics.maxLoggers</dt>
+ *     <dd>メトリクスを個別に記録するロガー数の上限。超えた分はまとめて記録する。デフォルトは1000。</dd>
+ *     <dt>jbossLogging.metrics.latencySampleRate</dt>
+ *     <dd>処理時間を記録する割合。指定した件数に1件の割合で記録する。デフォルトは64。</dd>
+ *     <dt>jbossLogging.rateLimit.enabled</dt>
+ *     <dd>ロガー名、ログレベル、書式化前のメッセージが同一のログの出力頻度を制限するか否か。デフォルトは{@code false}。
+ *     上限を超えたログは破棄し、破棄した件数を定期的に1行のログとして出力する。</dd>
+ *     <dt>jbossLogging.rateLimit.eventsPerSecond</dt>
+ *     <dd>同一のログを1秒あたりに出力する上限。デフォルトは100。</dd>
+ *     <dt>jbossLogging.rateLimit.eventsPerSecond.&lt;ロガー名&gt;</dt>
+ *     <dd>指定したロガーとその配下のロガーに適用する、同一のログを1秒あたりに出力する上限。</dd>
+ *     <dt>jbossLogging.rateLimit.maxKeys</dt>
+ *     <dd>出力頻度を記録するログの組み合わせ数の上限。超えた場合は最近出力されていない組み合わせから破棄する。デフォルトは10000。</dd>
+ *     <dt>jbossLogging.rateLimit.summaryIntervalMillis</dt>
+ *     <dd>破棄した件数を出力する間隔(ミリ秒)。デフォルトは60000。</dd>
+ *     <dt>jbossLogging.stackTraceCollapse.enabled</dt>
+ *     <dd>同一のスタックトレースの繰り返し出力を抑止するか否か。デフォルトは{@code false}。
+ *     スタックトレースを省略したログには、例外の概要と、スタックトレースを出力したログと同じ参照ID({@code stackTraceId})を付与する。</dd>
+ *     <dt>jbossLogging.stackTraceCollapse.cacheSize</dt>
+ *     <dd>出力済みとして保持するスタックトレース数の上限。デフォルトは1024。</dd>
+ *     <dt>jbossLogging.stackTraceCollapse.intervalMillis</dt>
+ *     <dd>省略したスタックトレースを再出力する間隔(ミリ秒)。デフォルトは300000。</dd>
+ *     <dt>jbossLogging.callerLocation.loggers</dt>
+ *     <dd>{@link StackWalker}で呼び出し元の位置({@code クラス名.メソッド名(ファイル名:行番号)})を解決するロガー名(カンマ区切り)。
+ *     指定したロガーとその配下のロガーが対象となる。解決した位置はログ出力中のみMDCに格納する。
+ *     デフォルトではどのロガーでも解決しない。</dd>
+ *     <dt>jbossLogging.callerLocation.levels</dt>
+ *     <dd>呼び出し元の位置を解決するログレベル(カンマ区切り)。デフォルトは全てのログレベル。</dd>
+ *     <dt>jbossLogging.callerLocation.mdcKey</dt>
+ *     <dd>呼び出し元の位置を格納するMDCのキー。デフォルトは{@code callerLocation}。</dd>
+ *     <dt>jbossLogging.loadShedding.enabled</dt>
+ *     <dd>負荷が高い場合に、詳細なレベルのログを一時的に破棄するか否か。デフォルトは{@code false}。
+ *     全ロガーの出力要求数と委譲先ロガーの平均処理時間を一定期間で評価し、閾値を超えた場合は有効なログレベルの下限を引き上げる。
+ *     破棄の開始時と終了時にはWARNレベルのログを出力する。破棄の状態は{@link JbossLoggingMetricsMXBean}で確認できる。
+ *     ({@code jbossLogging.metrics.enabled}が{@code false}の場合もMXBeanを登録する)<br>
+ *     {@code isDebugEnabled()}などのログレベルの判定が破棄のみを理由に無効となった場合も、出力要求と破棄したログとして数える。</dd>
+ *     <dt>jbossLogging.loadShedding.minLevel</dt>
+ *     <dd>破棄中に出力するログレベルの下限。デフォルトは{@code WARN}。</dd>
+ *     <dt>jbossLogging.loadShedding.eventsPerSecond</dt>
+ *     <dd>破棄を開始する1秒あたりの出力要求数。デフォルトは10000。</dd>
+ *     <dt>jbossLogging.loadShedding.latencyMicros</dt>
+ *     <dd>破棄を開始する委譲先ロガーの平均処理時間(マイクロ秒)。デフォルトでは処理時間では判定しない。</dd>
+ *     <dt>jbossLogging.loadShedding.restorePercent</dt>
+ *     <dd>破棄を終了する閾値の割合(%)。出力要求数と平均処理時間がいずれも閾値にこの割合を乗じた値を下回った場合に終了する。
+ *     デフォルトは50。</dd>
+ *     <dt>jbossLogging.loadShedding.latencySampleRate</dt>
+ *     <dd>処理時間を計測する割合。指定した件数に1件の割合で計測する。デフォルトは64。</dd>
+ *     <dt>jbossLogging.loadShedding.intervalMillis</dt>
+ *     <dd>負荷を評価する間隔(ミリ秒)。デフォルトは1000。</dd>
+ *     <dt>jbossLogging.loadShedding.windowMillis</dt>
+ *     <dd>負荷を評価する期間(ミリ秒)。破棄は開始からこの期間が経過するまで終了しない。デフォルトは10000。</dd>
+ *     <dt>jbossLogging.sampling.rate</dt>
+ *     <dd>詳細なレベルのログを間引く割合。指定した件数に1件の割合で出力する。デフォルトは1(間引かない)。</dd>
+ *     <dt>jbossLogging.sampling.rate.&lt;ロガー名&gt;</dt>
+ *     <dd>指定したロガーとその配下のロガーに適用する、ログを間引く割合。</dd>
+ *     <dt>jbossLogging.sampling.levels</dt>
+ *     <dd>間引くログレベル(カンマ区切り)。デフォルトは{@code DEBUG,TRACE}。</dd>
+ *     <dt>jbossLogging.sampling.keyArgument</dt>
+ *     <dd>間引くか否かの判定に使用する、メッセージに埋め込む値の位置(0始まり)。
+ *     指定した場合は値のハッシュ値で判定するため、同じ値(例えばリクエストID)を埋め込んだログは全て出力されるか全て間引かれる。
+ *     指定した位置に値を埋め込まないログ(値が{@code null}や遅延評価される値の場合を含む)は、
+ *     {@link nablarch.core.ThreadContext}のリクエストIDで判定し、リクエストIDも存在しない場合は間引かない。
+ *     デフォルトではスレッド毎の乱数で判定する。</dd>
+ *     <dt>jbossLogging.mappedSink.loggers</dt>
+ *     <dd>委譲先ロガーを経由せず、メモリマップしたセグメントファイルに直接書き込むロガー名(カンマ区切り)。
+ *     指定したロガーとその配下のロガーが対象となる。アクセスログや監査ログなど大量に出力するロガーを想定する。
+ *     書き込んだログは{@link MappedLogReader}で読み出す。デフォルトではどのロガーも対象としない。</dd>
+ *     <dt>jbossLogging.mappedSink.directory</dt>
+ *     <dd>セグメントファイルを作成するディレクトリ。{@code jbossLogging.mappedSink.loggers}を指定した場合は必須。
+ *     ディレクトリ内のロックファイルを取得した1つの出力先のみが書き込み、他のプロセスなどがロックを保持している間は委譲先ロガーに出力する。</dd>
+ *     <dt>jbossLogging.mappedSink.filePrefix</dt>
+ *     <dd>セグメントファイル名の接頭辞。デフォルトは{@value MappedLogReader#DEFAULT_PREFIX}。</dd>
+ *     <dt>jbossLogging.mappedSink.segmentSize</dt>
+ *     <dd>セグメントファイルのサイズ(バイト)。一杯になった場合は次のセグメントファイルに書き込む。デフォルトは67108864(64MB)。</dd>
+ *     <dt>jbossLogging.virtualThreadHandoff.enabled</dt>
+ *     <dd>仮想スレッドからのログ出力を、プラットフォームスレッドの出力スレッドに引き継ぐか否か。デフォルトは{@code false}。
+ *     委譲先ロガーの排他制御で仮想スレッドのキャリアスレッドが固定(ピン留め)されることを避ける。
+ *     プラットフォームスレッドからのログ出力は呼び出し元スレッドで出力する。
+ *     非同期出力が有効な場合や、Javaが仮想スレッドをサポートしない場合は無視する。
+ *     引き継いだログは、{@code jbossLogging.async.enabled}と同様にMDC・NDC、スレッド名、呼び出し元のクラスなどが
+ *     呼び出し元スレッドのものとならないため、これらを出力するフォーマッタを使用している場合は注意すること。</dd>
+ *     <dt>jbossLogging.virtualThreadHandoff.bufferSize</dt>
+ *     <dd>引き継ぐログを格納するバッファサイズ。満杯の場合は空きができるまで待機する。デフォルトは8192。</dd>
+ *     <dt>jbossLogging.virtualThreadHandoff.consumers</dt>
+ *     <dd>出力スレッド数。デフォルトは1。2以上の場合、同じスレッドからのログであっても出力順序は保証されない。</dd>
+ *     <dt>jbossLogging.threadContext.keys</dt>
+ *     <dd>Nablarchの{@link nablarch.core.ThreadContext}からjboss-loggingの{@link org.jboss.logging.MDC}に反映するキー(カンマ区切り)。
+ *     例えば{@code REQUEST_ID,USER_ID,EXECUTION_ID}を指定すると、ログ出力ライブラリのパターンで{@code %X{requestId}}のように参照できる。
+ *     値はログの出力を要求した時点のものを反映し、非同期出力の場合も出力するスレッドに引き継ぐ。
+ *     非同期出力のスレッドでは値が変わらない間はMDCを書き換えないため、反映先のMDCの値はアダプタが管理する。
+ *     ログの出力を要求したスレッドで出力する場合は出力中のみ反映し、出力後に反映前の値に戻す。デフォルトでは反映しない。</dd>
+ *     <dt>jbossLogging.threadContext.mdcKey.&lt;キー&gt;</dt>
+ *     <dd>{@link nablarch.core.ThreadContext}のキーに対応するMDCのキー。
+ *     デフォルトはアンダースコア区切りのキーをキャメルケースに変換したもの({@code REQUEST_ID}の場合は{@code requestId})。</dd>
+ *     <dt>jbossLogging.batch.maxSize</dt>
+ *     <dd>{@link JbossLogger#batch()}で生成するバッチが保持するログ件数の上限。上限に達した場合はまとめて出力する。デフォルトは512。</dd>
+ *     <dt>jbossLogging.batch.maxDelayMillis</dt>
+ *     <dd>バッチが最初に追加したログから、まとめて出力するまでの最大の待機時間(ミリ秒)。
+ *     経過後にログを追加しなかった場合も、定期的に実行する処理のスレッドで出力する。デフォルトは1000。</dd>
+ *     <dt>jbossLogging.levelOverride.enabled</dt>
+ *     <dd>ロガー名(階層)毎にログレベルを実行時に上書きするか否か。デフォルトは{@code false}。
+ *     上書きは{@code jbossLogging.levelOverride.file}で指定したファイルと、
+ *     プラットフォームMBeanサーバに登録する{@link JbossLoggingLevelsMXBean}から変更できる。
+ *     java.util.logging、JBoss LogManager、Log4j 2を使用している場合は、ログ出力ライブラリのログレベルも合わせて変更する。
+ *     それ以外のライブラリでは、ログ出力ライブラリのログレベルより詳細なレベルを指定しても出力されない。</dd>
+ *     <dt>jbossLogging.levelOverride.file</dt>
+ *     <dd>ログレベルの上書きを記述したファイルのパス。キーにロガー名(階層)、値にログレベルを指定したプロパティファイル形式とする。
+ *     ファイルの変更は再起動せずに反映する。</dd>
+ *     <dt>jbossLogging.levelOverride.watchMode</dt>
+ *     <dd>ファイルの変更の検知方式。{@code WATCH}({@link java.nio.file.WatchService}で監視する)、
+ *     {@code POLL}(定期的にファイルの更新日時とサイズを確認する)のいずれか。デフォルトは{@code WATCH}。
+ *     {@link java.nio.file.WatchService}が使用できない場合はポーリングで監視する。</dd>
+ *     <dt>jbossLogging.levelOverride.checkIntervalMillis</dt>
+ *     <dd>上書きの有効期限とファイルの変更(ポーリングの場合)を確認する間隔(ミリ秒)。デフォルトは1000。</dd>
+ *     <dt>jbossLogging.levelOverride.durationMillis</dt>
+ *     <dd>上書きの有効期間(ミリ秒)。期間を過ぎた上書きは解除する。デフォルトでは期限を設けない。</dd>
+ *     <dt>jbossLogging.levelOverride.objectName</dt>
+ *     <dd>MXBeanのオブジェクト名。デフォルトは{@value JbossLoggingLevelsMXBean#DEFAULT_OBJECT_NAME}。</dd>
+ *     <dt>jbossLogging.registry.maxSize</dt>
+ *     <dd>ロガー名毎に保持する{@link JbossLogger}の上限。上限を超えた場合は最近使用されていないロガーから破棄する。デフォルトは10000。</dd>
+ * </dl>
  *
  * @author siosio
  */
 public class JbossLoggingLoggerFactory implements LoggerFactory{
 
+    /** ロガーのレジストリが保持するロガー数の上限のデフォルト値 */
+    private static final int DEFAULT_REGISTRY_SIZE = 10000;
+
+    /** 生成したロガーで共有する設定と部品 */
+    private volatile JbossLoggingContext context = JbossLoggingContext.DEFAULT;
+
+    /** 生成したロガーを保持するレジストリ */
+    private volatile LoggerRegistry registry = createRegistry(JbossLoggingContext.DEFAULT, DEFAULT_REGISTRY_SIZE);
+
+    /** 登録したメトリクスのMXBeanのオブジェクト名(登録していない場合は{@code null}) */
+    private ObjectName registeredMetricsName;
+
+    /** 登録したログレベルの上書きのMXBeanのオブジェクト名(登録していない場合は{@code null}) */
+    private ObjectName registeredLevelsName;
+
     /**
-     * この実装では何もしない
+     * 設定を読み込み、生成するロガーで共有する部品を初期化する。
      */
     @Override
     public void initialize(final LogSettings settings) {
-        // nop
+        final JbossLoggingSettings jbossLoggingSettings = new JbossLoggingSettings(settings);
+        final int registrySize = jbossLoggingSettings.getPositiveInt("registry.maxSize", DEFAULT_REGISTRY_SIZE);
+        final List<String> prewarmLoggers = jbossLoggingSettings.getList("prewarm.loggers");
+        final List<Level> prewarmLevels = jbossLoggingSettings.getEnumList("prewarm.levels", Level.class,
+                Arrays.asList(Level.values()));
+
+        final JbossLoggingContext previous = context;
+        context = new JbossLoggingContext(jbossLoggingSettings);
+        registry = createRegistry(context, registrySize);
+        previous.terminate();
+        context.activate();
+        unregisterMBeans();
+        if (context.getMetrics() != null || context.getLoadShedder() != null) {
+            registeredMetricsName = registerMBean(new JbossLoggingMetrics(this, context),
+                    jbossLoggingSettings.getString("metrics.objectName", JbossLoggingMetricsMXBean.DEFAULT_OBJECT_NAME));
+        }
+        if (context.getLevelOverrides() != null) {
+            registeredLevelsName = registerMBean(new JbossLoggingLevels(context.getLevelOverrides()),
+                    jbossLoggingSettings.getString("levelOverride.objectName", JbossLoggingLevelsMXBean.DEFAULT_OBJECT_NAME));
+        }
+        prewarm(prewarmLoggers, prewarmLevels);
     }
 
     /**
-     * この実装では何もしない
+     * ロガーを事前に生成し、ログレベルを判定しておく。
+     * <p>
+     * 委譲先ロガーの生成とログレベルの解決を初回のログ出力から前倒しする。
+     *
+     * @param loggerNames ロガー名
+     * @param levels 判定するログレベル
+     */
+    private void prewarm(final List<String> loggerNames, final List<Level> levels) {
+        for (String loggerName : loggerNames) {
+            final JbossLogger logger = registry.get(loggerName);
+            for (Level level : levels) {
+                logger.isEnabled(level);
+            }
+        }
+    }
+
+    /**
+     * 共有する部品を停止する。
+     * <p>
+     * 非同期出力が有効な場合は、リングバッファ内のログを出力してから停止する。
      */
     @Override
     public void terminate() {
-        // nop
+        unregisterMBeans();
+        context.terminate();
+    }
+
+    /**
+     * MXBeanをプラットフォームMBeanサーバに登録する。
+     * <p>
+     * 同じ名前のMBeanが既に登録されている場合は置き換える。
+     *
+     * @param mbean MXBean
+     * @param objectName オブジェクト名
+     * @return 登録したオブジェクト名
+     */
+    private synchronized ObjectName registerMBean(final Object mbean, final String objectName) {
+        try {
+            final ObjectName name = new ObjectName(objectName);
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(mbean, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("failed to register MXBean. object name = [" + objectName + ']', e);
+        }
+    }
+
+    /**
+     * 登録したMXBeanをプラットフォームMBeanサーバから削除する。
+     */
+    private synchronized void unregisterMBeans() {
+        unregisterMBean(registeredMetricsName);
+        registeredMetricsName = null;
+        unregisterMBean(registeredLevelsName);
+        registeredLevelsName = null;
+    }
+
+    /**
+     * MXBeanをプラットフォームMBeanサーバから削除する。
+     * @param name オブジェクト名(登録していない場合は{@code null})
+     */
+    private static void unregisterMBean(final ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException ignored) {
+            // 既に削除されている場合は何もしない
+        }
     }
 
+    /**
+     * ロガーを取得する。
+     * <p>
+     * ロガー名毎に生成したロガーをレジストリに保持し、再利用する。
+     */
     @Override
     public Logger get(final String name) {
-        return new JbossLogger(org.jboss.logging.Logger.getLogger(name));
+        return registry.get(name);
+    }
+
+    /**
+     * 全てのロガーがキャッシュしている有効なログレベルを破棄する。
+     * <p>
+     * ログレベルのキャッシュが有効な場合に、ログ出力ライブラリのログレベルの設定を変更した後に呼び出すこと。
+     * 各ロガーは次回のログレベル判定時に委譲先ロガーから有効なログレベルを再取得する。
+     */
+    public static void invalidateLevelCache() {
+        LevelCacheGeneration.increment();
+    }
+
+    /**
+     * ロガーのレジストリの統計情報を取得する。
+     * @return 統計情報
+     */
+    public LoggerRegistryStatistics getRegistryStatistics() {
+        return registry.getStatistics();
+    }
+
+    /**
+     * ロガーのレジストリを生成する。
+     * @param context 生成するロガーで共有する設定と部品
+     * @param maxSize 保持するロガー数の上限
+     * @return レジストリ
+     */
+    private static LoggerRegistry createRegistry(final JbossLoggingContext context, final int maxSize) {
+        return new LoggerRegistry(maxSize,
+                name -> new JbossLogger(context.getLogger(name), context));
     }
 }
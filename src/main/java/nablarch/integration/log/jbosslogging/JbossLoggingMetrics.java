@@ -0,0 +1,108 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link JbossLoggingMetricsMXBean}の実装クラス。
+ */
+final class JbossLoggingMetrics implements JbossLoggingMetricsMXBean {
+
+    /** メトリクスを公開するファクトリ */
+    private final JbossLoggingLoggerFactory factory;
+
+    /** 全ロガーのメトリクス(無効な場合は{@code null}) */
+    private final LoggingMetrics metrics;
+
+    /** 非同期出力のディスパッチャ */
+    private final AsyncLogDispatcher asyncDispatcher;
+
+    /** 負荷に応じた破棄 */
+    private final LoadShedder loadShedder;
+
+    /**
+     * MXBeanを生成する。
+     * @param factory メトリクスを公開するファクトリ
+     * @param context ファクトリのコンテキスト
+     */
+    JbossLoggingMetrics(final JbossLoggingLoggerFactory factory, final JbossLoggingContext context) {
+        this.factory = factory;
+        this.metrics = context.getMetrics();
+        this.asyncDispatcher = context.getAsyncDispatcher();
+        this.loadShedder = context.getLoadShedder();
+    }
+
+    @Override
+    public long getTotalEventCount() {
+        if (metrics == null) {
+            return 0;
+        }
+        long total = 0;
+        for (LoggerMetricsSnapshot snapshot : metrics.snapshot()) {
+            total += snapshot.getTotalEventCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalSuppressedCount() {
+        if (metrics == null) {
+            return 0;
+        }
+        long total = 0;
+        for (LoggerMetricsSnapshot snapshot : metrics.snapshot()) {
+            total += snapshot.getTotalSuppressedCount();
+        }
+        return total;
+    }
+
+    @Override
+    public List<LoggerMetricsSnapshot> getLoggers() {
+        return metrics == null ? Collections.<LoggerMetricsSnapshot>emptyList() : metrics.snapshot();
+    }
+
+    @Override
+    public int getRegistrySize() {
+        return factory.getRegistryStatistics().getSize();
+    }
+
+    @Override
+    public long getRegistryHits() {
+        return factory.getRegistryStatistics().getHits();
+    }
+
+    @Override
+    public long getRegistryMisses() {
+        return factory.getRegistryStatistics().getMisses();
+    }
+
+    @Override
+    public long getRegistryEvictions() {
+        return factory.getRegistryStatistics().getEvictions();
+    }
+
+    @Override
+    public int getAsyncQueueSize() {
+        return asyncDispatcher == null ? 0 : asyncDispatcher.size();
+    }
+
+    @Override
+    public long getAsyncDroppedCount() {
+        return asyncDispatcher == null ? 0 : asyncDispatcher.getDroppedCount();
+    }
+
+    @Override
+    public boolean isLoadShedding() {
+        return loadShedder != null && loadShedder.isShedding();
+    }
+
+    @Override
+    public long getLoadSheddingTransitions() {
+        return loadShedder == null ? 0 : loadShedder.getTransitions();
+    }
+
+    @Override
+    public long getLoadShedCount() {
+        return loadShedder == null ? 0 : loadShedder.getShedCount();
+    }
+}
@@ -0,0 +1,87 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.List;
+
+/**
+ * jboss-loggingアダプタのメトリクスを公開するMXBean。
+ * <p>
+ * {@code jbossLogging.metrics.enabled}または{@code jbossLogging.loadShedding.enabled}が{@code true}の場合に、
+ * {@link JbossLoggingLoggerFactory}がプラットフォームMBeanサーバに登録する。
+ */
+public interface JbossLoggingMetricsMXBean {
+
+    /** デフォルトのオブジェクト名 */
+    String DEFAULT_OBJECT_NAME = "nablarch.integration.log.jbosslogging:type=JbossLoggingMetrics";
+
+    /**
+     * 全ロガーの出力件数を取得する。
+     * @return 出力件数。メトリクスが無効な場合は0
+     */
+    long getTotalEventCount();
+
+    /**
+     * 全ロガーのログレベルが無効なため出力しなかった件数を取得する。
+     * @return 出力しなかった件数。メトリクスが無効な場合は0
+     */
+    long getTotalSuppressedCount();
+
+    /**
+     * ロガー毎のメトリクスを取得する。
+     * @return ロガー毎のメトリクス。メトリクスが無効な場合は空
+     */
+    List<LoggerMetricsSnapshot> getLoggers();
+
+    /**
+     * ロガーのレジストリが保持しているロガー数を取得する。
+     * @return ロガー数
+     */
+    int getRegistrySize();
+
+    /**
+     * ロガーのレジストリのヒット数を取得する。
+     * @return ヒット数
+     */
+    long getRegistryHits();
+
+    /**
+     * ロガーのレジストリのミス数を取得する。
+     * @return ミス数
+     */
+    long getRegistryMisses();
+
+    /**
+     * ロガーのレジストリから破棄したロガー数を取得する。
+     * @return 破棄したロガー数
+     */
+    long getRegistryEvictions();
+
+    /**
+     * 非同期出力のバッファに格納されているログの件数を取得する。
+     * @return 件数。非同期出力が無効な場合は0
+     */
+    int getAsyncQueueSize();
+
+    /**
+     * 非同期出力で破棄したログの件数を取得する。
+     * @return 件数。非同期出力が無効な場合は0
+     */
+    long getAsyncDroppedCount();
+
+    /**
+     * 負荷に応じて詳細なレベルのログを破棄しているか否か。
+     * @return 破棄している場合は{@code true}。負荷に応じた破棄が無効な場合は{@code false}
+     */
+    boolean isLoadShedding();
+
+    /**
+     * 負荷に応じた破棄を開始または終了した回数を取得する。
+     * @return 回数。負荷に応じた破棄が無効な場合は0
+     */
+    long getLoadSheddingTransitions();
+
+    /**
+     * 負荷に応じて破棄したログの件数を取得する。
+     * @return 件数。負荷に応じた破棄が無効な場合は0
+     */
+    long getLoadShedCount();
+}
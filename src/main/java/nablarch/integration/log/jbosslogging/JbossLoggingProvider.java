@@ -0,0 +1,95 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.logging.LogManager;
+
+import org.jboss.logging.JBossLogManagerProvider;
+import org.jboss.logging.JDKLoggerProvider;
+import org.jboss.logging.Log4j2LoggerProvider;
+import org.jboss.logging.Log4jLoggerProvider;
+import org.jboss.logging.LoggerProvider;
+import org.jboss.logging.Slf4jLoggerProvider;
+
+/**
+ * 明示的に指定するjboss-loggingのプロバイダ。
+ * <p>
+ * 名前はjboss-loggingのシステムプロパティ{@code org.jboss.logging.provider}に指定する値と同じとする。<br>
+ * プロバイダを直接生成するため、jboss-loggingによるプロバイダの探索(システムプロパティの参照、
+ * {@link java.util.ServiceLoader}による検索、ログ出力ライブラリの有無の確認)は行わない。
+ */
+enum JbossLoggingProvider {
+
+    /** JBoss LogManager */
+    JBOSS("org.jboss.logmanager.LogManager") {
+        @Override
+        LoggerProvider create() {
+            final String logManagerClass = LogManager.getLogManager().getClass().getName();
+            if (!"org.jboss.logmanager.LogManager".equals(logManagerClass)) {
+                throw new IllegalStateException("JBoss LogManager is not installed. log manager = [" + logManagerClass + ']');
+            }
+            return new JBossLogManagerProvider();
+        }
+    },
+
+    /** java.util.logging */
+    JDK("java.util.logging.Logger") {
+        @Override
+        LoggerProvider create() {
+            return new JDKLoggerProvider();
+        }
+    },
+
+    /** Log4j 2 */
+    LOG4J2("org.apache.logging.log4j.spi.ExtendedLogger") {
+        @Override
+        LoggerProvider create() {
+            return new Log4j2LoggerProvider();
+        }
+    },
+
+    /** Log4j 1.x */
+    LOG4J("org.apache.log4j.LogManager") {
+        @Override
+        LoggerProvider create() {
+            return new Log4jLoggerProvider();
+        }
+    },
+
+    /** SLF4J */
+    SLF4J("org.slf4j.LoggerFactory") {
+        @Override
+        LoggerProvider create() {
+            return new Slf4jLoggerProvider();
+        }
+    };
+
+    /** ログ出力ライブラリの存在を確認するクラス */
+    private final String requiredClass;
+
+    /**
+     * プロバイダの種類を生成する。
+     * @param requiredClass ログ出力ライブラリの存在を確認するクラス
+     */
+    JbossLoggingProvider(final String requiredClass) {
+        this.requiredClass = requiredClass;
+    }
+
+    /**
+     * ログ出力ライブラリが使用できることを確認し、プロバイダを生成する。
+     * @return プロバイダ
+     * @throws IllegalStateException ログ出力ライブラリが使用できない場合
+     */
+    LoggerProvider createIfAvailable() {
+        try {
+            Class.forName(requiredClass, false, JbossLoggingProvider.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("class not found. class = [" + requiredClass + ']', e);
+        }
+        return create();
+    }
+
+    /**
+     * プロバイダを生成する。
+     * @return プロバイダ
+     */
+    abstract LoggerProvider create();
+}
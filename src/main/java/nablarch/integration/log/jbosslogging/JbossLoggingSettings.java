@@ -0,0 +1,259 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.log.LogSettings;
+
+/**
+ * ログ出力の設定からjboss-loggingアダプタ用の設定値を読み込むクラス。
+ * <p>
+ * 設定値のキーは全て{@value #PREFIX}から始まる。
+ */
+final class JbossLoggingSettings {
+
+    /** 設定値のキーのプレフィックス */
+    static final String PREFIX = "jbossLogging.";
+
+    /** 設定値が存在しない設定 */
+    static final JbossLoggingSettings EMPTY = new JbossLoggingSettings(Collections.<String, String>emptyMap(), null);
+
+    /** 設定値 */
+    private final Map<String, String> props;
+
+    /** 設定ファイルのパス */
+    private final String filePath;
+
+    /**
+     * 設定値を読み込むオブジェクトを生成する。
+     * @param settings ログ出力の設定
+     */
+    JbossLoggingSettings(final LogSettings settings) {
+        this(settings.getProps(), settings.getFilePath());
+    }
+
+    /**
+     * 設定値を読み込むオブジェクトを生成する。
+     * @param props 設定値
+     * @param filePath 設定ファイルのパス
+     */
+    private JbossLoggingSettings(final Map<String, String> props, final String filePath) {
+        this.props = props;
+        this.filePath = filePath;
+    }
+
+    /**
+     * 文字列の設定値を取得する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param defaultValue 設定されていない場合の値
+     * @return 設定値
+     */
+    String getString(final String name, final String defaultValue) {
+        final String value = props.get(PREFIX + name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * 真偽値の設定値を取得する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param defaultValue 設定されていない場合の値
+     * @return 設定値
+     */
+    boolean getBoolean(final String name, final boolean defaultValue) {
+        final String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw invalidValue(name, value, "must be true or false");
+    }
+
+    /**
+     * 正の整数の設定値を取得する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param defaultValue 設定されていない場合の値
+     * @return 設定値
+     */
+    int getPositiveInt(final String name, final int defaultValue) {
+        final String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+            // 下で例外を送出する
+        }
+        throw invalidValue(name, value, "must be a positive integer");
+    }
+
+    /**
+     * 0以上の整数の設定値を取得する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param defaultValue 設定されていない場合の値
+     * @return 設定値
+     */
+    int getNonNegativeInt(final String name, final int defaultValue) {
+        final String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int result = Integer.parseInt(value);
+            if (result >= 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+            // 下で例外を送出する
+        }
+        throw invalidValue(name, value, "must be a non-negative integer");
+    }
+
+    /**
+     * 正の長整数の設定値を取得する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param defaultValue 設定されていない場合の値
+     * @return 設定値
+     */
+    long getPositiveLong(final String name, final long defaultValue) {
+        final String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final long result = Long.parseLong(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignored) {
+            // 下で例外を送出する
+        }
+        throw invalidValue(name, value, "must be a positive integer");
+    }
+
+    /**
+     * ロガー名毎に指定された正の整数の設定値を取得する。
+     * <p>
+     * {@code jbossLogging.<設定名>.<ロガー名>}形式で指定された設定値を、ロガー名をキーとして返す。
+     *
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @return ロガー名毎の設定値
+     */
+    Map<String, Integer> getPositiveIntByLogger(final String name) {
+        final String keyPrefix = PREFIX + name + '.';
+        final Map<String, Integer> result = new HashMap<String, Integer>();
+        for (String key : props.keySet()) {
+            if (key.startsWith(keyPrefix) && key.length() > keyPrefix.length()) {
+                result.put(key.substring(keyPrefix.length()), getPositiveInt(key.substring(PREFIX.length()), 0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 列挙型の設定値を取得する。
+     * <p>
+     * 設定値は大文字・小文字を区別しない。
+     *
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param type 列挙型
+     * @param defaultValue 設定されていない場合の値
+     * @param <E> 列挙型
+     * @return 設定値
+     */
+    <E extends Enum<E>> E getEnum(final String name, final Class<E> type, final E defaultValue) {
+        final String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return parseEnum(name, value, type);
+    }
+
+    /**
+     * カンマ区切りの文字列の設定値を取得する。
+     * <p>
+     * 各要素の前後の空白は除去し、空の要素は無視する。
+     *
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @return 設定値。設定されていない場合は空のリスト
+     */
+    List<String> getList(final String name) {
+        final String value = getString(name, null);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        final List<String> result = new ArrayList<String>();
+        for (String element : value.split(",")) {
+            final String trimmed = element.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * カンマ区切りの列挙型の設定値を取得する。
+     * <p>
+     * 設定値は大文字・小文字を区別しない。
+     *
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param type 列挙型
+     * @param defaultValues 設定されていない場合の値
+     * @param <E> 列挙型
+     * @return 設定値
+     */
+    <E extends Enum<E>> List<E> getEnumList(final String name, final Class<E> type, final List<E> defaultValues) {
+        final List<String> values = getList(name);
+        if (values.isEmpty()) {
+            return defaultValues;
+        }
+        final List<E> result = new ArrayList<E>(values.size());
+        for (String value : values) {
+            result.add(parseEnum(name, value, type));
+        }
+        return result;
+    }
+
+    /**
+     * 列挙型の値に変換する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param value 設定値
+     * @param type 列挙型
+     * @param <E> 列挙型
+     * @return 列挙型の値
+     */
+    private <E extends Enum<E>> E parseEnum(final String name, final String value, final Class<E> type) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
+        }
+        throw invalidValue(name, value, "must be one of " + Arrays.toString(type.getEnumConstants()));
+    }
+
+    /**
+     * 不正な設定値を表す例外を生成する。
+     * @param name 設定名({@value #PREFIX}を除いたもの)
+     * @param value 設定値
+     * @param reason 不正な理由
+     * @return 例外
+     */
+    IllegalArgumentException invalidValue(final String name, final String value, final String reason) {
+        return new IllegalArgumentException(
+                "invalid property was specified. '" + PREFIX + name + "' " + reason + '.'
+                        + " value = [" + value + "], file path = [" + filePath + ']');
+    }
+}
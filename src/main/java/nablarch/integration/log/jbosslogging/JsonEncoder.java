@@ -0,0 +1,262 @@
+package nablarch.integration.log.jbosslogging;
+
+/**
+ * JSONを逐次書き込むエンコーダ。
+ * <p>
+ * 書き込み先の{@link StringBuilder}を再利用するため、{@link #reset()}後は前回確保した領域をそのまま使用する。
+ * ただし、容量が上限を超えた場合は初期容量に戻す。
+ * 数値は{@link StringBuilder#append(long)}などで直接書き込み、ボクシングを行わない。
+ * <p>
+ * 本クラスはスレッドセーフではない。
+ */
+final class JsonEncoder {
+
+    /** 例外の原因を書き込む深さの上限 */
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    /** 16進数の文字 */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** 書き込み先の初期容量 */
+    private final int initialCapacity;
+
+    /** 再利用する書き込み先の容量の上限 */
+    private final int maxRetainedCapacity;
+
+    /** 書き込み先 */
+    private StringBuilder buffer;
+
+    /** オブジェクトの先頭の項目か否か */
+    private boolean first;
+
+    /**
+     * エンコーダを生成する。
+     * @param initialCapacity 書き込み先の初期容量
+     * @param maxRetainedCapacity 再利用する書き込み先の容量の上限
+     */
+    JsonEncoder(final int initialCapacity, final int maxRetainedCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+        this.buffer = new StringBuilder(initialCapacity);
+    }
+
+    /**
+     * 書き込んだ内容を破棄する。
+     * @return このエンコーダ
+     */
+    JsonEncoder reset() {
+        if (buffer.capacity() > maxRetainedCapacity) {
+            buffer = new StringBuilder(initialCapacity);
+        } else {
+            buffer.setLength(0);
+        }
+        return this;
+    }
+
+    /**
+     * オブジェクトを開始する。
+     * @return このエンコーダ
+     */
+    JsonEncoder beginObject() {
+        buffer.append('{');
+        first = true;
+        return this;
+    }
+
+    /**
+     * オブジェクトを終了する。
+     * @return このエンコーダ
+     */
+    JsonEncoder endObject() {
+        buffer.append('}');
+        first = false;
+        return this;
+    }
+
+    /**
+     * 文字列の項目を書き込む。
+     * @param name 項目名
+     * @param value 値({@code null}の場合は{@code null}を書き込む)
+     * @return このエンコーダ
+     */
+    JsonEncoder field(final String name, final String value) {
+        name(name);
+        if (value == null) {
+            buffer.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    /**
+     * 整数の項目を書き込む。
+     * @param name 項目名
+     * @param value 値
+     * @return このエンコーダ
+     */
+    JsonEncoder field(final String name, final long value) {
+        name(name);
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * 浮動小数点数の項目を書き込む。
+     * <p>
+     * JSONで表現できない非数と無限大は文字列として書き込む。
+     *
+     * @param name 項目名
+     * @param value 値
+     * @return このエンコーダ
+     */
+    JsonEncoder field(final String name, final double value) {
+        name(name);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer.append('"').append(value).append('"');
+        } else {
+            buffer.append(value);
+        }
+        return this;
+    }
+
+    /**
+     * 真偽値の項目を書き込む。
+     * @param name 項目名
+     * @param value 値
+     * @return このエンコーダ
+     */
+    JsonEncoder field(final String name, final boolean value) {
+        name(name);
+        buffer.append(value);
+        return this;
+    }
+
+    /**
+     * 任意の値の項目を書き込む。
+     * <p>
+     * 数値と真偽値はそのまま、それ以外は{@link Object#toString()}の結果を文字列として書き込む。
+     *
+     * @param name 項目名
+     * @param value 値
+     * @return このエンコーダ
+     */
+    JsonEncoder field(final String name, final Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return field(name, ((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return field(name, ((Number) value).doubleValue());
+        }
+        if (value instanceof Boolean) {
+            return field(name, ((Boolean) value).booleanValue());
+        }
+        return field(name, value == null ? null : value.toString());
+    }
+
+    /**
+     * 例外の項目を書き込む。
+     * <p>
+     * クラス名、メッセージ、スタックトレース、原因を書き込む。
+     *
+     * @param name 項目名
+     * @param error 例外
+     * @return このエンコーダ
+     */
+    JsonEncoder field(final String name, final Throwable error) {
+        name(name);
+        throwable(error, 0);
+        return this;
+    }
+
+    /**
+     * 書き込んだJSONを取得する。
+     * @return JSON
+     */
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+
+    /**
+     * 例外を書き込む。
+     * @param error 例外
+     * @param depth 原因の深さ
+     */
+    private void throwable(final Throwable error, final int depth) {
+        beginObject();
+        field("class", error.getClass().getName());
+        field("message", error.getMessage());
+        name("stackTrace");
+        buffer.append('[');
+        final StackTraceElement[] frames = error.getStackTrace();
+        for (int i = 0; i < frames.length; i++) {
+            if (i != 0) {
+                buffer.append(',');
+            }
+            string(frames[i].toString());
+        }
+        buffer.append(']');
+        final Throwable cause = error.getCause();
+        if (cause != null && cause != error && depth < MAX_CAUSE_DEPTH) {
+            name("cause");
+            throwable(cause, depth + 1);
+        }
+        endObject();
+        first = false;
+    }
+
+    /**
+     * 項目名を書き込む。
+     * @param name 項目名
+     */
+    private void name(final String name) {
+        if (!first) {
+            buffer.append(',');
+        }
+        first = false;
+        string(name);
+        buffer.append(':');
+    }
+
+    /**
+     * 文字列をエスケープして書き込む。
+     * @param value 文字列
+     */
+    private void string(final String value) {
+        buffer.append('"');
+        final int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != 0x2028 && c != 0x2029) {
+                continue;
+            }
+            buffer.append(value, start, i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    buffer.append("\\u").append(HEX[(c >> 12) & 0xf]).append(HEX[(c >> 8) & 0xf])
+                            .append(HEX[(c >> 4) & 0xf]).append(HEX[c & 0xf]);
+                    break;
+            }
+            start = i + 1;
+        }
+        buffer.append(value, start, length);
+        buffer.append('"');
+    }
+}
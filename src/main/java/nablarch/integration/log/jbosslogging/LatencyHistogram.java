@@ -0,0 +1,82 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 処理時間の分布を記録するヒストグラム。
+ * <p>
+ * ナノ秒単位の処理時間を2のべき乗ごとの区間に分けて件数を記録する。
+ * パーセンタイルは該当する区間の上限値で近似する。
+ */
+final class LatencyHistogram {
+
+    /** 区間の数 */
+    private static final int BUCKET_COUNT = 64;
+
+    /** 区間毎の件数 */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * 処理時間を記録する。
+     * @param nanos 処理時間(ナノ秒)
+     */
+    void record(final long nanos) {
+        buckets.incrementAndGet(bucketOf(nanos));
+    }
+
+    /**
+     * 処理時間が属する区間を求める。
+     * @param nanos 処理時間(ナノ秒)
+     * @return 区間
+     */
+    private static int bucketOf(final long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * 記録した件数を取得する。
+     * @return 件数
+     */
+    long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * パーセンタイル値を取得する。
+     * @param percentile パーセンタイル(0より大きく100以下)
+     * @return 処理時間(ナノ秒)。記録がない場合は0
+     */
+    long percentile(final double percentile) {
+        final long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 区間の上限値を取得する。
+     * @param bucket 区間
+     * @return 上限値(ナノ秒)
+     */
+    private static long upperBound(final int bucket) {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
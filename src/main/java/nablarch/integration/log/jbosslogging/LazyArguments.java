@@ -0,0 +1,72 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.function.Supplier;
+
+/**
+ * 遅延評価される埋め込み値を扱うユーティリティ。
+ */
+final class LazyArguments {
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private LazyArguments() {
+    }
+
+    /**
+     * 遅延評価される値を含むか否か。
+     * @param options メッセージに埋め込む値
+     * @return 含む場合は{@code true}
+     */
+    static boolean containsLazy(final Object[] options) {
+        if (options == null) {
+            return false;
+        }
+        for (Object option : options) {
+            if (isLazy(option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 遅延評価される値を評価した結果に置き換える。
+     * <p>
+     * 呼び出し元の配列は変更せず、評価結果を格納した配列を新たに生成する。
+     *
+     * @param options メッセージに埋め込む値
+     * @return 評価後の埋め込む値
+     */
+    static Object[] resolve(final Object[] options) {
+        final Object[] resolved = new Object[options.length];
+        for (int i = 0; i < options.length; i++) {
+            resolved[i] = resolve(options[i]);
+        }
+        return resolved;
+    }
+
+    /**
+     * 遅延評価される値であれば評価する。
+     * @param option 埋め込む値
+     * @return 評価後の値
+     */
+    private static Object resolve(final Object option) {
+        if (option instanceof LazyValue) {
+            return ((LazyValue) option).evaluate();
+        }
+        if (option instanceof Supplier) {
+            return ((Supplier<?>) option).get();
+        }
+        return option;
+    }
+
+    /**
+     * 遅延評価される値か否か。
+     * @param option 埋め込む値
+     * @return 遅延評価される値の場合は{@code true}
+     */
+    static boolean isLazy(final Object option) {
+        return option instanceof LazyValue || option instanceof Supplier;
+    }
+}
@@ -0,0 +1,24 @@
+package nablarch.integration.log.jbosslogging;
+
+/**
+ * ログ出力時まで評価を遅延する埋め込み値。
+ * <p>
+ * メッセージに埋め込む値として指定すると、ログレベルが有効な場合のみ{@link #evaluate()}が呼び出され、
+ * その結果がメッセージに埋め込まれる。
+ * 評価は1回のログ出力につき1回のみ、ログ出力を要求したスレッドで行う。
+ * <pre>
+ * LOGGER.logDebug("request body = {0}", (LazyValue) () -&gt; dump(request));
+ * </pre>
+ * {@link java.util.function.Supplier}も同様に遅延評価される。
+ *
+ * @see JbossLogger
+ */
+@FunctionalInterface
+public interface LazyValue {
+
+    /**
+     * 埋め込む値を評価する。
+     * @return 埋め込む値
+     */
+    Object evaluate();
+}
@@ -0,0 +1,36 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ログレベルの設定変更を表す世代番号を管理するクラス。
+ * <p>
+ * 各{@link JbossLogger}は有効なログレベルをこの世代番号とともにキャッシュし、
+ * 世代番号が変わった場合にのみ委譲先ロガーから有効なログレベルを再取得する。
+ */
+final class LevelCacheGeneration {
+
+    /** 世代番号 */
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private LevelCacheGeneration() {
+    }
+
+    /**
+     * 現在の世代番号を取得する。
+     * @return 世代番号
+     */
+    static int current() {
+        return GENERATION.get();
+    }
+
+    /**
+     * 世代番号を進め、全てのロガーがキャッシュしているログレベルを無効にする。
+     */
+    static void increment() {
+        GENERATION.incrementAndGet();
+    }
+}
@@ -0,0 +1,230 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ログレベルの設定ファイルを監視し、変更をログレベルの上書きに反映するクラス。
+ * <p>
+ * 設定ファイルはプロパティファイル形式で、キーにロガー名(階層)、値にログレベルを指定する。
+ * 値が不正な行は無視する。設定ファイルが存在しない場合は、上書きがないものとして扱う。
+ * <pre>
+ * com.example.service=DEBUG
+ * </pre>
+ * 変更の検知には{@link WatchService}を使用する。
+ * {@link WatchService}が使用できない場合や、ポーリングが指定された場合は、{@link #poll()}の呼び出し毎に
+ * ファイルの更新日時とサイズを比較して変更を検知する。
+ */
+final class LevelFileWatcher {
+
+    /** 監視方式 */
+    enum WatchMode {
+        /** {@link WatchService}で監視する(使用できない場合はポーリング) */
+        WATCH,
+        /** ポーリングで監視する */
+        POLL
+    }
+
+    /** 設定ファイル */
+    private final Path file;
+
+    /** 反映先の上書き */
+    private final LevelOverrides overrides;
+
+    /** ファイルの変更を監視するサービス(ポーリングの場合は{@code null}) */
+    private final WatchService watchService;
+
+    /** 前回読み込んだ時点のファイルの状態 */
+    private String lastState;
+
+    /**
+     * 設定ファイルを読み込み、監視を準備する。
+     * <p>
+     * 監視スレッドは{@link #start()}で開始する。
+     *
+     * @param file 設定ファイル
+     * @param overrides 反映先の上書き
+     * @param mode 監視方式
+     */
+    LevelFileWatcher(final Path file, final LevelOverrides overrides, final WatchMode mode) {
+        this.file = file.toAbsolutePath();
+        this.overrides = overrides;
+        this.watchService = mode == WatchMode.WATCH ? createWatchService(this.file) : null;
+        reload();
+    }
+
+    /**
+     * 設定ファイルのディレクトリを監視するサービスを生成する。
+     * @param file 設定ファイル
+     * @return サービス。使用できない場合は{@code null}
+     */
+    private static WatchService createWatchService(final Path file) {
+        final Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return null;
+        }
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            return service;
+        } catch (IOException | UnsupportedOperationException e) {
+            closeQuietly(service);
+            return null;
+        }
+    }
+
+    /**
+     * ポーリングで監視するか否か。
+     * @return ポーリングで監視する場合は{@code true}
+     */
+    boolean isPolling() {
+        return watchService == null;
+    }
+
+    /**
+     * {@link WatchService}で監視するスレッドを開始する。
+     * <p>
+     * ポーリングで監視する場合は何もしない。スレッドはデーモンスレッドとする。
+     */
+    void start() {
+        if (watchService == null) {
+            return;
+        }
+        final Thread thread = new Thread(this::watch, "jbossLogging-levelWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 監視を終了する。
+     */
+    void stop() {
+        closeQuietly(watchService);
+    }
+
+    /**
+     * 設定ファイルが変更されていれば読み込む。
+     */
+    void poll() {
+        if (!currentState().equals(lastState)) {
+            reload();
+        }
+    }
+
+    /**
+     * {@link WatchService}で設定ファイルの変更を待機し、変更されたら読み込む。
+     */
+    private void watch() {
+        final Path fileName = file.getFileName();
+        try {
+            while (true) {
+                final WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    poll();
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // 監視を終了する
+        }
+    }
+
+    /**
+     * 設定ファイルを読み込み、上書きに反映する。
+     */
+    private synchronized void reload() {
+        lastState = currentState();
+        overrides.replaceFileOverrides(read());
+    }
+
+    /**
+     * 設定ファイルを読み込む。
+     * @return ロガー名(階層)毎のログレベル
+     */
+    private Map<String, Level> read() {
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            // 存在しない、または読み込めない場合は上書きなしとする
+            return new HashMap<String, Level>();
+        }
+        final Map<String, Level> levels = new HashMap<String, Level>();
+        for (String name : properties.stringPropertyNames()) {
+            final Level level = toLevel(properties.getProperty(name).trim());
+            if (level != null) {
+                levels.put(name.trim(), level);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * ログレベルに変換する。
+     * @param value 値
+     * @return ログレベル。不正な値の場合は{@code null}
+     */
+    private static Level toLevel(final String value) {
+        for (Level level : Level.values()) {
+            if (level.name().equalsIgnoreCase(value)) {
+                return level;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 変更の検知に使用するファイルの状態を取得する。
+     * @return 更新日時とサイズ。存在しない場合は空文字列
+     */
+    private String currentState() {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        } catch (NoSuchFileException e) {
+            return "";
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * 監視サービスを閉じる。
+     * @param service 監視サービス
+     */
+    private static void closeQuietly(final WatchService service) {
+        if (service == null) {
+            return;
+        }
+        try {
+            service.close();
+        } catch (IOException ignored) {
+            // 閉じられなくても監視は終了する
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ロガー名(階層)毎のログレベルの上書きを保持するクラス。
+ * <p>
+ * 上書きはログレベルの設定ファイル({@link LevelFileWatcher})とMXBean({@link JbossLoggingLevelsMXBean})から変更する。
+ * 上書きには有効期限を指定でき、期限を過ぎた上書きは{@link #expire()}で解除する。
+ * <p>
+ * 上書きの一覧は変更の都度、不変のスナップショットとして公開するため、参照にロックは不要である。
+ * 変更後は{@link LevelCacheGeneration}を更新し、各ロガーがキャッシュしている有効なログレベルを破棄させる。
+ */
+final class LevelOverrides {
+
+    /** 有効期限がないことを表す値 */
+    static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /** ログ出力ライブラリのログレベルの変更 */
+    private final BackendLevelControl backend;
+
+    /** 上書きの有効期間のデフォルト(ミリ秒) */
+    private final long defaultDurationMillis;
+
+    /** ロガー名(階層)毎の上書き。変更は同期化したメソッドでのみ行う。 */
+    private final Map<String, Entry> overrides = new HashMap<String, Entry>();
+
+    /** 公開している上書きのスナップショット */
+    private volatile LoggerNameMatcher<Level> snapshot = new LoggerNameMatcher<Level>(Collections.<String, Level>emptyMap());
+
+    /**
+     * 上書きを生成する。
+     * @param backend ログ出力ライブラリのログレベルの変更
+     * @param defaultDurationMillis 上書きの有効期間のデフォルト(ミリ秒)。期限を設けない場合は{@link #NO_EXPIRY}
+     */
+    LevelOverrides(final BackendLevelControl backend, final long defaultDurationMillis) {
+        this.backend = backend;
+        this.defaultDurationMillis = defaultDurationMillis;
+    }
+
+    /**
+     * ロガーに適用するログレベルを取得する。
+     * @param loggerName ロガー名
+     * @return ログレベル。上書きされていない場合は{@code null}
+     */
+    Level levelFor(final String loggerName) {
+        return snapshot.match(loggerName, null);
+    }
+
+    /**
+     * ログレベルを上書きする。
+     * @param name ロガー名(階層)
+     * @param level ログレベル
+     * @param durationMillis 有効期間(ミリ秒)。0以下の場合はデフォルトの有効期間
+     */
+    synchronized void set(final String name, final Level level, final long durationMillis) {
+        final long duration = durationMillis > 0 ? durationMillis : defaultDurationMillis;
+        overrides.put(name, new Entry(level, expiresAt(duration), false));
+        backend.apply(name, level);
+        publish();
+    }
+
+    /**
+     * ログレベルの上書きを解除する。
+     * @param name ロガー名(階層)
+     */
+    synchronized void remove(final String name) {
+        if (overrides.remove(name) != null) {
+            backend.restore(name);
+            publish();
+        }
+    }
+
+    /**
+     * 全ての上書きを解除する。
+     */
+    synchronized void clear() {
+        for (String name : overrides.keySet()) {
+            backend.restore(name);
+        }
+        overrides.clear();
+        publish();
+    }
+
+    /**
+     * ログレベルの設定ファイルから読み込んだ上書きで置き換える。
+     * <p>
+     * 設定ファイルから読み込んだ上書きのうち、今回の設定に含まれないものは解除する。
+     * MXBeanで指定した上書きは変更しない。
+     *
+     * @param fileOverrides ロガー名(階層)毎のログレベル
+     */
+    synchronized void replaceFileOverrides(final Map<String, Level> fileOverrides) {
+        final Iterator<Map.Entry<String, Entry>> iterator = overrides.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getValue().fromFile && !fileOverrides.containsKey(entry.getKey())) {
+                iterator.remove();
+                backend.restore(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Level> entry : fileOverrides.entrySet()) {
+            final Entry current = overrides.get(entry.getKey());
+            if (current != null && current.fromFile && current.level == entry.getValue()) {
+                // 同じ内容の場合は有効期限を延長しない
+                continue;
+            }
+            overrides.put(entry.getKey(), new Entry(entry.getValue(), expiresAt(defaultDurationMillis), true));
+            backend.apply(entry.getKey(), entry.getValue());
+        }
+        publish();
+    }
+
+    /**
+     * 有効期限を過ぎた上書きを解除する。
+     */
+    void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    /**
+     * 有効期限を過ぎた上書きを解除する。
+     * @param now 現在時刻({@link System#currentTimeMillis()})
+     */
+    synchronized void expire(final long now) {
+        boolean changed = false;
+        final Iterator<Map.Entry<String, Entry>> iterator = overrides.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Entry> entry = iterator.next();
+            if (entry.getValue().expiresAt <= now) {
+                iterator.remove();
+                backend.restore(entry.getKey());
+                changed = true;
+            }
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    /**
+     * 上書きの一覧を取得する。
+     * @return ロガー名(階層)をキー、ログレベルを値とした一覧
+     */
+    synchronized Map<String, String> describe() {
+        final Map<String, String> result = new TreeMap<String, String>();
+        for (Map.Entry<String, Entry> entry : overrides.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().level.name());
+        }
+        return result;
+    }
+
+    /**
+     * 有効期限を求める。
+     * @param durationMillis 有効期間(ミリ秒)
+     * @return 有効期限
+     */
+    private static long expiresAt(final long durationMillis) {
+        if (durationMillis == NO_EXPIRY) {
+            return NO_EXPIRY;
+        }
+        final long now = System.currentTimeMillis();
+        return now + durationMillis < now ? NO_EXPIRY : now + durationMillis;
+    }
+
+    /**
+     * 現在の上書きをスナップショットとして公開し、各ロガーがキャッシュしているログレベルを破棄させる。
+     */
+    private void publish() {
+        final Map<String, Level> levels = new HashMap<String, Level>();
+        for (Map.Entry<String, Entry> entry : overrides.entrySet()) {
+            levels.put(entry.getKey(), entry.getValue().level);
+        }
+        snapshot = new LoggerNameMatcher<Level>(levels);
+        LevelCacheGeneration.increment();
+    }
+
+    /**
+     * ログレベルの上書き。
+     */
+    private static final class Entry {
+
+        /** ログレベル */
+        private final Level level;
+
+        /** 有効期限({@link System#currentTimeMillis()}) */
+        private final long expiresAt;
+
+        /** ログレベルの設定ファイルから読み込んだか否か */
+        private final boolean fromFile;
+
+        /**
+         * 上書きを生成する。
+         * @param level ログレベル
+         * @param expiresAt 有効期限
+         * @param fromFile ログレベルの設定ファイルから読み込んだか否か
+         */
+        private Entry(final Level level, final long expiresAt, final boolean fromFile) {
+            this.level = level;
+            this.expiresAt = expiresAt;
+            this.fromFile = fromFile;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * 負荷が高い場合に、詳細なレベルのログを一時的に破棄するクラス。
+ * <p>
+ * 全ロガーの出力要求数と、一定の割合で計測した委譲先ロガーの処理時間を{@link LongAdder}で集計し、
+ * {@link #evaluate()}の呼び出し毎に1区間として直近の区間の集計結果(スライディングウィンドウ)を評価する。
+ * <p>
+ * 1秒あたりの出力要求数または平均処理時間が閾値を超えた場合は、有効なログレベルの下限を引き上げる(破棄中)。
+ * 破棄中は、いずれの値も閾値に復帰率を乗じた値を下回り、かつウィンドウの期間が経過した場合に元に戻す。
+ * 状態が変わる度にWARNレベルのログを出力し、{@link LevelCacheGeneration}を更新して各ロガーにログレベルを再判定させる。
+ */
+final class LoadShedder {
+
+    /** 状態の変化を出力するロガー */
+    private final org.jboss.logging.Logger logger;
+
+    /** 破棄中に有効とするログレベルの下限 */
+    private final Level minLevel;
+
+    /** 破棄を開始する1秒あたりの出力要求数 */
+    private final long eventsPerSecondThreshold;
+
+    /** 破棄を開始する平均処理時間(マイクロ秒) */
+    private final long latencyMicrosThreshold;
+
+    /** 破棄を終了する閾値の割合 */
+    private final double restoreRatio;
+
+    /** 処理時間を計測する割合(この件数に1件の割合で計測する) */
+    private final int latencySampleRate;
+
+    /** 1区間の長さ(ミリ秒) */
+    private final long intervalMillis;
+
+    /** 出力要求数 */
+    private final LongAdder demand = new LongAdder();
+
+    /** 破棄した件数 */
+    private final LongAdder shed = new LongAdder();
+
+    /** 計測した処理時間の合計(ナノ秒) */
+    private final LongAdder latencyNanos = new LongAdder();
+
+    /** 処理時間を計測した件数 */
+    private final LongAdder latencySamples = new LongAdder();
+
+    /** 区間毎の出力要求数 */
+    private final long[] demandWindow;
+
+    /** 区間毎の処理時間の合計(ナノ秒) */
+    private final long[] latencyNanosWindow;
+
+    /** 区間毎の処理時間を計測した件数 */
+    private final long[] latencySamplesWindow;
+
+    /** 次に書き込む区間の位置 */
+    private int windowIndex;
+
+    /** 評価した区間数 */
+    private long evaluations;
+
+    /** 破棄を開始した時点の区間数 */
+    private long sheddingStartedAt;
+
+    /** 破棄を開始した時点の破棄した件数 */
+    private long shedAtStart;
+
+    /** 破棄中か否か */
+    private volatile boolean shedding;
+
+    /** 状態が変わった回数 */
+    private volatile long transitions;
+
+    /**
+     * 破棄を制御するクラスを生成する。
+     * @param logger 状態の変化を出力するロガー
+     * @param minLevel 破棄中に有効とするログレベルの下限
+     * @param eventsPerSecondThreshold 破棄を開始する1秒あたりの出力要求数
+     * @param latencyMicrosThreshold 破棄を開始する平均処理時間(マイクロ秒)
+     * @param restoreRatio 破棄を終了する閾値の割合
+     * @param latencySampleRate 処理時間を計測する割合
+     * @param intervalMillis 1区間の長さ(ミリ秒)
+     * @param windowMillis 評価する期間(ミリ秒)
+     */
+    LoadShedder(final org.jboss.logging.Logger logger, final Level minLevel, final long eventsPerSecondThreshold,
+            final long latencyMicrosThreshold, final double restoreRatio, final int latencySampleRate,
+            final long intervalMillis, final long windowMillis) {
+        this.logger = logger;
+        this.minLevel = minLevel;
+        this.eventsPerSecondThreshold = eventsPerSecondThreshold;
+        this.latencyMicrosThreshold = latencyMicrosThreshold;
+        this.restoreRatio = restoreRatio;
+        this.latencySampleRate = latencySampleRate;
+        this.intervalMillis = intervalMillis;
+        final int buckets = (int) Math.max(1L, Math.min(1024L, windowMillis / intervalMillis));
+        this.demandWindow = new long[buckets];
+        this.latencyNanosWindow = new long[buckets];
+        this.latencySamplesWindow = new long[buckets];
+    }
+
+    /**
+     * 1区間の長さを取得する。
+     * @return 1区間の長さ(ミリ秒)
+     */
+    long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * 破棄中か否か。
+     * @return 破棄中の場合は{@code true}
+     */
+    boolean isShedding() {
+        return shedding;
+    }
+
+    /**
+     * 状態が変わった回数を取得する。
+     * @return 回数
+     */
+    long getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * 破棄した件数を取得する。
+     * @return 件数
+     */
+    long getShedCount() {
+        return shed.sum();
+    }
+
+    /**
+     * 現在の状態でログレベルが有効か否かを判定する。
+     * @param level ログレベル
+     * @return 破棄中で下限より詳細なレベルの場合は{@code false}
+     */
+    boolean allows(final Level level) {
+        return !shedding || level.ordinal() <= minLevel.ordinal();
+    }
+
+    /**
+     * 出力要求を記録する。
+     */
+    void recordDemand() {
+        demand.increment();
+    }
+
+    /**
+     * 破棄したログを記録する。
+     * <p>
+     * 破棄したログも出力要求数に含める。
+     */
+    void recordShed() {
+        demand.increment();
+        shed.increment();
+    }
+
+    /**
+     * 今回の呼び出しの処理時間を計測するか否かを判定する。
+     * @return 計測する場合は{@code true}
+     */
+    boolean shouldSampleLatency() {
+        return latencySampleRate == 1 || ThreadLocalRandom.current().nextInt(latencySampleRate) == 0;
+    }
+
+    /**
+     * 委譲先ロガーの処理時間を記録する。
+     * @param nanos 処理時間(ナノ秒)
+     */
+    void recordLatency(final long nanos) {
+        latencyNanos.add(nanos);
+        latencySamples.increment();
+    }
+
+    /**
+     * 直前の区間の集計結果をウィンドウに加え、破棄の開始または終了を判定する。
+     * <p>
+     * 単一のスレッドから1区間毎に呼び出すこと。
+     */
+    void evaluate() {
+        demandWindow[windowIndex] = demand.sumThenReset();
+        latencyNanosWindow[windowIndex] = latencyNanos.sumThenReset();
+        latencySamplesWindow[windowIndex] = latencySamples.sumThenReset();
+        windowIndex = (windowIndex + 1) % demandWindow.length;
+        evaluations++;
+
+        final int filled = (int) Math.min(evaluations, demandWindow.length);
+        long totalDemand = 0;
+        long totalLatencyNanos = 0;
+        long totalSamples = 0;
+        for (int i = 0; i < demandWindow.length; i++) {
+            totalDemand += demandWindow[i];
+            totalLatencyNanos += latencyNanosWindow[i];
+            totalSamples += latencySamplesWindow[i];
+        }
+        final long eventsPerSecond = totalDemand * TimeUnit.SECONDS.toMillis(1) / (filled * intervalMillis);
+        final long latencyMicros = totalSamples == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos / totalSamples);
+
+        if (!shedding) {
+            if (eventsPerSecond > eventsPerSecondThreshold || latencyMicros > latencyMicrosThreshold) {
+                sheddingStartedAt = evaluations;
+                transition(true, eventsPerSecond, latencyMicros);
+            }
+        } else if (evaluations - sheddingStartedAt >= demandWindow.length
+                && eventsPerSecond < eventsPerSecondThreshold * restoreRatio
+                && latencyMicros < latencyMicrosThreshold * restoreRatio) {
+            transition(false, eventsPerSecond, latencyMicros);
+        }
+    }
+
+    /**
+     * 状態を変更し、変更したことをログに出力する。
+     * <p>
+     * 破棄を終了した場合は、破棄を開始してから破棄した件数を出力する。
+     *
+     * @param newState 破棄中とする場合は{@code true}
+     * @param eventsPerSecond 1秒あたりの出力要求数
+     * @param latencyMicros 平均処理時間(マイクロ秒)
+     */
+    private void transition(final boolean newState, final long eventsPerSecond, final long latencyMicros) {
+        final long shedCount = shed.sum();
+        if (newState) {
+            shedAtStart = shedCount;
+        }
+        shedding = newState;
+        transitions++;
+        LevelCacheGeneration.increment();
+        logger.warn((newState ? "log load shedding started. minimum level = [" + minLevel + "]"
+                : "log load shedding stopped. shed count = [" + (shedCount - shedAtStart) + ']')
+                + ", events per second = [" + eventsPerSecond + "], average latency micros = [" + latencyMicros + ']');
+    }
+}
@@ -0,0 +1,374 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * 複数のログをまとめて出力するバッチ。
+ * <p>
+ * {@link JbossLogger#batch()}で取得し、バッチ処理の1件毎のログなど大量のログを追加した後、{@link #close()}で出力する。
+ * <pre>
+ * try (LogBatch batch = ((JbossLogger) LoggerManager.get(Job.class)).batch()) {
+ *     for (Row row : rows) {
+ *         batch.logInfo("processed. id = [{0}]", row.getId());
+ *     }
+ * }
+ * </pre>
+ * ログレベルはバッチの生成時と出力時にのみ判定し、無効なレベルのログは追加しない。
+ * 追加したログは、件数が上限に達した場合、または最初に追加したログから一定時間が経過した場合に、
+ * 追加した順に委譲先ロガーへまとめて出力する。
+ * 一定時間が経過するまでにログを追加しなかった場合は、定期的に実行する処理のスレッドで出力する。<br>
+ * 遅延評価される値の評価や呼び出し元の位置の解決、MDCに反映するスレッドコンテキストの値の取得などの各機能は、
+ * ログを追加した時点で適用する。
+ * 不変な型でない値が埋め込まれている場合は、出力までに値が変更されても影響を受けないよう、追加した時点で書式化する。
+ * <p>
+ * ログの追加は、ログを出力するスレッド毎にバッチを生成して行うこと。
+ * (待機時間の経過による出力と同時に呼び出せるよう排他制御するが、複数のスレッドから追加した場合の順序は保証しない)
+ */
+public final class LogBatch implements AutoCloseable {
+
+    /** ログレベルの一覧 */
+    private static final Level[] LEVELS = Level.values();
+
+    /** 出力先ロガー */
+    private final JbossLogger owner;
+
+    /** 保持するログ件数の上限 */
+    private final int maxSize;
+
+    /** 最初に追加したログを出力するまでの最大の待機時間(ナノ秒) */
+    private final long maxDelayNanos;
+
+    /** ログレベル */
+    private final Level[] levels;
+
+    /** メッセージ */
+    private final String[] messages;
+
+    /** エラー情報 */
+    private final Throwable[] errors;
+
+    /** メッセージに埋め込む値 */
+    private final Object[][] options;
+
+    /** 呼び出し元の位置 */
+    private final String[] callerLocations;
+
+    /** スレッドコンテキストのスナップショット */
+    private final ThreadContextPropagator.Snapshot[] threadContexts;
+
+    /** 待機時間の経過時に出力するスケジューラ(使用できない場合は{@code null}) */
+    private final ScheduledExecutorService scheduler;
+
+    /** 待機時間の経過時の出力の予約(予約していない場合は{@code null}) */
+    private ScheduledFuture<?> deadline;
+
+    /** 保持しているログ件数 */
+    private int size;
+
+    /** 最初に追加したログの追加時刻({@link System#nanoTime()}) */
+    private long firstAppendedAt;
+
+    /** 有効なログレベル(ログレベルの序数をビット位置とする) */
+    private volatile int enabledLevels;
+
+    /**
+     * バッチを生成する。
+     * @param owner 出力先ロガー
+     * @param maxSize 保持するログ件数の上限
+     * @param maxDelayMillis 最初に追加したログを出力するまでの最大の待機時間(ミリ秒)
+     * @param scheduler 待機時間の経過時に出力するスケジューラ(使用できない場合は{@code null})
+     */
+    LogBatch(final JbossLogger owner, final int maxSize, final long maxDelayMillis,
+            final ScheduledExecutorService scheduler) {
+        this.owner = owner;
+        this.maxSize = maxSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.levels = new Level[maxSize];
+        this.messages = new String[maxSize];
+        this.errors = new Throwable[maxSize];
+        this.options = new Object[maxSize][];
+        this.callerLocations = new String[maxSize];
+        this.threadContexts = new ThreadContextPropagator.Snapshot[maxSize];
+        this.scheduler = scheduler;
+        this.enabledLevels = resolveEnabledLevels();
+    }
+
+    /**
+     * FATALレベルのログを追加する。
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     */
+    public void logFatal(final String message, final Object... options) {
+        add(Level.FATAL, message, null, options);
+    }
+
+    /**
+     * FATALレベルのログを追加する。
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     */
+    public void logFatal(final String message, final Throwable error, final Object... options) {
+        add(Level.FATAL, message, error, options);
+    }
+
+    /**
+     * ERRORレベルのログを追加する。
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     */
+    public void logError(final String message, final Object... options) {
+        add(Level.ERROR, message, null, options);
+    }
+
+    /**
+     * ERRORレベルのログを追加する。
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     */
+    public void logError(final String message, final Throwable error, final Object... options) {
+        add(Level.ERROR, message, error, options);
+    }
+
+    /**
+     * WARNレベルのログを追加する。
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     */
+    public void logWarn(final String message, final Object... options) {
+        add(Level.WARN, message, null, options);
+    }
+
+    /**
+     * WARNレベルのログを追加する。
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     */
+    public void logWarn(final String message, final Throwable error, final Object... options) {
+        add(Level.WARN, message, error, options);
+    }
+
+    /**
+     * INFOレベルのログを追加する。
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     */
+    public void logInfo(final String message, final Object... options) {
+        add(Level.INFO, message, null, options);
+    }
+
+    /**
+     * INFOレベルのログを追加する。
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     */
+    public void logInfo(final String message, final Throwable error, final Object... options) {
+        add(Level.INFO, message, error, options);
+    }
+
+    /**
+     * DEBUGレベルのログを追加する。
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     */
+    public void logDebug(final String message, final Object... options) {
+        add(Level.DEBUG, message, null, options);
+    }
+
+    /**
+     * DEBUGレベルのログを追加する。
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     */
+    public void logDebug(final String message, final Throwable error, final Object... options) {
+        add(Level.DEBUG, message, error, options);
+    }
+
+    /**
+     * TRACEレベルのログを追加する。
+     * @param message メッセージ
+     * @param options メッセージに埋め込む値
+     */
+    public void logTrace(final String message, final Object... options) {
+        add(Level.TRACE, message, null, options);
+    }
+
+    /**
+     * TRACEレベルのログを追加する。
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     */
+    public void logTrace(final String message, final Throwable error, final Object... options) {
+        add(Level.TRACE, message, error, options);
+    }
+
+    /**
+     * ログレベルが有効か否かを判定する。
+     * <p>
+     * バッチの生成時または前回の出力時に判定した結果を返す。
+     *
+     * @param level ログレベル
+     * @return 有効な場合は{@code true}
+     */
+    public boolean isEnabled(final Level level) {
+        return (enabledLevels & (1 << level.ordinal())) != 0;
+    }
+
+    /**
+     * 保持しているログ件数を取得する。
+     * @return ログ件数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 保持しているログを追加した順に出力する。
+     * <p>
+     * 非同期出力が有効な場合は、追加した順にディスパッチャに渡す。
+     * 出力後に有効なログレベルを再判定する。
+     */
+    public synchronized void flush() {
+        try {
+            for (int i = 0; i < size; i++) {
+                owner.emit(levels[i], messages[i], errors[i], options[i], callerLocations[i], threadContexts[i]);
+            }
+        } finally {
+            clear();
+            enabledLevels = resolveEnabledLevels();
+        }
+    }
+
+    /**
+     * 保持しているログを出力する。
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * ログを追加する。
+     * <p>
+     * ログレベルが無効な場合は何もしない。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     */
+    private void add(final Level level, final String message, final Throwable error, final Object[] options) {
+        if (!isEnabled(level)) {
+            owner.recordSuppressed(level);
+            return;
+        }
+        owner.process(level, message, error, options, this);
+    }
+
+    /**
+     * 各機能を適用したログを保持する。
+     * <p>
+     * 埋め込む値は追加した時点の値で固定する。
+     * 件数が上限に達した場合、または最初に追加したログから待機時間が経過した場合は出力する。
+     * 最初に追加したログの場合は、待機時間の経過時の出力を予約する。
+     *
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置(解決しない場合は{@code null})
+     */
+    synchronized void append(final Level level, final String message, final Throwable error, final Object[] options,
+            final String callerLocation) {
+        final long now = System.nanoTime();
+        if (size == 0) {
+            firstAppendedAt = now;
+            scheduleDeadline(maxDelayNanos);
+        }
+        final String rendered = owner.render(message, options);
+        levels[size] = level;
+        messages[size] = rendered == null ? message : rendered;
+        errors[size] = error;
+        this.options[size] = rendered == null ? ArgumentSnapshot.freeze(options) : null;
+        callerLocations[size] = callerLocation;
+        threadContexts[size] = owner.captureThreadContext();
+        size++;
+        if (size == maxSize || now - firstAppendedAt >= maxDelayNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * 待機時間の経過時の出力を予約する。
+     * <p>
+     * 予約済みの場合や、スケジューラが使用できない場合(停止後など)は何もしない。
+     * その場合は、次にログを追加した時点または明示的に出力した時点で出力する。
+     *
+     * @param delayNanos 出力するまでの時間(ナノ秒)
+     */
+    private void scheduleDeadline(final long delayNanos) {
+        if (scheduler == null || deadline != null) {
+            return;
+        }
+        try {
+            deadline = scheduler.schedule(this::flushExpired, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // 停止後は予約しない
+        }
+    }
+
+    /**
+     * 最初に追加したログから待機時間が経過している場合は出力する。
+     * <p>
+     * 予約後に出力済みで、新たに追加したログの待機時間が経過していない場合は、残りの時間で予約し直す。
+     */
+    private synchronized void flushExpired() {
+        deadline = null;
+        if (size == 0) {
+            return;
+        }
+        final long remaining = maxDelayNanos - (System.nanoTime() - firstAppendedAt);
+        if (remaining <= 0) {
+            flush();
+        } else {
+            scheduleDeadline(remaining);
+        }
+    }
+
+    /**
+     * 保持しているログを破棄する。
+     */
+    private void clear() {
+        Arrays.fill(messages, 0, size, null);
+        Arrays.fill(errors, 0, size, null);
+        Arrays.fill(options, 0, size, null);
+        Arrays.fill(callerLocations, 0, size, null);
+        Arrays.fill(threadContexts, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 有効なログレベルを判定する。
+     * @return ログレベルの序数をビット位置とした値
+     */
+    private int resolveEnabledLevels() {
+        int mask = 0;
+        for (Level level : LEVELS) {
+            if (owner.isEnabled(level)) {
+                mask |= 1 << level.ordinal();
+            }
+        }
+        return mask;
+    }
+}
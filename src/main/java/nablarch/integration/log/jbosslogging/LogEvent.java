@@ -0,0 +1,76 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * スレッド間で受け渡すログ出力要求。
+ * <p>
+ * リングバッファのスロットとして事前に生成し、再利用する。
+ */
+final class LogEvent {
+
+    /** 出力先ロガー */
+    JbossLogger target;
+
+    /** ログレベル */
+    Level level;
+
+    /** メッセージ */
+    String message;
+
+    /** エラー情報 */
+    Throwable error;
+
+    /** メッセージに埋め込む値 */
+    Object[] options;
+
+    /** 呼び出し元の位置 */
+    String callerLocation;
+
+    /** スレッドコンテキストのスナップショット */
+    ThreadContextPropagator.Snapshot threadContext;
+
+    /**
+     * 値を設定する。
+     * @param target 出力先ロガー
+     * @param level ログレベル
+     * @param message メッセージ
+     * @param error エラー情報
+     * @param options メッセージに埋め込む値
+     * @param callerLocation 呼び出し元の位置
+     * @param threadContext スレッドコンテキストのスナップショット
+     */
+    void set(final JbossLogger target, final Level level, final String message, final Throwable error,
+            final Object[] options, final String callerLocation, final ThreadContextPropagator.Snapshot threadContext) {
+        this.target = target;
+        this.level = level;
+        this.message = message;
+        this.error = error;
+        this.options = options;
+        this.callerLocation = callerLocation;
+        this.threadContext = threadContext;
+    }
+
+    /**
+     * 他のイベントの値を複製する。
+     * @param other 複製元
+     */
+    void copyFrom(final LogEvent other) {
+        set(other.target, other.level, other.message, other.error, other.options, other.callerLocation,
+                other.threadContext);
+    }
+
+    /**
+     * 保持している参照を解放する。
+     */
+    void clear() {
+        set(null, null, null, null, null, null, null);
+    }
+
+    /**
+     * 出力先ロガーにログを出力する。
+     */
+    void deliver() {
+        target.deliver(level, message, error, options, callerLocation, threadContext);
+    }
+}
@@ -0,0 +1,37 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * {@link TypedLogger}を付与したインタフェースのメソッドが出力するログを指定する。
+ * <p>
+ * メッセージには{@link java.text.MessageFormat}と同じ形式で{@code {0}}のように引数の位置を埋め込む。
+ * 引用符({@code '})によるエスケープも{@link java.text.MessageFormat}と同じ規則とする。
+ * 書式の種類({@code {0,number}}など)は指定できない。
+ * 引数の位置は{@link Cause}を付与した引数を除いて数える。
+ * <p>
+ * 埋め込む位置が引数の数を超える場合や、メッセージに埋め込まない引数({@link Cause}を除く)がある場合はコンパイルエラーとなる。
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface LogMessage {
+
+    /**
+     * ログレベル。
+     * @return ログレベル
+     */
+    Level level();
+
+    /**
+     * メッセージ。
+     * @return メッセージ
+     */
+    String value();
+}
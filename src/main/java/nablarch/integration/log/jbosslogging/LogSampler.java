@@ -0,0 +1,126 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.jboss.logging.Logger.Level;
+
+import nablarch.core.ThreadContext;
+
+/**
+ * 詳細なレベルのログを一定の割合で間引くクラス。
+ * <p>
+ * ロガー名(階層)毎に割合(N件に1件)を指定し、対象のログレベルのログのみを間引く。
+ * 間引くか否かはメッセージの書式化より前に判定する。
+ * <p>
+ * キーとする埋め込む値の位置を指定した場合は、その値のハッシュ値で判定する。
+ * 同じ値(例えばリクエストID)を埋め込んだログは、全て出力されるか全て間引かれる。<br>
+ * キーとする値を埋め込まないログや、キーとする値が{@code null}または遅延評価される値の場合は、
+ * {@link ThreadContext}のリクエストIDのハッシュ値で判定する。リクエストIDも存在しない場合は間引かずに出力する。
+ * (乱数で判定すると、同じリクエストのログの一部のみが間引かれるため)
+ * <p>
+ * キーとする埋め込む値の位置を指定しない場合は、スレッド毎の乱数で判定する。
+ */
+final class LogSampler {
+
+    /** キーとする埋め込む値の位置を指定しないことを表す値 */
+    static final int NO_KEY = -1;
+
+    /** ロガー名(階層)毎の割合 */
+    private final LoggerNameMatcher<Integer> rates;
+
+    /** 割合のデフォルト */
+    private final int defaultRate;
+
+    /** 間引くログレベル(ログレベルの序数をビット位置とする) */
+    private final int levelMask;
+
+    /** キーとする埋め込む値の位置 */
+    private final int keyArgumentIndex;
+
+    /**
+     * 間引くクラスを生成する。
+     * @param defaultRate 割合のデフォルト(N件に1件。1の場合は間引かない)
+     * @param rates ロガー名(階層)毎の割合
+     * @param levels 間引くログレベル
+     * @param keyArgumentIndex キーとする埋め込む値の位置。指定しない場合は{@link #NO_KEY}
+     */
+    LogSampler(final int defaultRate, final Map<String, Integer> rates, final List<Level> levels,
+            final int keyArgumentIndex) {
+        this.defaultRate = defaultRate;
+        this.rates = new LoggerNameMatcher<Integer>(rates);
+        int mask = 0;
+        for (Level level : levels) {
+            mask |= 1 << level.ordinal();
+        }
+        this.levelMask = mask;
+        this.keyArgumentIndex = keyArgumentIndex;
+    }
+
+    /**
+     * ロガーに適用する割合を取得する。
+     * @param loggerName ロガー名
+     * @return 割合(N件に1件)
+     */
+    int rateFor(final String loggerName) {
+        return rates.match(loggerName, defaultRate);
+    }
+
+    /**
+     * ロガーで間引くログレベルを取得する。
+     * @param loggerName ロガー名
+     * @return ログレベルの序数をビット位置とした値。間引かない場合は0
+     */
+    int levelMaskFor(final String loggerName) {
+        return rateFor(loggerName) > 1 ? levelMask : 0;
+    }
+
+    /**
+     * ログを出力するか否かを判定する。
+     * @param rate 割合(N件に1件)
+     * @param options メッセージに埋め込む値
+     * @return 出力する場合は{@code true}
+     */
+    boolean sample(final int rate, final Object[] options) {
+        if (keyArgumentIndex == NO_KEY) {
+            return ThreadLocalRandom.current().nextInt(rate) == 0;
+        }
+        if (options != null && keyArgumentIndex < options.length) {
+            final Object key = options[keyArgumentIndex];
+            if (key != null && !LazyArguments.isLazy(key)) {
+                return sampleByKey(rate, key.toString());
+            }
+        }
+        final String requestId = ThreadContext.getRequestId();
+        return requestId == null || sampleByKey(rate, requestId);
+    }
+
+    /**
+     * キーのハッシュ値で、ログを出力するか否かを判定する。
+     * @param rate 割合(N件に1件)
+     * @param key キー
+     * @return 出力する場合は{@code true}
+     */
+    private static boolean sampleByKey(final int rate, final String key) {
+        return Math.floorMod(mix(key.hashCode()), rate) == 0;
+    }
+
+    /**
+     * ハッシュ値を攪拌する。
+     * <p>
+     * 連番のキーが特定の剰余に偏らないよう、MurmurHash3の最終処理を適用する。
+     *
+     * @param hash ハッシュ値
+     * @return 攪拌した値
+     */
+    private static int mix(final int hash) {
+        int h = hash;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
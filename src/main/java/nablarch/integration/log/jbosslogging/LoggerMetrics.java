@@ -0,0 +1,102 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ロガー毎のメトリクス。
+ * <p>
+ * ログレベル毎の出力件数と、ログレベルが無効なため出力しなかった件数を、競合の少ない{@link LongAdder}で記録する。
+ * 委譲先ロガーの処理時間は、一定の割合で抽出した呼び出しのみ記録する。
+ */
+final class LoggerMetrics {
+
+    /** ログレベルの一覧 */
+    private static final Level[] LEVELS = Level.values();
+
+    /** ロガー名 */
+    private final String name;
+
+    /** ログレベル毎の出力件数 */
+    private final LongAdder[] events = newCounters();
+
+    /** ログレベル毎の出力しなかった件数 */
+    private final LongAdder[] suppressed = newCounters();
+
+    /** 委譲先ロガーの処理時間 */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /** 処理時間を記録する割合(この件数に1件の割合で記録する) */
+    private final int latencySampleRate;
+
+    /**
+     * メトリクスを生成する。
+     * @param name ロガー名
+     * @param latencySampleRate 処理時間を記録する割合
+     */
+    LoggerMetrics(final String name, final int latencySampleRate) {
+        this.name = name;
+        this.latencySampleRate = latencySampleRate;
+    }
+
+    /**
+     * ログレベル毎のカウンタを生成する。
+     * @return カウンタ
+     */
+    private static LongAdder[] newCounters() {
+        final LongAdder[] counters = new LongAdder[LEVELS.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * 出力したログを記録する。
+     * @param level ログレベル
+     */
+    void recordEvent(final Level level) {
+        events[level.ordinal()].increment();
+    }
+
+    /**
+     * ログレベルが無効なため出力しなかったログを記録する。
+     * @param level ログレベル
+     */
+    void recordSuppressed(final Level level) {
+        suppressed[level.ordinal()].increment();
+    }
+
+    /**
+     * 今回の呼び出しの処理時間を記録するか否かを判定する。
+     * @return 記録する場合は{@code true}
+     */
+    boolean shouldSampleLatency() {
+        return latencySampleRate == 1 || ThreadLocalRandom.current().nextInt(latencySampleRate) == 0;
+    }
+
+    /**
+     * 委譲先ロガーの処理時間を記録する。
+     * @param nanos 処理時間(ナノ秒)
+     */
+    void recordLatency(final long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * 現在の値を取得する。
+     * @return 現在の値
+     */
+    LoggerMetricsSnapshot snapshot() {
+        final long[] eventCounts = new long[LEVELS.length];
+        final long[] suppressedCounts = new long[LEVELS.length];
+        for (int i = 0; i < LEVELS.length; i++) {
+            eventCounts[i] = events[i].sum();
+            suppressedCounts[i] = suppressed[i].sum();
+        }
+        return new LoggerMetricsSnapshot(name, eventCounts, suppressedCounts, latency.count(),
+                latency.percentile(50), latency.percentile(99), latency.percentile(100));
+    }
+}
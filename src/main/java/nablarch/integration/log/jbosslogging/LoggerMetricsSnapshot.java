@@ -0,0 +1,178 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Arrays;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ロガー毎のメトリクスの値。
+ * <p>
+ * 取得した時点の値を保持する。処理時間は2のべき乗ごとの区間の上限値で近似した値である。
+ */
+public final class LoggerMetricsSnapshot {
+
+    /** ロガー名 */
+    private final String name;
+
+    /** ログレベル毎の出力件数({@link Level#ordinal()}順) */
+    private final long[] events;
+
+    /** ログレベル毎の出力しなかった件数({@link Level#ordinal()}順) */
+    private final long[] suppressed;
+
+    /** 処理時間を記録した件数 */
+    private final long latencySampleCount;
+
+    /** 処理時間の50パーセンタイル(ナノ秒) */
+    private final long latencyP50Nanos;
+
+    /** 処理時間の99パーセンタイル(ナノ秒) */
+    private final long latencyP99Nanos;
+
+    /** 処理時間の最大値(ナノ秒) */
+    private final long latencyMaxNanos;
+
+    /**
+     * メトリクスの値を生成する。
+     * @param name ロガー名
+     * @param events ログレベル毎の出力件数
+     * @param suppressed ログレベル毎の出力しなかった件数
+     * @param latencySampleCount 処理時間を記録した件数
+     * @param latencyP50Nanos 処理時間の50パーセンタイル(ナノ秒)
+     * @param latencyP99Nanos 処理時間の99パーセンタイル(ナノ秒)
+     * @param latencyMaxNanos 処理時間の最大値(ナノ秒)
+     */
+    LoggerMetricsSnapshot(final String name, final long[] events, final long[] suppressed,
+            final long latencySampleCount, final long latencyP50Nanos, final long latencyP99Nanos,
+            final long latencyMaxNanos) {
+        this.name = name;
+        this.events = events;
+        this.suppressed = suppressed;
+        this.latencySampleCount = latencySampleCount;
+        this.latencyP50Nanos = latencyP50Nanos;
+        this.latencyP99Nanos = latencyP99Nanos;
+        this.latencyMaxNanos = latencyMaxNanos;
+    }
+
+    /**
+     * ロガー名を取得する。
+     * @return ロガー名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 指定したログレベルの出力件数を取得する。
+     * @param level ログレベル
+     * @return 出力件数
+     */
+    public long getEventCount(final Level level) {
+        return events[level.ordinal()];
+    }
+
+    /**
+     * 指定したログレベルの出力しなかった件数を取得する。
+     * @param level ログレベル
+     * @return 出力しなかった件数
+     */
+    public long getSuppressedCount(final Level level) {
+        return suppressed[level.ordinal()];
+    }
+
+    /**
+     * 全ログレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getTotalEventCount() {
+        return Arrays.stream(events).sum();
+    }
+
+    /**
+     * 全ログレベルの出力しなかった件数を取得する。
+     * @return 出力しなかった件数
+     */
+    public long getTotalSuppressedCount() {
+        return Arrays.stream(suppressed).sum();
+    }
+
+    /**
+     * FATALレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getFatalCount() {
+        return getEventCount(Level.FATAL);
+    }
+
+    /**
+     * ERRORレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getErrorCount() {
+        return getEventCount(Level.ERROR);
+    }
+
+    /**
+     * WARNレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getWarnCount() {
+        return getEventCount(Level.WARN);
+    }
+
+    /**
+     * INFOレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getInfoCount() {
+        return getEventCount(Level.INFO);
+    }
+
+    /**
+     * DEBUGレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getDebugCount() {
+        return getEventCount(Level.DEBUG);
+    }
+
+    /**
+     * TRACEレベルの出力件数を取得する。
+     * @return 出力件数
+     */
+    public long getTraceCount() {
+        return getEventCount(Level.TRACE);
+    }
+
+    /**
+     * 処理時間を記録した件数を取得する。
+     * @return 件数
+     */
+    public long getLatencySampleCount() {
+        return latencySampleCount;
+    }
+
+    /**
+     * 処理時間の50パーセンタイルを取得する。
+     * @return 処理時間(ナノ秒)
+     */
+    public long getLatencyP50Nanos() {
+        return latencyP50Nanos;
+    }
+
+    /**
+     * 処理時間の99パーセンタイルを取得する。
+     * @return 処理時間(ナノ秒)
+     */
+    public long getLatencyP99Nanos() {
+        return latencyP99Nanos;
+    }
+
+    /**
+     * 処理時間の最大値を取得する。
+     * @return 処理時間(ナノ秒)
+     */
+    public long getLatencyMaxNanos() {
+        return latencyMaxNanos;
+    }
+}
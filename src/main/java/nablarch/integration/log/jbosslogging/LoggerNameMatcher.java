@@ -0,0 +1,52 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ロガー名の階層に従って設定値を解決するクラス。
+ * <p>
+ * ロガー名を{@code .}で区切った階層とみなし、完全一致する設定値、なければ最も近い上位階層の設定値を返す。
+ * 例えば{@code com.example}に対する設定値は、{@code com.example}と{@code com.example.Foo}に適用され、
+ * {@code com.examples}には適用されない。
+ * 空文字列に対する設定値は、全てのロガーに適用される。
+ *
+ * @param <V> 設定値の型
+ */
+final class LoggerNameMatcher<V> {
+
+    /** ロガー名(階層)毎の設定値 */
+    private final Map<String, V> values;
+
+    /**
+     * ロガー名毎の設定値から生成する。
+     * @param values ロガー名毎の設定値
+     */
+    LoggerNameMatcher(final Map<String, ? extends V> values) {
+        this.values = new HashMap<String, V>(values);
+    }
+
+    /**
+     * ロガー名に対応する設定値を取得する。
+     * @param loggerName ロガー名
+     * @param defaultValue 対応する設定値がない場合の値
+     * @return 設定値
+     */
+    V match(final String loggerName, final V defaultValue) {
+        if (values.isEmpty()) {
+            return defaultValue;
+        }
+        String candidate = loggerName;
+        while (true) {
+            final V value = values.get(candidate);
+            if (value != null) {
+                return value;
+            }
+            if (candidate.isEmpty()) {
+                return defaultValue;
+            }
+            final int dot = candidate.lastIndexOf('.');
+            candidate = dot < 0 ? "" : candidate.substring(0, dot);
+        }
+    }
+}
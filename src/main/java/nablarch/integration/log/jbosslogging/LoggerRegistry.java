@@ -0,0 +1,46 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.function.Function;
+
+/**
+ * ロガー名毎に{@link JbossLogger}を保持するレジストリ。
+ * <p>
+ * 参照はロックを取らずに行う。保持数が上限を超えた場合は、最近使用されていないロガーから破棄する。<br>
+ * 破棄されたロガーは次回取得時に再生成されるため、動的に名前を生成するロガーがあってもメモリを使い続けることはない。
+ */
+final class LoggerRegistry {
+
+    /** ロガー名とロガーのキャッシュ */
+    private final BoundedCache<String, JbossLogger> cache;
+
+    /** ロガーを生成する関数 */
+    private final Function<String, JbossLogger> factory;
+
+    /**
+     * レジストリを生成する。
+     * @param maxSize 保持するロガー数の上限
+     * @param factory ロガーを生成する関数
+     */
+    LoggerRegistry(final int maxSize, final Function<String, JbossLogger> factory) {
+        this.cache = new BoundedCache<String, JbossLogger>(maxSize);
+        this.factory = factory;
+    }
+
+    /**
+     * ロガーを取得する。
+     * @param name ロガー名
+     * @return ロガー
+     */
+    JbossLogger get(final String name) {
+        return cache.get(name, factory);
+    }
+
+    /**
+     * 統計情報を取得する。
+     * @return 統計情報
+     */
+    LoggerRegistryStatistics getStatistics() {
+        return new LoggerRegistryStatistics(cache.size(), cache.maxSize(), cache.hits(), cache.misses(),
+                cache.evictions());
+    }
+}
@@ -0,0 +1,87 @@
+package nablarch.integration.log.jbosslogging;
+
+/**
+ * {@link JbossLoggingLoggerFactory}が保持するロガーのレジストリの統計情報。
+ * <p>
+ * 取得した時点の値を保持する。
+ */
+public final class LoggerRegistryStatistics {
+
+    /** 保持しているロガー数 */
+    private final int size;
+
+    /** 保持するロガー数の上限 */
+    private final int maxSize;
+
+    /** レジストリに存在したロガーの取得回数 */
+    private final long hits;
+
+    /** レジストリに存在せず生成したロガーの取得回数 */
+    private final long misses;
+
+    /** 上限を超えたため破棄したロガー数 */
+    private final long evictions;
+
+    /**
+     * 統計情報を生成する。
+     * @param size 保持しているロガー数
+     * @param maxSize 保持するロガー数の上限
+     * @param hits レジストリに存在したロガーの取得回数
+     * @param misses レジストリに存在せず生成したロガーの取得回数
+     * @param evictions 上限を超えたため破棄したロガー数
+     */
+    public LoggerRegistryStatistics(final int size, final int maxSize, final long hits, final long misses,
+            final long evictions) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * 保持しているロガー数を取得する。
+     * @return 保持しているロガー数
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 保持するロガー数の上限を取得する。
+     * @return 保持するロガー数の上限
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * レジストリに存在したロガーの取得回数を取得する。
+     * @return 取得回数
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * レジストリに存在せず生成したロガーの取得回数を取得する。
+     * @return 取得回数
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 上限を超えたため破棄したロガー数を取得する。
+     * @return 破棄したロガー数
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return "LoggerRegistryStatistics{size=" + size + ", maxSize=" + maxSize + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + '}';
+    }
+}
@@ -0,0 +1,72 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全ロガーのメトリクスを集約するクラス。
+ * <p>
+ * ロガー名毎に{@link LoggerMetrics}を保持する。
+ * 保持するロガー数が上限に達した後に生成されたロガーは、{@value #OTHERS}という名前のメトリクスにまとめて記録する。
+ */
+final class LoggingMetrics {
+
+    /** 上限を超えたロガーをまとめて記録するメトリクスの名前 */
+    static final String OTHERS = "(others)";
+
+    /** ロガー名毎のメトリクス */
+    private final ConcurrentHashMap<String, LoggerMetrics> loggers = new ConcurrentHashMap<String, LoggerMetrics>();
+
+    /** 保持するロガー数の上限 */
+    private final int maxLoggers;
+
+    /** 処理時間を記録する割合 */
+    private final int latencySampleRate;
+
+    /** 上限を超えたロガーのメトリクス */
+    private final LoggerMetrics others;
+
+    /**
+     * メトリクスを生成する。
+     * @param maxLoggers 保持するロガー数の上限
+     * @param latencySampleRate 処理時間を記録する割合(この件数に1件の割合で記録する)
+     */
+    LoggingMetrics(final int maxLoggers, final int latencySampleRate) {
+        this.maxLoggers = maxLoggers;
+        this.latencySampleRate = latencySampleRate;
+        this.others = new LoggerMetrics(OTHERS, latencySampleRate);
+    }
+
+    /**
+     * ロガーのメトリクスを取得する。
+     * @param name ロガー名
+     * @return メトリクス
+     */
+    LoggerMetrics forLogger(final String name) {
+        final LoggerMetrics metrics = loggers.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (loggers.size() >= maxLoggers) {
+            return others;
+        }
+        return loggers.computeIfAbsent(name, key -> new LoggerMetrics(key, latencySampleRate));
+    }
+
+    /**
+     * 全ロガーのメトリクスの値を取得する。
+     * @return メトリクスの値
+     */
+    List<LoggerMetricsSnapshot> snapshot() {
+        final List<LoggerMetricsSnapshot> result = new ArrayList<LoggerMetricsSnapshot>(loggers.size() + 1);
+        for (LoggerMetrics metrics : loggers.values()) {
+            result.add(metrics.snapshot());
+        }
+        final LoggerMetricsSnapshot othersSnapshot = others.snapshot();
+        if (othersSnapshot.getTotalEventCount() != 0 || othersSnapshot.getTotalSuppressedCount() != 0) {
+            result.add(othersSnapshot);
+        }
+        return result;
+    }
+}
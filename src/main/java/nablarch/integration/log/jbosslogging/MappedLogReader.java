@@ -0,0 +1,110 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * メモリマップした出力先({@code jbossLogging.mappedSink})に書き込まれたログを読み出すツール。
+ * <p>
+ * セグメントファイルを連番順に読み込み、長さとCRC32Cが正しいレコードのテキストを書き込んだ順に返す。
+ * 書き込み途中のレコードや壊れたレコードに達した場合は、そのセグメントの読み込みを終了する。
+ * <pre>
+ * java -cp ... nablarch.integration.log.jbosslogging.MappedLogReader &lt;ディレクトリ&gt; [接頭辞]
+ * </pre>
+ */
+public final class MappedLogReader {
+
+    /** セグメントファイル名の接頭辞のデフォルト */
+    public static final String DEFAULT_PREFIX = "jbossLogging";
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private MappedLogReader() {
+    }
+
+    /**
+     * 指定したディレクトリのログを標準出力に出力する。
+     * @param args ディレクトリと、セグメントファイル名の接頭辞(省略時は{@value #DEFAULT_PREFIX})
+     * @throws IOException ファイルを読み込めない場合
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: MappedLogReader <directory> [prefix]");
+            System.exit(2);
+            return;
+        }
+        final PrintStream out = new PrintStream(System.out, false, "UTF-8");
+        read(Paths.get(args[0]), args.length == 2 ? args[1] : DEFAULT_PREFIX, out::print);
+        out.flush();
+    }
+
+    /**
+     * 指定したディレクトリのログを読み出す。
+     * @param directory ディレクトリ
+     * @param prefix セグメントファイル名の接頭辞
+     * @param consumer 読み出したテキストを受け取る処理
+     * @throws IOException ファイルを読み込めない場合
+     */
+    public static void read(final Path directory, final String prefix, final Consumer<String> consumer)
+            throws IOException {
+        for (Path segment : segments(directory, prefix)) {
+            readSegment(segment, consumer);
+        }
+    }
+
+    /**
+     * セグメントファイルを連番順に取得する。
+     * @param directory ディレクトリ
+     * @param prefix セグメントファイル名の接頭辞
+     * @return セグメントファイル
+     * @throws IOException ディレクトリを読み込めない場合
+     */
+    private static List<Path> segments(final Path directory, final String prefix) throws IOException {
+        final List<Path> segments = new ArrayList<Path>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "-*" + MappedLogSink.SUFFIX)) {
+            for (Path file : files) {
+                if (MappedLogSink.sequenceOf(file.getFileName().toString(), prefix) >= 0) {
+                    segments.add(file);
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(MappedLogSink.sequenceOf(a.getFileName().toString(), prefix),
+                MappedLogSink.sequenceOf(b.getFileName().toString(), prefix)));
+        return segments;
+    }
+
+    /**
+     * セグメントファイルのレコードを読み出す。
+     * @param segment セグメントファイル
+     * @param consumer 読み出したテキストを受け取る処理
+     * @throws IOException ファイルを読み込めない場合
+     */
+    private static void readSegment(final Path segment, final Consumer<String> consumer) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final int end = MappedLogSink.validLength(buffer);
+        int offset = 0;
+        while (offset < end) {
+            final int length = buffer.getInt(offset);
+            final ByteBuffer payload = buffer.duplicate();
+            payload.limit(offset + MappedLogSink.HEADER_SIZE + length).position(offset + MappedLogSink.HEADER_SIZE);
+            consumer.accept(StandardCharsets.UTF_8.decode(payload).toString());
+            offset += MappedLogSink.align(MappedLogSink.HEADER_SIZE + length);
+        }
+    }
+}
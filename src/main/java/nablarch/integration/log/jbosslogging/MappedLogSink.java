@@ -0,0 +1,504 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * ログをメモリマップしたセグメントファイルに直接書き込む出力先。
+ * <p>
+ * 指定したロガーのログを、委譲先ロガーを経由せずにUTF-8でエンコードした1行のテキストとして書き込む。
+ * 書き込み位置は{@link AtomicLong}の加算で確保するため、書き込みにロックを必要としない。
+ * セグメントが一杯になった場合は、次のセグメントファイルを作成して書き込みを続ける。
+ * <p>
+ * セグメントファイルは{@code <接頭辞>-<連番10桁>.log}とし、各レコードは以下の形式とする。
+ * <pre>
+ * [長さ(4バイト)][CRC32C(4バイト)][UTF-8のテキスト][4バイト境界までの詰め物]
+ * </pre>
+ * 長さはテキストを書き込んだ後に書き込むため、長さが0のレコードは書き込み途中であることを表す。
+ * 長さが{@value #END_OF_SEGMENT}のレコードはセグメントの終端を表す。
+ * <p>
+ * ディレクトリへの書き込みは、ディレクトリ内のロックファイル({@code <接頭辞>.lock})の排他ロックを取得した出力先のみが行う。
+ * ロックを取得した時点で最後のセグメントを先頭から検証し、長さとCRC32Cが正しいレコードの直後でファイルを切り詰めた上で、
+ * 新しいセグメントに書き込む。異常終了時に書き込み途中だったレコードは破棄される。
+ * 他の出力先(再初期化前の出力先や他のプロセス)がロックを保持している間は書き込まず、
+ * {@link #append}は{@code false}を返す(呼び出し元は委譲先ロガーに出力する)。ロックの取得は一定間隔で再試行する。
+ * <p>
+ * {@link #close()}の後は書き込まずにロックを解放するため、再初期化前に取得したロガーからの出力は委譲先ロガーに出力される。
+ * 一杯になったセグメントのファイルへの反映は書き込みスレッドでは行わず、{@link #flushRetired()}で行う。
+ * 書き込んだレコードは{@link MappedLogReader}で読み出す。
+ */
+final class MappedLogSink {
+
+    /** レコードのヘッダ長 */
+    static final int HEADER_SIZE = 8;
+
+    /** セグメントの終端を表す長さ */
+    static final int END_OF_SEGMENT = -1;
+
+    /** セグメントファイルの拡張子 */
+    static final String SUFFIX = ".log";
+
+    /** ヘッダを書き込むためのハンドル(公開順序を保証するため) */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    /** 改行 */
+    private static final String LINE_SEPARATOR = "\n";
+
+    /** ロックファイルの拡張子 */
+    private static final String LOCK_SUFFIX = ".lock";
+
+    /** ロックの取得を再試行する間隔(ナノ秒) */
+    private static final long ACQUIRE_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** 停止時に書き込み中のスレッドを待機する時間の上限(ナノ秒) */
+    private static final long CLOSE_WAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** 出力先のディレクトリ */
+    private final Path directory;
+
+    /** セグメントファイル名の接頭辞 */
+    private final String prefix;
+
+    /** セグメントのサイズ(バイト) */
+    private final int segmentSize;
+
+    /** 書き込み中のセグメント(ロックを取得していない場合、停止後、書き込めなくなった場合は{@code null}) */
+    private final AtomicReference<Segment> current = new AtomicReference<Segment>();
+
+    /** 書き込み中のスレッド数 */
+    private final AtomicInteger writers = new AtomicInteger();
+
+    /** ファイルへの反映を待つ一杯になったセグメント */
+    private final Queue<Segment> retired = new ConcurrentLinkedQueue<Segment>();
+
+    /** ロックファイルのチャネル */
+    private final FileChannel lockChannel;
+
+    /** 取得したロック(取得していない場合は{@code null}) */
+    private FileLock lock;
+
+    /** 停止したか否か */
+    private volatile boolean closed;
+
+    /** 次にロックの取得を試行する時刻({@link System#nanoTime()}) */
+    private volatile long nextAcquireNanos;
+
+    /**
+     * 出力先を生成する。
+     * <p>
+     * ロックを取得できた場合は、最後のセグメントの末尾を復旧してから新しいセグメントを作成する。
+     * 取得できない場合は、ロックが解放された後の書き込み時に行う。
+     *
+     * @param directory 出力先のディレクトリ
+     * @param prefix セグメントファイル名の接頭辞
+     * @param segmentSize セグメントのサイズ(バイト)
+     * @throws IOException ロックファイルまたはセグメントファイルを作成できない場合
+     */
+    MappedLogSink(final Path directory, final String prefix, final int segmentSize) throws IOException {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(prefix + LOCK_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            acquire();
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * ロックを取得し、書き込みを開始する。
+     * <p>
+     * 既にロックを取得している場合や停止後は何もしない。
+     *
+     * @return 書き込みを開始した場合は{@code true}
+     * @throws IOException セグメントファイルを作成できない場合
+     */
+    synchronized boolean acquire() throws IOException {
+        if (closed || lock != null) {
+            return false;
+        }
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同じJVMの別の出力先(再初期化前の出力先)が保持している
+            lock = null;
+        }
+        if (lock == null) {
+            nextAcquireNanos = System.nanoTime() + ACQUIRE_RETRY_NANOS;
+            return false;
+        }
+        try {
+            final long last = lastSequence(directory, prefix);
+            if (last >= 0) {
+                recoverTail(segmentPath(directory, prefix, last));
+            }
+            current.set(new Segment(segmentPath(directory, prefix, last + 1), last + 1, segmentSize));
+        } catch (IOException e) {
+            lock.release();
+            lock = null;
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * ログを書き込む。
+     * @param loggerName ロガー名
+     * @param level ログレベル
+     * @param message 書式化済みのメッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @return 書き込んだ場合は{@code true}。ロックを取得していない場合や、セグメントファイルを作成できず書き込めない場合は{@code false}
+     */
+    boolean append(final String loggerName, final Level level, final String message, final Throwable error) {
+        if (current.get() == null && !retryAcquire()) {
+            return false;
+        }
+        return append(encode(loggerName, level, message, error));
+    }
+
+    /**
+     * エンコード済みのレコードを書き込む。
+     * <p>
+     * セグメントに収まらない長さのテキストは切り詰める。
+     *
+     * @param payload UTF-8でエンコードしたテキスト
+     * @return 書き込んだ場合は{@code true}
+     */
+    boolean append(final byte[] payload) {
+        final int length = Math.min(payload.length, segmentSize - HEADER_SIZE);
+        final int recordSize = align(HEADER_SIZE + length);
+        // 停止処理が書き込み中のスレッドを待機できるよう、セグメントを参照する前に登録する
+        writers.incrementAndGet();
+        try {
+            while (true) {
+                final Segment segment = current.get();
+                if (segment == null) {
+                    return false;
+                }
+                final long offset = segment.claim(recordSize);
+                if (offset + recordSize <= segmentSize) {
+                    segment.write((int) offset, payload, length);
+                    return true;
+                }
+                if (offset <= segmentSize) {
+                    // 境界を越えたスレッドのみが次のセグメントを作成する
+                    if (offset + HEADER_SIZE <= segmentSize) {
+                        segment.markEnd((int) offset);
+                    }
+                    roll(segment);
+                } else {
+                    while (current.get() == segment) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        } finally {
+            writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * 書き込みを停止し、書き込んだ内容をファイルに反映してロックを解放する。
+     * <p>
+     * 書き込み中のスレッドが書き終えるのを待機してからロックを解放する。
+     * ロックを解放した後は、次の所有者がセグメントを切り詰めるため、書き込んではならない。
+     */
+    synchronized void close() {
+        closed = true;
+        final Segment segment = current.getAndSet(null);
+        final long deadline = System.nanoTime() + CLOSE_WAIT_NANOS;
+        while (writers.get() != 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        flushRetired();
+        if (segment != null) {
+            segment.force();
+        }
+        try {
+            if (lock != null) {
+                lock.release();
+                lock = null;
+            }
+            lockChannel.close();
+        } catch (IOException ignored) {
+            // ロックはチャネルを閉じた時点で解放されるため無視する
+        }
+    }
+
+    /**
+     * 一杯になったセグメントの内容をファイルに反映する。
+     * <p>
+     * 書き込みスレッドで反映しないよう、定期的に実行する処理から呼び出す。
+     */
+    void flushRetired() {
+        Segment segment;
+        while ((segment = retired.poll()) != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 一定間隔でロックの取得を再試行する。
+     * @return 書き込みを開始できる状態の場合は{@code true}
+     */
+    private boolean retryAcquire() {
+        final long now = System.nanoTime();
+        if (closed || now - nextAcquireNanos < 0) {
+            return false;
+        }
+        nextAcquireNanos = now + ACQUIRE_RETRY_NANOS;
+        try {
+            acquire();
+        } catch (IOException ignored) {
+            // 次の再試行まで委譲先ロガーに出力する
+        }
+        return current.get() != null;
+    }
+
+    /**
+     * 次のセグメントを作成し、書き込み先を切り替える。
+     * <p>
+     * 停止処理によって書き込み先が既に解除されている場合は切り替えない。
+     *
+     * @param full 一杯になったセグメント
+     */
+    private void roll(final Segment full) {
+        Segment next;
+        try {
+            next = new Segment(segmentPath(directory, prefix, full.sequence + 1), full.sequence + 1, segmentSize);
+        } catch (IOException e) {
+            next = null;
+        }
+        current.compareAndSet(full, next);
+        retired.add(full);
+    }
+
+    /**
+     * ログを1行のテキストにエンコードする。
+     * @param loggerName ロガー名
+     * @param level ログレベル
+     * @param message 書式化済みのメッセージ
+     * @param error エラー情報(存在しない場合は{@code null})
+     * @return UTF-8でエンコードしたテキスト
+     */
+    static byte[] encode(final String loggerName, final Level level, final String message, final Throwable error) {
+        final StringBuilder text = new StringBuilder(64 + (message == null ? 4 : message.length()));
+        text.append(DateTimeFormatter.ISO_INSTANT.format(Instant.now()))
+                .append(' ').append(level)
+                .append(" [").append(Thread.currentThread().getName()).append("] ")
+                .append(loggerName).append(" - ").append(message)
+                .append(LINE_SEPARATOR);
+        if (error != null) {
+            final StringWriter stackTrace = new StringWriter();
+            error.printStackTrace(new PrintWriter(stackTrace));
+            text.append(stackTrace);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 最後のセグメントの末尾を検証し、正しいレコードの直後で切り詰める。
+     * @param path 最後のセグメントファイル
+     * @throws IOException ファイルを読み書きできない場合
+     */
+    private static void recoverTail(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 全体を読み込む
+            }
+            buffer.flip();
+            channel.truncate(validLength(buffer));
+            channel.force(true);
+        }
+    }
+
+    /**
+     * セグメントの先頭から正しいレコードが続く長さを求める。
+     * @param buffer セグメントの内容
+     * @return 長さ(バイト)
+     */
+    static int validLength(final ByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= buffer.limit()) {
+            final int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > buffer.limit()
+                    || buffer.getInt(offset + 4) != checksum(buffer, offset + HEADER_SIZE, length)) {
+                break;
+            }
+            offset += align(HEADER_SIZE + length);
+        }
+        return Math.min(offset, buffer.limit());
+    }
+
+    /**
+     * CRC32Cを求める。
+     * @param buffer バッファ
+     * @param offset 開始位置
+     * @param length 長さ
+     * @return CRC32C
+     */
+    static int checksum(final ByteBuffer buffer, final int offset, final int length) {
+        final CRC32C crc = new CRC32C();
+        final ByteBuffer slice = buffer.duplicate();
+        slice.limit(offset + length).position(offset);
+        crc.update(slice);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 4バイト境界に切り上げる。
+     * @param size サイズ
+     * @return 切り上げたサイズ
+     */
+    static int align(final int size) {
+        return (size + 3) & ~3;
+    }
+
+    /**
+     * 既存のセグメントの最大の連番を取得する。
+     * @param directory ディレクトリ
+     * @param prefix セグメントファイル名の接頭辞
+     * @return 連番。セグメントが存在しない場合は-1
+     * @throws IOException ディレクトリを読み込めない場合
+     */
+    static long lastSequence(final Path directory, final String prefix) throws IOException {
+        long last = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "-*" + SUFFIX)) {
+            for (Path file : files) {
+                final long sequence = sequenceOf(file.getFileName().toString(), prefix);
+                if (sequence > last) {
+                    last = sequence;
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * ファイル名からセグメントの連番を取得する。
+     * @param fileName ファイル名
+     * @param prefix セグメントファイル名の接頭辞
+     * @return 連番。セグメントファイルでない場合は-1
+     */
+    static long sequenceOf(final String fileName, final String prefix) {
+        if (!fileName.startsWith(prefix + '-') || !fileName.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(prefix.length() + 1, fileName.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * セグメントファイルのパスを取得する。
+     * @param directory ディレクトリ
+     * @param prefix セグメントファイル名の接頭辞
+     * @param sequence 連番
+     * @return パス
+     */
+    static Path segmentPath(final Path directory, final String prefix, final long sequence) {
+        return directory.resolve(String.format("%s-%010d%s", prefix, sequence, SUFFIX));
+    }
+
+    /**
+     * メモリマップしたセグメント。
+     */
+    private static final class Segment {
+
+        /** 連番 */
+        private final long sequence;
+
+        /** マップしたバッファ */
+        private final MappedByteBuffer buffer;
+
+        /** 次に書き込む位置 */
+        private final AtomicLong position = new AtomicLong();
+
+        /**
+         * セグメントファイルを作成してマップする。
+         * @param path パス
+         * @param sequence 連番
+         * @param size サイズ(バイト)
+         * @throws IOException ファイルを作成できない場合
+         */
+        private Segment(final Path path, final long sequence, final int size) throws IOException {
+            this.sequence = sequence;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        /**
+         * 書き込む領域を確保する。
+         * @param size サイズ(バイト)
+         * @return 確保した領域の開始位置
+         */
+        private long claim(final int size) {
+            return position.getAndAdd(size);
+        }
+
+        /**
+         * レコードを書き込む。
+         * <p>
+         * テキストとCRC32Cを書き込んだ後に、長さを書き込んでレコードを公開する。
+         *
+         * @param offset 開始位置
+         * @param payload テキスト
+         * @param length 書き込む長さ
+         */
+        private void write(final int offset, final byte[] payload, final int length) {
+            buffer.put(offset + HEADER_SIZE, payload, 0, length);
+            buffer.putInt(offset + 4, checksum(buffer, offset + HEADER_SIZE, length));
+            INT.setRelease(buffer, offset, length);
+        }
+
+        /**
+         * セグメントの終端を書き込む。
+         * @param offset 開始位置
+         */
+        private void markEnd(final int offset) {
+            INT.setRelease(buffer, offset, END_OF_SEGMENT);
+        }
+
+        /**
+         * 書き込んだ内容をファイルに反映する。
+         */
+        private void force() {
+            buffer.force();
+        }
+    }
+}
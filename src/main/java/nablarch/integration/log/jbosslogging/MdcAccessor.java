@@ -0,0 +1,56 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.LoggerProvider;
+import org.jboss.logging.MDC;
+
+/**
+ * 委譲先ロガーと同じプロバイダのMDCを操作するクラス。
+ * <p>
+ * jboss-loggingの{@link MDC}はjboss-loggingが探索したプロバイダに委譲するため、
+ * {@code jbossLogging.provider}でプロバイダを指定した場合は、委譲先ロガーと異なるMDCを操作してしまう。
+ * プロバイダが指定されている場合はプロバイダのMDCを、指定されていない場合は{@link MDC}を操作する。
+ */
+final class MdcAccessor {
+
+    /** 明示的に指定したプロバイダ(指定されていない場合は{@code null}) */
+    private final LoggerProvider provider;
+
+    /**
+     * MDCを操作するクラスを生成する。
+     * @param provider 明示的に指定したプロバイダ(指定されていない場合は{@code null})
+     */
+    MdcAccessor(final LoggerProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * 値を取得する。
+     * @param key キー
+     * @return 値(存在しない場合は{@code null})
+     */
+    Object get(final String key) {
+        return provider == null ? MDC.get(key) : provider.getMdc(key);
+    }
+
+    /**
+     * 値を格納する。
+     * @param key キー
+     * @param value 値
+     * @return 格納前の値(存在しない場合は{@code null})
+     */
+    Object put(final String key, final Object value) {
+        return provider == null ? MDC.put(key, value) : provider.putMdc(key, value);
+    }
+
+    /**
+     * 値を削除する。
+     * @param key キー
+     */
+    void remove(final String key) {
+        if (provider == null) {
+            MDC.remove(key);
+        } else {
+            provider.removeMdc(key);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 解析済みのメッセージテンプレート。
+ * <p>
+ * {@link java.text.MessageFormat}形式のメッセージのうち、書式指定を持たない{@code {n}}形式の埋め込み文字と
+ * シングルクォートによるエスケープのみで構成されるものを、固定文字列と埋め込み位置に分解して保持する。<br>
+ * 出力結果は{@link java.text.MessageFormat#format(String, Object...)}と同一となる。
+ * <p>
+ * 書式指定({@code {0,number,#}}など)を含むメッセージや構文誤りのあるメッセージは解析しない。
+ * この場合は{@link #isCompiled()}が{@code false}を返すため、呼び出し元は{@link java.text.MessageFormat}による処理を行うこと。
+ */
+final class MessageTemplate {
+
+    /** 解析対象外のメッセージを表すテンプレート */
+    static final MessageTemplate NOT_COMPILED = new MessageTemplate(null, null);
+
+    /** {@link java.text.MessageFormat}が許容する埋め込み位置の上限 */
+    private static final int MAX_ARGUMENT_INDEX = 10000;
+
+    /** 再利用するバッファの最大長。これを超えたバッファは破棄する。 */
+    private static final int MAX_REUSABLE_BUFFER_LENGTH = 8192;
+
+    /** スレッド毎の書式化用バッファ */
+    private static final ThreadLocal<FormatBuffer> BUFFER = ThreadLocal.withInitial(FormatBuffer::new);
+
+    /** 固定文字列。{@code literals[i]}の後に{@code argumentIndexes[i]}の値が続く。 */
+    private final String[] literals;
+
+    /** 埋め込み位置。最後の固定文字列の後には埋め込みがないため、{@code literals}より要素数が1少ない。 */
+    private final int[] argumentIndexes;
+
+    /**
+     * テンプレートを生成する。
+     * @param literals 固定文字列
+     * @param argumentIndexes 埋め込み位置
+     */
+    private MessageTemplate(final String[] literals, final int[] argumentIndexes) {
+        this.literals = literals;
+        this.argumentIndexes = argumentIndexes;
+    }
+
+    /**
+     * メッセージを解析する。
+     * <p>
+     * 解析対象外のメッセージの場合は{@link #NOT_COMPILED}を返す。
+     *
+     * @param pattern メッセージ
+     * @return テンプレート
+     */
+    static MessageTemplate compile(final String pattern) {
+        final List<String> literals = new ArrayList<String>();
+        final List<Integer> indexes = new ArrayList<Integer>();
+        final StringBuilder literal = new StringBuilder(pattern.length());
+        boolean inQuote = false;
+        final int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            final char ch = pattern.charAt(i);
+            if (ch == '\'') {
+                if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+                    literal.append(ch);
+                    i++;
+                } else {
+                    inQuote = !inQuote;
+                }
+            } else if (ch == '{' && !inQuote) {
+                final int close = pattern.indexOf('}', i + 1);
+                if (close < 0) {
+                    return NOT_COMPILED;
+                }
+                final int index = parseArgumentIndex(pattern, i + 1, close);
+                if (index < 0) {
+                    return NOT_COMPILED;
+                }
+                literals.add(literal.toString());
+                indexes.add(index);
+                literal.setLength(0);
+                i = close;
+            } else {
+                literal.append(ch);
+            }
+        }
+        literals.add(literal.toString());
+
+        final int[] argumentIndexes = new int[indexes.size()];
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            argumentIndexes[i] = indexes.get(i);
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), argumentIndexes);
+    }
+
+    /**
+     * 埋め込み位置を解析する。
+     * @param pattern メッセージ
+     * @param start 開始位置(含む)
+     * @param end 終了位置(含まない)
+     * @return 埋め込み位置。数字のみで構成されていない場合は-1
+     */
+    private static int parseArgumentIndex(final String pattern, final int start, final int end) {
+        if (start == end || end - start > 5) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            final char ch = pattern.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            index = index * 10 + (ch - '0');
+        }
+        return index < MAX_ARGUMENT_INDEX ? index : -1;
+    }
+
+    /**
+     * 解析済みか否か。
+     * @return 解析済みの場合は{@code true}
+     */
+    boolean isCompiled() {
+        return literals != null;
+    }
+
+    /**
+     * メッセージを書式化する。
+     * <p>
+     * 書式化にはスレッド毎に再利用されるバッファを使用する。
+     *
+     * @param arguments 埋め込む値
+     * @return 書式化したメッセージ
+     */
+    String format(final Object[] arguments) {
+        final FormatBuffer buffer = BUFFER.get();
+        final StringBuilder sb = buffer.builder;
+        sb.setLength(0);
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            sb.append(literals[i]);
+            appendArgument(sb, buffer, arguments, argumentIndexes[i]);
+        }
+        sb.append(literals[argumentIndexes.length]);
+        final String result = sb.toString();
+        if (sb.capacity() > MAX_REUSABLE_BUFFER_LENGTH) {
+            buffer.builder = new StringBuilder(256);
+        }
+        return result;
+    }
+
+    /**
+     * 埋め込み値を{@link java.text.MessageFormat}と同じ規則で文字列化して追加する。
+     * @param sb 追加先
+     * @param buffer スレッド毎のバッファ
+     * @param arguments 埋め込む値
+     * @param index 埋め込み位置
+     */
+    private static void appendArgument(final StringBuilder sb, final FormatBuffer buffer,
+            final Object[] arguments, final int index) {
+        if (index >= arguments.length) {
+            sb.append('{').append(index).append('}');
+            return;
+        }
+        final Object argument = arguments[index];
+        if (argument == null) {
+            sb.append("null");
+        } else if (argument instanceof String) {
+            sb.append((String) argument);
+        } else if (argument instanceof Number) {
+            sb.append(buffer.numberFormat().format(argument));
+        } else if (argument instanceof Date) {
+            // 日時の書式はデフォルトタイムゾーンに依存するため、MessageFormatと同様に都度生成する
+            sb.append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT,
+                    Locale.getDefault(Locale.Category.FORMAT)).format(argument));
+        } else {
+            final String str = argument.toString();
+            sb.append(str == null ? "null" : str);
+        }
+    }
+
+    /**
+     * スレッド毎に再利用する書式化用の資源。
+     */
+    private static final class FormatBuffer {
+
+        /** 書式化用バッファ */
+        private StringBuilder builder = new StringBuilder(256);
+
+        /** 書式を生成したロケール */
+        private Locale locale;
+
+        /** 数値の書式 */
+        private NumberFormat numberFormat;
+
+        /**
+         * 数値の書式を取得する。
+         * <p>
+         * デフォルトロケールが変更されていた場合は書式を生成し直す。
+         *
+         * @return 数値の書式
+         */
+        private NumberFormat numberFormat() {
+            final Locale current = Locale.getDefault(Locale.Category.FORMAT);
+            if (numberFormat == null || !current.equals(locale)) {
+                locale = current;
+                numberFormat = NumberFormat.getInstance(current);
+            }
+            return numberFormat;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package nablarch.integration.log.jbosslogging;
+
+/**
+ * 解析済みのメッセージテンプレートを保持するキャッシュ。
+ * <p>
+ * メッセージをキーとして{@link MessageTemplate}を保持し、上限を超えた場合は最近使用されていないものから破棄する。
+ */
+final class MessageTemplateCache {
+
+    /** キャッシュ本体 */
+    private final BoundedCache<String, MessageTemplate> cache;
+
+    /**
+     * キャッシュを生成する。
+     * @param maxSize 保持するテンプレート数の上限
+     */
+    MessageTemplateCache(final int maxSize) {
+        cache = new BoundedCache<String, MessageTemplate>(maxSize);
+    }
+
+    /**
+     * メッセージに対応するテンプレートを取得する。
+     * @param message メッセージ
+     * @return テンプレート
+     */
+    MessageTemplate get(final String message) {
+        return cache.get(message, MessageTemplate::compile);
+    }
+
+    /**
+     * 保持しているテンプレート数を取得する。
+     * @return テンプレート数
+     */
+    int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,303 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * 同一のログの出力頻度を制限するクラス。
+ * <p>
+ * ロガー名、ログレベル、書式化前のメッセージの組み合わせ毎にトークンバケットを保持し、
+ * 1秒あたりの上限を超えたログを破棄する。<br>
+ * トークンバケットはGCRA(Generic Cell Rate Algorithm)で実装し、理論上の次回到着時刻のみを
+ * {@link AtomicLong}で保持するため、判定にロックを必要としない。
+ * 1秒あたりの上限と同数までの連続した出力を許容する。
+ * <p>
+ * 破棄した件数は{@link #emitSummaries()}の呼び出し毎に、組み合わせ毎の1行のログとして出力する。
+ * 集計期間は前回の呼び出しからの実際の経過時間とし、1秒未満はミリ秒、1秒以上は小数第1位までの秒で出力する。
+ * 保持する組み合わせ数には上限があり、上限を超えた場合は最近出力されていない組み合わせから破棄する。
+ * 破棄された組み合わせで未出力の件数は出力しない。
+ * <p>
+ * 組み合わせの検索にはスレッド毎に再利用するキーを使用し、ログ出力毎にキーを生成しない。
+ * キーを生成するのは、新たな組み合わせを保持する場合のみとする。
+ */
+final class RateLimiter {
+
+    /** 組み合わせを検索するためのスレッド毎のキー */
+    private static final ThreadLocal<Key> PROBES = ThreadLocal.withInitial(Key::new);
+
+    /** 組み合わせ毎のトークンバケット */
+    private final BoundedCache<Key, Bucket> buckets;
+
+    /** 1秒あたりの上限のデフォルト */
+    private final int defaultEventsPerSecond;
+
+    /** ロガー名毎の1秒あたりの上限 */
+    private final LoggerNameMatcher<Integer> eventsPerSecond;
+
+    /** 破棄した件数を出力する間隔(ミリ秒) */
+    private final long summaryIntervalMillis;
+
+    /** 前回破棄した件数を出力した時刻({@link System#nanoTime()}) */
+    private long lastSummaryNanos = System.nanoTime();
+
+    /**
+     * 出力頻度の制限を生成する。
+     * @param maxKeys 保持する組み合わせ数の上限
+     * @param defaultEventsPerSecond 1秒あたりの上限のデフォルト
+     * @param eventsPerSecond ロガー名毎の1秒あたりの上限
+     * @param summaryIntervalMillis 破棄した件数を出力する間隔(ミリ秒)
+     */
+    RateLimiter(final int maxKeys, final int defaultEventsPerSecond, final Map<String, Integer> eventsPerSecond,
+            final long summaryIntervalMillis) {
+        this.buckets = new BoundedCache<Key, Bucket>(maxKeys);
+        this.defaultEventsPerSecond = defaultEventsPerSecond;
+        this.eventsPerSecond = new LoggerNameMatcher<Integer>(eventsPerSecond);
+        this.summaryIntervalMillis = summaryIntervalMillis;
+    }
+
+    /**
+     * ロガーに適用する1秒あたりの上限を取得する。
+     * @param loggerName ロガー名
+     * @return 1秒あたりの上限
+     */
+    int eventsPerSecondFor(final String loggerName) {
+        return eventsPerSecond.match(loggerName, defaultEventsPerSecond);
+    }
+
+    /**
+     * 破棄した件数を出力する間隔を取得する。
+     * @return 間隔(ミリ秒)
+     */
+    long getSummaryIntervalMillis() {
+        return summaryIntervalMillis;
+    }
+
+    /**
+     * ログを出力してよいか判定する。
+     * <p>
+     * 上限を超えている場合は破棄した件数に加算し、{@code false}を返す。
+     *
+     * @param target 出力先ロガー
+     * @param level ログレベル
+     * @param message 書式化前のメッセージ
+     * @param eventsPerSecond 1秒あたりの上限
+     * @return 出力してよい場合は{@code true}
+     */
+    boolean tryAcquire(final JbossLogger target, final Level level, final String message, final int eventsPerSecond) {
+        return tryAcquire(target, level, message, eventsPerSecond, System.nanoTime());
+    }
+
+    /**
+     * ログを出力してよいか判定する。
+     * @param target 出力先ロガー
+     * @param level ログレベル
+     * @param message 書式化前のメッセージ
+     * @param eventsPerSecond 1秒あたりの上限
+     * @param now 現在時刻({@link System#nanoTime()})
+     * @return 出力してよい場合は{@code true}
+     */
+    boolean tryAcquire(final JbossLogger target, final Level level, final String message, final int eventsPerSecond,
+            final long now) {
+        final String name = target.getName();
+        final Key probe = PROBES.get();
+        probe.set(name, level, message);
+        Bucket bucket = buckets.getIfPresent(probe);
+        probe.set(null, null, null);
+        if (bucket == null) {
+            bucket = buckets.get(new Key(name, level, message),
+                    k -> new Bucket(target, level, message, eventsPerSecond, now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    /**
+     * 前回の呼び出し以降に破棄したログの件数を、組み合わせ毎に1行のログとして出力する。
+     * <p>
+     * 件数は破棄したログと同じロガー、同じログレベルで出力する。
+     */
+    void emitSummaries() {
+        emitSummaries(System.nanoTime());
+    }
+
+    /**
+     * 前回の呼び出し以降に破棄したログの件数を、組み合わせ毎に1行のログとして出力する。
+     * @param now 現在時刻({@link System#nanoTime()})
+     */
+    synchronized void emitSummaries(final long now) {
+        final String period = formatPeriod(now - lastSummaryNanos);
+        lastSummaryNanos = now;
+        buckets.forEachValue(bucket -> bucket.emitSummary(period));
+    }
+
+    /**
+     * 集計期間を出力用の文字列に変換する。
+     * @param elapsedNanos 経過時間(ナノ秒)
+     * @return 1秒未満はミリ秒、1秒以上は小数第1位までの秒
+     */
+    static String formatPeriod(final long elapsedNanos) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(Math.max(0L, elapsedNanos));
+        if (millis < 1000L) {
+            return millis + " milliseconds";
+        }
+        final long tenths = millis / 100L;
+        return tenths / 10L + "." + tenths % 10L + " seconds";
+    }
+
+    /**
+     * 保持している組み合わせ数を取得する。
+     * @return 組み合わせ数
+     */
+    int size() {
+        return buckets.size();
+    }
+
+    /**
+     * トークンバケットのキー。
+     * <p>
+     * 値を変更するのは検索用のキーのみとし、キャッシュに格納したキーは変更しない。
+     */
+    private static final class Key {
+
+        /** ロガー名 */
+        private String name;
+
+        /** ログレベル */
+        private Level level;
+
+        /** 書式化前のメッセージ */
+        private String message;
+
+        /** ハッシュ値 */
+        private int hash;
+
+        /**
+         * 検索用のキーを生成する。
+         */
+        private Key() {
+        }
+
+        /**
+         * キーを生成する。
+         * @param name ロガー名
+         * @param level ログレベル
+         * @param message 書式化前のメッセージ
+         */
+        private Key(final String name, final Level level, final String message) {
+            set(name, level, message);
+        }
+
+        /**
+         * 値を設定する。
+         * @param name ロガー名
+         * @param level ログレベル
+         * @param message 書式化前のメッセージ
+         */
+        private void set(final String name, final Level level, final String message) {
+            this.name = name;
+            this.level = level;
+            this.message = message;
+            this.hash = name == null ? 0
+                    : (name.hashCode() * 31 + level.hashCode()) * 31 + (message == null ? 0 : message.hashCode());
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hash == other.hash && level == other.level && name.equals(other.name)
+                    && (message == null ? other.message == null : message.equals(other.message));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 組み合わせ毎のトークンバケット。
+     */
+    private static final class Bucket {
+
+        /** 出力先ロガー */
+        private final JbossLogger target;
+
+        /** ログレベル */
+        private final Level level;
+
+        /** 書式化前のメッセージ */
+        private final String message;
+
+        /** トークン1つあたりの補充時間(ナノ秒) */
+        private final long intervalNanos;
+
+        /** 先行して消費できる時間(ナノ秒) */
+        private final long toleranceNanos;
+
+        /** 理論上の次回到着時刻 */
+        private final AtomicLong theoreticalArrival;
+
+        /** 前回の出力以降に破棄した件数 */
+        private final AtomicLong suppressed = new AtomicLong();
+
+        /**
+         * トークンバケットを生成する。
+         * @param target 出力先ロガー
+         * @param level ログレベル
+         * @param message 書式化前のメッセージ
+         * @param eventsPerSecond 1秒あたりの上限
+         * @param now 現在時刻({@link System#nanoTime()})
+         */
+        private Bucket(final JbossLogger target, final Level level, final String message, final int eventsPerSecond,
+                final long now) {
+            this.target = target;
+            this.level = level;
+            this.message = message;
+            this.intervalNanos = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / eventsPerSecond);
+            this.toleranceNanos = intervalNanos * (eventsPerSecond - 1);
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        /**
+         * トークンを消費する。
+         * @param now 現在時刻({@link System#nanoTime()})
+         * @return 消費できた場合は{@code true}
+         */
+        private boolean tryAcquire(final long now) {
+            while (true) {
+                final long arrival = theoreticalArrival.get();
+                final long base = arrival - now > 0 ? arrival : now;
+                if (base - now > toleranceNanos) {
+                    suppressed.incrementAndGet();
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, base + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 破棄した件数を出力する。
+         * @param period 集計期間
+         */
+        private void emitSummary(final String period) {
+            if (suppressed.get() == 0) {
+                return;
+            }
+            final long count = suppressed.getAndSet(0);
+            if (count > 0) {
+                target.deliver(level, "suppressed " + count + " occurrences of [" + message + "] in the last " + period,
+                        null, null, null, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 同一のスタックトレースの繰り返し出力を抑止するクラス。
+ * <p>
+ * 例外とその原因のクラス名およびスタックトレースから64ビットのフィンガープリントを算出し、
+ * 最近出力したフィンガープリントを上限付きで保持する。<br>
+ * 初回と一定間隔の経過後はスタックトレースを出力し、それ以外はメッセージと参照IDのみを出力する。
+ * 参照IDはフィンガープリントの16進表記で、スタックトレースを出力したログにも付与する。
+ * <p>
+ * フィンガープリントの算出はスタックトレースの複製を伴うため、例外のインスタンス毎に算出結果をキャッシュする。
+ * 同じ例外を再スローして繰り返し出力する場合は、2回目以降の算出を省略する。
+ * キャッシュは例外の同一性ハッシュで位置を決める固定長の表とし、例外は弱参照で保持する。
+ */
+final class StackTraceCollapser {
+
+    /** フィンガープリントの算出対象とする原因の数の上限 */
+    private static final int MAX_CAUSE_DEPTH = 32;
+
+    /** 例外毎のフィンガープリントをキャッシュする数(2のべき乗) */
+    private static final int FINGERPRINT_CACHE_SIZE = 256;
+
+    /** 例外毎のフィンガープリント */
+    private final AtomicReferenceArray<CachedFingerprint> fingerprints =
+            new AtomicReferenceArray<CachedFingerprint>(FINGERPRINT_CACHE_SIZE);
+
+    /** フィンガープリント毎のスタックトレースを最後に出力した時刻 */
+    private final BoundedCache<Long, AtomicLong> lastPrinted;
+
+    /** スタックトレースを再出力する間隔(ナノ秒) */
+    private final long intervalNanos;
+
+    /**
+     * 抑止処理を生成する。
+     * @param maxSize 保持するフィンガープリント数の上限
+     * @param intervalMillis スタックトレースを再出力する間隔(ミリ秒)
+     */
+    StackTraceCollapser(final int maxSize, final long intervalMillis) {
+        this.lastPrinted = new BoundedCache<Long, AtomicLong>(maxSize);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * 例外のフィンガープリントを取得する。
+     * <p>
+     * 同じインスタンスのフィンガープリントを算出済みの場合は、算出した値を返す。
+     *
+     * @param error 例外
+     * @return フィンガープリント
+     */
+    long fingerprintOf(final Throwable error) {
+        final int index = System.identityHashCode(error) & (FINGERPRINT_CACHE_SIZE - 1);
+        final CachedFingerprint cached = fingerprints.get(index);
+        if (cached != null && cached.get() == error) {
+            return cached.fingerprint;
+        }
+        final long fingerprint = fingerprint(error);
+        fingerprints.set(index, new CachedFingerprint(error, fingerprint));
+        return fingerprint;
+    }
+
+    /**
+     * 例外のフィンガープリントを算出する。
+     * <p>
+     * 例外と原因のクラス名、スタックトレースの各要素を対象とし、例外のメッセージは対象としない。
+     *
+     * @param error 例外
+     * @return フィンガープリント
+     */
+    static long fingerprint(final Throwable error) {
+        long hash = 1125899906842597L;
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            hash = 31 * hash + current.getClass().getName().hashCode();
+            for (StackTraceElement element : current.getStackTrace()) {
+                hash = 31 * hash + element.hashCode();
+            }
+            final Throwable cause = current.getCause();
+            current = cause == current ? null : cause;
+        }
+        // 下位ビットの偏りをなくすため、MurmurHash3の最終化処理で攪拌する
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * スタックトレースを出力するか判定する。
+     * @param fingerprint フィンガープリント
+     * @return 出力する場合は{@code true}
+     */
+    boolean shouldPrint(final long fingerprint) {
+        return shouldPrint(fingerprint, System.nanoTime());
+    }
+
+    /**
+     * スタックトレースを出力するか判定する。
+     * <p>
+     * 初めて出現したフィンガープリントか、前回の出力から間隔が経過している場合に出力する。
+     * 複数のスレッドで同時に判定した場合は、1つのスレッドのみ出力する。
+     *
+     * @param fingerprint フィンガープリント
+     * @param now 現在時刻({@link System#nanoTime()})
+     * @return 出力する場合は{@code true}
+     */
+    boolean shouldPrint(final long fingerprint, final long now) {
+        final AtomicLong last = lastPrinted.get(fingerprint, key -> new AtomicLong(now - intervalNanos));
+        final long printed = last.get();
+        return now - printed >= intervalNanos && last.compareAndSet(printed, now);
+    }
+
+    /**
+     * スタックトレースを出力するログのメッセージに参照IDを付与する。
+     * @param message メッセージ
+     * @param fingerprint フィンガープリント
+     * @return 参照IDを付与したメッセージ
+     */
+    static String withReference(final String message, final long fingerprint) {
+        return message + " [stackTraceId=" + referenceId(fingerprint) + ']';
+    }
+
+    /**
+     * スタックトレースを省略するログのメッセージに、例外の概要と参照IDを付与する。
+     * <p>
+     * 埋め込む値がある場合、メッセージは{@link java.text.MessageFormat}で書式化されるため、
+     * 例外の概要はクォートで囲んで付与する。
+     *
+     * @param message メッセージ
+     * @param error 例外
+     * @param fingerprint フィンガープリント
+     * @param formatted メッセージが書式化されるか否か
+     * @return 例外の概要と参照IDを付与したメッセージ
+     */
+    static String withOmittedReference(final String message, final Throwable error, final long fingerprint,
+            final boolean formatted) {
+        final String summary = String.valueOf(error);
+        return message + " [stack trace omitted: "
+                + (formatted ? '\'' + summary.replace("'", "''") + '\'' : summary)
+                + ", stackTraceId=" + referenceId(fingerprint) + ']';
+    }
+
+    /**
+     * 参照IDを取得する。
+     * @param fingerprint フィンガープリント
+     * @return 参照ID
+     */
+    private static String referenceId(final long fingerprint) {
+        final String hex = Long.toHexString(fingerprint);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * 算出したフィンガープリント。
+     * <p>
+     * 例外の解放を妨げないよう、例外は弱参照で保持する。
+     */
+    private static final class CachedFingerprint extends WeakReference<Throwable> {
+
+        /** フィンガープリント */
+        private final long fingerprint;
+
+        /**
+         * 算出したフィンガープリントを生成する。
+         * @param error 例外
+         * @param fingerprint フィンガープリント
+         */
+        CachedFingerprint(final Throwable error, final long fingerprint) {
+            super(error);
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+
+/**
+ * キーと値の組で構成する構造化ログ。
+ * <p>
+ * {@link JbossLogger#atInfo()}などで取得し、項目を追加した後に{@link #log(String)}で出力する。
+ * <pre>
+ * ((JbossLogger) LoggerManager.get(Order.class)).atInfo()
+ *         .add("orderId", orderId)
+ *         .add("amount", amount)
+ *         .log("order accepted.");
+ * </pre>
+ * 項目は追加した時点でJSONに書き込み、出力時には
+ * {@code {"level":..,"logger":..,<追加した項目>,"message":..,"error":..}}形式の文字列を委譲先ロガーに渡す。
+ * 書き込み先のバッファはスレッド毎に再利用し、数値と真偽値はボクシングせずに書き込むため、
+ * 出力1件あたりに生成するオブジェクトは委譲先ロガーに渡す文字列のみとなる。
+ * エラー情報はJSONに含め、委譲先ロガーには渡さない。
+ * <p>
+ * ログレベルが無効な場合は、何も書き込まない共有のインスタンスを返す。
+ * 取得したインスタンスは、取得したスレッドで{@link #log(String)}または{@link #log()}を呼び出すまで使用すること。
+ * 出力せずに放棄したインスタンスは、同じスレッドで次に構造化ログを開始した時点で破棄して再利用する。
+ * このため、項目の値を引数として評価する間に同じスレッドで構造化ログを出力する場合は、
+ * 先に値を評価してから構造化ログを開始すること。({@link #add(String, Object)}が{@link Object#toString()}を
+ * 呼び出す間と、エラー情報を書き込む間に出力した構造化ログは、別のインスタンスを使用する)
+ */
+public final class StructuredEvent {
+
+    /** バッファの初期容量 */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** 出力後も保持するバッファの容量の上限 */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    /** ログレベルが無効な場合に返すインスタンス */
+    static final StructuredEvent DISABLED = new StructuredEvent();
+
+    /** スレッド毎に再利用するインスタンス */
+    private static final ThreadLocal<StructuredEvent> CURRENT = ThreadLocal.withInitial(StructuredEvent::new);
+
+    /** JSONの書き込み先 */
+    private final JsonEncoder encoder = new JsonEncoder(INITIAL_CAPACITY, MAX_RETAINED_CAPACITY);
+
+    /** 出力先ロガー(使用中でない場合は{@code null}) */
+    private JbossLogger owner;
+
+    /** ログレベル */
+    private Level level;
+
+    /** エラー情報 */
+    private Throwable error;
+
+    /** 項目の値を書き込み中か否か(書き込み中に開始した構造化ログは別のインスタンスを使用する) */
+    private boolean writing;
+
+    /**
+     * 構造化ログを生成する。
+     */
+    private StructuredEvent() {
+    }
+
+    /**
+     * 構造化ログの書き込みを開始する。
+     * <p>
+     * スレッドのインスタンスが項目の値を書き込み中の場合({@link Object#toString()}の中でログを出力した場合など)は、新たに生成する。
+     * 出力されずに放棄されたインスタンスは、書き込み途中の内容を破棄して再利用する。
+     *
+     * @param owner 出力先ロガー
+     * @param level ログレベル
+     * @return 構造化ログ
+     */
+    static StructuredEvent start(final JbossLogger owner, final Level level) {
+        StructuredEvent event = CURRENT.get();
+        if (event.writing) {
+            event = new StructuredEvent();
+        }
+        event.owner = owner;
+        event.level = level;
+        event.error = null;
+        event.encoder.reset()
+                .beginObject()
+                .field("level", level.name())
+                .field("logger", owner.getName());
+        return event;
+    }
+
+    /**
+     * 文字列の項目を追加する。
+     * @param key キー
+     * @param value 値
+     * @return この構造化ログ
+     */
+    public StructuredEvent add(final String key, final String value) {
+        if (owner != null) {
+            encoder.field(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 整数の項目を追加する。
+     * @param key キー
+     * @param value 値
+     * @return この構造化ログ
+     */
+    public StructuredEvent add(final String key, final long value) {
+        if (owner != null) {
+            encoder.field(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 浮動小数点数の項目を追加する。
+     * @param key キー
+     * @param value 値
+     * @return この構造化ログ
+     */
+    public StructuredEvent add(final String key, final double value) {
+        if (owner != null) {
+            encoder.field(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 真偽値の項目を追加する。
+     * @param key キー
+     * @param value 値
+     * @return この構造化ログ
+     */
+    public StructuredEvent add(final String key, final boolean value) {
+        if (owner != null) {
+            encoder.field(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * 任意の値の項目を追加する。
+     * <p>
+     * 数値と真偽値以外は{@link Object#toString()}の結果を文字列として追加する。
+     *
+     * @param key キー
+     * @param value 値
+     * @return この構造化ログ
+     */
+    public StructuredEvent add(final String key, final Object value) {
+        if (owner != null) {
+            writing = true;
+            try {
+                encoder.field(key, value);
+            } finally {
+                writing = false;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * エラー情報を設定する。
+     * @param error エラー情報
+     * @return この構造化ログ
+     */
+    public StructuredEvent error(final Throwable error) {
+        if (owner != null) {
+            this.error = error;
+        }
+        return this;
+    }
+
+    /**
+     * ログレベルが有効か否か。
+     * @return 有効な場合は{@code true}
+     */
+    public boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    /**
+     * メッセージを付けずに出力する。
+     */
+    public void log() {
+        log(null);
+    }
+
+    /**
+     * メッセージを付けて出力する。
+     * @param message メッセージ({@code null}の場合はメッセージの項目を書き込まない)
+     */
+    public void log(final String message) {
+        final JbossLogger target = owner;
+        if (target == null) {
+            return;
+        }
+        final String payload;
+        writing = true;
+        try {
+            if (message != null) {
+                encoder.field("message", message);
+            }
+            if (error != null) {
+                encoder.field("error", error);
+            }
+            payload = encoder.endObject().toString();
+        } finally {
+            writing = false;
+            owner = null;
+            error = null;
+        }
+        target.logStructured(level, payload);
+    }
+}
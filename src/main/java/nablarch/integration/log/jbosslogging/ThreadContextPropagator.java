@@ -0,0 +1,210 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nablarch.core.ThreadContext;
+
+/**
+ * Nablarchの{@link ThreadContext}の値を、jboss-loggingのMDCに反映するクラス。
+ * <p>
+ * ログの出力を要求したスレッドで{@link #capture()}を呼び出して値のスナップショットを取得し、
+ * 非同期出力のスレッドでは{@link #install(Snapshot)}を、ログの出力を要求したスレッドで出力する場合は
+ * {@link #installTemporarily(Snapshot)}と{@link #restore(Object[])}を呼び出してMDCに反映する。
+ * <p>
+ * スナップショットは不変とし、値を文字列に変換して保持する。スレッド毎に直前に取得したものを保持する。
+ * {@link ThreadContext}の値が前回から変わっていない(同一のインスタンスである)場合は、保持しているスナップショットをそのまま返す。
+ * MDCへの反映時も、MDCの値が異なるキーのみ書き換える。反映先は委譲先ロガーと同じプロバイダのMDCとする。
+ * このため、リクエストの処理中など値が変わらない間は、スナップショットの生成とMDCの書き換えを行わない。
+ * <p>
+ * 非同期出力のスレッドはアダプタのみがログを出力するため、反映した値はログ出力後もMDCに残し、次に反映する際に変わった値のみ書き換える。
+ * {@link ThreadContext}から値が削除された場合は、次のログ出力時にMDCからも削除する。<br>
+ * ログの出力を要求したスレッドのMDCはアプリケーションも使用するため、反映した値はログ出力後に反映前の値に戻す。
+ */
+final class ThreadContextPropagator {
+
+    /** 反映前の値から書き換えていないことを表す値 */
+    private static final Object UNCHANGED = new Object();
+
+    /** 反映する{@link ThreadContext}のキー */
+    private final String[] keys;
+
+    /** 反映先のMDCのキー */
+    private final String[] mdcKeys;
+
+    /** 反映先のMDC */
+    private final MdcAccessor mdc;
+
+    /** 全ての値が存在しないスナップショット */
+    private final Snapshot empty;
+
+    /** スレッド毎に直前に取得したスナップショット */
+    private final ThreadLocal<Snapshot> captured;
+
+    /**
+     * 反映するクラスを生成する。
+     * @param keys 反映する{@link ThreadContext}のキー
+     * @param mdcKeys 反映先のMDCのキー({@code keys}と同じ順序)
+     * @param mdc 反映先のMDC
+     */
+    ThreadContextPropagator(final List<String> keys, final List<String> mdcKeys, final MdcAccessor mdc) {
+        this.keys = keys.toArray(new String[0]);
+        this.mdcKeys = mdcKeys.toArray(new String[0]);
+        this.mdc = mdc;
+        this.empty = new Snapshot(new Object[this.keys.length], new String[this.keys.length]);
+        this.captured = ThreadLocal.withInitial(() -> empty);
+    }
+
+    /**
+     * {@link ThreadContext}のキーに対応するMDCのキーのデフォルトを取得する。
+     * <p>
+     * アンダースコア区切りの大文字のキーを、先頭を小文字としたキャメルケースに変換する。
+     * (例えば{@link ThreadContext#REQUEST_ID_KEY}は{@code requestId}とする)
+     *
+     * @param key {@link ThreadContext}のキー
+     * @return MDCのキー
+     */
+    static String defaultMdcKey(final String key) {
+        final StringBuilder mdcKey = new StringBuilder(key.length());
+        boolean upper = false;
+        for (int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            if (c == '_') {
+                upper = mdcKey.length() != 0;
+            } else {
+                mdcKey.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return mdcKey.toString();
+    }
+
+    /**
+     * 現在のスレッドの{@link ThreadContext}の値のスナップショットを取得する。
+     * @return スナップショット
+     */
+    Snapshot capture() {
+        final Snapshot previous = captured.get();
+        Object[] sources = null;
+        for (int i = 0; i < keys.length; i++) {
+            final Object source = ThreadContext.getObject(keys[i]);
+            if (sources == null && source != previous.sources[i]) {
+                sources = new Object[keys.length];
+                System.arraycopy(previous.sources, 0, sources, 0, i);
+            }
+            if (sources != null) {
+                sources[i] = source;
+            }
+        }
+        if (sources == null) {
+            return previous;
+        }
+        final String[] values = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = sources[i] == previous.sources[i] ? previous.values[i]
+                    : sources[i] == null ? null : sources[i].toString();
+        }
+        final Snapshot snapshot = new Snapshot(sources, values);
+        captured.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * スナップショットの値を現在のスレッドのMDCに反映する。
+     * <p>
+     * 値が存在しないキーはMDCから削除する。
+     *
+     * @param snapshot スナップショット
+     */
+    void install(final Snapshot snapshot) {
+        for (int i = 0; i < keys.length; i++) {
+            final String value = snapshot.values[i];
+            if (mdc.get(mdcKeys[i]) == value) {
+                continue;
+            }
+            if (value == null) {
+                mdc.remove(mdcKeys[i]);
+            } else {
+                mdc.put(mdcKeys[i], value);
+            }
+        }
+    }
+
+    /**
+     * スナップショットの値を、ログ出力中のみ現在のスレッドのMDCに反映する。
+     * <p>
+     * MDCの値が異なるキーのみ書き換え、書き換える前の値を返す。
+     * ログ出力後に{@link #restore(Object[])}を呼び出して反映前の値に戻すこと。
+     *
+     * @param snapshot スナップショット
+     * @return 反映前の値。書き換えたキーがない場合は{@code null}
+     */
+    Object[] installTemporarily(final Snapshot snapshot) {
+        Object[] previous = null;
+        for (int i = 0; i < keys.length; i++) {
+            final String value = snapshot.values[i];
+            final Object current = mdc.get(mdcKeys[i]);
+            if (current == value) {
+                continue;
+            }
+            if (previous == null) {
+                previous = new Object[keys.length];
+                Arrays.fill(previous, UNCHANGED);
+            }
+            previous[i] = current;
+            if (value == null) {
+                mdc.remove(mdcKeys[i]);
+            } else {
+                mdc.put(mdcKeys[i], value);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * {@link #installTemporarily(Snapshot)}で書き換えたMDCの値を、反映前の値に戻す。
+     * <p>
+     * 反映前に値が存在しなかったキーはMDCから削除する。
+     *
+     * @param previous 反映前の値({@code null}の場合は何もしない)
+     */
+    void restore(final Object[] previous) {
+        if (previous == null) {
+            return;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (previous[i] == UNCHANGED) {
+                continue;
+            }
+            if (previous[i] == null) {
+                mdc.remove(mdcKeys[i]);
+            } else {
+                mdc.put(mdcKeys[i], previous[i]);
+            }
+        }
+    }
+
+    /**
+     * {@link ThreadContext}の値のスナップショット。
+     * <p>
+     * スレッド間で受け渡すため、生成後は変更しない。
+     */
+    static final class Snapshot {
+
+        /** キー毎の{@link ThreadContext}の値(存在しない場合は{@code null}) */
+        private final Object[] sources;
+
+        /** キー毎のMDCに反映する文字列(存在しない場合は{@code null}) */
+        private final String[] values;
+
+        /**
+         * スナップショットを生成する。
+         * @param sources キー毎の{@link ThreadContext}の値
+         * @param values キー毎のMDCに反映する文字列
+         */
+        private Snapshot(final Object[] sources, final String[] values) {
+            this.sources = sources;
+            this.values = values;
+        }
+    }
+}
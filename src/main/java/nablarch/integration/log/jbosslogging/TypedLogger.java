@@ -0,0 +1,35 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 型付きのロガーを生成するインタフェースであることを表す。
+ * <p>
+ * インタフェースの各メソッドに{@link LogMessage}でログレベルとメッセージを指定すると、
+ * アノテーションプロセッサ({@code nablarch-jboss-logging-adaptor-processor})がコンパイル時に
+ * {@code <インタフェース名>}{@value TypedLoggers#IMPLEMENTATION_SUFFIX}という名前の実装クラスを生成する。
+ * <pre>
+ * &#64;TypedLogger
+ * public interface OrderLog {
+ *     &#64;LogMessage(level = Level.INFO, value = "order accepted. id = [{0}], amount = [{1}]")
+ *     void orderAccepted(String id, long amount);
+ *
+ *     &#64;LogMessage(level = Level.ERROR, value = "payment failed. id = [{0}]")
+ *     void paymentFailed(String id, &#64;Cause Throwable cause);
+ * }
+ *
+ * private static final OrderLog LOG = TypedLoggers.get(OrderLog.class, Order.class.getName());
+ * </pre>
+ * 生成したメソッドはログレベルを判定した後、メッセージと引数を直接連結して{@link JbossLogger#logFormatted}に渡す。
+ * 実行時にメッセージを解析しないため、{@link java.text.MessageFormat}による書式化は行わない。
+ * 引数は{@link String#valueOf}で文字列に変換する。
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface TypedLogger {
+}
@@ -0,0 +1,76 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.reflect.InvocationTargetException;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * {@link TypedLogger}を付与したインタフェースから生成した実装クラスのインスタンスを取得するクラス。
+ */
+public final class TypedLoggers {
+
+    /** 生成する実装クラス名の接尾辞 */
+    public static final String IMPLEMENTATION_SUFFIX = "_JbossLogger";
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private TypedLoggers() {
+    }
+
+    /**
+     * 指定したロガー名の型付きのロガーを取得する。
+     * <p>
+     * ロガーは{@link LoggerManager}から取得する。
+     * {@link JbossLoggingLoggerFactory}が生成したロガーでない場合は例外を送出する。
+     *
+     * @param type {@link TypedLogger}を付与したインタフェース
+     * @param loggerName ロガー名
+     * @param <T> インタフェースの型
+     * @return 型付きのロガー
+     */
+    public static <T> T get(final Class<T> type, final String loggerName) {
+        final Logger logger = LoggerManager.get(loggerName);
+        if (!(logger instanceof JbossLogger)) {
+            throw new IllegalStateException("logger is not a JbossLogger. check loggerFactory.className."
+                    + " logger name = [" + loggerName + "], logger class = [" + logger.getClass().getName() + ']');
+        }
+        return create(type, (JbossLogger) logger);
+    }
+
+    /**
+     * 指定したロガーに出力する型付きのロガーを生成する。
+     * @param type {@link TypedLogger}を付与したインタフェース
+     * @param logger 出力先のロガー
+     * @param <T> インタフェースの型
+     * @return 型付きのロガー
+     */
+    public static <T> T create(final Class<T> type, final JbossLogger logger) {
+        final String implementationName = implementationName(type);
+        try {
+            final Class<?> implementation = Class.forName(implementationName, true, type.getClassLoader());
+            return type.cast(implementation.getConstructor(JbossLogger.class).newInstance(logger));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("typed logger implementation not found."
+                    + " check that the annotation processor is enabled. type = [" + type.getName() + ']', e);
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("failed to create typed logger. type = [" + type.getName() + ']', e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("failed to create typed logger. type = [" + type.getName() + ']',
+                    e.getCause());
+        }
+    }
+
+    /**
+     * 実装クラス名を取得する。
+     * <p>
+     * ネストしたインタフェースの場合は、外側のクラス名とアンダースコアで連結した名前とする。
+     *
+     * @param type インタフェース
+     * @return 実装クラス名
+     */
+    static String implementationName(final Class<?> type) {
+        return type.getName().replace('$', '_') + IMPLEMENTATION_SUFFIX;
+    }
+}
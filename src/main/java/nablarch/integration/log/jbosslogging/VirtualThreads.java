@@ -0,0 +1,58 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 仮想スレッドを判定するクラス。
+ * <p>
+ * 仮想スレッドをサポートしないJava(21未満)でも動作するよう、{@code Thread#isVirtual()}はリフレクションで呼び出す。
+ */
+final class VirtualThreads {
+
+    /** {@code Thread#isVirtual()}のハンドル(サポートしない場合は{@code null}) */
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * 仮想スレッドをサポートしているか否か。
+     * @return サポートしている場合は{@code true}
+     */
+    static boolean isSupported() {
+        return IS_VIRTUAL != null;
+    }
+
+    /**
+     * 仮想スレッドか否かを判定する。
+     * @param thread スレッド
+     * @return 仮想スレッドの場合は{@code true}。仮想スレッドをサポートしない場合は常に{@code false}
+     */
+    static boolean isVirtual(final Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(thread);
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to call Thread#isVirtual.", e);
+        }
+    }
+
+    /**
+     * {@code Thread#isVirtual()}のハンドルを取得する。
+     * @return ハンドル。存在しない場合は{@code null}
+     */
+    private static MethodHandle findIsVirtual() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link AsyncLogDispatcher}のテスト。
+ */
+public class AsyncLogDispatcherTest {
+
+    @Test
+    public void dispatch_preservesOrderWithSingleConsumer() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        final JbossLogger logger = new JbossLogger(delegate);
+        final AsyncLogDispatcher sut = new AsyncLogDispatcher(16, 1, AsyncLogDispatcher.OverflowPolicy.BLOCK, Level.WARN);
+
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            sut.dispatch(logger, Level.INFO, "message{0}", null, new Object[] {i}, null, null);
+            expected.add("INFO message" + i);
+        }
+        assertThat(sut.shutdown(5000), is(0L));
+        assertThat(delegate.records, is(expected));
+    }
+
+    @Test
+    public void dispatch_multipleProducersAndConsumers() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        final JbossLogger logger = new JbossLogger(delegate);
+        final AsyncLogDispatcher sut = new AsyncLogDispatcher(64, 3, AsyncLogDispatcher.OverflowPolicy.BLOCK, Level.WARN);
+
+        final Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < 5000; j++) {
+                    sut.dispatch(logger, Level.INFO, "message", null, new Object[0], null, null);
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertThat(sut.shutdown(10000), is(0L));
+        assertThat(delegate.records.size(), is(20000));
+    }
+
+    @Test
+    public void dispatch_dropBelowLevel() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        delegate.gate = new CountDownLatch(1);
+        final JbossLogger logger = new JbossLogger(delegate);
+        final AsyncLogDispatcher sut = new AsyncLogDispatcher(2, 1,
+                AsyncLogDispatcher.OverflowPolicy.DROP_BELOW_LEVEL, Level.WARN);
+
+        // 消費スレッドが1件目で待機している間にバッファを満杯にする
+        sut.dispatch(logger, Level.INFO, "first", null, new Object[0], null, null);
+        awaitEmpty(sut);
+        sut.dispatch(logger, Level.INFO, "second", null, new Object[0], null, null);
+        sut.dispatch(logger, Level.INFO, "third", null, new Object[0], null, null);
+        sut.dispatch(logger, Level.DEBUG, "dropped", null, new Object[0], null, null);
+        sut.dispatch(logger, Level.INFO, "dropped", null, new Object[0], null, null);
+        assertThat(sut.getDroppedCount(), is(2L));
+
+        final Thread error = new Thread(() -> sut.dispatch(logger, Level.ERROR, "blocked", null, new Object[0], null, null));
+        error.start();
+        error.join(200);
+        assertThat("ERROR is not dropped but waits", error.isAlive(), is(true));
+
+        delegate.gate.countDown();
+        error.join(5000);
+        sut.shutdown(5000);
+        assertThat(delegate.records.toString(), delegate.records.size(), is(4));
+        assertThat(delegate.records.get(3), is("ERROR blocked"));
+    }
+
+    @Test
+    public void dispatch_discardOldest() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        delegate.gate = new CountDownLatch(1);
+        final JbossLogger logger = new JbossLogger(delegate);
+        final AsyncLogDispatcher sut = new AsyncLogDispatcher(2, 1,
+                AsyncLogDispatcher.OverflowPolicy.DISCARD_OLDEST, Level.WARN);
+
+        sut.dispatch(logger, Level.INFO, "first", null, new Object[0], null, null);
+        awaitEmpty(sut);
+        for (int i = 0; i < 5; i++) {
+            sut.dispatch(logger, Level.INFO, "message{0}", null, new Object[] {i}, null, null);
+        }
+        assertThat(sut.getDroppedCount(), is(3L));
+
+        delegate.gate.countDown();
+        sut.shutdown(5000);
+        assertThat(delegate.records.toString(), delegate.records.size(), is(3));
+        assertThat(delegate.records.get(1), is("INFO message3"));
+        assertThat(delegate.records.get(2), is("INFO message4"));
+    }
+
+    @Test
+    public void shutdown_timeout() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        delegate.gate = new CountDownLatch(1);
+        final JbossLogger logger = new JbossLogger(delegate);
+        final AsyncLogDispatcher sut = new AsyncLogDispatcher(4, 1, AsyncLogDispatcher.OverflowPolicy.BLOCK, Level.WARN);
+
+        sut.dispatch(logger, Level.INFO, "first", null, new Object[0], null, null);
+        awaitEmpty(sut);
+        sut.dispatch(logger, Level.INFO, "second", null, new Object[0], null, null);
+        sut.dispatch(logger, Level.INFO, "third", null, new Object[0], null, null);
+
+        assertThat(sut.shutdown(100), is(2L));
+        delegate.gate.countDown();
+
+        // 停止後は呼び出し元スレッドで出力する
+        sut.dispatch(logger, Level.INFO, "after shutdown", null, new Object[0], null, null);
+        assertThat(delegate.records.contains("INFO after shutdown"), is(true));
+    }
+
+    @Test
+    public void consume_parksUntilDispatched() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        final JbossLogger logger = new JbossLogger(delegate);
+        final AsyncLogDispatcher sut = new AsyncLogDispatcher(16, 1, AsyncLogDispatcher.OverflowPolicy.BLOCK,
+                Level.WARN, "parkTest");
+        final Thread consumer = findThread("parkTest-1");
+
+        // 空の間は時間指定なしで一時停止し、定期的に起床しない
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (consumer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(consumer.getState(), is(Thread.State.WAITING));
+
+        sut.dispatch(logger, Level.INFO, "wake up", null, new Object[0], null, null);
+        awaitEmpty(sut);
+        assertThat(sut.size(), is(0));
+        assertThat(sut.shutdown(5000), is(0L));
+        assertThat(delegate.records.get(0), is("INFO wake up"));
+    }
+
+    @Test
+    public void shutdown_concurrentProducersAreNotLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final RecordingLogger delegate = new RecordingLogger("test");
+            final JbossLogger logger = new JbossLogger(delegate);
+            final AsyncLogDispatcher sut = new AsyncLogDispatcher(64, 1, AsyncLogDispatcher.OverflowPolicy.BLOCK,
+                    Level.WARN);
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final Thread[] producers = new Thread[4];
+            for (int i = 0; i < producers.length; i++) {
+                producers[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 200; j++) {
+                        sut.dispatch(logger, Level.INFO, "message", null, new Object[0], null, null);
+                    }
+                });
+                producers[i].start();
+            }
+            start.countDown();
+            final long discarded = sut.shutdown(10000);
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            // 停止処理と並行して格納したログも、出力するか破棄した件数に数える
+            assertThat(sut.size(), is(0));
+            assertThat(delegate.records.size() + discarded, is(800L));
+        }
+    }
+
+    private static Thread findThread(final String name) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name)) {
+                return thread;
+            }
+        }
+        throw new AssertionError("thread not found. name = [" + name + "]");
+    }
+
+    private static void awaitEmpty(final AsyncLogDispatcher dispatcher) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.size() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
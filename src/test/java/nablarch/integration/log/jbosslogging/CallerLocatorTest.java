@@ -0,0 +1,37 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link CallerLocator}のテスト。
+ */
+public class CallerLocatorTest {
+
+    @Test
+    public void levelMaskFor() throws Exception {
+        final CallerLocator sut = new CallerLocator(Arrays.asList("com.example", "org.sample.Foo"),
+                Arrays.asList(Level.ERROR, Level.WARN), "caller");
+
+        final int expected = (1 << Level.ERROR.ordinal()) | (1 << Level.WARN.ordinal());
+        assertThat(sut.levelMaskFor("com.example"), is(expected));
+        assertThat(sut.levelMaskFor("com.example.Bar"), is(expected));
+        assertThat(sut.levelMaskFor("org.sample.Foo"), is(expected));
+        assertThat(sut.levelMaskFor("org.sample.FooBar"), is(0));
+        assertThat(sut.levelMaskFor("com"), is(0));
+        assertThat(sut.getMdcKey(), is("caller"));
+    }
+
+    @Test
+    public void locate_outsideOfJbossLogger() throws Exception {
+        new CallerLocator(Collections.<String>emptyList(), Collections.<Level>emptyList(), "caller");
+        assertThat(CallerLocator.locate(), is(nullValue()));
+    }
+}
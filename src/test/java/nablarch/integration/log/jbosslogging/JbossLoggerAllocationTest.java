@@ -0,0 +1,176 @@
+package nablarch.integration.log.jbosslogging;
+
+import nablarch.core.log.LogSettings;
+import nablarch.core.log.Logger;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * {@link JbossLogger}がログ出力時にオブジェクトを生成しないことのテスト。
+ * <p>
+ * {@link com.sun.management.ThreadMXBean}でスレッドが確保したバイト数を測定する。
+ * 呼び出し元で生成される可変長引数の配列は測定の対象外とするため、配列は事前に生成しておく。
+ */
+public class JbossLoggerAllocationTest {
+
+    private static final int ITERATIONS = 100000;
+
+    /** 1回あたり1バイト未満であれば、呼び出し毎の確保はないと判断する */
+    private static final long TOLERANCE_BYTES = ITERATIONS - 1;
+
+    private static final Object[] NO_OPTIONS = new Object[0];
+
+    private static final Object[] ONE_OPTION = {"a"};
+
+    private static final Object[] THREE_OPTIONS = {"a", "b", "c"};
+
+    private com.sun.management.ThreadMXBean threadBean;
+
+    private final DiscardingLogger delegate = new DiscardingLogger();
+
+    private final Logger sut = new JbossLogger(delegate);
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void disabledLevel() throws Exception {
+        delegate.threshold = org.jboss.logging.Logger.Level.INFO;
+        final long allocated = measure(() -> {
+            sut.logDebug("debug", NO_OPTIONS);
+            sut.logDebug("debug{0}", ONE_OPTION);
+            sut.logTrace("trace{0}{1}{2}", THREE_OPTIONS);
+        });
+        assertThat("allocated bytes = " + allocated, allocated <= TOLERANCE_BYTES, is(true));
+        assertThat(delegate.count, is(0L));
+    }
+
+    @Test
+    public void noOptions() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("test");
+        final long allocated = measure(() -> {
+            sut.logInfo("info", NO_OPTIONS);
+            sut.logError("error", exception, NO_OPTIONS);
+        });
+        assertThat("allocated bytes = " + allocated, allocated <= TOLERANCE_BYTES, is(true));
+        assertThat(delegate.formattedCount, is(0L));
+    }
+
+    @Test
+    public void smallOptions() throws Exception {
+        final long allocated = measure(() -> {
+            sut.logInfo("info{0}", ONE_OPTION);
+            sut.logInfo("info{0}{1}{2}", THREE_OPTIONS);
+        });
+        assertThat("allocated bytes = " + allocated, allocated <= TOLERANCE_BYTES, is(true));
+    }
+
+    @Test
+    public void rateLimited() throws Exception {
+        final JbossLoggingContext context = new JbossLoggingContext(new JbossLoggingSettings(
+                new LogSettings("classpath:nablarch/integration/log/jbosslogging/rateLimit.properties")));
+        try {
+            // 出力頻度の制限は、保持済みの組み合わせの検索でオブジェクトを生成しない
+            final Logger rateLimited = new JbossLogger(delegate, context);
+            final long allocated = measure(() -> {
+                rateLimited.logInfo("info", NO_OPTIONS);
+                rateLimited.logWarn("warn{0}", ONE_OPTION);
+            });
+            assertThat("allocated bytes = " + allocated, allocated <= TOLERANCE_BYTES, is(true));
+        } finally {
+            context.terminate();
+        }
+    }
+
+    @Test
+    public void structured() throws Exception {
+        final JbossLogger structuredLogger = new JbossLogger(delegate);
+        final String payloadExample = "{\"level\":\"INFO\",\"logger\":\"allocation\",\"user\":\"taro\","
+                + "\"count\":12345,\"ratio\":0.5,\"admin\":true,\"message\":\"structured\"}";
+        final long allocated = measure(() -> structuredLogger.atInfo()
+                .add("user", "taro")
+                .add("count", 12345L)
+                .add("ratio", 0.5)
+                .add("admin", true)
+                .log("structured"));
+        // 1件あたりの確保は、委譲先ロガーに渡す文字列(ヘッダと配列)のみとなる
+        final long perEvent = allocated / ITERATIONS;
+        assertThat("allocated bytes per event = " + perEvent, perEvent <= payloadExample.length() + 64, is(true));
+
+        delegate.threshold = org.jboss.logging.Logger.Level.INFO;
+        final long disabled = measure(() -> structuredLogger.atDebug().add("count", 12345L).log("structured"));
+        assertThat("allocated bytes = " + disabled, disabled <= TOLERANCE_BYTES, is(true));
+    }
+
+    /**
+     * 処理を繰り返し実行したときにスレッドが確保したバイト数を測定する。
+     * <p>
+     * クラスの初期化などによる確保を除くため、事前に同じ回数だけ実行しておく。
+     */
+    private long measure(final Runnable action) {
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        final long calibrationStart = threadBean.getThreadAllocatedBytes(threadId);
+        final long calibrationEnd = threadBean.getThreadAllocatedBytes(threadId);
+        final long start = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        final long end = threadBean.getThreadAllocatedBytes(threadId);
+        return (end - start) - (calibrationEnd - calibrationStart);
+    }
+
+    /**
+     * 出力されたログを破棄する{@link org.jboss.logging.Logger}。
+     */
+    private static final class DiscardingLogger extends org.jboss.logging.Logger {
+
+        /** 出力を許可するレベルの下限 */
+        private Level threshold = Level.TRACE;
+
+        /** 出力件数 */
+        private long count;
+
+        /** 書式化を要求された件数 */
+        private long formattedCount;
+
+        private DiscardingLogger() {
+            super("allocation");
+        }
+
+        @Override
+        public boolean isEnabled(final Level level) {
+            return level.ordinal() <= threshold.ordinal();
+        }
+
+        @Override
+        protected void doLog(final Level level, final String loggerClassName, final Object message,
+                final Object[] parameters, final Throwable thrown) {
+            if (isEnabled(level)) {
+                count++;
+                if (parameters != null) {
+                    formattedCount++;
+                }
+            }
+        }
+
+        @Override
+        protected void doLogf(final Level level, final String loggerClassName, final String format,
+                final Object[] parameters, final Throwable thrown) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
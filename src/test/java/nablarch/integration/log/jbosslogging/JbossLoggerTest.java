@@ -1,17 +1,38 @@
 package nablarch.integration.log.jbosslogging;
 
+import nablarch.core.ThreadContext;
+import nablarch.core.log.LogSettings;
 import nablarch.core.log.Logger;
+import org.jboss.logging.JDKLoggerProvider;
+import org.jboss.logging.MDC;
 import org.junit.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.MockedStatic;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -20,6 +41,7 @@ import static org.mockito.Mockito.when;
  */
 public class JbossLoggerTest {
 
+    private static final String FQCN = JbossLogger.class.getName();
 
     @Test
     public void isFatalEnabled() throws Exception {
@@ -48,7 +70,7 @@ public class JbossLoggerTest {
             final Logger sut = new JbossLoggingLoggerFactory().get("test");
             sut.logFatal("message{0}:{1}", "a", "b");
 
-            verify(mockLogger, atLeastOnce()).fatalv("message{0}:{1}", new Object[] {"a", "b"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.FATAL, (Throwable) null, "message{0}:{1}", new Object[] {"a", "b"});
         }
     }
 
@@ -64,7 +86,7 @@ public class JbossLoggerTest {
             final Logger sut = new JbossLoggingLoggerFactory().get("test");
             sut.logFatal("エラーが発生しました！", exception, "a");
 
-            verify(mockLogger, atLeastOnce()).fatalv(exception, "エラーが発生しました！", new Object[] {"a"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.FATAL, exception, "エラーが発生しました！", new Object[] {"a"});
         }
     }
 
@@ -94,7 +116,7 @@ public class JbossLoggerTest {
 
             sut.logError("エラーメッセージ:{0}-{1}", "1", 100);
 
-            verify(mockLogger, atLeastOnce()).errorv("エラーメッセージ:{0}-{1}", new Object[] {"1", 100});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.ERROR, (Throwable) null, "エラーメッセージ:{0}-{1}", new Object[] {"1", 100});
         }
     }
 
@@ -112,7 +134,7 @@ public class JbossLoggerTest {
 
             sut.logError("エラーよ:{0}-{1}", exception, BigDecimal.ONE, BigDecimal.ZERO);
 
-            verify(mockLogger, atLeastOnce()).errorv(exception, "エラーよ:{0}-{1}",
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.ERROR, exception, "エラーよ:{0}-{1}",
                     new Object[] {BigDecimal.ONE, BigDecimal.ZERO});
         }
     }
@@ -145,7 +167,7 @@ public class JbossLoggerTest {
 
             sut.logWarn("ワーニング-{0}, {1}, {2}", "a", 1, 100L);
 
-            verify(mockLogger, atLeastOnce()).warnv("ワーニング-{0}, {1}, {2}", new Object[] {"a", 1, 100L});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.WARN, (Throwable) null, "ワーニング-{0}, {1}, {2}", new Object[] {"a", 1, 100L});
         }
     }
 
@@ -163,7 +185,7 @@ public class JbossLoggerTest {
 
             sut.logWarn("ワーニング-{0}, {1}", exception, "a", 1);
 
-            verify(mockLogger, atLeastOnce()).warnv(exception, "ワーニング-{0}, {1}", new Object[] {"a", 1});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.WARN, exception, "ワーニング-{0}, {1}", new Object[] {"a", 1});
         }
     }
 
@@ -195,7 +217,7 @@ public class JbossLoggerTest {
 
             sut.logInfo("インフォメーション{0}, {1}", "hoge", "fuga");
 
-            verify(mockLogger, atLeastOnce()).infov("インフォメーション{0}, {1}", new Object[] {"hoge", "fuga"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.INFO, (Throwable) null, "インフォメーション{0}, {1}", new Object[] {"hoge", "fuga"});
         }
     }
 
@@ -212,7 +234,7 @@ public class JbossLoggerTest {
 
             sut.logInfo("info{0}{1}", error, "aa", "bb");
 
-            verify(mockLogger, atLeastOnce()).infov(error, "info{0}{1}", new Object[] {"aa", "bb"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.INFO, error, "info{0}{1}", new Object[] {"aa", "bb"});
         }
     }
 
@@ -244,7 +266,7 @@ public class JbossLoggerTest {
 
             sut.logDebug("デバッグ:{0}, {1}", "abc", "def");
 
-            verify(mockLogger, atLeastOnce()).debugv("デバッグ:{0}, {1}", new Object[] {"abc", "def"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.DEBUG, (Throwable) null, "デバッグ:{0}, {1}", new Object[] {"abc", "def"});
         }
     }
 
@@ -262,7 +284,7 @@ public class JbossLoggerTest {
 
             sut.logDebug("debug:{0}", exception, exception.getMessage());
 
-            verify(mockLogger, atLeastOnce()).debugv(exception, "debug:{0}", new Object[] {exception.getMessage()});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.DEBUG, exception, "debug:{0}", new Object[] {exception.getMessage()});
         }
     }
 
@@ -293,7 +315,7 @@ public class JbossLoggerTest {
             final Logger sut = new JbossLoggingLoggerFactory().get("test");
             sut.logTrace("trace-{0}", "aaaa");
 
-            verify(mockLogger, atLeastOnce()).tracev("trace-{0}", new Object[] {"aaaa"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.TRACE, (Throwable) null, "trace-{0}", new Object[] {"aaaa"});
         }
     }
 
@@ -310,7 +332,119 @@ public class JbossLoggerTest {
             final RuntimeException exception = new RuntimeException();
             sut.logTrace("trace-{0}-{1}", exception, "aaaa", "bbbb");
 
-            verify(mockLogger, atLeastOnce()).tracev(exception, "trace-{0}-{1}", new Object[] {"aaaa", "bbbb"});
+            verify(mockLogger, atLeastOnce()).logv(FQCN, org.jboss.logging.Logger.Level.TRACE, exception, "trace-{0}-{1}", new Object[] {"aaaa", "bbbb"});
+        }
+    }
+
+    @Test
+    public void logInfo_templateCache() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.INFO)).thenReturn(true);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/templateCache.properties"));
+            final Logger sut = factory.get("test");
+
+            final IllegalStateException exception = new IllegalStateException("test");
+            sut.logInfo("インフォメーション{0}, {1}", "hoge", 1000);
+            sut.logInfo("info''{0}", exception, "fuga");
+
+            verify(mockLogger).log(org.jboss.logging.Logger.Level.INFO, FQCN, "インフォメーションhoge, 1,000", null);
+            verify(mockLogger).log(org.jboss.logging.Logger.Level.INFO, FQCN, "info'fuga", exception);
+        }
+    }
+
+    @Test
+    public void logInfo_templateCache_fallback() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.INFO)).thenReturn(true);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/templateCache.properties"));
+            final Logger sut = factory.get("test");
+
+            // 書式指定を含むメッセージは委譲先で書式化し、埋め込む値がないメッセージは書式化せずに出力する
+            sut.logInfo("info{0,number,#}", 1);
+            sut.logInfo("info{0}");
+
+            verify(mockLogger).logv(FQCN, org.jboss.logging.Logger.Level.INFO, (Throwable) null, "info{0,number,#}", new Object[] {1});
+            verify(mockLogger).log(org.jboss.logging.Logger.Level.INFO, FQCN, "info{0}", null);
+        }
+    }
+
+    @Test
+    public void logDebug_templateCache_disabledLevel() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.DEBUG)).thenReturn(false);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/templateCache.properties"));
+            final Logger sut = factory.get("test");
+
+            sut.logDebug("debug{0}", "a");
+
+            verify(mockLogger, never()).log(any(org.jboss.logging.Logger.Level.class), any(), ArgumentMatchers.<Throwable>any());
+            verify(mockLogger, never()).logv(anyString(), ArgumentMatchers.eq(org.jboss.logging.Logger.Level.DEBUG),
+                    ArgumentMatchers.<Throwable>any(), anyString(), any(Object[].class));
+        }
+    }
+    @Test
+    public void logInfo_async() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.INFO)).thenReturn(true);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.DEBUG)).thenReturn(false);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/async.properties"));
+            final Logger sut = factory.get("test");
+
+            final IllegalStateException exception = new IllegalStateException("test");
+            sut.logInfo("info{0}", "a");
+            sut.logInfo("info{0}", exception, "b");
+            sut.logDebug("debug{0}", "c");
+            factory.terminate();
+
+            verify(mockLogger).logv(FQCN, org.jboss.logging.Logger.Level.INFO, (Throwable) null, "info{0}", new Object[] {"a"});
+            verify(mockLogger).logv(FQCN, org.jboss.logging.Logger.Level.INFO, exception, "info{0}", new Object[] {"b"});
+            verify(mockLogger, never()).logv(anyString(), ArgumentMatchers.eq(org.jboss.logging.Logger.Level.DEBUG),
+                    ArgumentMatchers.<Throwable>any(), anyString(), any(Object[].class));
+        }
+    }
+
+    @Test
+    public void isDebugEnabled_levelCache() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.DEBUG)).thenReturn(false, true);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/levelCache.properties"));
+            final Logger sut = factory.get("test");
+
+            // 設定変更が通知されるまではキャッシュした値を返す
+            assertThat(sut.isDebugEnabled(), is(false));
+            assertThat(sut.isDebugEnabled(), is(false));
+            verify(mockLogger, times(1)).isEnabled(org.jboss.logging.Logger.Level.DEBUG);
+
+            JbossLoggingLoggerFactory.invalidateLevelCache();
+            assertThat(sut.isDebugEnabled(), is(true));
+            assertThat(sut.isDebugEnabled(), is(true));
+            assertThat(sut.isTraceEnabled(), is(false));
+            verify(mockLogger, times(2)).isEnabled(org.jboss.logging.Logger.Level.DEBUG);
         }
     }
 
@@ -349,4 +483,460 @@ public class JbossLoggerTest {
         logger.logTrace("trace-{0}-{1}", "a", "b");
         logger.logTrace("trace-{0}", new IllegalArgumentException("error"), "hoge");
     }
+
+    @Test
+    public void logDebug_lazyValue_disabledLevel() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.DEBUG)).thenReturn(false);
+
+            final AtomicInteger evaluated = new AtomicInteger();
+            final Logger sut = new JbossLoggingLoggerFactory().get("test");
+            sut.logDebug("debug{0}:{1}", (LazyValue) evaluated::incrementAndGet,
+                    (Supplier<Integer>) evaluated::incrementAndGet);
+
+            assertThat(evaluated.get(), is(0));
+            verify(mockLogger, never()).logv(anyString(), ArgumentMatchers.eq(org.jboss.logging.Logger.Level.DEBUG),
+                    ArgumentMatchers.<Throwable>any(), anyString(), any(Object[].class));
+        }
+    }
+
+    @Test
+    public void logDebug_lazyValue() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+            when(mockLogger.isEnabled(org.jboss.logging.Logger.Level.DEBUG)).thenReturn(true);
+
+            final AtomicInteger evaluated = new AtomicInteger();
+            final Logger sut = new JbossLoggingLoggerFactory().get("test");
+            sut.logDebug("debug{0}:{1}:{2}", (LazyValue) () -> "lazy" + evaluated.incrementAndGet(),
+                    (Supplier<String>) () -> "supplier" + evaluated.incrementAndGet(), "c");
+
+            assertThat(evaluated.get(), is(2));
+            verify(mockLogger).logv(FQCN, org.jboss.logging.Logger.Level.DEBUG, (Throwable) null, "debug{0}:{1}:{2}", new Object[] {"lazy1", "supplier2", "c"});
+        }
+    }
+
+    @Test
+    public void logInfo_lazyValue_async() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final AtomicInteger evaluated = new AtomicInteger();
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/async.properties"));
+            final Logger sut = factory.get("test");
+            final Supplier<String> supplier = () -> Thread.currentThread().getName() + ':' + evaluated.incrementAndGet();
+            final String caller = Thread.currentThread().getName();
+            sut.logInfo("info {0}", supplier);
+            factory.terminate();
+
+            // 呼び出し元のスレッドで1回だけ評価される
+            assertThat(evaluated.get(), is(1));
+            assertThat(recordingLogger.records, is(Collections.<String>singletonList("INFO info " + caller + ":1")));
+        }
+    }
+
+    @Test
+    public void logInfo_argumentChanged_async() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.gate = new CountDownLatch(1);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/async.properties"));
+            final Logger sut = factory.get("test");
+
+            // 出力スレッドが出力する前に値を変更しても、呼び出し時点の値を出力する
+            final StringBuilder value = new StringBuilder("before");
+            sut.logInfo("info {0} {1}", value, 1);
+            value.setLength(0);
+            value.append("after");
+            recordingLogger.gate.countDown();
+            factory.terminate();
+
+            assertThat(recordingLogger.records, is(Collections.<String>singletonList("INFO info before 1")));
+        }
+    }
+
+    @Test
+    public void logError_rateLimit() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/rateLimit.properties"));
+            final Logger sut = factory.get("test");
+
+            final IllegalStateException exception = new IllegalStateException("test");
+            for (int i = 0; i < 5; i++) {
+                sut.logError("error{0}", exception, "a");
+            }
+            sut.logInfo("info");
+            factory.terminate();
+
+            // ロガー毎の上限(1秒あたり2件)を超えたログは破棄され、停止時に破棄件数が初期化からの経過時間と合わせて出力される
+            assertThat(recordingLogger.records.size(), is(4));
+            assertThat(recordingLogger.records.subList(0, 3), is(Arrays.asList(
+                    "ERROR errora " + exception,
+                    "ERROR errora " + exception,
+                    "INFO info")));
+            assertThat(recordingLogger.records.get(3), startsWith("ERROR suppressed 3 occurrences of [error{0}] in the last "));
+            assertThat(recordingLogger.records.get(3).endsWith(" 60 seconds"), is(false));
+        }
+    }
+
+    @Test
+    public void logFormatted_rateLimitByPattern() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/rateLimit.properties"));
+            final JbossLogger sut = (JbossLogger) factory.get("test");
+
+            for (int i = 0; i < 5; i++) {
+                sut.logFormatted(org.jboss.logging.Logger.Level.WARN, "order {0}", "order " + i, null);
+            }
+            factory.terminate();
+
+            // 埋め込んだ値が異なっても、書式化前のメッセージ単位で上限を判定する
+            assertThat(recordingLogger.records.size(), is(3));
+            assertThat(recordingLogger.records.get(0), is("WARN order 0"));
+            assertThat(recordingLogger.records.get(1), is("WARN order 1"));
+            assertThat(recordingLogger.records.get(2), startsWith("WARN suppressed 3 occurrences of [order {0}]"));
+        }
+    }
+
+    @Test
+    public void logError_stackTraceCollapse() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/stackTraceCollapse.properties"));
+            final Logger sut = factory.get("test");
+
+            final IllegalStateException[] exceptions = new IllegalStateException[2];
+            for (int i = 0; i < exceptions.length; i++) {
+                exceptions[i] = new IllegalStateException("test" + i);
+                sut.logError("error{0}", exceptions[i], i);
+            }
+            factory.terminate();
+
+            final String id = String.format("%016x", StackTraceCollapser.fingerprint(exceptions[0]));
+            assertThat(recordingLogger.records, is(Arrays.asList(
+                    "ERROR error0 [stackTraceId=" + id + "] " + exceptions[0],
+                    "ERROR error1 [stack trace omitted: " + exceptions[1] + ", stackTraceId=" + id + ']')));
+        }
+    }
+
+    @Test
+    public void logInfo_callerIsReportedToBackend() throws Exception {
+        final java.util.logging.Logger julLogger = java.util.logging.Logger.getLogger("caller.test");
+        final List<LogRecord> records = new ArrayList<LogRecord>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        julLogger.addHandler(handler);
+        try {
+            final Logger sut = new JbossLogger(new JDKLoggerProvider().getLogger("caller.test"));
+            sut.logInfo("info{0}", "a");
+            sut.logInfo("info");
+
+            // 委譲先ロガーには本クラスではなく呼び出し元が出力元として渡される
+            assertThat(records.size(), is(2));
+            for (LogRecord record : records) {
+                assertThat(record.getSourceClassName(), is(JbossLoggerTest.class.getName()));
+                assertThat(record.getSourceMethodName(), is("logInfo_callerIsReportedToBackend"));
+            }
+        } finally {
+            julLogger.removeHandler(handler);
+        }
+    }
+
+    @Test
+    public void logWarn_callerLocation() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.mdcKey = "callerLocation";
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/callerLocation.properties"));
+            final Logger sut = factory.get("test");
+            sut.logWarn("warn");
+            sut.logInfo("info");
+            factory.terminate();
+
+            // 設定したログレベルのみ、呼び出し元の位置が非同期出力のスレッドでMDCに格納される
+            assertThat(recordingLogger.records.size(), is(2));
+            assertThat(recordingLogger.records.get(0), startsWith(
+                    "WARN warn {callerLocation=" + JbossLoggerTest.class.getName() + ".logWarn_callerLocation(JbossLoggerTest.java:"));
+            assertThat(recordingLogger.records.get(1), is("INFO info {callerLocation=null}"));
+        }
+    }
+
+    @Test
+    public void logInfo_noOptions() throws Exception {
+        final org.jboss.logging.Logger mockLogger = mock(org.jboss.logging.Logger.class);
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(mockLogger);
+
+            final IllegalStateException exception = new IllegalStateException("test");
+            final Logger sut = new JbossLoggingLoggerFactory().get("test");
+            sut.logInfo("it's {0}");
+            sut.logError("it's {0}", exception);
+
+            // 埋め込む値がない場合は書式化しないメソッドに委譲する
+            verify(mockLogger).log(org.jboss.logging.Logger.Level.INFO, FQCN, "it's {0}", null);
+            verify(mockLogger).log(org.jboss.logging.Logger.Level.ERROR, FQCN, "it's {0}", exception);
+            verify(mockLogger, never()).logv(anyString(), any(org.jboss.logging.Logger.Level.class),
+                    ArgumentMatchers.<Throwable>any(), anyString(), any(Object[].class));
+        }
+    }
+
+    @Test
+    public void logInfo_loadShedding() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final JbossLoggingContext context = new JbossLoggingContext(new JbossLoggingSettings(
+                new LogSettings("classpath:nablarch/integration/log/jbosslogging/loadShedding.properties")));
+        try {
+            final JbossLogger sut = new JbossLogger(recordingLogger, context);
+            sut.logInfo("info1");
+            sut.logInfo("info2");
+            sut.logInfo("info3");
+            context.getLoadShedder().evaluate();
+
+            // 破棄中は下限より詳細なレベルのログを出力しない
+            assertThat(context.getLoadShedder().isShedding(), is(true));
+            sut.logInfo("info4");
+            sut.logWarn("warn");
+            sut.logDebug("debug");
+            assertThat(recordingLogger.records, is(Arrays.asList("INFO info1", "INFO info2", "INFO info3", "WARN warn")));
+            assertThat(context.getLoadShedder().getShedCount(), is(2L));
+
+            // ログレベルを判定してから出力する呼び出し元も、破棄のみが理由で無効な場合は破棄したログとして数える
+            assertThat(sut.isInfoEnabled(), is(false));
+            assertThat(sut.isWarnEnabled(), is(true));
+            assertThat(sut.isTraceEnabled(), is(false));
+            assertThat(context.getLoadShedder().getShedCount(), is(4L));
+        } finally {
+            context.terminate();
+        }
+    }
+
+    @Test
+    public void logDebug_sampling() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/sampling.properties"));
+            final Logger sut = factory.get("test");
+            for (int i = 0; i < 100; i++) {
+                sut.logDebug("start {0}", "request-" + i);
+                sut.logDebug("end {0}", "request-" + i);
+                sut.logInfo("info {0}", "request-" + i);
+            }
+            factory.terminate();
+
+            // INFOは間引かず、DEBUGはリクエスト毎に全て出力されるか全て間引かれる
+            int sampled = 0;
+            for (int i = 0; i < 100; i++) {
+                final boolean start = recordingLogger.records.contains("DEBUG start request-" + i);
+                assertThat(recordingLogger.records.contains("DEBUG end request-" + i), is(start));
+                assertThat(recordingLogger.records.contains("INFO info request-" + i), is(true));
+                if (start) {
+                    sampled++;
+                }
+            }
+            assertThat(String.valueOf(sampled), sampled > 0 && sampled < 100, is(true));
+        }
+    }
+
+    @Test
+    public void logInfo_structured() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.threshold = org.jboss.logging.Logger.Level.INFO;
+        final JbossLogger sut = new JbossLogger(recordingLogger);
+
+        sut.atInfo()
+                .add("user", "taro")
+                .add("count", 3)
+                .add("ratio", 0.5)
+                .add("admin", false)
+                .add("amount", new BigDecimal("1.20"))
+                .log("login \"ok\"");
+        assertThat(recordingLogger.records.get(0), is("INFO {\"level\":\"INFO\",\"logger\":\"test\",\"user\":\"taro\","
+                + "\"count\":3,\"ratio\":0.5,\"admin\":false,\"amount\":\"1.20\",\"message\":\"login \\\"ok\\\"\"}"));
+
+        // エラー情報はJSONに含め、委譲先ロガーには渡さない
+        sut.atError().add("id", 1).error(new IllegalStateException("failed")).log();
+        assertThat(recordingLogger.records.get(1), startsWith("ERROR {\"level\":\"ERROR\",\"logger\":\"test\",\"id\":1,"
+                + "\"error\":{\"class\":\"java.lang.IllegalStateException\",\"message\":\"failed\",\"stackTrace\":["));
+        assertThat(recordingLogger.records.get(1).endsWith("]}}"), is(true));
+
+        // 無効なレベルは何も書き込まない
+        final StructuredEvent disabled = sut.atDebug();
+        assertThat(disabled.isEnabled(), is(false));
+        disabled.add("user", "taro").log("ignored");
+
+        // 値の評価中に出力したログは別のバッファに書き込む
+        final Object nested = new Object() {
+            @Override
+            public String toString() {
+                sut.atWarn().add("nested", true).log();
+                return "outer";
+            }
+        };
+        sut.atInfo().add("value", nested).log();
+        assertThat(recordingLogger.records.size(), is(4));
+        assertThat(recordingLogger.records.get(2), is("WARN {\"level\":\"WARN\",\"logger\":\"test\",\"nested\":true}"));
+        assertThat(recordingLogger.records.get(3), is("INFO {\"level\":\"INFO\",\"logger\":\"test\",\"value\":\"outer\"}"));
+    }
+
+    @Test
+    public void logInfo_structuredAbandoned() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final JbossLogger sut = new JbossLogger(recordingLogger);
+
+        // 出力せずに放棄したインスタンスは、次の開始時に書き込み途中の内容を破棄して再利用する
+        final StructuredEvent abandoned = sut.atInfo().add("abandoned", true).error(new IllegalStateException("abandoned"));
+        final StructuredEvent next = sut.atWarn();
+        assertThat(next, is(sameInstance(abandoned)));
+        next.add("id", 1).log();
+        assertThat(sut.atInfo(), is(sameInstance(abandoned)));
+
+        assertThat(recordingLogger.records, is(Collections.singletonList(
+                "WARN {\"level\":\"WARN\",\"logger\":\"test\",\"id\":1}")));
+    }
+
+    @Test
+    public void logInfo_threadContext() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.mdcKey = "requestId";
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/threadContext.properties"));
+            final Logger sut = factory.get("test");
+            ThreadContext.setRequestId("req-1");
+            sut.logInfo("first");
+            ThreadContext.setRequestId("req-2");
+            sut.logInfo("second");
+            ThreadContext.clear();
+            sut.logInfo("third");
+            factory.terminate();
+
+            // 出力を要求した時点の値が、非同期出力のスレッドでMDCに反映される
+            assertThat(recordingLogger.records.size(), is(3));
+            assertThat(recordingLogger.records.get(0), is("INFO first {requestId=req-1}"));
+            assertThat(recordingLogger.records.get(1), is("INFO second {requestId=req-2}"));
+            assertThat(recordingLogger.records.get(2), is("INFO third {requestId=null}"));
+        } finally {
+            ThreadContext.clear();
+        }
+    }
+
+    @Test
+    public void logInfo_threadContextOnCallerThread() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.mdcKey = "requestId";
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings(
+                    "classpath:nablarch/integration/log/jbosslogging/threadContextDirect.properties"));
+            final Logger sut = factory.get("test");
+            ThreadContext.setRequestId("req-1");
+            sut.logInfo("first");
+            // 出力後は反映した値をMDCに残さない
+            assertThat(MDC.get("requestId"), is(nullValue()));
+
+            MDC.put("requestId", "application");
+            sut.logInfo("second");
+            // アプリケーションが格納した値は出力後に元に戻す
+            assertThat(MDC.get("requestId"), is((Object) "application"));
+            factory.terminate();
+
+            assertThat(recordingLogger.records.size(), is(2));
+            assertThat(recordingLogger.records.get(0), is("INFO first {requestId=req-1}"));
+            assertThat(recordingLogger.records.get(1), is("INFO second {requestId=req-1}"));
+        } finally {
+            ThreadContext.clear();
+            MDC.remove("requestId");
+        }
+    }
+
+    @Test
+    public void logInfo_virtualThreadHandoff() throws Exception {
+        final List<String> threadNames = new CopyOnWriteArrayList<String>();
+        final RecordingLogger recordingLogger = new RecordingLogger("test") {
+            @Override
+            protected void doLog(final org.jboss.logging.Logger.Level level, final String loggerClassName, final Object message,
+                    final Object[] parameters, final Throwable thrown) {
+                threadNames.add(Thread.currentThread().getName());
+                super.doLog(level, loggerClassName, message, parameters, thrown);
+            }
+        };
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/virtualThreadHandoff.properties"));
+            final Logger sut = factory.get("test");
+
+            // プラットフォームスレッドからの出力は呼び出し元スレッドで出力する
+            sut.logInfo("platform");
+            assertThat(recordingLogger.records, is(Collections.singletonList("INFO platform")));
+            assertThat(threadNames.get(0), is(Thread.currentThread().getName()));
+
+            if (VirtualThreads.isSupported()) {
+                // 仮想スレッドからの出力は出力スレッドに引き継ぐ
+                final Thread virtual = (Thread) Thread.class.getMethod("startVirtualThread", Runnable.class)
+                        .invoke(null, (Runnable) () -> sut.logInfo("virtual"));
+                virtual.join();
+                factory.terminate();
+                assertThat(recordingLogger.records, is(Arrays.asList("INFO platform", "INFO virtual")));
+                assertThat(threadNames.get(1), is("jbossLogging-virtualThreadHandoff-1"));
+            } else {
+                factory.terminate();
+            }
+        }
+    }
 }
@@ -0,0 +1,222 @@
+package nablarch.integration.log.jbosslogging;
+
+import nablarch.core.log.LogSettings;
+import nablarch.core.log.Logger;
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link JbossLoggingLoggerFactory}のテスト。
+ */
+public class JbossLoggingLoggerFactoryTest {
+
+    @Test
+    public void get_sameNameReturnsSameInstance() throws Exception {
+        final JbossLoggingLoggerFactory sut = new JbossLoggingLoggerFactory();
+
+        final Logger first = sut.get("registry.a");
+        assertThat(sut.get("registry.a"), sameInstance(first));
+        assertThat(sut.get("registry.b"), not(sameInstance(first)));
+
+        final LoggerRegistryStatistics statistics = sut.getRegistryStatistics();
+        assertThat(statistics.getSize(), is(2));
+        assertThat(statistics.getMaxSize(), is(10000));
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(2L));
+        assertThat(statistics.getEvictions(), is(0L));
+    }
+
+    @Test
+    public void get_evictsLeastRecentlyUsedLoggers() throws Exception {
+        final JbossLoggingLoggerFactory sut = new JbossLoggingLoggerFactory();
+        sut.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/registry.properties"));
+
+        final Logger frequentlyUsed = sut.get("registry.frequent");
+        for (int i = 0; i < 1000; i++) {
+            sut.get("registry.dynamic." + i);
+            assertThat(sut.get("registry.frequent"), sameInstance(frequentlyUsed));
+        }
+
+        final LoggerRegistryStatistics statistics = sut.getRegistryStatistics();
+        assertThat(statistics.toString(), statistics.getSize() <= 10, is(true));
+        assertThat(statistics.getEvictions(), is(1001L - statistics.getSize()));
+        assertThat(statistics.getHits(), is(1000L));
+        assertThat(statistics.getMisses(), is(1001L));
+    }
+
+    @Test
+    public void initialize_metricsExposedOverJmx() throws Exception {
+        final JbossLoggingLoggerFactory sut = new JbossLoggingLoggerFactory();
+        sut.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/metrics.properties"));
+        final ObjectName name = new ObjectName(JbossLoggingMetricsMXBean.DEFAULT_OBJECT_NAME);
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final Logger logger = sut.get("metrics.test");
+            logger.logInfo("metrics {0}", "info");
+            logger.logDebug("metrics {0}", "debug");
+            logger.logTrace("metrics {0}", "trace");
+
+            assertThat(server.getAttribute(name, "TotalEventCount"), is((Object) 1L));
+            assertThat(server.getAttribute(name, "TotalSuppressedCount"), is((Object) 2L));
+            assertThat(server.getAttribute(name, "RegistrySize"), is((Object) 1));
+
+            final CompositeData[] loggers = (CompositeData[]) server.getAttribute(name, "Loggers");
+            assertThat(loggers.length, is(1));
+            assertThat(loggers[0].get("name"), is((Object) "metrics.test"));
+            assertThat(loggers[0].get("infoCount"), is((Object) 1L));
+            assertThat(loggers[0].get("latencySampleCount"), is((Object) 1L));
+        } finally {
+            sut.terminate();
+        }
+        assertThat(server.isRegistered(name), is(false));
+    }
+
+    @Test
+    public void initialize_loadSheddingExposedOverJmx() throws Exception {
+        final JbossLoggingLoggerFactory sut = new JbossLoggingLoggerFactory();
+        sut.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/loadShedding.properties"));
+        final ObjectName name = new ObjectName(JbossLoggingMetricsMXBean.DEFAULT_OBJECT_NAME);
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            // メトリクスが無効でも破棄の状態を公開する
+            sut.get("loadShedding.test").logInfo("loadShedding");
+            assertThat(server.getAttribute(name, "LoadShedding"), is((Object) false));
+            assertThat(server.getAttribute(name, "LoadShedCount"), is((Object) 0L));
+            assertThat(server.getAttribute(name, "TotalEventCount"), is((Object) 0L));
+            assertThat(((CompositeData[]) server.getAttribute(name, "Loggers")).length, is(0));
+        } finally {
+            sut.terminate();
+        }
+        assertThat(server.isRegistered(name), is(false));
+    }
+
+    @Test
+    public void initialize_levelOverrides() throws Exception {
+        final Path file = Files.createTempFile("jbossLogging-levels", ".properties");
+        Files.write(file, "levelOverride.test=DEBUG\n".getBytes(StandardCharsets.UTF_8));
+        System.setProperty("jbossLogging.levelOverride.file", file.toString());
+        final java.util.logging.Logger julLogger = java.util.logging.Logger.getLogger("levelOverride.test");
+        final ObjectName name = new ObjectName(JbossLoggingLevelsMXBean.DEFAULT_OBJECT_NAME);
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final JbossLoggingLoggerFactory sut = new JbossLoggingLoggerFactory();
+        try {
+            sut.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/levelOverride.properties"));
+
+            // ファイルで指定したレベルはjava.util.loggingのロガーにも反映される
+            final Logger logger = sut.get("levelOverride.test.Service");
+            assertThat(logger.isDebugEnabled(), is(true));
+            assertThat(logger.isTraceEnabled(), is(false));
+            assertThat(julLogger.getLevel(), is(java.util.logging.Level.FINE));
+
+            // MXBeanで配下のロガーのレベルを上書きする
+            server.invoke(name, "setLevel", new Object[] {"levelOverride.test.Service", "error", 0L},
+                    new String[] {String.class.getName(), String.class.getName(), long.class.getName()});
+            assertThat(logger.isWarnEnabled(), is(false));
+            assertThat(logger.isErrorEnabled(), is(true));
+            server.invoke(name, "removeLevel", new Object[] {"levelOverride.test.Service"},
+                    new String[] {String.class.getName()});
+            assertThat(logger.isDebugEnabled(), is(true));
+
+            // ファイルの変更は再起動せずに反映される
+            Files.write(file, "levelOverride.test=TRACE\n".getBytes(StandardCharsets.UTF_8));
+            final long deadline = System.currentTimeMillis() + 5000L;
+            while (!logger.isTraceEnabled() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            assertThat(logger.isTraceEnabled(), is(true));
+            final JbossLoggingLevelsMXBean proxy = JMX.newMXBeanProxy(server, name, JbossLoggingLevelsMXBean.class);
+            assertThat(proxy.getOverrides(), is(Collections.singletonMap("levelOverride.test", "TRACE")));
+        } finally {
+            sut.terminate();
+            System.clearProperty("jbossLogging.levelOverride.file");
+            Files.delete(file);
+        }
+        // 停止時に上書きを解除し、java.util.loggingのロガーのレベルを元に戻す
+        assertThat(julLogger.getLevel(), is(nullValue()));
+        assertThat(server.isRegistered(name), is(false));
+    }
+
+    @Test
+    public void initialize_explicitProviderAndPrewarm() throws Exception {
+        final java.util.logging.Logger julLogger = java.util.logging.Logger.getLogger("provider.test");
+        final List<String> messages = new ArrayList<String>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                messages.add(record.getLevel() + " " + record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        julLogger.addHandler(handler);
+        try {
+            final JbossLoggingLoggerFactory sut = new JbossLoggingLoggerFactory();
+            sut.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/provider.properties"));
+
+            // 事前に生成したロガーはレジストリから取得される
+            final LoggerRegistryStatistics statistics = sut.getRegistryStatistics();
+            assertThat(statistics.getSize(), is(2));
+            assertThat(statistics.getMisses(), is(2L));
+
+            sut.get("provider.test").logInfo("jdk provider");
+            assertThat(sut.getRegistryStatistics().getHits(), is(1L));
+            assertThat(messages, is(Collections.singletonList("INFO jdk provider")));
+            sut.terminate();
+        } finally {
+            julLogger.removeHandler(handler);
+        }
+    }
+
+    @Test
+    public void initialize_unavailableProvider() throws Exception {
+        // Log4j 1.xはクラスパスに存在しない
+        System.setProperty("jbossLogging.provider", "log4j");
+        try {
+            new JbossLoggingLoggerFactory().initialize(
+                    new LogSettings("classpath:nablarch/integration/log/jbosslogging/provider.properties"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), startsWith("invalid property was specified. 'jbossLogging.provider' is not available."));
+        } finally {
+            System.clearProperty("jbossLogging.provider");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialize_invalidSetting() throws Exception {
+        System.setProperty("jbossLogging.registry.maxSize", "0");
+        try {
+            new JbossLoggingLoggerFactory().initialize(
+                    new LogSettings("classpath:nablarch/integration/log/jbosslogging/registry.properties"));
+        } finally {
+            System.clearProperty("jbossLogging.registry.maxSize");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link JsonEncoder}のテスト。
+ */
+public class JsonEncoderTest {
+
+    private final JsonEncoder sut = new JsonEncoder(16, 1024);
+
+    @Test
+    public void escape() throws Exception {
+        sut.reset().beginObject()
+                .field("quote", "a\"b\\c")
+                .field("control", "1\n2\r3\t4\u0001")
+                .field("separator", "x y")
+                .field("japanese", "日本語")
+                .field("null", (String) null)
+                .endObject();
+        assertThat(sut.toString(), is("{\"quote\":\"a\\\"b\\\\c\",\"control\":\"1\\n2\\r3\\t4\\u0001\","
+                + "\"separator\":\"x\\u2028y\",\"japanese\":\"日本語\",\"null\":null}"));
+    }
+
+    @Test
+    public void numbersAndObjects() throws Exception {
+        sut.reset().beginObject()
+                .field("long", Long.MIN_VALUE)
+                .field("double", 1.5)
+                .field("nan", Double.NaN)
+                .field("infinity", Double.NEGATIVE_INFINITY)
+                .field("boolean", true)
+                .field("boxed", (Object) Integer.valueOf(3))
+                .field("float", (Object) Float.valueOf(0.25f))
+                .field("flag", (Object) Boolean.FALSE)
+                .field("object", (Object) new StringBuilder("sb"))
+                .endObject();
+        assertThat(sut.toString(), is("{\"long\":-9223372036854775808,\"double\":1.5,\"nan\":\"NaN\","
+                + "\"infinity\":\"-Infinity\",\"boolean\":true,\"boxed\":3,\"float\":0.25,\"flag\":false,"
+                + "\"object\":\"sb\"}"));
+    }
+
+    @Test
+    public void throwable() throws Exception {
+        final IllegalStateException error = new IllegalStateException("outer", new IllegalArgumentException("in\"ner"));
+        sut.reset().beginObject().field("error", error).field("after", 1L).endObject();
+        final String json = sut.toString();
+        assertThat(json, startsWith("{\"error\":{\"class\":\"java.lang.IllegalStateException\",\"message\":\"outer\","
+                + "\"stackTrace\":[\"nablarch.integration.log.jbosslogging.JsonEncoderTest.throwable("));
+        assertThat(json, containsString("\"cause\":{\"class\":\"java.lang.IllegalArgumentException\","
+                + "\"message\":\"in\\\"ner\",\"stackTrace\":["));
+        assertThat(json, containsString("]}},\"after\":1}"));
+    }
+
+    @Test
+    public void reset() throws Exception {
+        final StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 2048; i++) {
+            large.append('a');
+        }
+        sut.reset().beginObject().field("large", large.toString()).endObject();
+        sut.reset().beginObject().field("small", "b").endObject();
+        assertThat(sut.toString(), is("{\"small\":\"b\"}"));
+    }
+}
@@ -0,0 +1,83 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link LevelOverrides}のテスト。
+ */
+public class LevelOverridesTest {
+
+    @Test
+    public void levelFor_hierarchicalMatch() throws Exception {
+        final LevelOverrides sut = new LevelOverrides(BackendLevelControl.NONE, LevelOverrides.NO_EXPIRY);
+        sut.set("com.example", Level.DEBUG, 0);
+        sut.set("com.example.service.Noisy", Level.ERROR, 0);
+
+        assertThat(sut.levelFor("com.example"), is(Level.DEBUG));
+        assertThat(sut.levelFor("com.example.service.Quiet"), is(Level.DEBUG));
+        assertThat(sut.levelFor("com.example.service.Noisy"), is(Level.ERROR));
+        assertThat(sut.levelFor("com.examples"), is(nullValue()));
+
+        // ルートロガーの上書きは全てのロガーに適用される
+        sut.set("", Level.WARN, 0);
+        assertThat(sut.levelFor("org.other"), is(Level.WARN));
+
+        sut.remove("com.example");
+        assertThat(sut.levelFor("com.example.service.Quiet"), is(Level.WARN));
+        sut.clear();
+        assertThat(sut.levelFor("com.example.service.Noisy"), is(nullValue()));
+    }
+
+    @Test
+    public void set_invalidatesLevelCache() throws Exception {
+        final LevelOverrides sut = new LevelOverrides(BackendLevelControl.NONE, LevelOverrides.NO_EXPIRY);
+        final int generation = LevelCacheGeneration.current();
+        sut.set("com.example", Level.DEBUG, 0);
+        assertThat(LevelCacheGeneration.current() != generation, is(true));
+    }
+
+    @Test
+    public void expire() throws Exception {
+        final LevelOverrides sut = new LevelOverrides(BackendLevelControl.NONE, 60000L);
+        final long now = System.currentTimeMillis();
+        sut.set("default.duration", Level.DEBUG, 0);
+        sut.set("short.duration", Level.TRACE, 1000L);
+
+        sut.expire(now + 30000L);
+        assertThat(sut.levelFor("default.duration"), is(Level.DEBUG));
+        assertThat(sut.levelFor("short.duration"), is(nullValue()));
+
+        sut.expire(now + 120000L);
+        assertThat(sut.describe().isEmpty(), is(true));
+    }
+
+    @Test
+    public void replaceFileOverrides_keepsOverridesFromMXBean() throws Exception {
+        final LevelOverrides sut = new LevelOverrides(BackendLevelControl.NONE, LevelOverrides.NO_EXPIRY);
+        sut.set("from.mxbean", Level.TRACE, 0);
+        final Map<String, Level> file = new HashMap<String, Level>();
+        file.put("from.file.a", Level.DEBUG);
+        file.put("from.file.b", Level.ERROR);
+        sut.replaceFileOverrides(file);
+
+        final Map<String, String> expected = new HashMap<String, String>();
+        expected.put("from.mxbean", "TRACE");
+        expected.put("from.file.a", "DEBUG");
+        expected.put("from.file.b", "ERROR");
+        assertThat(sut.describe(), is(expected));
+
+        sut.replaceFileOverrides(Collections.singletonMap("from.file.b", Level.WARN));
+        expected.remove("from.file.a");
+        expected.put("from.file.b", "WARN");
+        assertThat(sut.describe(), is(expected));
+    }
+}
@@ -0,0 +1,82 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link LoadShedder}のテスト。
+ */
+public class LoadShedderTest {
+
+    @Test
+    public void evaluate_eventRate() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final LoadShedder sut = new LoadShedder(recordingLogger, Level.WARN, 100L, Long.MAX_VALUE, 0.5, 1,
+                1000L, 3000L);
+
+        for (int i = 0; i < 200; i++) {
+            sut.recordDemand();
+        }
+        final int generation = LevelCacheGeneration.current();
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(true));
+        assertThat(LevelCacheGeneration.current() != generation, is(true));
+        assertThat(sut.allows(Level.INFO), is(false));
+        assertThat(sut.allows(Level.WARN), is(true));
+        assertThat(recordingLogger.records.get(0), is(
+                "WARN log load shedding started. minimum level = [WARN], events per second = [200], average latency micros = [0]"));
+
+        // ウィンドウの期間が経過し、復帰の閾値を下回るまでは破棄を続ける
+        sut.evaluate();
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(true));
+        sut.recordShed();
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(false));
+        assertThat(sut.allows(Level.DEBUG), is(true));
+        assertThat(sut.getTransitions(), is(2L));
+        assertThat(sut.getShedCount(), is(1L));
+        assertThat(recordingLogger.records.get(1), is(
+                "WARN log load shedding stopped. shed count = [1], events per second = [0], average latency micros = [0]"));
+
+        // 終了時には、その回の破棄中に破棄した件数を出力する(3区間の平均が閾値を超える件数を要求する)
+        for (int i = 0; i < 400; i++) {
+            sut.recordDemand();
+        }
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(true));
+        sut.recordShed();
+        sut.recordShed();
+        sut.evaluate();
+        sut.evaluate();
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(false));
+        assertThat(sut.getShedCount(), is(3L));
+        assertThat(recordingLogger.records.get(3), is(
+                "WARN log load shedding stopped. shed count = [2], events per second = [0], average latency micros = [0]"));
+    }
+
+    @Test
+    public void evaluate_latency() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final LoadShedder sut = new LoadShedder(recordingLogger, Level.ERROR, Long.MAX_VALUE, 100L, 0.5, 1,
+                1000L, 1000L);
+
+        sut.recordLatency(150000L);
+        sut.recordLatency(250000L);
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(true));
+        assertThat(sut.allows(Level.WARN), is(false));
+
+        // 復帰の閾値(50マイクロ秒)以上の場合は破棄を続ける
+        sut.recordLatency(60000L);
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(true));
+        sut.recordLatency(40000L);
+        sut.evaluate();
+        assertThat(sut.isShedding(), is(false));
+    }
+}
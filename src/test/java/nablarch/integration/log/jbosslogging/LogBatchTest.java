@@ -0,0 +1,152 @@
+package nablarch.integration.log.jbosslogging;
+
+import nablarch.core.log.LogSettings;
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mockStatic;
+
+/**
+ * {@link LogBatch}のテスト。
+ */
+public class LogBatchTest {
+
+    @Test
+    public void flush_whenMaxSizeReached() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.threshold = Level.INFO;
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/batch.properties"));
+            final JbossLogger logger = (JbossLogger) factory.get("test");
+
+            final IllegalStateException exception = new IllegalStateException("test");
+            try (LogBatch sut = logger.batch()) {
+                sut.logDebug("debug");
+                sut.logInfo("info{0}", 1);
+                sut.logError("error{0}", exception, 2);
+                assertThat(sut.size(), is(2));
+                assertThat(recordingLogger.records.isEmpty(), is(true));
+
+                // 上限に達した時点で追加した順に出力する
+                sut.logWarn("warn{0}", 3);
+                assertThat(sut.size(), is(0));
+                assertThat(recordingLogger.records, is(Arrays.asList(
+                        "INFO info1", "ERROR error2 " + exception, "WARN warn3")));
+
+                sut.logInfo("info{0}", 4);
+            }
+            assertThat(recordingLogger.records.size(), is(4));
+            assertThat(recordingLogger.records.get(3), is("INFO info4"));
+        }
+    }
+
+    @Test
+    public void isEnabled_resolvedPerBatch() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.threshold = Level.DEBUG;
+        final JbossLogger logger = new JbossLogger(recordingLogger);
+
+        final LogBatch sut = logger.batch();
+        assertThat(sut.isEnabled(Level.DEBUG), is(true));
+
+        // 出力するまではバッチ生成時の判定結果を使用する
+        recordingLogger.threshold = Level.WARN;
+        sut.logDebug("debug1");
+        assertThat(sut.size(), is(1));
+        assertThat(sut.isEnabled(Level.DEBUG), is(true));
+
+        sut.flush();
+        assertThat(sut.isEnabled(Level.DEBUG), is(false));
+        sut.logDebug("debug2");
+        assertThat(sut.size(), is(0));
+    }
+
+    @Test
+    public void append_flushesAfterMaxDelay() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final LogBatch sut = new LogBatch(new JbossLogger(recordingLogger), 100, 1L, null);
+
+        sut.logInfo("first");
+        assertThat(recordingLogger.records.isEmpty(), is(true));
+        Thread.sleep(10L);
+        sut.logInfo("second");
+        assertThat(recordingLogger.records, is(Arrays.asList("INFO first", "INFO second")));
+        assertThat(sut.size(), is(0));
+    }
+
+    @Test
+    public void flush_scheduledAfterMaxDelay() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final LogBatch sut = new LogBatch(new JbossLogger(recordingLogger), 100, 50L, scheduler);
+
+            // 以降にログを追加しなくても、待機時間の経過後に出力する
+            sut.logInfo("first");
+            sut.logInfo("second");
+            assertThat(recordingLogger.records.isEmpty(), is(true));
+            final long deadline = System.currentTimeMillis() + 5000L;
+            while (sut.size() != 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+            assertThat(recordingLogger.records, is(Arrays.asList("INFO first", "INFO second")));
+            assertThat(sut.size(), is(0));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void logInfo_argumentChangedBeforeFlush() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        final LogBatch sut = new LogBatch(new JbossLogger(recordingLogger), 100, 60000L, null);
+
+        // 処理中の行のオブジェクトを再利用しても、追加した時点の値を出力する
+        final StringBuilder row = new StringBuilder("row1");
+        sut.logInfo("processed. row = [{0}], count = [{1}]", row, 1);
+        row.setLength(0);
+        row.append("row2");
+        sut.logInfo("processed. row = [{0}], count = [{1}]", row, 2);
+        row.setLength(0);
+        row.append("row3");
+        sut.flush();
+
+        assertThat(recordingLogger.records, is(Arrays.asList(
+                "INFO processed. row = [row1], count = [1]", "INFO processed. row = [row2], count = [2]")));
+    }
+
+    @Test
+    public void logWarn_callerLocation() throws Exception {
+        final RecordingLogger recordingLogger = new RecordingLogger("test");
+        recordingLogger.mdcKey = "callerLocation";
+
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger(anyString())).thenReturn(recordingLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/callerLocation.properties"));
+            try (LogBatch sut = ((JbossLogger) factory.get("test")).batch()) {
+                sut.logWarn("warn");
+            }
+            factory.terminate();
+
+            // 呼び出し元の位置はバッチに追加した位置となる
+            assertThat(recordingLogger.records.size(), is(1));
+            assertThat(recordingLogger.records.get(0), startsWith(
+                    "WARN warn {callerLocation=" + LogBatchTest.class.getName() + ".logWarn_callerLocation(LogBatchTest.java:"));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package nablarch.integration.log.jbosslogging;
+
+import nablarch.core.ThreadContext;
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link LogSampler}のテスト。
+ */
+public class LogSamplerTest {
+
+    @Test
+    public void levelMaskFor() throws Exception {
+        final LogSampler sut = new LogSampler(1, Collections.singletonMap("com.example", 10),
+                Arrays.asList(Level.DEBUG, Level.TRACE), LogSampler.NO_KEY);
+
+        assertThat(sut.rateFor("com.example.Service"), is(10));
+        assertThat(sut.levelMaskFor("com.example.Service"), is((1 << Level.DEBUG.ordinal()) | (1 << Level.TRACE.ordinal())));
+        assertThat(sut.rateFor("org.other"), is(1));
+        assertThat(sut.levelMaskFor("org.other"), is(0));
+    }
+
+    @Test
+    public void sample_random() throws Exception {
+        final LogSampler sut = new LogSampler(10, Collections.<String, Integer>emptyMap(),
+                Collections.singletonList(Level.DEBUG), LogSampler.NO_KEY);
+
+        int sampled = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (sut.sample(10, null)) {
+                sampled++;
+            }
+        }
+        assertThat(String.valueOf(sampled), sampled > 9000 && sampled < 11000, is(true));
+    }
+
+    @Test
+    public void sample_keyArgument() throws Exception {
+        final LogSampler sut = new LogSampler(10, Collections.<String, Integer>emptyMap(),
+                Collections.singletonList(Level.DEBUG), 1);
+
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            final Object[] options = {"step", "request-" + i};
+            final boolean first = sut.sample(10, options);
+            // 同じキーの判定結果は常に同じになる
+            for (int j = 0; j < 3; j++) {
+                assertThat(sut.sample(10, new Object[] {"other step", "request-" + i}), is(first));
+            }
+            if (first) {
+                sampled++;
+            }
+        }
+        assertThat(String.valueOf(sampled), sampled > 800 && sampled < 1200, is(true));
+    }
+
+    @Test
+    public void sample_missingKeyArgumentUsesRequestId() throws Exception {
+        final LogSampler sut = new LogSampler(2, Collections.<String, Integer>emptyMap(),
+                Collections.singletonList(Level.DEBUG), 0);
+        final Supplier<String> lazy = () -> "request";
+
+        // キーとする値もリクエストIDもない場合は間引かない
+        for (int i = 0; i < 100; i++) {
+            assertThat(sut.sample(2, new Object[] {lazy}), is(true));
+            assertThat(sut.sample(2, new Object[0]), is(true));
+            assertThat(sut.sample(2, null), is(true));
+        }
+
+        // キーとする値がない場合は、同じリクエストIDを埋め込んだログと同じ判定結果になる
+        try {
+            int sampled = 0;
+            for (int i = 0; i < 1000; i++) {
+                ThreadContext.setRequestId("request-" + i);
+                final boolean expected = sut.sample(2, new Object[] {"request-" + i});
+                assertThat(sut.sample(2, new Object[] {lazy}), is(expected));
+                assertThat(sut.sample(2, new Object[] {null}), is(expected));
+                assertThat(sut.sample(2, null), is(expected));
+                if (expected) {
+                    sampled++;
+                }
+            }
+            assertThat(String.valueOf(sampled), sampled > 400 && sampled < 600, is(true));
+        } finally {
+            ThreadContext.clear();
+        }
+    }
+}
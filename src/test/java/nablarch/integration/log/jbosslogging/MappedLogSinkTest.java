@@ -0,0 +1,202 @@
+package nablarch.integration.log.jbosslogging;
+
+import nablarch.core.log.LogSettings;
+import nablarch.core.log.Logger;
+import org.jboss.logging.Logger.Level;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.MockedStatic;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mockStatic;
+
+/**
+ * {@link MappedLogSink}と{@link MappedLogReader}のテスト。
+ */
+public class MappedLogSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void append_concurrentWritersAcrossSegments() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final MappedLogSink sut = new MappedLogSink(directory, "test", 1024);
+        final int threads = 4;
+        final int records = 500;
+        final List<Thread> writers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int writer = t;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < records; i++) {
+                    sut.append(("writer" + writer + ' ' + i + '\n').getBytes(StandardCharsets.UTF_8));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        sut.close();
+
+        final List<String> lines = read(directory, "test");
+        assertThat(lines.size(), is(threads * records));
+        // 書き込みスレッド毎の順序は保たれる
+        final int[] next = new int[threads];
+        for (String line : lines) {
+            final String[] parts = line.trim().split(" ");
+            final int writer = Integer.parseInt(parts[0].substring("writer".length()));
+            assertThat(Integer.parseInt(parts[1]), is(next[writer]++));
+        }
+        assertThat(MappedLogSink.lastSequence(directory, "test") > 1, is(true));
+    }
+
+    @Test
+    public void recoverTail_discardsTornRecord() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final MappedLogSink first = new MappedLogSink(directory, "test", 4096);
+        first.append("record1\n".getBytes(StandardCharsets.UTF_8));
+        first.append("record2\n".getBytes(StandardCharsets.UTF_8));
+        first.close();
+
+        // 長さだけが書き込まれ、テキストが書き込まれていないレコードを作る
+        final Path segment = MappedLogSink.segmentPath(directory, "test", 0);
+        final int torn = 2 * MappedLogSink.align(MappedLogSink.HEADER_SIZE + "record1\n".length());
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(torn);
+            file.writeInt(100);
+            file.seek(torn + 1024);
+            file.writeInt(8);
+        }
+
+        final MappedLogSink second = new MappedLogSink(directory, "test", 4096);
+        second.append("record3\n".getBytes(StandardCharsets.UTF_8));
+        second.close();
+
+        assertThat(segment.toFile().length(), is((long) torn));
+        assertThat(read(directory, "test"), is(Arrays.asList("record1\n", "record2\n", "record3\n")));
+    }
+
+    @Test
+    public void append_truncatesOversizedRecord() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final MappedLogSink sut = new MappedLogSink(directory, "test", 1024);
+        final char[] text = new char[2000];
+        Arrays.fill(text, 'a');
+        sut.append(new String(text).getBytes(StandardCharsets.UTF_8));
+        sut.append("next\n".getBytes(StandardCharsets.UTF_8));
+        sut.close();
+
+        final List<String> lines = read(directory, "test");
+        assertThat(lines.size(), is(2));
+        assertThat(lines.get(0).length(), is(1024 - MappedLogSink.HEADER_SIZE));
+        assertThat(lines.get(1), is("next\n"));
+    }
+
+    @Test
+    public void logInfo_routedToMappedSink() throws Exception {
+        final RecordingLogger auditLogger = new RecordingLogger("audit.access");
+        final RecordingLogger recordingLogger = new RecordingLogger("other");
+        final Path directory = folder.getRoot().toPath();
+        System.setProperty("jbossLogging.mappedSink.directory", directory.toString());
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger("audit.access")).thenReturn(auditLogger);
+            mocked.when(() -> org.jboss.logging.Logger.getLogger("other")).thenReturn(recordingLogger);
+            auditLogger.threshold = Level.INFO;
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            factory.initialize(new LogSettings("classpath:nablarch/integration/log/jbosslogging/mappedSink.properties"));
+            final Logger audit = factory.get("audit.access");
+            final IllegalStateException exception = new IllegalStateException("test");
+            audit.logInfo("access {0}", "/index");
+            audit.logDebug("debug");
+            audit.logError("failed", exception);
+            factory.get("other").logInfo("other {0}", "logger");
+            factory.terminate();
+
+            // 対象外のロガーは委譲先ロガーに出力する
+            assertThat(auditLogger.records.isEmpty(), is(true));
+            assertThat(recordingLogger.records, is(Collections.singletonList("INFO other logger")));
+            final List<String> lines = read(directory, "audit");
+            assertThat(lines.size(), is(2));
+            assertThat(lines.get(0), endsWith(" INFO [" + Thread.currentThread().getName() + "] audit.access - access /index\n"));
+            assertThat(lines.get(1).contains(" ERROR [" + Thread.currentThread().getName() + "] audit.access - failed\n"
+                    + exception + '\n'), is(true));
+        } finally {
+            System.clearProperty("jbossLogging.mappedSink.directory");
+        }
+    }
+
+    @Test
+    public void append_lockHeldByAnotherSink() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final MappedLogSink owner = new MappedLogSink(directory, "test", 4096);
+        final MappedLogSink waiting = new MappedLogSink(directory, "test", 4096);
+        assertThat(owner.append("owner1\n".getBytes(StandardCharsets.UTF_8)), is(true));
+        // ロックを取得できない間は書き込まず、所有者のセグメントを切り詰めない
+        assertThat(waiting.append("waiting1\n".getBytes(StandardCharsets.UTF_8)), is(false));
+        assertThat(waiting.acquire(), is(false));
+        assertThat(owner.append("owner2\n".getBytes(StandardCharsets.UTF_8)), is(true));
+
+        owner.close();
+        // 停止後は書き込まない
+        assertThat(owner.append("owner3\n".getBytes(StandardCharsets.UTF_8)), is(false));
+        assertThat(waiting.acquire(), is(true));
+        assertThat(waiting.append("waiting2\n".getBytes(StandardCharsets.UTF_8)), is(true));
+        waiting.close();
+
+        assertThat(read(directory, "test"), is(Arrays.asList("owner1\n", "owner2\n", "waiting2\n")));
+    }
+
+    @Test
+    public void logInfo_reinitialize() throws Exception {
+        final RecordingLogger auditLogger = new RecordingLogger("audit.access");
+        final Path directory = folder.getRoot().toPath();
+        System.setProperty("jbossLogging.mappedSink.directory", directory.toString());
+        try (final MockedStatic<org.jboss.logging.Logger> mocked = mockStatic(org.jboss.logging.Logger.class)) {
+            mocked.when(() -> org.jboss.logging.Logger.getLogger("audit.access")).thenReturn(auditLogger);
+
+            final JbossLoggingLoggerFactory factory = new JbossLoggingLoggerFactory();
+            final LogSettings settings =
+                    new LogSettings("classpath:nablarch/integration/log/jbosslogging/mappedSink.properties");
+            factory.initialize(settings);
+            final Logger before = factory.get("audit.access");
+            before.logInfo("before");
+
+            factory.initialize(settings);
+            // 再初期化前に取得したロガーは、新しい出力先が切り詰めたセグメントに書き込まず、委譲先ロガーに出力する
+            before.logInfo("stale");
+            final Logger after = factory.get("audit.access");
+            after.logInfo("after");
+            factory.terminate();
+
+            assertThat(auditLogger.records, is(Collections.singletonList("INFO stale")));
+            final List<String> lines = read(directory, "audit");
+            assertThat(lines.size(), is(2));
+            assertThat(lines.get(0), endsWith(" audit.access - before\n"));
+            assertThat(lines.get(1), endsWith(" audit.access - after\n"));
+        } finally {
+            System.clearProperty("jbossLogging.mappedSink.directory");
+        }
+    }
+
+    private static List<String> read(final Path directory, final String prefix) throws Exception {
+        final List<String> lines = new CopyOnWriteArrayList<String>();
+        MappedLogReader.read(directory, prefix, lines::add);
+        return lines;
+    }
+}
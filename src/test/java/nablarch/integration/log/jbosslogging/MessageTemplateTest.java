@@ -0,0 +1,74 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link MessageTemplate}のテスト。
+ */
+public class MessageTemplateTest {
+
+    @Test
+    public void format_sameAsMessageFormat() throws Exception {
+        final Object[] options = {"abc", 1234567, new BigDecimal("1.23456"), null, new StringBuilder("sb"), 'c'};
+        final String[] patterns = {
+                "",
+                "message",
+                "{0}",
+                "{0}{1}{2}{3}{4}{5}",
+                "値:{0}, 数値:{1}, 小数:{2}, null:{3}, その他:{4}-{5}",
+                "{5}{4}{3}{2}{1}{0}{0}",
+                "範囲外:{6}, {10}, {00}",
+                "it''s {0}",
+                "'{0}' is quoted, '''{1}''' is not",
+                "unterminated 'quote {0}",
+                "brace } only",
+                "''''{1}''''",
+        };
+        for (String pattern : patterns) {
+            final MessageTemplate template = MessageTemplate.compile(pattern);
+            assertThat(pattern, template.isCompiled(), is(true));
+            assertThat(pattern, template.format(options), is(MessageFormat.format(pattern, options)));
+        }
+    }
+
+    @Test
+    public void format_numberAndDateFollowDefaultLocale() throws Exception {
+        final Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            final Object[] options = {1234.5678, new Date(0L)};
+            final MessageTemplate template = MessageTemplate.compile("{0} / {1}");
+
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            assertThat(template.format(options), is(MessageFormat.format("{0} / {1}", options)));
+
+            Locale.setDefault(Locale.Category.FORMAT, Locale.JAPAN);
+            assertThat(template.format(options), is(MessageFormat.format("{0} / {1}", options)));
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+
+    @Test
+    public void compile_notSupported() throws Exception {
+        final String[] patterns = {
+                "{0,number,#.##}",
+                "{0,date}",
+                "{ 0 }",
+                "{a}",
+                "{}",
+                "{0",
+                "{99999}",
+        };
+        for (String pattern : patterns) {
+            assertThat(pattern, MessageTemplate.compile(pattern).isCompiled(), is(false));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link RateLimiter}のテスト。
+ */
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void tryAcquire_dropsEventsOverRate() throws Exception {
+        final JbossLogger logger = new JbossLogger(new RecordingLogger("test"));
+        final RateLimiter sut = new RateLimiter(100, 2, Collections.<String, Integer>emptyMap(), 1000L);
+
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "error{0}", 2, 0L), is(true));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "error{0}", 2, 0L), is(true));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "error{0}", 2, 0L), is(false));
+
+        // 補充される前は破棄し、補充された分だけ出力できる
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "error{0}", 2, SECOND / 2 - 1), is(false));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "error{0}", 2, SECOND / 2), is(true));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "error{0}", 2, SECOND / 2), is(false));
+    }
+
+    @Test
+    public void tryAcquire_keyedByLevelAndMessage() throws Exception {
+        final JbossLogger logger = new JbossLogger(new RecordingLogger("test"));
+        final RateLimiter sut = new RateLimiter(100, 1, Collections.<String, Integer>emptyMap(), 1000L);
+
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "a", 1, 0L), is(true));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "a", 1, 0L), is(false));
+        assertThat(sut.tryAcquire(logger, Level.WARN, "a", 1, 0L), is(true));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, "b", 1, 0L), is(true));
+        assertThat(sut.tryAcquire(logger, Level.ERROR, null, 1, 0L), is(true));
+        assertThat(sut.size(), is(4));
+    }
+
+    @Test
+    public void tryAcquire_boundedKeys() throws Exception {
+        final JbossLogger logger = new JbossLogger(new RecordingLogger("test"));
+        final RateLimiter sut = new RateLimiter(10, 1, Collections.<String, Integer>emptyMap(), 1000L);
+
+        for (int i = 0; i < 1000; i++) {
+            sut.tryAcquire(logger, Level.ERROR, "message" + i, 1, 0L);
+        }
+        assertThat(sut.size() <= 10, is(true));
+    }
+
+    @Test
+    public void emitSummaries() throws Exception {
+        final RecordingLogger delegate = new RecordingLogger("test");
+        final JbossLogger logger = new JbossLogger(delegate);
+        final RateLimiter sut = new RateLimiter(100, 1, Collections.<String, Integer>emptyMap(), 30000L);
+
+        sut.emitSummaries(0L);
+        for (int i = 0; i < 5; i++) {
+            sut.tryAcquire(logger, Level.ERROR, "error{0}", 1, 0L);
+        }
+        sut.tryAcquire(logger, Level.WARN, "warn", 1, 0L);
+        sut.emitSummaries(30 * SECOND);
+        sut.emitSummaries(60 * SECOND);
+
+        // 停止時など、間隔より短い期間で出力した場合は実際の経過時間を出力する
+        sut.tryAcquire(logger, Level.ERROR, "error{0}", 1, 60 * SECOND);
+        sut.tryAcquire(logger, Level.ERROR, "error{0}", 1, 60 * SECOND);
+        sut.emitSummaries(60 * SECOND + SECOND / 4);
+
+        assertThat(delegate.records, is(Arrays.asList(
+                "ERROR suppressed 4 occurrences of [error{0}] in the last 30.0 seconds",
+                "ERROR suppressed 1 occurrences of [error{0}] in the last 250 milliseconds")));
+    }
+
+    @Test
+    public void formatPeriod() throws Exception {
+        assertThat(RateLimiter.formatPeriod(0L), is("0 milliseconds"));
+        assertThat(RateLimiter.formatPeriod(SECOND - 1), is("999 milliseconds"));
+        assertThat(RateLimiter.formatPeriod(SECOND), is("1.0 seconds"));
+        assertThat(RateLimiter.formatPeriod(SECOND * 3 / 2), is("1.5 seconds"));
+        assertThat(RateLimiter.formatPeriod(-1L), is("0 milliseconds"));
+    }
+
+    @Test
+    public void eventsPerSecondFor() throws Exception {
+        final Map<String, Integer> limits = new HashMap<String, Integer>();
+        limits.put("com.example", 5);
+        limits.put("com.example.noisy.Client", 1);
+        final RateLimiter sut = new RateLimiter(100, 100, limits, 1000L);
+
+        assertThat(sut.eventsPerSecondFor("com.example"), is(5));
+        assertThat(sut.eventsPerSecondFor("com.example.Foo"), is(5));
+        assertThat(sut.eventsPerSecondFor("com.example.noisy.Client"), is(1));
+        assertThat(sut.eventsPerSecondFor("com.examples.Foo"), is(100));
+        assertThat(sut.eventsPerSecondFor(""), is(100));
+    }
+}
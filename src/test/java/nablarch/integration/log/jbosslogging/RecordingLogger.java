@@ -0,0 +1,63 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.MDC;
+
+/**
+ * 出力されたログを記録するテスト用の{@link org.jboss.logging.Logger}。
+ */
+class RecordingLogger extends org.jboss.logging.Logger {
+
+    /** 記録したログ */
+    final List<String> records = new CopyOnWriteArrayList<String>();
+
+    /** 出力を許可するレベルの下限 */
+    volatile Level threshold = Level.TRACE;
+
+    /** 出力を待機させるためのラッチ */
+    volatile CountDownLatch gate;
+
+    /** ログと合わせて記録するMDCのキー */
+    volatile String mdcKey;
+
+    RecordingLogger(final String name) {
+        super(name);
+    }
+
+    @Override
+    public boolean isEnabled(final Level level) {
+        return level.ordinal() <= threshold.ordinal();
+    }
+
+    @Override
+    protected void doLog(final Level level, final String loggerClassName, final Object message,
+            final Object[] parameters, final Throwable thrown) {
+        final CountDownLatch latch = gate;
+        if (latch != null) {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!isEnabled(level)) {
+            return;
+        }
+        final String text = parameters == null || parameters.length == 0
+                ? String.valueOf(message) : MessageFormat.format(String.valueOf(message), parameters);
+        final String key = mdcKey;
+        records.add(level + " " + text + (thrown == null ? "" : " " + thrown)
+                + (key == null ? "" : " {" + key + '=' + MDC.get(key) + '}'));
+    }
+
+    @Override
+    protected void doLogf(final Level level, final String loggerClassName, final String format,
+            final Object[] parameters, final Throwable thrown) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,96 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.junit.Test;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link StackTraceCollapser}のテスト。
+ */
+public class StackTraceCollapserTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void fingerprint_sameStackTrace() throws Exception {
+        final Throwable[] errors = new Throwable[2];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = newError("message" + i);
+        }
+        assertThat(StackTraceCollapser.fingerprint(errors[0]), is(StackTraceCollapser.fingerprint(errors[1])));
+    }
+
+    @Test
+    public void fingerprint_differentStackTraceOrCause() throws Exception {
+        final Throwable error = newError("message");
+        final Throwable otherSite = new IllegalStateException("message");
+        final Throwable otherType = new IllegalArgumentException("message");
+        final Throwable withCause = newError("message");
+        withCause.initCause(new RuntimeException("cause"));
+
+        final long fingerprint = StackTraceCollapser.fingerprint(error);
+        assertThat(StackTraceCollapser.fingerprint(otherSite), is(not(fingerprint)));
+        assertThat(StackTraceCollapser.fingerprint(otherType), is(not(fingerprint)));
+        assertThat(StackTraceCollapser.fingerprint(withCause), is(not(fingerprint)));
+    }
+
+    @Test
+    public void fingerprintOf_cachedPerInstance() throws Exception {
+        final StackTraceCollapser sut = new StackTraceCollapser(10, 1000L);
+        final AtomicInteger copied = new AtomicInteger();
+        final Throwable error = new IllegalStateException("message") {
+            @Override
+            public StackTraceElement[] getStackTrace() {
+                copied.incrementAndGet();
+                return super.getStackTrace();
+            }
+        };
+
+        // 同じ例外を繰り返し出力しても、スタックトレースの複製は1回のみ
+        final long fingerprint = sut.fingerprintOf(error);
+        assertThat(sut.fingerprintOf(error), is(fingerprint));
+        assertThat(sut.fingerprintOf(error), is(fingerprint));
+        assertThat(copied.get(), is(1));
+        assertThat(fingerprint, is(StackTraceCollapser.fingerprint(error)));
+
+        // 同じスタックトレースの別のインスタンスは算出する
+        final Throwable[] errors = new Throwable[2];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = newError("message" + i);
+        }
+        assertThat(sut.fingerprintOf(errors[0]), is(sut.fingerprintOf(errors[1])));
+    }
+
+    @Test
+    public void shouldPrint() throws Exception {
+        final StackTraceCollapser sut = new StackTraceCollapser(10, 1000L);
+
+        assertThat(sut.shouldPrint(1L, 0L), is(true));
+        assertThat(sut.shouldPrint(1L, 0L), is(false));
+        assertThat(sut.shouldPrint(2L, 0L), is(true));
+        assertThat(sut.shouldPrint(1L, SECOND - 1), is(false));
+        assertThat(sut.shouldPrint(1L, SECOND), is(true));
+        assertThat(sut.shouldPrint(1L, SECOND), is(false));
+    }
+
+    @Test
+    public void withOmittedReference() throws Exception {
+        final Throwable error = new IllegalStateException("can't {0}");
+
+        assertThat(StackTraceCollapser.withOmittedReference("failed", error, 0xabcL, false),
+                is("failed [stack trace omitted: java.lang.IllegalStateException: can't {0}, stackTraceId=0000000000000abc]"));
+        // 書式化されるメッセージでは例外の概要がそのまま出力される
+        assertThat(MessageFormat.format(StackTraceCollapser.withOmittedReference("failed {0}", error, 0xabcL, true), "a"),
+                is("failed a [stack trace omitted: java.lang.IllegalStateException: can't {0}, stackTraceId=0000000000000abc]"));
+    }
+
+    private static Throwable newError(final String message) {
+        return new IllegalStateException(message);
+    }
+}
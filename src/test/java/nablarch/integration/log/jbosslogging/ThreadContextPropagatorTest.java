@@ -0,0 +1,135 @@
+package nablarch.integration.log.jbosslogging;
+
+import java.util.Arrays;
+
+import nablarch.core.ThreadContext;
+import org.jboss.logging.LoggerProvider;
+import org.jboss.logging.MDC;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ThreadContextPropagator}のテスト。
+ */
+public class ThreadContextPropagatorTest {
+
+    private final ThreadContextPropagator sut = new ThreadContextPropagator(
+            Arrays.asList(ThreadContext.REQUEST_ID_KEY, ThreadContext.USER_ID_KEY), Arrays.asList("requestId", "user"),
+            new MdcAccessor(null));
+
+    @After
+    public void tearDown() throws Exception {
+        ThreadContext.clear();
+        MDC.clear();
+    }
+
+    @Test
+    public void capture() throws Exception {
+        final ThreadContextPropagator.Snapshot empty = sut.capture();
+        assertThat(sut.capture(), is(sameInstance(empty)));
+
+        ThreadContext.setRequestId("req-1");
+        ThreadContext.setUserId("user-1");
+        final ThreadContextPropagator.Snapshot first = sut.capture();
+        assertThat(first, is(not(sameInstance(empty))));
+
+        // 値が変わらない間は同じスナップショットを返す
+        assertThat(sut.capture(), is(sameInstance(first)));
+
+        ThreadContext.setRequestId("req-2");
+        final ThreadContextPropagator.Snapshot second = sut.capture();
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(sut.capture(), is(sameInstance(second)));
+    }
+
+    @Test
+    public void install() throws Exception {
+        ThreadContext.setRequestId("req-1");
+        ThreadContext.setUserId("user-1");
+        final ThreadContextPropagator.Snapshot first = sut.capture();
+
+        // 別スレッドで取得したスナップショットも反映できる
+        final ThreadContextPropagator.Snapshot[] other = new ThreadContextPropagator.Snapshot[1];
+        final Thread thread = new Thread(() -> {
+            ThreadContext.clear();
+            ThreadContext.setRequestId("req-other");
+            other[0] = sut.capture();
+        });
+        thread.start();
+        thread.join();
+
+        sut.install(first);
+        assertThat(MDC.get("requestId"), is((Object) "req-1"));
+        assertThat(MDC.get("user"), is((Object) "user-1"));
+
+        sut.install(other[0]);
+        assertThat(MDC.get("requestId"), is((Object) "req-other"));
+        assertThat(MDC.get("user"), is(nullValue()));
+
+        // 他の処理がMDCを消去した場合も、次の反映で復元する
+        MDC.clear();
+        sut.install(first);
+        assertThat(MDC.get("requestId"), is((Object) "req-1"));
+        assertThat(MDC.get("user"), is((Object) "user-1"));
+    }
+
+    @Test
+    public void installTemporarily() throws Exception {
+        MDC.put("requestId", "application");
+        ThreadContext.setUserId("user-1");
+        final ThreadContextPropagator.Snapshot snapshot = sut.capture();
+
+        final Object[] previous = sut.installTemporarily(snapshot);
+        assertThat(MDC.get("requestId"), is(nullValue()));
+        assertThat(MDC.get("user"), is((Object) "user-1"));
+
+        // 反映前の値に戻し、反映前に存在しなかったキーは削除する
+        sut.restore(previous);
+        assertThat(MDC.get("requestId"), is((Object) "application"));
+        assertThat(MDC.get("user"), is(nullValue()));
+
+        // 書き換えるキーがない場合は何もしない
+        MDC.put("requestId", "application");
+        ThreadContext.clear();
+        final ThreadContextPropagator.Snapshot empty = sut.capture();
+        MDC.remove("requestId");
+        assertThat(sut.installTemporarily(empty), is(nullValue()));
+        sut.restore(null);
+    }
+
+    @Test
+    public void install_explicitProvider() throws Exception {
+        final LoggerProvider provider = mock(LoggerProvider.class);
+        when(provider.getMdc("user")).thenReturn("user-1");
+        final ThreadContextPropagator propagator = new ThreadContextPropagator(
+                Arrays.asList(ThreadContext.REQUEST_ID_KEY, ThreadContext.USER_ID_KEY), Arrays.asList("requestId", "user"),
+                new MdcAccessor(provider));
+
+        ThreadContext.setRequestId("req-1");
+        ThreadContext.setUserId("user-1");
+        propagator.install(propagator.capture());
+
+        // 指定したプロバイダのMDCに反映し、jboss-loggingが探索したプロバイダのMDCは操作しない
+        verify(provider).putMdc("requestId", "req-1");
+        verify(provider, never()).putMdc("user", "user-1");
+        assertThat(MDC.get("requestId"), is(nullValue()));
+    }
+
+    @Test
+    public void defaultMdcKey() throws Exception {
+        assertThat(ThreadContextPropagator.defaultMdcKey(ThreadContext.REQUEST_ID_KEY), is("requestId"));
+        assertThat(ThreadContextPropagator.defaultMdcKey(ThreadContext.INTERNAL_REQUEST_ID_KEY), is("internalRequestId"));
+        assertThat(ThreadContextPropagator.defaultMdcKey(ThreadContext.LANG_KEY), is("lang"));
+        assertThat(ThreadContextPropagator.defaultMdcKey("_custom__key"), is("customKey"));
+    }
+}
@@ -0,0 +1,94 @@
+package nablarch.integration.log.jbosslogging;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+
+import java.util.Arrays;
+
+import org.jboss.logging.Logger.Level;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * {@link TypedLoggers}のテスト。
+ */
+public class TypedLoggersTest {
+
+    @TypedLogger
+    public interface OrderLog {
+
+        @LogMessage(level = Level.INFO, value = "order accepted. id = [{0}], amount = [{1}]")
+        void orderAccepted(String id, long amount);
+
+        @LogMessage(level = Level.ERROR, value = "payment failed. id = [{0}]")
+        void paymentFailed(String id, @Cause Throwable cause);
+    }
+
+    @TypedLogger
+    public interface NotGenerated {
+    }
+
+    @Test
+    public void create() {
+        final RecordingLogger recording = new RecordingLogger("test");
+        final OrderLog sut = TypedLoggers.create(OrderLog.class, new JbossLogger(recording));
+        assertThat(sut, instanceOf(TypedLoggersTest_OrderLog_JbossLogger.class));
+
+        sut.orderAccepted("A-1", 1000L);
+        sut.paymentFailed("A-2", new IllegalStateException("declined"));
+        recording.threshold = Level.WARN;
+        sut.orderAccepted("A-3", 1L);
+
+        assertThat(recording.records, is(Arrays.asList(
+                "INFO order accepted. id = [A-1], amount = [1000]",
+                "ERROR payment failed. id = [A-2] java.lang.IllegalStateException: declined")));
+    }
+
+    @Test
+    public void create_notGenerated() {
+        try {
+            TypedLoggers.create(NotGenerated.class, new JbossLogger(new RecordingLogger("test")));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("typed logger implementation not found."));
+            assertThat(e.getCause(), instanceOf(ClassNotFoundException.class));
+        }
+    }
+
+    @Test
+    public void implementationName() {
+        assertThat(TypedLoggers.implementationName(OrderLog.class),
+                is("nablarch.integration.log.jbosslogging.TypedLoggersTest_OrderLog_JbossLogger"));
+    }
+
+    @Test
+    public void get() {
+        final RecordingLogger recording = new RecordingLogger("order");
+        try (final MockedStatic<LoggerManager> mocked = mockStatic(LoggerManager.class)) {
+            mocked.when(() -> LoggerManager.get("order")).thenReturn(new JbossLogger(recording));
+
+            TypedLoggers.get(OrderLog.class, "order").orderAccepted("A-1", 1L);
+        }
+        assertThat(recording.records, is(Arrays.asList("INFO order accepted. id = [A-1], amount = [1]")));
+    }
+
+    @Test
+    public void get_notJbossLogger() {
+        try (final MockedStatic<LoggerManager> mocked = mockStatic(LoggerManager.class)) {
+            mocked.when(() -> LoggerManager.get("order")).thenReturn(mock(Logger.class));
+
+            TypedLoggers.get(OrderLog.class, "order");
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("logger is not a JbossLogger."));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package nablarch.integration.log.jbosslogging;
+
+/**
+ * {@link TypedLoggersTest.OrderLog}の実装クラス。
+ * <p>
+ * アノテーションプロセッサが生成するクラスと同じ内容とする。
+ */
+@javax.annotation.processing.Generated("nablarch.integration.log.jbosslogging.processor.TypedLoggerProcessor")
+public final class TypedLoggersTest_OrderLog_JbossLogger implements nablarch.integration.log.jbosslogging.TypedLoggersTest.OrderLog {
+
+    private final nablarch.integration.log.jbosslogging.JbossLogger logger;
+
+    public TypedLoggersTest_OrderLog_JbossLogger(final nablarch.integration.log.jbosslogging.JbossLogger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void orderAccepted(final java.lang.String id, final long amount) {
+        if (this.logger.isInfoEnabled()) {
+            this.logger.logFormatted(org.jboss.logging.Logger.Level.INFO,
+                    "order accepted. id = [{0}], amount = [{1}]", "order accepted. id = [" + id + "], amount = [" + amount + "]", null);
+        }
+    }
+
+    @Override
+    public void paymentFailed(final java.lang.String id, final java.lang.Throwable cause) {
+        if (this.logger.isErrorEnabled()) {
+            this.logger.logFormatted(org.jboss.logging.Logger.Level.ERROR,
+                    "payment failed. id = [{0}]", "payment failed. id = [" + id + "]", cause);
+        }
+    }
+}
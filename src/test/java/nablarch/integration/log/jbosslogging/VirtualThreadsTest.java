@@ -0,0 +1,34 @@
+package nablarch.integration.log.jbosslogging;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * {@link VirtualThreads}のテスト。
+ */
+public class VirtualThreadsTest {
+
+    @Test
+    public void isSupported() throws Exception {
+        assertThat(VirtualThreads.isSupported(), is(Runtime.version().feature() >= 21));
+    }
+
+    @Test
+    public void platformThread() throws Exception {
+        assertThat(VirtualThreads.isVirtual(Thread.currentThread()), is(false));
+    }
+
+    @Test
+    public void virtualThread() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        final boolean[] virtual = new boolean[1];
+        final Thread thread = (Thread) Thread.class.getMethod("startVirtualThread", Runnable.class)
+                .invoke(null, (Runnable) () -> virtual[0] = VirtualThreads.isVirtual(Thread.currentThread()));
+        thread.join();
+        assertThat(virtual[0], is(true));
+        assertThat(VirtualThreads.isVirtual(thread), is(true));
+    }
+}